@@ -0,0 +1,99 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihProtokollierer;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * Erzeugt Kunden und Medien im Speicher für die Benchmarks, die keine
+ * Dateien einlesen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+final class BestandFabrik
+{
+    private BestandFabrik()
+    {
+    }
+
+    /**
+     * Erzeugt Kunden mit fortlaufenden Kundennummern ab
+     * BestandGenerator.ERSTE_KUNDENNUMMER.
+     */
+    static List<Kunde> erzeugeKunden(int anzahl)
+    {
+        List<Kunde> kunden = new ArrayList<Kunde>(anzahl);
+        for (int i = 0; i < anzahl; ++i)
+        {
+            kunden.add(new Kunde(
+                    new Kundennummer(BestandGenerator.ERSTE_KUNDENNUMMER + i),
+                    "Vorname" + i, "Nachname" + i));
+        }
+        return kunden;
+    }
+
+    /**
+     * Erzeugt Medien aller vier Medientypen im Wechsel.
+     */
+    static List<Medium> erzeugeMedien(int anzahl)
+    {
+        List<Medium> medien = new ArrayList<Medium>(anzahl);
+        for (int i = 0; i < anzahl; ++i)
+        {
+            String titel = "Titel " + i;
+            switch (i % 4)
+            {
+            case 0:
+                medien.add(new CD(titel, "Kommentar", "Interpret", 60));
+                break;
+            case 1:
+                medien.add(new DVD(titel, "Kommentar", "Regisseur", 120));
+                break;
+            case 2:
+                medien.add(new KonsolenVideospiel(titel, "Kommentar", "Wii"));
+                break;
+            default:
+                medien.add(new PCVideospiel(titel, "Kommentar", "Linux"));
+            }
+        }
+        return medien;
+    }
+
+    /**
+     * Ein VerleihProtokollierer, der nichts schreibt, damit die Benchmarks
+     * nicht die Dateizugriffe des Protokolls messen. Er überschreibt alle
+     * öffentlichen Einstiegspunkte, da die Services je nach Vorgang einzelne
+     * Verleihkarten oder ganze Listen protokollieren.
+     */
+    static class StummerProtokollierer extends VerleihProtokollierer
+    {
+        @Override
+        public void protokolliere(String ereignis, Verleihkarte verleihkarte)
+                throws ProtokollierException
+        {
+        }
+
+        @Override
+        public void protokolliere(String ereignis,
+                List<Verleihkarte> verleihkarten) throws ProtokollierException
+        {
+        }
+
+        @Override
+        public void protokolliere(VerleihEreignis ereignis,
+                Verleihkarte verleihkarte) throws ProtokollierException
+        {
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Ein BestandGenerator schreibt synthetische Bestandsdateien im Format von
+ * kundenstamm.txt und medienbestand.txt. Die Daten sind zufällig, aber für
+ * einen festen Startwert reproduzierbar, und ähneln in Feldlängen, Medienmix
+ * und Anteil verliehener Medien dem echten Bestand.
+ * 
+ * Aufruf: BestandGenerator verzeichnis anzahlMedien [anzahlKunden]
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public final class BestandGenerator
+{
+    /**
+     * Der Dateiname des Kundenstamms im Zielverzeichnis.
+     */
+    public static final String KUNDEN_DATEI = "kundenstamm.txt";
+
+    /**
+     * Der Dateiname des Medienbestands im Zielverzeichnis.
+     */
+    public static final String MEDIEN_DATEI = "medienbestand.txt";
+
+    /**
+     * Die kleinste und die größte sechsstellige Kundennummer.
+     */
+    public static final int ERSTE_KUNDENNUMMER = 100000;
+    public static final int MAX_ANZAHL_KUNDEN = 900000;
+
+    private static final String[] VORNAMEN = {"Susi", "Kai", "Klaus",
+            "Julia", "Katarina", "Anna", "John", "Lara", "Jörg", "Mehmet",
+            "Sophie", "Lukas", "Mia", "Finn", "Emma", "Paul", "Hannah",
+            "Ben", "Lea", "Jonas"};
+
+    private static final String[] NACHNAMEN = {"Sonnenschein", "Konrad",
+            "Müller", "Schmidt", "Klum", "Kurnikowa", "Croft", "Schneider",
+            "Fischer", "Weber", "Meyer", "Wagner", "Becker", "Schulz",
+            "Hoffmann", "Koch", "Richter", "Yilmaz", "Wolf", "Neumann"};
+
+    private static final String[] STRASSEN = {"Sonnenallee", "Kannenweg",
+            "Müllerweg", "Julianenallee", "Ottensener Strasse", "Osterweg",
+            "Vogt-Kölln-Straße", "Bundesstraße", "Grindelallee",
+            "Max-Brauer-Allee"};
+
+    private static final String[][] ORTE = {{"22760", "Hamburg"},
+            {"21868", "Stade"}, {"24103", "Kiel"}, {"60311", "Frankfurt"},
+            {"80331", "München"}, {"50667", "Köln"}, {"10115", "Berlin"},
+            {"28195", "Bremen"}};
+
+    private static final String[] TITELWOERTER = {"Greatest", "Hits",
+            "Garden", "State", "Pirates", "Caribbean", "Ende", "Welt",
+            "Abenteuer", "Nacht", "Sommer", "Stadt", "Reise", "Zeit", "Herz",
+            "Sterne", "Meer", "Legende", "Rückkehr", "Geheimnis"};
+
+    private static final String[] KOMMENTARE = {" ", "Soundtrack",
+            "2 wundervolle Scheiben", "Abenteuer des Cpt. Jack Sparrow",
+            "Wie fit ist ihr Gehirn?", "Neuauflage mit Bonusmaterial",
+            "leicht zerkratzt", "Director's Cut"};
+
+    private static final String[] KUENSTLER = {"Billy Joel", "Various",
+            "Katy Perry", "Gore Verbinski", "Sofia Coppola", "Die Ärzte",
+            "Fatih Akin", "Helene Fischer", "Christopher Nolan",
+            "Udo Lindenberg"};
+
+    private static final String[] KONSOLEN = {"Nintendo DS", "Wii",
+            "Playstation 4", "Xbox One", "Nintendo Switch"};
+
+    private static final String[] BETRIEBSSYSTEME = {"Windows", "Linux",
+            "Mac OS"};
+
+    /**
+     * Der Anteil der Medien, die verliehen sind, in Prozent.
+     */
+    private static final int VERLIEHEN_PROZENT = 15;
+
+    private final Random _zufall;
+
+    /**
+     * Initialisiert einen neuen BestandGenerator.
+     * 
+     * @param startwert Der Startwert des Zufallsgenerators.
+     */
+    public BestandGenerator(long startwert)
+    {
+        _zufall = new Random(startwert);
+    }
+
+    /**
+     * Liefert eine zur Anzahl der Medien passende Anzahl von Kunden: ein
+     * Kunde auf zehn Medien, mindestens 100 und höchstens
+     * MAX_ANZAHL_KUNDEN.
+     * 
+     * @param anzahlMedien Die Anzahl der Medien.
+     * 
+     * @require anzahlMedien >= 0
+     */
+    public static int passendeAnzahlKunden(int anzahlMedien)
+    {
+        assert anzahlMedien >= 0 : "Vorbedingung verletzt: anzahlMedien >= 0";
+        return Math.min(MAX_ANZAHL_KUNDEN, Math.max(100, anzahlMedien / 10));
+    }
+
+    /**
+     * Schreibt einen Kundenstamm und einen Medienbestand in das angegebene
+     * Verzeichnis. Die Dateien werden im Standard-Zeichensatz geschrieben, in
+     * dem auch der DatenEinleser liest.
+     * 
+     * @param verzeichnis Das Zielverzeichnis, es wird bei Bedarf angelegt.
+     * @param anzahlKunden Die Anzahl der Kunden.
+     * @param anzahlMedien Die Anzahl der Medien.
+     * @throws IOException wenn die Dateien nicht geschrieben werden konnten.
+     * 
+     * @require verzeichnis != null
+     * @require anzahlKunden > 0 && anzahlKunden <= MAX_ANZAHL_KUNDEN
+     * @require anzahlMedien >= 0
+     */
+    public void schreibeBestand(File verzeichnis, int anzahlKunden,
+            int anzahlMedien) throws IOException
+    {
+        assert verzeichnis != null : "Vorbedingung verletzt: verzeichnis != null";
+        assert anzahlKunden > 0
+                && anzahlKunden <= MAX_ANZAHL_KUNDEN : "Vorbedingung verletzt: anzahlKunden > 0 && anzahlKunden <= MAX_ANZAHL_KUNDEN";
+        assert anzahlMedien >= 0 : "Vorbedingung verletzt: anzahlMedien >= 0";
+
+        verzeichnis.mkdirs();
+        try (Writer writer = new BufferedWriter(
+                new FileWriter(new File(verzeichnis, KUNDEN_DATEI)), 1 << 16))
+        {
+            for (int i = 0; i < anzahlKunden; ++i)
+            {
+                schreibeKunde(writer, ERSTE_KUNDENNUMMER + i);
+            }
+        }
+        try (Writer writer = new BufferedWriter(
+                new FileWriter(new File(verzeichnis, MEDIEN_DATEI)), 1 << 16))
+        {
+            Datum heute = Datum.heute();
+            for (int i = 0; i < anzahlMedien; ++i)
+            {
+                schreibeMedium(writer, i, anzahlKunden, heute);
+            }
+        }
+    }
+
+    /**
+     * Schreibt eine Zeile des Kundenstamms.
+     */
+    private void schreibeKunde(Writer writer, int kundennummer)
+            throws IOException
+    {
+        String[] ort = waehle(ORTE);
+        writer.write(String.valueOf(kundennummer));
+        writer.write(';');
+        writer.write(waehle(VORNAMEN));
+        writer.write(';');
+        writer.write(waehle(NACHNAMEN));
+        writer.write(';');
+        writer.write(waehle(STRASSEN));
+        writer.write(' ');
+        writer.write(String.valueOf(1 + _zufall.nextInt(200)));
+        writer.write(';');
+        writer.write(ort[0]);
+        writer.write(';');
+        writer.write(ort[1]);
+        writer.write('\n');
+    }
+
+    /**
+     * Schreibt eine Zeile des Medienbestands.
+     */
+    private void schreibeMedium(Writer writer, int nummer, int anzahlKunden,
+            Datum heute) throws IOException
+    {
+        if (_zufall.nextInt(100) < VERLIEHEN_PROZENT)
+        {
+            writer.write(heute.minus(_zufall.nextInt(60))
+                .toString());
+            writer.write(';');
+            writer.write(String
+                .valueOf(ERSTE_KUNDENNUMMER + _zufall.nextInt(anzahlKunden)));
+        }
+        else
+        {
+            writer.write(" ; ");
+        }
+        writer.write(';');
+
+        int typ = _zufall.nextInt(10);
+        String titel = waehle(TITELWOERTER) + " " + waehle(TITELWOERTER)
+                + " " + nummer;
+        String kommentar = waehle(KOMMENTARE);
+        if (typ < 4)
+        {
+            schreibeFelder(writer, "CD", titel, kommentar, waehle(KUENSTLER),
+                    String.valueOf(30 + _zufall.nextInt(90)));
+        }
+        else if (typ < 7)
+        {
+            schreibeFelder(writer, "DVD", titel, kommentar, waehle(KUENSTLER),
+                    String.valueOf(80 + _zufall.nextInt(100)));
+        }
+        else if (typ < 9)
+        {
+            schreibeFelder(writer, "KonsolenVideospiel", titel, kommentar,
+                    waehle(KONSOLEN));
+        }
+        else
+        {
+            schreibeFelder(writer, "PCVideospiel", titel, kommentar,
+                    waehle(BETRIEBSSYSTEME));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Schreibt die Felder durch ";" getrennt.
+     */
+    private static void schreibeFelder(Writer writer, String... felder)
+            throws IOException
+    {
+        for (int i = 0; i < felder.length; ++i)
+        {
+            if (i > 0)
+            {
+                writer.write(';');
+            }
+            writer.write(felder[i]);
+        }
+    }
+
+    private <T> T waehle(T[] werte)
+    {
+        return werte[_zufall.nextInt(werte.length)];
+    }
+
+    /**
+     * Erzeugt einen synthetischen Bestand.
+     * 
+     * @param args verzeichnis anzahlMedien [anzahlKunden]
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.err.println(
+                    "Aufruf: BestandGenerator verzeichnis anzahlMedien [anzahlKunden]");
+            System.exit(1);
+        }
+        int anzahlMedien = Integer.parseInt(args[1]);
+        int anzahlKunden = args.length > 2 ? Integer.parseInt(args[2])
+                : passendeAnzahlKunden(anzahlMedien);
+        new BestandGenerator(42).schreibeBestand(new File(args[0]),
+                anzahlKunden, anzahlMedien);
+    }
+}
@@ -0,0 +1,86 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DateiLeseException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DatenEinleser;
+
+/**
+ * Misst das Einlesen synthetischer Bestandsdateien, die vor jeder Messreihe
+ * vom BestandGenerator erzeugt werden, sequentiell und parallel.
+ * 
+ * Die großen Bestände brauchen einige hundert MB Plattenplatz im
+ * temporären Verzeichnis und entsprechend Heap.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DatenEinleserBenchmark
+{
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int _anzahlZeilen;
+
+    private File _verzeichnis;
+    private DatenEinleser _einleser;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        _verzeichnis = Files.createTempDirectory("bestand")
+            .toFile();
+        int anzahlKunden = BestandGenerator
+            .passendeAnzahlKunden(_anzahlZeilen);
+        new BestandGenerator(42).schreibeBestand(_verzeichnis, anzahlKunden,
+                _anzahlZeilen - anzahlKunden);
+        _einleser = new DatenEinleser(
+                new File(_verzeichnis, BestandGenerator.MEDIEN_DATEI),
+                new File(_verzeichnis, BestandGenerator.KUNDEN_DATEI));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        new File(_verzeichnis, BestandGenerator.MEDIEN_DATEI).delete();
+        new File(_verzeichnis, BestandGenerator.KUNDEN_DATEI).delete();
+        _verzeichnis.delete();
+    }
+
+    @Benchmark
+    public List<Medium> leseDaten() throws DateiLeseException
+    {
+        _einleser.leseDaten();
+        return _einleser.getMedien();
+    }
+
+    @Benchmark
+    public List<Medium> leseDatenParallel() throws DateiLeseException
+    {
+        _einleser.leseDaten(ForkJoinPool.commonPool());
+        return _einleser.getMedien();
+    }
+}
@@ -0,0 +1,76 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Misst die Tagesrechnung von Datum. Die Messungen laufen mit mehreren
+ * Threads, damit gemeinsam genutzte Sperren auffallen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DatumBenchmark
+{
+    private Datum _datum;
+    private Datum _anderesDatum;
+    private int _tage;
+
+    @Setup
+    public void setUp()
+    {
+        _datum = new Datum(15, 3, 2021);
+        _anderesDatum = new Datum(29, 2, 2020);
+        _tage = 400;
+    }
+
+    @Benchmark
+    public Datum plus()
+    {
+        return _datum.plus(_tage);
+    }
+
+    @Benchmark
+    public Datum minus()
+    {
+        return _datum.minus(_tage);
+    }
+
+    @Benchmark
+    public int tageSeit()
+    {
+        return _datum.tageSeit(_anderesDatum);
+    }
+
+    @Benchmark
+    public int compareTo()
+    {
+        return _datum.compareTo(_anderesDatum);
+    }
+
+    @Benchmark
+    public boolean istGueltig()
+    {
+        return Datum.istGueltig(29, 2, 2000 + (_tage & 7));
+    }
+}
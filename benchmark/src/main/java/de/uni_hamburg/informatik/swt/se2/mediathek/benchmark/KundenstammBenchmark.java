@@ -0,0 +1,81 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * Misst die Suche eines Kunden nach seiner Kundennummer und die Suche nach
+ * einem Namensanfang im KundenstammServiceImpl. Gesucht werden bekannte
+ * Kundennummern und Nachnamen in zufälliger Reihenfolge.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KundenstammBenchmark
+{
+    private static final int MAX_TREFFER = 20;
+
+    @Param({"1000", "100000", "900000"})
+    public int _anzahlKunden;
+
+    private KundenstammService _kundenstamm;
+    private List<Kundennummer> _kundennummern;
+    private int _naechste;
+
+    @Setup
+    public void setUp()
+    {
+        List<Kunde> kunden = BestandFabrik.erzeugeKunden(_anzahlKunden);
+        _kundenstamm = new KundenstammServiceImpl(kunden);
+        _kundennummern = new ArrayList<Kundennummer>(kunden.size());
+        for (Kunde kunde : kunden)
+        {
+            _kundennummern.add(new Kundennummer(Integer.parseInt(kunde
+                .getKundennummer()
+                .toString())));
+        }
+        Collections.shuffle(_kundennummern, new Random(42));
+    }
+
+    @Benchmark
+    public Kunde getKunden()
+    {
+        _naechste = (_naechste + 1) % _kundennummern.size();
+        return _kundenstamm.getKunden(_kundennummern.get(_naechste));
+    }
+
+    @Benchmark
+    public List<Kunde> sucheKunden()
+    {
+        // Kurze Nachnamen wie "nachname12" sind Anfang vieler weiterer Namen
+        _naechste = (_naechste + 1) % _kundennummern.size();
+        return _kundenstamm.sucheKunden("Nachname" + (_naechste % 100),
+                MAX_TREFFER);
+    }
+}
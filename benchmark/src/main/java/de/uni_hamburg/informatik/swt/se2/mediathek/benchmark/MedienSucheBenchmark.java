@@ -0,0 +1,67 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.suche.MedienSucheService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.suche.MedienSucheServiceImpl;
+
+/**
+ * Misst Anfragen an den MedienSucheServiceImpl: ein vollständiges Wort, das
+ * genau ein Medium trifft, und ein kurzer Wortanfang zusammen mit einem
+ * häufigen Wort, der viele Medien trifft.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MedienSucheBenchmark
+{
+    private static final int MAX_TREFFER = 50;
+
+    @Param({"10000", "1000000"})
+    public int _anzahlMedien;
+
+    private MedienSucheService _suche;
+    private String _einzelnerTreffer;
+
+    @Setup
+    public void setUp()
+    {
+        List<Medium> medien = BestandFabrik.erzeugeMedien(_anzahlMedien);
+        _suche = new MedienSucheServiceImpl(
+                new MedienbestandServiceImpl(medien));
+        _einzelnerTreffer = "titel " + (_anzahlMedien / 2);
+    }
+
+    @Benchmark
+    public List<Medium> sucheEinzelnenTreffer()
+    {
+        return _suche.sucheMedien(_einzelnerTreffer, MAX_TREFFER);
+    }
+
+    @Benchmark
+    public List<Medium> sucheWortanfang()
+    {
+        return _suche.sucheMedien("12 wii", MAX_TREFFER);
+    }
+}
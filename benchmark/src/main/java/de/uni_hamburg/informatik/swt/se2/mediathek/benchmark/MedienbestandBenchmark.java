@@ -0,0 +1,124 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.SpaltenMedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DateiLeseException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DatenEinleser;
+
+/**
+ * Vergleicht den MedienbestandServiceImpl mit dem
+ * SpaltenMedienbestandServiceImpl: das Laden einer synthetischen
+ * Bestandsdatei, einmal als Medium-Objekte und einmal direkt in die Spalten,
+ * und eine Suche nach langen DVDs über den geladenen Bestand.
+ *
+ * Die Heap- und GC-Last zeigt der GC-Profiler von JMH (-prof gc):
+ * gc.alloc.rate.norm ist der pro Aufruf im Heap angelegte Speicher, gc.count
+ * und gc.time die dabei ausgelösten Garbage Collections.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MedienbestandBenchmark
+{
+    private static final int LAUFZEIT = 120;
+
+    @Param({"100000", "1000000"})
+    public int _anzahlMedien;
+
+    private File _verzeichnis;
+    private DatenEinleser _einleser;
+    private List<Medium> _medien;
+    private SpaltenMedienbestandServiceImpl _spaltenbestand;
+
+    @Setup
+    public void setUp() throws IOException, DateiLeseException
+    {
+        _verzeichnis = Files.createTempDirectory("bestand")
+            .toFile();
+        new BestandGenerator(42).schreibeBestand(_verzeichnis,
+                BestandGenerator.passendeAnzahlKunden(_anzahlMedien),
+                _anzahlMedien);
+        _einleser = new DatenEinleser(
+                new File(_verzeichnis, BestandGenerator.MEDIEN_DATEI),
+                new File(_verzeichnis, BestandGenerator.KUNDEN_DATEI));
+        _medien = ladeObjekte().getMedien();
+        _spaltenbestand = ladeSpalten();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        new File(_verzeichnis, BestandGenerator.MEDIEN_DATEI).delete();
+        new File(_verzeichnis, BestandGenerator.KUNDEN_DATEI).delete();
+        _verzeichnis.delete();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public MedienbestandService ladeObjekte() throws DateiLeseException
+    {
+        _einleser.leseDaten();
+        return new MedienbestandServiceImpl(_einleser.getMedien());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public SpaltenMedienbestandServiceImpl ladeSpalten()
+            throws DateiLeseException
+    {
+        SpaltenMedienbestandServiceImpl bestand = new SpaltenMedienbestandServiceImpl();
+        _einleser.leseDaten(bestand.getEinleseEmpfaenger());
+        return bestand;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public List<Medium> sucheLangeDVDsInObjekten()
+    {
+        List<Medium> treffer = new ArrayList<Medium>();
+        for (Medium medium : _medien)
+        {
+            if (medium instanceof DVD
+                    && ((DVD) medium).getLaufzeit() > LAUFZEIT)
+            {
+                treffer.add(medium);
+            }
+        }
+        return treffer;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public List<Medium> sucheLangeDVDsInSpalten()
+    {
+        return _spaltenbestand.sucheLaengerAls("DVD", LAUFZEIT);
+    }
+}
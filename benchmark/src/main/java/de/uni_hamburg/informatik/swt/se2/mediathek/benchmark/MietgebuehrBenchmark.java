@@ -0,0 +1,54 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Geldbetrag;
+
+/**
+ * Misst Medium.berechneMietgebuehr für alle vier Medientypen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MietgebuehrBenchmark
+{
+    @Param({"1", "7", "30"})
+    public int _mietTage;
+
+    private List<Medium> _medien;
+    private int _naechstes;
+
+    @Setup
+    public void setUp()
+    {
+        _medien = BestandFabrik.erzeugeMedien(4);
+    }
+
+    @Benchmark
+    public Geldbetrag berechneMietgebuehr()
+    {
+        _naechstes = (_naechstes + 1) & 3;
+        return _medien.get(_naechstes)
+            .berechneMietgebuehr(_mietTage);
+    }
+}
@@ -0,0 +1,85 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihJournal;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Misst das Sichern einer Ausleihe im VerleihJournal, wenn mehrere Theken
+ * gleichzeitig verleihen und sich die Synchronisationen mit dem Datenträger
+ * teilen.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class VerleihJournalBenchmark
+{
+    private static final int ANZAHL_MEDIEN = 10000;
+    private static final long BESTANDSKENNUNG = 1;
+
+    private File _datei;
+    private VerleihJournal _journal;
+    private Verleihkarte[] _verleihkarten;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, ProtokollierException
+    {
+        List<Medium> medien = BestandFabrik.erzeugeMedien(ANZAHL_MEDIEN);
+        List<Kunde> kunden = BestandFabrik.erzeugeKunden(
+                BestandGenerator.passendeAnzahlKunden(ANZAHL_MEDIEN));
+        Datum datum = new Datum(1, 4, 2021);
+        _verleihkarten = new Verleihkarte[ANZAHL_MEDIEN];
+        for (int i = 0; i < ANZAHL_MEDIEN; ++i)
+        {
+            _verleihkarten[i] = new Verleihkarte(kunden.get(i % kunden.size()),
+                    medien.get(i), datum);
+        }
+        _datei = File.createTempFile("verleih", ".journal");
+        _journal = new VerleihJournal(_datei, medien, BESTANDSKENNUNG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws ProtokollierException
+    {
+        _journal.schliesse();
+        _datei.delete();
+    }
+
+    @Benchmark
+    public void sichereAusleihe() throws ProtokollierException
+    {
+        int index = (int) (Thread.currentThread()
+            .getId() % ANZAHL_MEDIEN);
+        _journal.schreibeAusleihe(_verleihkarten[index]);
+        _journal.warteAufSicherung();
+    }
+}
@@ -0,0 +1,122 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Misst Verleih, Rücknahme und die Prüfung auf Verleihbarkeit im
+ * VerleihServiceImpl bei unterschiedlich großen Beständen, von denen jeweils
+ * ein Teil bereits verliehen ist.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerleihServiceBenchmark
+{
+    @Param({"1000", "100000"})
+    public int _anzahlMedien;
+
+    private VerleihService _verleihService;
+    private List<Kunde> _kunden;
+    private List<List<Medium>> _freieMedien;
+    private List<List<Medium>> _medienpaare;
+    private Datum _datum;
+    private int _naechstes;
+
+    @Setup
+    public void setUp() throws ProtokollierException
+    {
+        _kunden = BestandFabrik.erzeugeKunden(
+                BestandGenerator.passendeAnzahlKunden(_anzahlMedien));
+        List<Medium> medien = BestandFabrik.erzeugeMedien(_anzahlMedien);
+        _datum = new Datum(1, 4, 2021);
+
+        // Jedes siebte Medium ist zu Beginn verliehen
+        List<Verleihkarte> verleihkarten = new ArrayList<Verleihkarte>();
+        _freieMedien = new ArrayList<List<Medium>>();
+        _medienpaare = new ArrayList<List<Medium>>();
+        for (int i = 0; i < medien.size(); ++i)
+        {
+            Medium medium = medien.get(i);
+            if (i % 7 == 0)
+            {
+                verleihkarten.add(new Verleihkarte(
+                        _kunden.get(i % _kunden.size()), medium, _datum));
+            }
+            else
+            {
+                _freieMedien.add(Collections.singletonList(medium));
+            }
+            if (i > 0)
+            {
+                _medienpaare.add(medien.subList(i - 1, i + 1));
+            }
+        }
+        _verleihService = new VerleihServiceImpl(
+                new KundenstammServiceImpl(_kunden),
+                new MedienbestandServiceImpl(medien), verleihkarten,
+                new BestandFabrik.StummerProtokollierer());
+    }
+
+    /**
+     * Verleiht ein freies Medium und nimmt es sofort wieder zurück, so dass
+     * der Bestand über alle Aufrufe gleich bleibt.
+     */
+    @Benchmark
+    public boolean verleiheAnUndNimmZurueck() throws ProtokollierException
+    {
+        int i = naechsterIndex(_freieMedien.size());
+        List<Medium> medien = _freieMedien.get(i);
+        Kunde kunde = _kunden.get(i % _kunden.size());
+        _verleihService.verleiheAn(kunde, medien, _datum);
+        _verleihService.nimmZurueck(medien, _datum);
+        return _verleihService.istVerliehen(medien.get(0));
+    }
+
+    /**
+     * Prüft für zwei benachbarte Medien, ob sie verliehen werden können.
+     */
+    @Benchmark
+    public boolean istVerleihenMoeglich()
+    {
+        int i = naechsterIndex(_medienpaare.size());
+        return _verleihService.istVerleihenMoeglich(
+                _kunden.get(i % _kunden.size()), _medienpaare.get(i));
+    }
+
+    private int naechsterIndex(int anzahl)
+    {
+        _naechstes = (_naechstes + 1) % anzahl;
+        return _naechstes;
+    }
+}
@@ -187,7 +187,8 @@ public class Kunde
      */
     public void setWohnort(String wohnort)
     {
-        _wohnort = wohnort;
+        _wohnort = ZeichenkettenPool.gemeinsamerPool()
+            .kanonisiere(wohnort);
     }
 
     @Override
@@ -14,17 +14,27 @@ import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Geldbetrag;
  * Wenn Medien zurück gegeben werden, kann die zugehörige Verleihkarte entsorgt
  * werden. Um die Verwaltung der Karten kümmert sich der VerleihService
  * 
+ * Ausleihdauer und Mietgebühr werden einmal pro Kalendertag berechnet und bis
+ * Mitternacht zwischengespeichert, da die Oberfläche sie bei jedem Neuzeichnen
+ * abfragt.
+ * 
  * @author SE2-Team
  * @version SoSe 2021
  */
 public class Verleihkarte
 {
+    private static final long MILLISEKUNDEN_PRO_TAG = 1000 * 60 * 60 * 24;
 
     // Eigenschaften einer Verleihkarte
     private final Datum _ausleihdatum;
     private final Kunde _entleiher;
     private final Medium _medium;
 
+    /**
+     * Die zuletzt berechnete Ausleihdauer und Mietgebühr oder null.
+     */
+    private volatile Tageswerte _tageswerte;
+
     /**
      * Initialisert eine neue Verleihkarte mit den gegebenen Daten.
      * 
@@ -113,7 +123,7 @@ public class Verleihkarte
      */
     public Geldbetrag getMietgebuehr()
     {
-        return _medium.berechneMietgebuehr(getAusleihdauer());
+        return getTageswerte()._mietgebuehr;
     }
 
     /**
@@ -124,8 +134,28 @@ public class Verleihkarte
      */
     public int getAusleihdauer()
     {
-        return Datum.heute()
-            .tageSeit(getAusleihdatum()) + 1;
+        return getTageswerte()._ausleihdauer;
+    }
+
+    /**
+     * Liefert Ausleihdauer und Mietgebühr für den heutigen Tag. Sie werden nur
+     * neu berechnet, wenn seit der letzten Berechnung ein neuer Tag begonnen
+     * hat.
+     */
+    private Tageswerte getTageswerte()
+    {
+        long tag = Math.floorDiv(System.currentTimeMillis(),
+                MILLISEKUNDEN_PRO_TAG);
+        Tageswerte tageswerte = _tageswerte;
+        if (tageswerte == null || tageswerte._tag != tag)
+        {
+            int ausleihdauer = Datum.heute()
+                .tageSeit(_ausleihdatum) + 1;
+            tageswerte = new Tageswerte(tag, ausleihdauer,
+                    _medium.berechneMietgebuehr(ausleihdauer));
+            _tageswerte = tageswerte;
+        }
+        return tageswerte;
     }
 
     @Override
@@ -166,4 +196,21 @@ public class Verleihkarte
     {
         return getFormatiertenString();
     }
+
+    /**
+     * Ausleihdauer und Mietgebühr einer Verleihkarte an einem Tag.
+     */
+    private static final class Tageswerte
+    {
+        private final long _tag;
+        private final int _ausleihdauer;
+        private final Geldbetrag _mietgebuehr;
+
+        Tageswerte(long tag, int ausleihdauer, Geldbetrag mietgebuehr)
+        {
+            _tag = tag;
+            _ausleihdauer = ausleihdauer;
+            _mietgebuehr = mietgebuehr;
+        }
+    }
 }
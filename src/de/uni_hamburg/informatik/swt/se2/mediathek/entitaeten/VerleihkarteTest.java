@@ -69,6 +69,16 @@ public class VerleihkarteTest
         assertEquals(11, _karte.getAusleihdauer());
     }
 
+    @Test
+    public void testeMietgebuehrWirdProTagNurEinmalBerechnet()
+    {
+        Verleihkarte karte = new Verleihkarte(_kunde, _medium, Datum.heute()
+            .minus(3));
+        Geldbetrag mietgebuehr = karte.getMietgebuehr();
+        assertEquals(4, karte.getAusleihdauer());
+        assertSame(mietgebuehr, karte.getMietgebuehr());
+    }
+
     @Test
     public void testEquals()
     {
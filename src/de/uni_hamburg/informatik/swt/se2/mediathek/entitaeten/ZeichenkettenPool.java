@@ -0,0 +1,250 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ein ZeichenkettenPool liefert für gleiche Texte dasselbe String-Objekt. Er
+ * ist für Felder gedacht, deren Werte sich oft wiederholen, etwa Interpret,
+ * Regisseur, System oder Wohnort. Statt vieler gleicher Strings liegt jeder
+ * Wert dann nur einmal im Speicher.
+ *
+ * Vor dem eigentlichen Pool liegt ein kleiner Zwischenspeicher mit einem Fach
+ * pro Hashwert. Trifft ein eingelesener Text dort seinen Wert, wird für ihn
+ * gar kein String erzeugt. Der Pool nimmt höchstens die beim Erzeugen
+ * angegebene Anzahl Werte auf. Weitere Texte werden unverändert
+ * zurückgegeben, damit Felder mit vielen verschiedenen Werten den Pool nicht
+ * unbegrenzt wachsen lassen.
+ *
+ * Ein ZeichenkettenPool darf von mehreren Threads gleichzeitig benutzt werden.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public final class ZeichenkettenPool
+{
+    /**
+     * Die maximale Anzahl Werte des gemeinsamen Pools.
+     */
+    public static final int STANDARD_MAX_EINTRAEGE = 1 << 16;
+
+    /**
+     * Die Anzahl der Fächer des Zwischenspeichers. Muss eine Zweierpotenz
+     * sein.
+     */
+    private static final int ZWISCHENSPEICHER_GROESSE = 4096;
+
+    /**
+     * Geschätzte Größe eines String-Objekts ohne sein Array in Bytes.
+     */
+    private static final int STRING_GROESSE = 24;
+
+    /**
+     * Geschätzte Größe des Kopfes eines Arrays in Bytes.
+     */
+    private static final int ARRAY_KOPF_GROESSE = 16;
+
+    private static final ZeichenkettenPool GEMEINSAMER_POOL = new ZeichenkettenPool(
+            STANDARD_MAX_EINTRAEGE);
+
+    private final int _maxEintraege;
+
+    /**
+     * Die kanonischen Werte.
+     */
+    private final ConcurrentHashMap<String, String> _werte;
+
+    /**
+     * Der Zwischenspeicher vor dem Pool. Ein Fach enthält einen kanonischen
+     * Wert, dessen Hashwert auf das Fach abgebildet wird, oder null.
+     */
+    private final AtomicReferenceArray<String> _zwischenspeicher;
+
+    /**
+     * Die geschätzte Anzahl Bytes der Strings, die durch den Pool nicht im
+     * Speicher gehalten werden.
+     */
+    private final LongAdder _gesparteBytes;
+
+    /**
+     * Erzeugt einen neuen, leeren ZeichenkettenPool.
+     *
+     * @param maxEintraege Die maximale Anzahl aufgenommener Werte.
+     *
+     * @require maxEintraege > 0
+     */
+    public ZeichenkettenPool(int maxEintraege)
+    {
+        assert maxEintraege > 0 : "Vorbedingung verletzt: maxEintraege > 0";
+        _maxEintraege = maxEintraege;
+        _werte = new ConcurrentHashMap<String, String>();
+        _zwischenspeicher = new AtomicReferenceArray<String>(
+                ZWISCHENSPEICHER_GROESSE);
+        _gesparteBytes = new LongAdder();
+    }
+
+    /**
+     * Gibt den Pool zurück, den die Entitäten der Mediathek gemeinsam nutzen.
+     *
+     * @ensure result != null
+     */
+    public static ZeichenkettenPool gemeinsamerPool()
+    {
+        return GEMEINSAMER_POOL;
+    }
+
+    /**
+     * Gibt den kanonischen String zu einem Text zurück.
+     *
+     * @param text Ein Text oder null.
+     * @return Einen String gleich text, oder null, wenn text null ist.
+     *
+     * @ensure text == null || result.equals(text)
+     */
+    public String kanonisiere(String text)
+    {
+        if (text == null)
+        {
+            return null;
+        }
+        int fach = fach(text.hashCode());
+        String zwischengespeichert = _zwischenspeicher.get(fach);
+        if (zwischengespeichert == text)
+        {
+            return text;
+        }
+        if (text.equals(zwischengespeichert))
+        {
+            _gesparteBytes.add(schaetzeGroesse(text));
+            return zwischengespeichert;
+        }
+        String wert = nimmAuf(text);
+        if (wert != text)
+        {
+            _gesparteBytes.add(schaetzeGroesse(text));
+        }
+        return wert;
+    }
+
+    /**
+     * Gibt den kanonischen String zu einem Ausschnitt eines char-Arrays
+     * zurück. Ist der Wert bereits im Zwischenspeicher, wird dafür kein neuer
+     * String erzeugt.
+     *
+     * @param zeichen Das Array.
+     * @param anfang Der Index des ersten Zeichens.
+     * @param laenge Die Anzahl der Zeichen.
+     * @return Einen String mit den Zeichen des Ausschnitts.
+     *
+     * @require zeichen != null
+     * @require anfang >= 0 && laenge >= 0 && anfang + laenge <= zeichen.length
+     *
+     * @ensure result != null
+     */
+    public String kanonisiere(char[] zeichen, int anfang, int laenge)
+    {
+        assert zeichen != null : "Vorbedingung verletzt: zeichen != null";
+        assert anfang >= 0 && laenge >= 0
+                && anfang + laenge <= zeichen.length : "Vorbedingung verletzt: anfang >= 0 && laenge >= 0 && anfang + laenge <= zeichen.length";
+
+        // Derselbe Hashwert wie String#hashCode
+        int hash = 0;
+        for (int i = anfang; i < anfang + laenge; ++i)
+        {
+            hash = 31 * hash + zeichen[i];
+        }
+        String zwischengespeichert = _zwischenspeicher.get(fach(hash));
+        if (zwischengespeichert != null
+                && stimmtUeberein(zwischengespeichert, zeichen, anfang, laenge))
+        {
+            _gesparteBytes.add(schaetzeGroesse(zwischengespeichert));
+            return zwischengespeichert;
+        }
+        return kanonisiere(new String(zeichen, anfang, laenge));
+    }
+
+    /**
+     * Gibt die Anzahl der aufgenommenen Werte zurück.
+     */
+    public int getAnzahl()
+    {
+        return _werte.size();
+    }
+
+    /**
+     * Gibt eine Schätzung zurück, wie viele Bytes an Strings der Pool bisher
+     * eingespart hat. Gezählt wird jeder Text, für den ein bereits
+     * aufgenommener Wert zurückgegeben wurde, mit der Größe eines Strings
+     * samt Array bei kompakten Strings.
+     */
+    public long getGesparteBytes()
+    {
+        return _gesparteBytes.sum();
+    }
+
+    /**
+     * Nimmt einen Text in den Pool auf, sofern noch Platz ist, und legt den
+     * kanonischen Wert im Zwischenspeicher ab.
+     */
+    private String nimmAuf(String text)
+    {
+        String wert = _werte.get(text);
+        if (wert == null)
+        {
+            if (_werte.size() >= _maxEintraege)
+            {
+                return text;
+            }
+            wert = _werte.putIfAbsent(text, text);
+            if (wert == null)
+            {
+                wert = text;
+            }
+        }
+        _zwischenspeicher.set(fach(wert.hashCode()), wert);
+        return wert;
+    }
+
+    private static int fach(int hash)
+    {
+        return (hash ^ (hash >>> 16)) & (ZWISCHENSPEICHER_GROESSE - 1);
+    }
+
+    private static boolean stimmtUeberein(String text, char[] zeichen,
+            int anfang, int laenge)
+    {
+        if (text.length() != laenge)
+        {
+            return false;
+        }
+        for (int i = 0; i < laenge; ++i)
+        {
+            if (text.charAt(i) != zeichen[anfang + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Schätzt den Speicherbedarf eines Strings samt Array. Texte aus
+     * Latin-1-Zeichen belegen ein Byte pro Zeichen, andere zwei.
+     */
+    private static long schaetzeGroesse(String text)
+    {
+        int bytesProZeichen = 1;
+        for (int i = 0; i < text.length(); ++i)
+        {
+            if (text.charAt(i) > 0xFF)
+            {
+                bytesProZeichen = 2;
+                break;
+            }
+        }
+        long arrayGroesse = ARRAY_KOPF_GROESSE
+                + (long) text.length() * bytesProZeichen;
+        return STRING_GROESSE + (arrayGroesse + 7) / 8 * 8;
+    }
+}
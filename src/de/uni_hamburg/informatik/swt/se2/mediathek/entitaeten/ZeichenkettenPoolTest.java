@@ -0,0 +1,76 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class ZeichenkettenPoolTest
+{
+    private ZeichenkettenPool _pool;
+
+    public ZeichenkettenPoolTest()
+    {
+        _pool = new ZeichenkettenPool(2);
+    }
+
+    @Test
+    public void testeGleicheTexteWerdenZuEinemString()
+    {
+        String erster = new String("Hamburg");
+        String zweiter = new String("Hamburg");
+        assertNotSame(erster, zweiter);
+
+        assertSame(erster, _pool.kanonisiere(erster));
+        assertSame(erster, _pool.kanonisiere(zweiter));
+        assertEquals(1, _pool.getAnzahl());
+        assertTrue(_pool.getGesparteBytes() > 0);
+        assertNull(_pool.kanonisiere(null));
+    }
+
+    @Test
+    public void testeKanonisiereAusZeichenArray()
+    {
+        String wert = _pool.kanonisiere(";Nintendo DS;".toCharArray(), 1, 11);
+        assertEquals("Nintendo DS", wert);
+        assertSame(wert,
+                _pool.kanonisiere("xNintendo DS".toCharArray(), 1, 11));
+        assertSame(wert, _pool.kanonisiere(new String("Nintendo DS")));
+        assertEquals("", _pool.kanonisiere(new char[0], 0, 0));
+    }
+
+    @Test
+    public void testeVollerPoolGibtTextUnveraendertZurueck()
+    {
+        _pool.kanonisiere("Hamburg");
+        _pool.kanonisiere("Bremen");
+        String kiel = new String("Kiel");
+
+        assertSame(kiel, _pool.kanonisiere(kiel));
+        assertEquals(2, _pool.getAnzahl());
+    }
+
+    @Test
+    public void testeSetterNutzenGemeinsamenPool()
+    {
+        Kunde kunde1 = new Kunde(new Kundennummer(123456), "Ina", "Muster");
+        Kunde kunde2 = new Kunde(new Kundennummer(654321), "Max", "Meier");
+        kunde1.setWohnort(new String("Hamburg"));
+        kunde2.setWohnort(new String("Hamburg"));
+        assertSame(kunde1.getWohnort(), kunde2.getWohnort());
+
+        CD cd1 = new CD("A", "", new String("Various"), 40);
+        CD cd2 = new CD("B", "", "x", 40);
+        cd2.setInterpret(new String("Various"));
+        assertSame(cd1.getInterpret(), cd2.getInterpret());
+    }
+}
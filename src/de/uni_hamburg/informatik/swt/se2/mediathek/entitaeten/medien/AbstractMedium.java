@@ -61,8 +61,9 @@ abstract class AbstractMedium implements Medium
     @Override
     public String getFormatiertenString()
     {
-        return getMedienBezeichnung() + ":\n" + SPACE + "Titel: " + _titel
-                + "\n" + SPACE + "Kommentar: " + _kommentar + "\n";
+        return getMedienBezeichnung() + ":\n" + SPACE + "Titel: "
+                + getTitel() + "\n" + SPACE + "Kommentar: " + getKommentar()
+                + "\n";
     }
 
     @Override
@@ -1,5 +1,6 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien;
 
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.ZeichenkettenPool;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Geldbetrag;
 
 /**
@@ -8,7 +9,7 @@ import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Geldbetrag;
  * @author SE2-Team
  * @version SoSe 2021
  */
-abstract class AbstractVideospiel extends AbstractMedium
+public abstract class AbstractVideospiel extends AbstractMedium
 {
     /**
      * Basispreis eines Videospiels in Cent
@@ -33,14 +34,15 @@ abstract class AbstractVideospiel extends AbstractMedium
      * 
      * @ensure getTitel() == titel
      * @ensure getKommentar() == kommentar
-     * @ensure getSystem() == system
+     * @ensure getSystem().equals(system)
      */
     public AbstractVideospiel(String titel, String kommentar, String system)
     {
         super(titel, kommentar);
 
         assert system != null : "Vorbedingung verletzt: system != null";
-        _system = system;
+        _system = ZeichenkettenPool.gemeinsamerPool()
+            .kanonisiere(system);
     }
 
     @Override
@@ -75,12 +77,13 @@ abstract class AbstractVideospiel extends AbstractMedium
      * @param system Das System des Videospiels
      * 
      * @require system != null
-     * @ensure getSystem() == system
+     * @ensure getSystem().equals(system)
      */
     public void setSystem(String system)
     {
         assert system != null : "Vorbedingung verletzt: system != null";
-        _system = system;
+        _system = ZeichenkettenPool.gemeinsamerPool()
+            .kanonisiere(system);
     }
 
     /**
@@ -1,5 +1,7 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien;
 
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.ZeichenkettenPool;
+
 /**
  * Eine CD ist ein Medium. Zusätzlich zu den Eigenschaften eines Mediums erfasst
  * sie Informationen zu Spiellänge und Interpret.
@@ -34,7 +36,7 @@ public class CD extends AbstractMedium implements Medium
      * 
      * @ensure getTitel() == titel
      * @ensure getKommentar() == kommentar
-     * @ensure getInterpret() == interpret
+     * @ensure getInterpret().equals(interpret)
      * @ensure getSpiellaenge() == spiellaenge
      */
     public CD(String titel, String kommentar, String interpret, int spiellaenge)
@@ -43,15 +45,16 @@ public class CD extends AbstractMedium implements Medium
         assert spiellaenge > 0 : "Vorbedingung verletzt: spiellaenge > 0";
         assert interpret != null : "Vorbedingung verletzt: interpret != null";
         _spiellaenge = spiellaenge;
-        _interpret = interpret;
+        _interpret = ZeichenkettenPool.gemeinsamerPool()
+            .kanonisiere(interpret);
     }
 
     @Override
     public String getFormatiertenString()
     {
         return super.getFormatiertenString() + SPACE + "Interpret: "
-                + _interpret + "\n" + SPACE + "Spiellänge: " + _spiellaenge
-                + "\n";
+                + getInterpret() + "\n" + SPACE + "Spiellänge: "
+                + getSpiellaenge() + "\n";
     }
 
     /**
@@ -72,12 +75,13 @@ public class CD extends AbstractMedium implements Medium
      * @param interpret Der Interpret des Mediums
      * 
      * @require interpret != null
-     * @ensure getInterpret() == interpret
+     * @ensure getInterpret().equals(interpret)
      */
     public void setInterpret(String interpret)
     {
         assert interpret != null : "Vorbedingung verletzt: interpret != null";
-        _interpret = interpret;
+        _interpret = ZeichenkettenPool.gemeinsamerPool()
+            .kanonisiere(interpret);
     }
 
     @Override
@@ -1,5 +1,7 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien;
 
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.ZeichenkettenPool;
+
 /**
  * Eine DVD ist ein Medium. Zusätzlich zu den Eigenschaften eines Mediums
  * erfasst sie Informationen zum Regisseur und zur Laufzeit.
@@ -35,7 +37,7 @@ public class DVD extends AbstractMedium implements Medium
      * 
      * @ensure getTitel() == titel
      * @ensure getKommentar() == kommentar
-     * @ensure getRegisseur() == regisseur
+     * @ensure getRegisseur().equals(regisseur)
      * @ensure getLaufzeit() == laufzeit
      */
     public DVD(String titel, String kommentar, String regisseur, int laufzeit)
@@ -43,7 +45,8 @@ public class DVD extends AbstractMedium implements Medium
         super(titel, kommentar);
         assert laufzeit > 0 : "Vorbedingung verletzt: laufzeit > 0";
         assert regisseur != null : "Vorbedingung verletzt: regisseur != null";
-        _regisseur = regisseur;
+        _regisseur = ZeichenkettenPool.gemeinsamerPool()
+            .kanonisiere(regisseur);
         _laufzeit = laufzeit;
     }
 
@@ -51,7 +54,8 @@ public class DVD extends AbstractMedium implements Medium
     public String getFormatiertenString()
     {
         return super.getFormatiertenString() + SPACE + "Regisseur: "
-                + _regisseur + "\n" + SPACE + "Laufzeit: " + _laufzeit + "\n";
+                + getRegisseur() + "\n" + SPACE + "Laufzeit: " + getLaufzeit()
+                + "\n";
     }
 
     /**
@@ -105,12 +109,13 @@ public class DVD extends AbstractMedium implements Medium
      * @param regisseur Der Regisseur der DVD.
      * 
      * @require regisseur != null
-     * @ensure getRegisseur() == regisseur
+     * @ensure getRegisseur().equals(regisseur)
      */
     public void setRegisseur(String regisseur)
     {
         assert regisseur != null : "Vorbedingung verletzt: regisseur != null";
-        _regisseur = regisseur;
+        _regisseur = ZeichenkettenPool.gemeinsamerPool()
+            .kanonisiere(regisseur);
     }
 
     @Override
@@ -24,7 +24,7 @@ public class KonsolenVideospiel extends AbstractVideospiel implements Medium
      * 
      * @ensure getTitel() == titel
      * @ensure getKommentar() == kommentar
-     * @ensure getSystem() == system
+     * @ensure getSystem().equals(system)
      */
     public KonsolenVideospiel(String titel, String kommentar, String system)
     {
@@ -23,7 +23,7 @@ public class PCVideospiel extends AbstractVideospiel implements Medium
      * 
      * @ensure getTitel() == titel
      * @ensure getKommentar() == kommentar
-     * @ensure getSystem() == system
+     * @ensure getSystem().equals(system)
      */
     public PCVideospiel(String titel, String kommentar, String system)
     {
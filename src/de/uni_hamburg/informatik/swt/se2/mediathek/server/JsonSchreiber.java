@@ -0,0 +1,187 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.server;
+
+/**
+ * Ein JsonSchreiber baut einen JSON-Text schrittweise auf. Kommas zwischen
+ * Elementen und das Maskieren von Zeichenketten übernimmt er selbst, die
+ * Verschachtelung von Objekten und Listen muss der Aufrufer korrekt
+ * einhalten.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+class JsonSchreiber
+{
+    private final StringBuilder _text;
+
+    /**
+     * Ist true, wenn vor dem nächsten Element ein Komma stehen muss.
+     */
+    private boolean _brauchtKomma;
+
+    /**
+     * Erzeugt einen neuen, leeren JsonSchreiber.
+     */
+    JsonSchreiber()
+    {
+        _text = new StringBuilder();
+    }
+
+    /**
+     * Beginnt ein Objekt.
+     */
+    JsonSchreiber beginneObjekt()
+    {
+        trenne();
+        _text.append('{');
+        _brauchtKomma = false;
+        return this;
+    }
+
+    /**
+     * Beendet das zuletzt begonnene Objekt.
+     */
+    JsonSchreiber beendeObjekt()
+    {
+        _text.append('}');
+        _brauchtKomma = true;
+        return this;
+    }
+
+    /**
+     * Beginnt eine Liste.
+     */
+    JsonSchreiber beginneListe()
+    {
+        trenne();
+        _text.append('[');
+        _brauchtKomma = false;
+        return this;
+    }
+
+    /**
+     * Beendet die zuletzt begonnene Liste.
+     */
+    JsonSchreiber beendeListe()
+    {
+        _text.append(']');
+        _brauchtKomma = true;
+        return this;
+    }
+
+    /**
+     * Schreibt den Namen eines Feldes. Danach muss genau ein Wert, ein Objekt
+     * oder eine Liste folgen.
+     *
+     * @require name != null
+     */
+    JsonSchreiber name(String name)
+    {
+        assert name != null : "Vorbedingung verletzt: name != null";
+        trenne();
+        schreibeZeichenkette(name);
+        _text.append(':');
+        _brauchtKomma = false;
+        return this;
+    }
+
+    /**
+     * Schreibt eine Zeichenkette oder null.
+     */
+    JsonSchreiber wert(String wert)
+    {
+        trenne();
+        if (wert == null)
+        {
+            _text.append("null");
+        }
+        else
+        {
+            schreibeZeichenkette(wert);
+        }
+        _brauchtKomma = true;
+        return this;
+    }
+
+    /**
+     * Schreibt eine Zahl.
+     */
+    JsonSchreiber wert(long wert)
+    {
+        trenne();
+        _text.append(wert);
+        _brauchtKomma = true;
+        return this;
+    }
+
+    /**
+     * Schreibt einen Wahrheitswert.
+     */
+    JsonSchreiber wert(boolean wert)
+    {
+        trenne();
+        _text.append(wert);
+        _brauchtKomma = true;
+        return this;
+    }
+
+    /**
+     * Gibt den bisher geschriebenen JSON-Text zurück.
+     */
+    @Override
+    public String toString()
+    {
+        return _text.toString();
+    }
+
+    /**
+     * Schreibt ein Komma, falls vor dem nächsten Element eines nötig ist.
+     */
+    private void trenne()
+    {
+        if (_brauchtKomma)
+        {
+            _text.append(',');
+        }
+    }
+
+    /**
+     * Schreibt eine Zeichenkette in Anführungszeichen und maskiert dabei
+     * Anführungszeichen, Backslashes und Steuerzeichen.
+     */
+    private void schreibeZeichenkette(String zeichenkette)
+    {
+        _text.append('"');
+        for (int i = 0; i < zeichenkette.length(); ++i)
+        {
+            char zeichen = zeichenkette.charAt(i);
+            switch (zeichen)
+            {
+            case '"':
+                _text.append("\\\"");
+                break;
+            case '\\':
+                _text.append("\\\\");
+                break;
+            case '\n':
+                _text.append("\\n");
+                break;
+            case '\r':
+                _text.append("\\r");
+                break;
+            case '\t':
+                _text.append("\\t");
+                break;
+            default:
+                if (zeichen < 0x20)
+                {
+                    _text.append(String.format("\\u%04x", (int) zeichen));
+                }
+                else
+                {
+                    _text.append(zeichen);
+                }
+            }
+        }
+        _text.append('"');
+    }
+}
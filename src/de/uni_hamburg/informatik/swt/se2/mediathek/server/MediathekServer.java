@@ -0,0 +1,827 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.suche.MedienSucheService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.Rueckgabeergebnis;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * Ein MediathekServer bietet Verleih, Rückgabe, Vormerkung und Auskünfte der
+ * Mediathek über HTTP an, etwa für Selbstbedienungsterminals. Alle Terminals
+ * arbeiten auf demselben Zustand im Speicher.
+ *
+ * Antworten sind JSON-Objekte. Parameter werden als Query-String oder bei
+ * POST auch als Formular im Rumpf übergeben. Medien werden über ihre Position
+ * im Medienbestand identifiziert, Kunden über ihre Kundennummer.
+ *
+ * <pre>
+ * GET  /kunden?nummer=123456           Kunde mit seinen Verleihkarten
+ * GET  /kunden?suche=Mu&amp;max=10         Kunden nach Namensanfang
+ * GET  /medien?suche=Matrix&amp;max=20     Medien nach Suchanfrage
+ * GET  /medium?id=7                    Medium mit Entleiher und Vormerkern
+ * GET  /ueberfaellig                   Heute überfällige Verleihkarten
+ * POST /verleih?kunde=123456&amp;medien=1,2 Verleiht alle Medien oder keines
+ * POST /rueckgabe?medien=1,2           Nimmt Medien zurück, Ergebnis je Medium
+ * POST /vormerkung?kunde=123456&amp;medium=1
+ * </pre>
+ *
+ * Fehler werden mit einem passenden Statuscode und einem Objekt mit dem Feld
+ * "fehler" beantwortet: 400 bei ungültigen Parametern, 404 bei unbekannten
+ * Kunden, Medien oder Pfaden, 405 bei falscher Methode, 409 wenn der Vorgang
+ * im aktuellen Zustand nicht möglich ist und 500, wenn das Protokollieren
+ * fehlschlägt oder ein unerwarteter Fehler auftritt. Medien, die erst nach dem
+ * Start in den Bestand aufgenommen wurden, haben keine Id und werden mit der
+ * Id null ausgegeben.
+ *
+ * Die Anfragen werden von einem Pool von Threads parallel bearbeitet. Der
+ * VerleihService muss daher threadsicher sein, etwa ein
+ * NebenlaeufigerVerleihServiceImpl oder PartitionierterVerleihServiceImpl.
+ * Kundenstamm und Medienbestand werden nur gelesen und dürfen während des
+ * Betriebs nicht verändert werden.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class MediathekServer
+{
+    /**
+     * Die Anzahl der Threads, wenn beim Starten keine angegeben wird. Die
+     * Anfragen arbeiten im Speicher und warten höchstens kurz auf das
+     * Protokoll, daher genügen wenige Threads für viele Terminals.
+     */
+    public static final int STANDARD_ANZAHL_THREADS = 4
+            * Runtime.getRuntime()
+                .availableProcessors();
+
+    /**
+     * Die Anzahl der Treffer einer Suche, wenn kein Parameter max angegeben
+     * ist.
+     */
+    private static final int STANDARD_MAX_TREFFER = 20;
+
+    private final KundenstammService _kundenstamm;
+    private final VerleihService _verleihService;
+    private final MedienSucheService _medienSuche;
+
+    /**
+     * Die Medien des Bestands. Die Position eines Mediums ist seine Id.
+     */
+    private final List<Medium> _medien;
+
+    /**
+     * Die Id jedes Mediums.
+     */
+    private final Map<Medium, Integer> _medienIds;
+
+    private HttpServer _server;
+    private ExecutorService _ausfuehrer;
+
+    /**
+     * Erzeugt einen neuen MediathekServer, der noch nicht gestartet ist.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param verleihService Ein threadsicherer VerleihService.
+     * @param medienSuche Der MedienSucheService.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require verleihService != null
+     * @require medienSuche != null
+     */
+    public MediathekServer(KundenstammService kundenstamm,
+            MedienbestandService medienbestand, VerleihService verleihService,
+            MedienSucheService medienSuche)
+    {
+        assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm != null";
+        assert medienbestand != null : "Vorbedingung verletzt: medienbestand != null";
+        assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+        assert medienSuche != null : "Vorbedingung verletzt: medienSuche != null";
+
+        _kundenstamm = kundenstamm;
+        _verleihService = verleihService;
+        _medienSuche = medienSuche;
+        _medien = medienbestand.getMedien();
+        _medienIds = new HashMap<Medium, Integer>();
+        for (int i = 0; i < _medien.size(); ++i)
+        {
+            _medienIds.put(_medien.get(i), i);
+        }
+    }
+
+    /**
+     * Startet den Server mit STANDARD_ANZAHL_THREADS Threads.
+     *
+     * @param adresse Die Adresse, an die der Server gebunden wird. Port 0
+     *            wählt einen freien Port.
+     *
+     * @throws IOException wenn die Adresse nicht gebunden werden kann.
+     *
+     * @require adresse != null
+     * @require !istGestartet()
+     */
+    public void starte(InetSocketAddress adresse) throws IOException
+    {
+        starte(adresse, STANDARD_ANZAHL_THREADS);
+    }
+
+    /**
+     * Startet den Server.
+     *
+     * @param adresse Die Adresse, an die der Server gebunden wird. Port 0
+     *            wählt einen freien Port.
+     * @param anzahlThreads Die Anzahl der Threads, die Anfragen bearbeiten.
+     *
+     * @throws IOException wenn die Adresse nicht gebunden werden kann.
+     *
+     * @require adresse != null
+     * @require anzahlThreads > 0
+     * @require !istGestartet()
+     */
+    public synchronized void starte(InetSocketAddress adresse,
+            int anzahlThreads) throws IOException
+    {
+        assert adresse != null : "Vorbedingung verletzt: adresse != null";
+        assert anzahlThreads > 0 : "Vorbedingung verletzt: anzahlThreads > 0";
+        assert !istGestartet() : "Vorbedingung verletzt: !istGestartet()";
+
+        HttpServer server = HttpServer.create(adresse, 0);
+        server.createContext("/kunden", new Endpunkt("GET")
+        {
+            @Override
+            JsonSchreiber beantworte(Map<String, String> parameter)
+                    throws AnfrageException
+            {
+                return beantworteKunden(parameter);
+            }
+        });
+        server.createContext("/medien", new Endpunkt("GET")
+        {
+            @Override
+            JsonSchreiber beantworte(Map<String, String> parameter)
+                    throws AnfrageException
+            {
+                return beantworteMedien(parameter);
+            }
+        });
+        server.createContext("/medium", new Endpunkt("GET")
+        {
+            @Override
+            JsonSchreiber beantworte(Map<String, String> parameter)
+                    throws AnfrageException
+            {
+                return beantworteMedium(parameter);
+            }
+        });
+        server.createContext("/ueberfaellig", new Endpunkt("GET")
+        {
+            @Override
+            JsonSchreiber beantworte(Map<String, String> parameter)
+            {
+                return schreibeVerleihkarten(new JsonSchreiber(),
+                        _verleihService
+                            .getUeberfaelligeVerleihkarten(Datum.heute()));
+            }
+        });
+        server.createContext("/verleih", new Endpunkt("POST")
+        {
+            @Override
+            JsonSchreiber beantworte(Map<String, String> parameter)
+                    throws AnfrageException, ProtokollierException
+            {
+                return verleihe(parameter);
+            }
+        });
+        server.createContext("/rueckgabe", new Endpunkt("POST")
+        {
+            @Override
+            JsonSchreiber beantworte(Map<String, String> parameter)
+                    throws AnfrageException, ProtokollierException
+            {
+                return nimmZurueck(parameter);
+            }
+        });
+        server.createContext("/vormerkung", new Endpunkt("POST")
+        {
+            @Override
+            JsonSchreiber beantworte(Map<String, String> parameter)
+                    throws AnfrageException, ProtokollierException
+            {
+                return merkeVor(parameter);
+            }
+        });
+
+        final AtomicInteger threadNummer = new AtomicInteger();
+        _ausfuehrer = Executors.newFixedThreadPool(anzahlThreads,
+                new ThreadFactory()
+                {
+                    @Override
+                    public Thread newThread(Runnable aufgabe)
+                    {
+                        Thread thread = new Thread(aufgabe, "Mediathek-Server-"
+                                + threadNummer.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        server.setExecutor(_ausfuehrer);
+        server.start();
+        _server = server;
+    }
+
+    /**
+     * Prüft, ob der Server gestartet ist.
+     */
+    public synchronized boolean istGestartet()
+    {
+        return _server != null;
+    }
+
+    /**
+     * Gibt den Port zurück, an den der Server gebunden ist.
+     *
+     * @require istGestartet()
+     */
+    public synchronized int getPort()
+    {
+        assert istGestartet() : "Vorbedingung verletzt: istGestartet()";
+        return _server.getAddress()
+            .getPort();
+    }
+
+    /**
+     * Beendet den Server. Laufende Anfragen werden noch beantwortet, neue
+     * werden nicht mehr angenommen. Ist der Server nicht gestartet, hat der
+     * Aufruf keine Wirkung.
+     */
+    public synchronized void beende()
+    {
+        if (_server != null)
+        {
+            _server.stop(0);
+            _ausfuehrer.shutdown();
+            _server = null;
+            _ausfuehrer = null;
+        }
+    }
+
+    /**
+     * Beantwortet GET /kunden mit einem Kunden zu einer Nummer oder den
+     * Kunden zu einem Namensanfang.
+     */
+    private JsonSchreiber beantworteKunden(Map<String, String> parameter)
+            throws AnfrageException
+    {
+        JsonSchreiber json = new JsonSchreiber();
+        if (parameter.containsKey("nummer"))
+        {
+            Kunde kunde = getKunde(parameter, "nummer");
+            json.beginneObjekt();
+            schreibeKundenfelder(json, kunde);
+            json.name("verleihkarten");
+            schreibeVerleihkarten(json,
+                    _verleihService.getVerleihkartenFuer(kunde));
+            return json.beendeObjekt();
+        }
+        List<Kunde> kunden = _kundenstamm.sucheKunden(
+                getParameter(parameter, "suche"), getMaxTreffer(parameter));
+        json.beginneListe();
+        for (Kunde kunde : kunden)
+        {
+            json.beginneObjekt();
+            schreibeKundenfelder(json, kunde);
+            json.beendeObjekt();
+        }
+        return json.beendeListe();
+    }
+
+    /**
+     * Beantwortet GET /medien mit den Treffern einer Suchanfrage.
+     */
+    private JsonSchreiber beantworteMedien(Map<String, String> parameter)
+            throws AnfrageException
+    {
+        List<Medium> medien = _medienSuche.sucheMedien(
+                getParameter(parameter, "suche"), getMaxTreffer(parameter));
+        JsonSchreiber json = new JsonSchreiber().beginneListe();
+        for (Medium medium : medien)
+        {
+            schreibeMedium(json, medium);
+        }
+        return json.beendeListe();
+    }
+
+    /**
+     * Beantwortet GET /medium mit einem Medium, seinem Entleiher und seinen
+     * Vormerkern.
+     */
+    private JsonSchreiber beantworteMedium(Map<String, String> parameter)
+            throws AnfrageException
+    {
+        Medium medium = getMedium(getParameter(parameter, "id"));
+        JsonSchreiber json = new JsonSchreiber().beginneObjekt();
+        schreibeMediumfelder(json, medium);
+        Verleihkarte verleihkarte = _verleihService.sucheVerleihkarte(medium);
+        json.name("verleihkarte");
+        if (verleihkarte == null)
+        {
+            json.wert((String) null);
+        }
+        else
+        {
+            schreibeVerleihkarte(json, verleihkarte);
+        }
+        json.name("vormerker")
+            .beginneListe();
+        for (Kunde kunde : _verleihService.getVormerkerFuer(medium))
+        {
+            json.wert(kunde.getKundennummer()
+                .toString());
+        }
+        return json.beendeListe()
+            .beendeObjekt();
+    }
+
+    /**
+     * Bearbeitet POST /verleih. Entweder werden alle Medien verliehen oder
+     * keines.
+     */
+    private JsonSchreiber verleihe(Map<String, String> parameter)
+            throws AnfrageException, ProtokollierException
+    {
+        Kunde kunde = getKunde(parameter, "kunde");
+        List<Medium> medien = getMedien(parameter);
+        try
+        {
+            _verleihService.verleiheAn(kunde, medien, Datum.heute());
+        }
+        catch (IllegalStateException e)
+        {
+            throw new AnfrageException(409, e.getMessage());
+        }
+        List<Verleihkarte> verleihkarten = new ArrayList<Verleihkarte>();
+        for (Medium medium : medien)
+        {
+            Verleihkarte verleihkarte = _verleihService
+                .sucheVerleihkarte(medium);
+            if (verleihkarte != null && !verleihkarten.contains(verleihkarte))
+            {
+                verleihkarten.add(verleihkarte);
+            }
+        }
+        return schreibeVerleihkarten(new JsonSchreiber(), verleihkarten);
+    }
+
+    /**
+     * Bearbeitet POST /rueckgabe und liefert das Ergebnis je Medium.
+     */
+    private JsonSchreiber nimmZurueck(Map<String, String> parameter)
+            throws AnfrageException, ProtokollierException
+    {
+        List<Rueckgabeergebnis> ergebnisse = _verleihService
+            .nimmZurueckImStapel(getMedien(parameter), Datum.heute());
+        JsonSchreiber json = new JsonSchreiber().beginneListe();
+        for (Rueckgabeergebnis ergebnis : ergebnisse)
+        {
+            json.beginneObjekt()
+                .name("medium");
+            schreibeId(json, ergebnis.getMedium())
+                .name("status")
+                .wert(ergebnis.getStatus()
+                    .name());
+            if (ergebnis.istZurueckgenommen())
+            {
+                json.name("mietgebuehr")
+                    .wert(ergebnis.getVerleihkarte()
+                        .getMietgebuehr()
+                        .getFormatiertenString());
+            }
+            json.beendeObjekt();
+        }
+        return json.beendeListe();
+    }
+
+    /**
+     * Bearbeitet POST /vormerkung. Ob das Vormerken möglich ist, prüft der
+     * VerleihService im selben Schritt, in dem er vormerkt.
+     */
+    private JsonSchreiber merkeVor(Map<String, String> parameter)
+            throws AnfrageException, ProtokollierException
+    {
+        Kunde kunde = getKunde(parameter, "kunde");
+        Medium medium = getMedium(getParameter(parameter, "medium"));
+        try
+        {
+            _verleihService.merkeVor(kunde, medium);
+        }
+        catch (IllegalStateException e)
+        {
+            if (e.getCause() instanceof ProtokollierException)
+            {
+                throw (ProtokollierException) e.getCause();
+            }
+            throw new AnfrageException(409, e.getMessage());
+        }
+        JsonSchreiber json = new JsonSchreiber().beginneObjekt()
+            .name("vormerker")
+            .beginneListe();
+        for (Kunde vormerker : _verleihService.getVormerkerFuer(medium))
+        {
+            json.wert(vormerker.getKundennummer()
+                .toString());
+        }
+        return json.beendeListe()
+            .beendeObjekt();
+    }
+
+    /**
+     * Gibt einen Pflichtparameter zurück.
+     */
+    private static String getParameter(Map<String, String> parameter,
+            String name) throws AnfrageException
+    {
+        String wert = parameter.get(name);
+        if (wert == null || wert.isEmpty())
+        {
+            throw new AnfrageException(400,
+                    "Der Parameter " + name + " fehlt.");
+        }
+        return wert;
+    }
+
+    /**
+     * Liest eine nicht negative ganze Zahl.
+     */
+    private static int getZahl(String wert) throws AnfrageException
+    {
+        try
+        {
+            int zahl = Integer.parseInt(wert.trim());
+            if (zahl >= 0)
+            {
+                return zahl;
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Wird unten gemeldet
+        }
+        throw new AnfrageException(400, "Keine gültige Zahl: " + wert);
+    }
+
+    /**
+     * Gibt die maximale Anzahl Treffer aus dem Parameter max zurück.
+     */
+    private static int getMaxTreffer(Map<String, String> parameter)
+            throws AnfrageException
+    {
+        if (!parameter.containsKey("max"))
+        {
+            return STANDARD_MAX_TREFFER;
+        }
+        int max = getZahl(parameter.get("max"));
+        if (max == 0)
+        {
+            throw new AnfrageException(400, "max muss größer als 0 sein.");
+        }
+        return max;
+    }
+
+    /**
+     * Gibt den Kunden mit der Kundennummer aus dem angegebenen Parameter
+     * zurück.
+     */
+    private Kunde getKunde(Map<String, String> parameter, String name)
+            throws AnfrageException
+    {
+        String wert = getParameter(parameter, name);
+        int nummer = getZahl(wert);
+        if (!Kundennummer.istGueltig(nummer))
+        {
+            throw new AnfrageException(400, "Keine gültige Kundennummer: "
+                    + wert);
+        }
+        Kunde kunde = _kundenstamm.getKunden(new Kundennummer(nummer));
+        if (kunde == null)
+        {
+            throw new AnfrageException(404, "Unbekannter Kunde: " + wert);
+        }
+        return kunde;
+    }
+
+    /**
+     * Gibt das Medium mit der angegebenen Id zurück.
+     */
+    private Medium getMedium(String id) throws AnfrageException
+    {
+        int index = getZahl(id);
+        if (index >= _medien.size())
+        {
+            throw new AnfrageException(404, "Unbekanntes Medium: " + id);
+        }
+        return _medien.get(index);
+    }
+
+    /**
+     * Gibt die Medien mit den kommagetrennten Ids aus dem Parameter medien
+     * zurück. Eine leere Id wird abgelehnt.
+     */
+    private List<Medium> getMedien(Map<String, String> parameter)
+            throws AnfrageException
+    {
+        List<Medium> medien = new ArrayList<Medium>();
+        for (String id : getParameter(parameter, "medien").split(",", -1))
+        {
+            if (id.trim()
+                .isEmpty())
+            {
+                throw new AnfrageException(400,
+                        "Der Parameter medien enthält eine leere Id.");
+            }
+            medien.add(getMedium(id));
+        }
+        return medien;
+    }
+
+    /**
+     * Schreibt die Id eines Mediums oder null, wenn das Medium erst nach dem
+     * Start in den Bestand aufgenommen wurde.
+     */
+    private JsonSchreiber schreibeId(JsonSchreiber json, Medium medium)
+    {
+        Integer id = _medienIds.get(medium);
+        if (id == null)
+        {
+            return json.wert((String) null);
+        }
+        return json.wert(id.intValue());
+    }
+
+    private static void schreibeKundenfelder(JsonSchreiber json, Kunde kunde)
+    {
+        json.name("nummer")
+            .wert(kunde.getKundennummer()
+                .toString())
+            .name("vorname")
+            .wert(kunde.getVorname())
+            .name("nachname")
+            .wert(kunde.getNachname());
+    }
+
+    private void schreibeMediumfelder(JsonSchreiber json, Medium medium)
+    {
+        json.name("id");
+        schreibeId(json, medium)
+            .name("bezeichnung")
+            .wert(medium.getMedienBezeichnung())
+            .name("titel")
+            .wert(medium.getTitel())
+            .name("verliehen")
+            .wert(_verleihService.istVerliehen(medium));
+    }
+
+    private void schreibeMedium(JsonSchreiber json, Medium medium)
+    {
+        json.beginneObjekt();
+        schreibeMediumfelder(json, medium);
+        json.beendeObjekt();
+    }
+
+    private void schreibeVerleihkarte(JsonSchreiber json,
+            Verleihkarte verleihkarte)
+    {
+        json.beginneObjekt()
+            .name("medium");
+        schreibeId(json, verleihkarte.getMedium())
+            .name("titel")
+            .wert(verleihkarte.getMedium()
+                .getTitel())
+            .name("kunde")
+            .wert(verleihkarte.getEntleiher()
+                .getKundennummer()
+                .toString())
+            .name("ausleihdatum")
+            .wert(verleihkarte.getAusleihdatum()
+                .toString())
+            .name("ausleihdauer")
+            .wert(verleihkarte.getAusleihdauer())
+            .name("mietgebuehr")
+            .wert(verleihkarte.getMietgebuehr()
+                .getFormatiertenString())
+            .beendeObjekt();
+    }
+
+    private JsonSchreiber schreibeVerleihkarten(JsonSchreiber json,
+            List<Verleihkarte> verleihkarten)
+    {
+        json.beginneListe();
+        for (Verleihkarte verleihkarte : verleihkarten)
+        {
+            schreibeVerleihkarte(json, verleihkarte);
+        }
+        return json.beendeListe();
+    }
+
+    /**
+     * Liest die Parameter aus dem Query-String und bei einem Formular aus dem
+     * Rumpf der Anfrage.
+     */
+    private static Map<String, String> leseParameter(HttpExchange anfrage)
+            throws IOException
+    {
+        Map<String, String> parameter = new HashMap<String, String>();
+        String query = anfrage.getRequestURI()
+            .getRawQuery();
+        if (query != null)
+        {
+            zerlegeParameter(query, parameter);
+        }
+        String inhaltstyp = anfrage.getRequestHeaders()
+            .getFirst("Content-Type");
+        if (inhaltstyp != null && inhaltstyp
+            .startsWith("application/x-www-form-urlencoded"))
+        {
+            InputStream rumpf = anfrage.getRequestBody();
+            zerlegeParameter(
+                    new String(rumpf.readAllBytes(), StandardCharsets.UTF_8),
+                    parameter);
+        }
+        return parameter;
+    }
+
+    /**
+     * Zerlegt kodierte Parameter der Form a=1&amp;b=2.
+     */
+    private static void zerlegeParameter(String kodiert,
+            Map<String, String> parameter)
+    {
+        for (String paar : kodiert.split("&"))
+        {
+            if (paar.isEmpty())
+            {
+                continue;
+            }
+            int gleich = paar.indexOf('=');
+            String name = gleich < 0 ? paar : paar.substring(0, gleich);
+            String wert = gleich < 0 ? "" : paar.substring(gleich + 1);
+            parameter.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(wert, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Sendet eine JSON-Antwort und schließt die Anfrage.
+     */
+    private static void sende(HttpExchange anfrage, int status, String json)
+            throws IOException
+    {
+        byte[] inhalt = json.getBytes(StandardCharsets.UTF_8);
+        anfrage.getResponseHeaders()
+            .set("Content-Type", "application/json; charset=UTF-8");
+        anfrage.sendResponseHeaders(status, inhalt.length);
+        OutputStream ausgabe = anfrage.getResponseBody();
+        try
+        {
+            ausgabe.write(inhalt);
+        }
+        finally
+        {
+            ausgabe.close();
+        }
+    }
+
+    /**
+     * Ein Endpunkt prüft Pfad und Methode einer Anfrage, liest ihre Parameter
+     * und sendet die Antwort von #beantworte oder einen Fehler. Die Anfrage
+     * wird in jedem Fall geschlossen, damit das Terminal nicht auf eine
+     * Antwort wartet.
+     */
+    private abstract static class Endpunkt implements HttpHandler
+    {
+        private final String _methode;
+
+        Endpunkt(String methode)
+        {
+            _methode = methode;
+        }
+
+        /**
+         * Beantwortet eine Anfrage mit gültigem Pfad und gültiger Methode.
+         */
+        abstract JsonSchreiber beantworte(Map<String, String> parameter)
+                throws AnfrageException, ProtokollierException;
+
+        @Override
+        public void handle(HttpExchange anfrage) throws IOException
+        {
+            try
+            {
+                int status = 200;
+                String antwort;
+                try
+                {
+                    if (!anfrage.getRequestURI()
+                        .getPath()
+                        .equals(anfrage.getHttpContext()
+                            .getPath()))
+                    {
+                        throw new AnfrageException(404, "Unbekannter Pfad.");
+                    }
+                    if (!anfrage.getRequestMethod()
+                        .equals(_methode))
+                    {
+                        anfrage.getResponseHeaders()
+                            .set("Allow", _methode);
+                        throw new AnfrageException(405,
+                                "Erlaubt ist nur " + _methode + ".");
+                    }
+                    antwort = beantworte(leseParameter(anfrage)).toString();
+                }
+                catch (AnfrageException e)
+                {
+                    status = e.getStatus();
+                    antwort = schreibeFehler(e.getMessage());
+                }
+                catch (ProtokollierException e)
+                {
+                    status = 500;
+                    antwort = schreibeFehler(e.getMessage());
+                }
+                catch (RuntimeException e)
+                {
+                    e.printStackTrace();
+                    status = 500;
+                    antwort = schreibeFehler("Interner Fehler.");
+                }
+                catch (AssertionError e)
+                {
+                    e.printStackTrace();
+                    status = 500;
+                    antwort = schreibeFehler("Interner Fehler.");
+                }
+                sende(anfrage, status, antwort);
+            }
+            finally
+            {
+                anfrage.close();
+            }
+        }
+
+        private static String schreibeFehler(String meldung)
+        {
+            return new JsonSchreiber().beginneObjekt()
+                .name("fehler")
+                .wert(meldung)
+                .beendeObjekt()
+                .toString();
+        }
+    }
+
+    /**
+     * Wird geworfen, wenn eine Anfrage nicht bearbeitet werden kann, und
+     * trägt den HTTP-Statuscode der Antwort.
+     */
+    private static class AnfrageException extends Exception
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final int _status;
+
+        AnfrageException(int status, String meldung)
+        {
+            super(meldung);
+            _status = status;
+        }
+
+        int getStatus()
+        {
+            return _status;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.suche.MedienSucheServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.NebenlaeufigerVerleihServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class MediathekServerTest
+{
+    private List<Medium> _medienListe;
+    private MedienbestandService _medienbestand;
+    private KundenstammServiceImpl _kundenstamm;
+    private VerleihService _verleihService;
+    private MediathekServer _server;
+
+    public MediathekServerTest() throws IOException
+    {
+        List<Kunde> kunden = new ArrayList<Kunde>();
+        kunden.add(new Kunde(new Kundennummer(123456), "Ina", "Muster"));
+        kunden.add(new Kunde(new Kundennummer(654321), "Max", "Meier"));
+        _medienListe = new ArrayList<Medium>();
+        _medienListe.add(new CD("Abbey Road", "baz", "Beatles", 47));
+        _medienListe.add(new CD("Let It Be", "baz", "Beatles", 35));
+        _medienListe.add(new CD("Kind of Blue", "baz", "Miles Davis", 46));
+        _medienbestand = new MedienbestandServiceImpl(_medienListe);
+        _kundenstamm = new KundenstammServiceImpl(kunden);
+        _verleihService = new NebenlaeufigerVerleihServiceImpl(_kundenstamm,
+                _medienbestand, new ArrayList<Verleihkarte>());
+        _server = new MediathekServer(_kundenstamm, _medienbestand,
+                _verleihService, new MedienSucheServiceImpl(_medienbestand));
+        _server.starte(new InetSocketAddress("localhost", 0), 2);
+    }
+
+    @After
+    public void raeumeAuf()
+    {
+        _server.beende();
+    }
+
+    @Test
+    public void testeVerleihUndRueckgabe() throws IOException
+    {
+        Antwort antwort = sende("POST", "/verleih?kunde=123456&medien=0,2");
+        assertEquals(200, antwort._status);
+        assertTrue(antwort._inhalt.contains("\"titel\":\"Abbey Road\""));
+        assertTrue(_verleihService.sindAlleVerliehen(
+                Arrays.asList(_medienListe.get(0), _medienListe.get(2))));
+
+        antwort = sende("POST", "/verleih?kunde=654321&medien=1,2");
+        assertEquals(409, antwort._status);
+        assertFalse(_verleihService.istVerliehen(_medienListe.get(1)));
+
+        antwort = sende("POST", "/rueckgabe?medien=0,1");
+        assertEquals(200, antwort._status);
+        assertTrue(antwort._inhalt
+            .startsWith("[{\"medium\":0,\"status\":\"ZURUECKGENOMMEN\""));
+        assertTrue(antwort._inhalt
+            .endsWith("{\"medium\":1,\"status\":\"NICHT_VERLIEHEN\"}]"));
+        assertFalse(_verleihService.istVerliehen(_medienListe.get(0)));
+    }
+
+    @Test
+    public void testeAuskuenfteUndVormerkung() throws IOException
+    {
+        assertEquals(
+                "[{\"nummer\":\"123456\",\"vorname\":\"Ina\",\"nachname\":\"Muster\"}]",
+                sende("GET", "/kunden?suche=mus")._inhalt);
+        Antwort antwort = sende("GET", "/medien?suche=beatles&max=5");
+        assertTrue(antwort._inhalt.contains("\"id\":0"));
+        assertTrue(antwort._inhalt.contains("\"id\":1"));
+        assertFalse(antwort._inhalt.contains("\"id\":2"));
+
+        sende("POST", "/verleih?kunde=123456&medien=2");
+        assertEquals(200,
+                sende("POST", "/vormerkung?kunde=654321&medium=2")._status);
+        assertTrue(sende("GET", "/medium?id=2")._inhalt
+            .endsWith("\"vormerker\":[\"654321\"]}"));
+        assertEquals(409,
+                sende("POST", "/vormerkung?kunde=123456&medium=2")._status);
+    }
+
+    @Test
+    public void testeFehlerhafteAnfragen() throws IOException
+    {
+        assertEquals(400, sende("POST", "/verleih?kunde=123456")._status);
+        assertEquals(400, sende("GET", "/kunden?nummer=12")._status);
+        assertEquals(404, sende("GET", "/kunden?nummer=111111")._status);
+        assertEquals(404, sende("GET", "/medium?id=3")._status);
+        assertEquals(404, sende("GET", "/medium/3")._status);
+        assertEquals(405, sende("GET", "/verleih?kunde=123456&medien=0")._status);
+        assertEquals(400, sende("POST", "/verleih?kunde=123456&medien=,")._status);
+        assertEquals(400, sende("POST", "/rueckgabe?medien=0,")._status);
+        assertFalse(_verleihService.istVerliehen(_medienListe.get(0)));
+    }
+
+    @Test
+    public void testeMediumOhneIdWirdMitNullAusgegeben() throws IOException
+    {
+        _medienbestand.fuegeMediumEin(new CD("Help!", "baz", "Beatles", 34));
+        assertTrue(sende("GET", "/medien?suche=help")._inhalt
+            .contains("\"id\":null"));
+    }
+
+    @Test
+    public void testeUnerwarteterFehlerWirdBeantwortet() throws IOException
+    {
+        MediathekServer server = new MediathekServer(_kundenstamm,
+                _medienbestand,
+                new NebenlaeufigerVerleihServiceImpl(_kundenstamm,
+                        _medienbestand, new ArrayList<Verleihkarte>())
+                {
+                    @Override
+                    public List<Verleihkarte> getUeberfaelligeVerleihkarten(
+                            Datum stichtag)
+                    {
+                        throw new IllegalStateException("Defekt");
+                    }
+                }, new MedienSucheServiceImpl(_medienbestand));
+        server.starte(new InetSocketAddress("localhost", 0), 1);
+        try
+        {
+            Antwort antwort = sende(server, "GET", "/ueberfaellig");
+            assertEquals(500, antwort._status);
+            assertEquals("{\"fehler\":\"Interner Fehler.\"}",
+                    antwort._inhalt);
+            assertEquals(200, sende(server, "GET", "/medium?id=0")._status);
+        }
+        finally
+        {
+            server.beende();
+        }
+    }
+
+    /**
+     * Sendet eine Anfrage ohne Rumpf an den Server.
+     */
+    private Antwort sende(String methode, String pfad) throws IOException
+    {
+        return sende(_server, methode, pfad);
+    }
+
+    /**
+     * Sendet eine Anfrage ohne Rumpf an den angegebenen Server.
+     */
+    private static Antwort sende(MediathekServer server, String methode,
+            String pfad) throws IOException
+    {
+        URL url = new URL("http://localhost:" + server.getPort() + pfad);
+        HttpURLConnection verbindung = (HttpURLConnection) url
+            .openConnection();
+        verbindung.setRequestMethod(methode);
+        try
+        {
+            int status = verbindung.getResponseCode();
+            InputStream eingabe = status < 400 ? verbindung.getInputStream()
+                    : verbindung.getErrorStream();
+            try
+            {
+                return new Antwort(status, new String(eingabe.readAllBytes(),
+                        StandardCharsets.UTF_8));
+            }
+            finally
+            {
+                eingabe.close();
+            }
+        }
+        finally
+        {
+            verbindung.disconnect();
+        }
+    }
+
+    private static class Antwort
+    {
+        private final int _status;
+        private final String _inhalt;
+
+        Antwort(int status, String inhalt)
+        {
+            _status = status;
+            _inhalt = inhalt;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.services;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Eine abstrakt Implementation des ObservableService Interfaces, die die
@@ -14,26 +15,24 @@ public abstract class AbstractObservableService implements ObservableService
 {
 
     /**
-     * Die Liste der registrierten Beobachter.
+     * Die Liste der registrierten Beobachter. Die Liste darf von mehreren
+     * Threads gleichzeitig gelesen und verändert werden.
      */
-    private List<ServiceObserver> _beobachterListe;
+    private CopyOnWriteArrayList<ServiceObserver> _beobachterListe;
 
     /**
      * Initialisiert einen neuen AbstractObservableService.
      */
     public AbstractObservableService()
     {
-        _beobachterListe = new ArrayList<ServiceObserver>();
+        _beobachterListe = new CopyOnWriteArrayList<ServiceObserver>();
     }
 
     @Override
     public void registriereBeobachter(ServiceObserver beobachter)
     {
         assert beobachter != null : "Vorbedingung verletzt: beobachter != null";
-        if (!_beobachterListe.contains(beobachter))
-        {
-            _beobachterListe.add(beobachter);
-        }
+        _beobachterListe.addIfAbsent(beobachter);
     }
 
     @Override
@@ -45,7 +44,8 @@ public abstract class AbstractObservableService implements ObservableService
 
     /**
      * Informiert alle angemeldeten Beobachter dass eine relevante Änderung
-     * eingetreten ist.
+     * eingetreten ist, ohne zu sagen welche. Die Beobachter müssen dann ihren
+     * gesamten Zustand neu ermitteln.
      */
     protected void informiereUeberAenderung()
     {
@@ -54,4 +54,40 @@ public abstract class AbstractObservableService implements ObservableService
             beobachter.reagiereAufAenderung();
         }
     }
+
+    /**
+     * Informiert alle angemeldeten Beobachter über eine einzelne Änderung.
+     * 
+     * @param aenderung Die eingetretene Änderung.
+     * 
+     * @require aenderung != null
+     */
+    protected void informiereUeberAenderung(ServiceAenderung aenderung)
+    {
+        assert aenderung != null : "Vorbedingung verletzt: aenderung != null";
+        informiereUeberAenderungen(Collections.singletonList(aenderung));
+    }
+
+    /**
+     * Informiert alle angemeldeten Beobachter über die Änderungen einer
+     * Operation. Ist die Liste leer, werden die Beobachter nicht informiert.
+     * 
+     * @param aenderungen Die eingetretenen Änderungen.
+     * 
+     * @require aenderungen != null
+     */
+    protected void informiereUeberAenderungen(
+            List<ServiceAenderung> aenderungen)
+    {
+        assert aenderungen != null : "Vorbedingung verletzt: aenderungen != null";
+        if (!aenderungen.isEmpty())
+        {
+            List<ServiceAenderung> unveraenderlich = Collections
+                .unmodifiableList(aenderungen);
+            for (ServiceObserver beobachter : _beobachterListe)
+            {
+                beobachter.reagiereAufAenderungen(unveraenderlich);
+            }
+        }
+    }
 }
@@ -0,0 +1,708 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ein AenderungsBus entkoppelt die Beobachter von den Services, die sie
+ * beobachten. Der Bus meldet sich selbst als Beobachter an den Services an und
+ * legt jede gemeldete Änderung in einen Ringpuffer. Jeder Beobachter, der sich
+ * am Bus anmeldet, erhält einen eigenen Thread, liest den Ringpuffer in seinem
+ * eigenen Tempo und merkt sich dabei seine eigene Sequenznummer. Ein langsamer
+ * Beobachter verzögert dadurch nicht mehr den Thread, der den Service
+ * verändert.
+ *
+ * Der Ringpuffer und seine Fächer werden beim Erzeugen angelegt. Das
+ * Einstellen einer Änderung schreibt nur eine Referenz in ein Fach und erzeugt
+ * keine Objekte. Einstellende Threads werden nacheinander bedient, so dass es
+ * immer nur einen Schreiber gibt. Die Änderungen einer Operation werden
+ * gemeinsam sichtbar. Ein Beobachter erhält alle seit seinem letzten Aufruf
+ * eingestellten Änderungen in einem Aufruf von
+ * ServiceObserver#reagiereAufAenderungen. Änderungen ohne Einzelheiten lösen
+ * wie gewohnt ServiceObserver#reagiereAufAenderung aus.
+ *
+ * Ist der Ringpuffer voll, weil ein Beobachter zu weit zurückliegt, wartet
+ * der einstellende Thread höchstens MAXIMALE_WARTEZEIT_BEI_VOLLEM_PUFFER
+ * darauf, dass der Beobachter ein Fach freigibt. Er hält dabei nicht die
+ * Sperre des Busses, so dass andere Beobachter weiterlesen und aufholen
+ * können, und wird geweckt, sobald ein Beobachter weitergelesen hat. Danach
+ * wird der Beobachter abgehängt: Seine ungelesenen Änderungen werden
+ * verworfen und gezählt (siehe getVerworfeneAenderungen), und er erhält
+ * stattdessen einen Aufruf von
+ * ServiceObserver#reagiereAufAenderung. Beobachter am Bus sollten daher keine
+ * Services verändern, die der Bus beobachtet. Beobachter, die die Oberfläche
+ * aktualisieren, müssen selbst in den Event-Dispatch-Thread wechseln.
+ *
+ * Endet der Thread eines Beobachters, weil der Beobachter einen Error wirft
+ * oder der Thread unterbrochen wird, wird der Beobachter abgemeldet.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class AenderungsBus implements ObservableService
+{
+    /**
+     * Die Anzahl der Fächer, wenn beim Erzeugen keine angegeben wird.
+     */
+    public static final int STANDARD_KAPAZITAET = 1024;
+
+    /**
+     * Die maximale Zeit in Millisekunden, die ein Beobachter-Thread auf neue
+     * Änderungen wartet, bevor er den Zustand erneut prüft.
+     */
+    private static final long WARTEZEIT = 100;
+
+    /**
+     * Die maximale Zeit in Nanosekunden, die ein einstellender Thread bei
+     * vollem Ringpuffer auf einen Beobachter wartet, bevor er ihn abhängt.
+     */
+    private static final long MAXIMALE_WARTEZEIT_BEI_VOLLEM_PUFFER = 200L
+            * 1000 * 1000;
+
+    /**
+     * Die Fächer des Ringpuffers. Das Fach einer Sequenznummer ist
+     * sequenz &amp; _maske.
+     */
+    private final Fach[] _faecher;
+
+    private final int _maske;
+
+    /**
+     * Die Sequenznummer der zuletzt sichtbar gemachten Änderung.
+     */
+    private final AtomicLong _cursor;
+
+    /**
+     * Die Sequenznummer der zuletzt in ein Fach geschriebenen Änderung. Wird
+     * nur vom einstellenden Thread und dort unter der Sperre des Busses
+     * geschrieben. Andere Threads lesen sie nur unter der Sperre des Busses.
+     */
+    private long _geschrieben;
+
+    /**
+     * Über dieses Objekt werden einstellende Threads nacheinander bedient.
+     * Sie halten die Sperre des Busses nur kurz, während sie ein Fach
+     * beschreiben, und nie, während sie auf einen Beobachter warten.
+     */
+    private final Object _schreiber;
+
+    /**
+     * Über dieses Objekt wartet ein einstellender Thread bei vollem
+     * Ringpuffer darauf, dass ein Beobachter ein Fach freigibt.
+     */
+    private final Object _freigabe;
+
+    /**
+     * Ist gesetzt, solange ein einstellender Thread auf _freigabe wartet.
+     */
+    private volatile boolean _schreiberWartet;
+
+    /**
+     * Die Beobachter des Busses, je mit eigenem Thread und eigener
+     * Sequenznummer.
+     */
+    private final List<Konsument> _konsumenten;
+
+    /**
+     * Der Eingang, den der Bus an den beobachteten Services anmeldet.
+     */
+    private final ServiceObserver _eingang;
+
+    /**
+     * Über dieses Objekt werden wartende Beobachter-Threads geweckt.
+     */
+    private final Object _signal;
+
+    /**
+     * Die Anzahl der Beobachter-Threads, die gerade auf neue Änderungen
+     * warten.
+     */
+    private final AtomicInteger _wartende;
+
+    /**
+     * Die Anzahl der Änderungen, die abgehängte Beobachter nicht erhalten
+     * haben.
+     */
+    private final AtomicLong _verworfen;
+
+    private volatile boolean _geschlossen;
+
+    private int _threadNummer;
+
+    /**
+     * Erzeugt einen neuen AenderungsBus mit STANDARD_KAPAZITAET Fächern.
+     */
+    public AenderungsBus()
+    {
+        this(STANDARD_KAPAZITAET);
+    }
+
+    /**
+     * Erzeugt einen neuen AenderungsBus.
+     *
+     * @param kapazitaet Die Anzahl der Fächer des Ringpuffers.
+     *
+     * @require kapazitaet > 0 und eine Zweierpotenz
+     */
+    public AenderungsBus(int kapazitaet)
+    {
+        assert kapazitaet > 0
+                && Integer.bitCount(kapazitaet) == 1 : "Vorbedingung verletzt: kapazitaet > 0 und eine Zweierpotenz";
+
+        _faecher = new Fach[kapazitaet];
+        for (int i = 0; i < kapazitaet; ++i)
+        {
+            _faecher[i] = new Fach();
+        }
+        _maske = kapazitaet - 1;
+        _cursor = new AtomicLong(-1);
+        _geschrieben = -1;
+        _konsumenten = new CopyOnWriteArrayList<Konsument>();
+        _schreiber = new Object();
+        _freigabe = new Object();
+        _signal = new Object();
+        _wartende = new AtomicInteger();
+        _verworfen = new AtomicLong();
+        _eingang = new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+                stelleEin(null);
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                stelleEin(aenderungen);
+            }
+        };
+    }
+
+    /**
+     * Meldet den Bus als Beobachter am angegebenen Service an. Alle Änderungen
+     * des Service werden danach an die Beobachter des Busses weitergegeben.
+     *
+     * @param service Der zu beobachtende Service.
+     *
+     * @require service != null
+     */
+    public void beobachte(ObservableService service)
+    {
+        assert service != null : "Vorbedingung verletzt: service != null";
+        service.registriereBeobachter(_eingang);
+    }
+
+    /**
+     * Meldet den Bus vom angegebenen Service ab.
+     *
+     * @param service Der beobachtete Service.
+     *
+     * @require service != null
+     */
+    public void beobachteNichtMehr(ObservableService service)
+    {
+        assert service != null : "Vorbedingung verletzt: service != null";
+        service.entferneBeobachter(_eingang);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Der Beobachter erhält einen eigenen Thread und alle Änderungen, die nach
+     * seiner Anmeldung eingestellt werden.
+     *
+     * @require !istGeschlossen()
+     */
+    @Override
+    public synchronized void registriereBeobachter(ServiceObserver beobachter)
+    {
+        assert beobachter != null : "Vorbedingung verletzt: beobachter != null";
+        assert !istGeschlossen() : "Vorbedingung verletzt: !istGeschlossen()";
+
+        if (sucheKonsument(beobachter) == null)
+        {
+            Konsument konsument = new Konsument(beobachter, _geschrieben,
+                    "Aenderungsbus-" + (++_threadNummer));
+            _konsumenten.add(konsument);
+            konsument._thread.start();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Der Thread des Beobachters wird beendet, nachdem er seinen aktuellen
+     * Aufruf abgeschlossen hat. Noch nicht gelesene Änderungen erhält der
+     * Beobachter nicht mehr.
+     */
+    @Override
+    public void entferneBeobachter(ServiceObserver beobachter)
+    {
+        assert beobachter != null : "Vorbedingung verletzt: beobachter != null";
+
+        // Ohne Sperre des Busses, damit ein Beobachter sich auch aus seinem
+        // eigenen Thread abmelden kann, während er gerade benachrichtigt wird
+        Konsument konsument = sucheKonsument(beobachter);
+        if (konsument == null || !_konsumenten.remove(konsument))
+        {
+            return;
+        }
+        konsument._aktiv = false;
+        wecke();
+        gebeFrei();
+        warteAufEnde(konsument._thread);
+    }
+
+    /**
+     * Schließt den Bus. Die Beobachter erhalten noch alle bereits
+     * eingestellten Änderungen, danach enden ihre Threads. Später gemeldete
+     * Änderungen werden verworfen. Weitere Aufrufe haben keine Wirkung.
+     */
+    public void schliesse()
+    {
+        synchronized (_schreiber)
+        {
+            _geschlossen = true;
+        }
+        wecke();
+        for (Konsument konsument : _konsumenten)
+        {
+            warteAufEnde(konsument._thread);
+        }
+    }
+
+    /**
+     * Prüft, ob der Bus geschlossen ist.
+     */
+    public boolean istGeschlossen()
+    {
+        return _geschlossen;
+    }
+
+    /**
+     * Gibt die Anzahl der Änderungen zurück, die abgehängte Beobachter nicht
+     * erhalten haben, weil sie zu weit zurücklagen.
+     */
+    public long getVerworfeneAenderungen()
+    {
+        return _verworfen.get();
+    }
+
+    /**
+     * Stellt Änderungen in den Ringpuffer und macht sie gemeinsam sichtbar.
+     *
+     * @param aenderungen Die Änderungen oder null für eine Änderung ohne
+     *            Einzelheiten.
+     */
+    private void stelleEin(List<ServiceAenderung> aenderungen)
+    {
+        synchronized (_schreiber)
+        {
+            if (_geschlossen)
+            {
+                return;
+            }
+            if (aenderungen == null)
+            {
+                schreibe(null);
+            }
+            else
+            {
+                for (int i = 0; i < aenderungen.size(); ++i)
+                {
+                    schreibe(aenderungen.get(i));
+                }
+            }
+            _cursor.set(_geschrieben);
+            wecke();
+        }
+    }
+
+    /**
+     * Schreibt eine Änderung in das nächste Fach. Ist es noch nicht von allen
+     * Beobachtern gelesen, werden die bisher geschriebenen Änderungen sichtbar
+     * gemacht und auf die Beobachter gewartet, ohne die Sperre des Busses zu
+     * halten.
+     */
+    private void schreibe(ServiceAenderung aenderung)
+    {
+        long sequenz = _geschrieben + 1;
+        long grenze = sequenz - _faecher.length;
+        if (grenze > kleinsteSequenz())
+        {
+            _cursor.set(_geschrieben);
+            wecke();
+            warteAufFreigabe(grenze);
+        }
+        synchronized (this)
+        {
+            _faecher[(int) (sequenz & _maske)]._aenderung = aenderung;
+            _geschrieben = sequenz;
+        }
+    }
+
+    /**
+     * Wartet, bis alle Beobachter die Änderung mit der gegebenen
+     * Sequenznummer gelesen haben. Beobachter, die das nach
+     * MAXIMALE_WARTEZEIT_BEI_VOLLEM_PUFFER oder einer Unterbrechung noch nicht
+     * getan haben, werden abgehängt.
+     */
+    private void warteAufFreigabe(long grenze)
+    {
+        long frist = System.nanoTime() + MAXIMALE_WARTEZEIT_BEI_VOLLEM_PUFFER;
+        synchronized (_freigabe)
+        {
+            _schreiberWartet = true;
+            try
+            {
+                while (grenze > kleinsteSequenz())
+                {
+                    long rest = frist - System.nanoTime();
+                    if (rest <= 0)
+                    {
+                        haengeAb(grenze);
+                        return;
+                    }
+                    try
+                    {
+                        _freigabe.wait(rest / 1000000, (int) (rest % 1000000));
+                    }
+                    catch (InterruptedException e)
+                    {
+                        haengeAb(grenze);
+                        Thread.currentThread()
+                            .interrupt();
+                        return;
+                    }
+                }
+            }
+            finally
+            {
+                _schreiberWartet = false;
+            }
+        }
+    }
+
+    /**
+     * Gibt die kleinste Sequenznummer zurück, die ein nicht abgehängter
+     * Beobachter bereits gelesen hat.
+     */
+    private long kleinsteSequenz()
+    {
+        long kleinste = _geschrieben;
+        for (Konsument konsument : _konsumenten)
+        {
+            if (!konsument._abgehaengt)
+            {
+                kleinste = Math.min(kleinste, konsument._sequenz.get());
+            }
+        }
+        return kleinste;
+    }
+
+    /**
+     * Hängt alle Beobachter ab, die die Änderung mit der gegebenen
+     * Sequenznummer noch nicht gelesen haben. Ihre Fächer dürfen danach
+     * überschrieben werden.
+     */
+    private void haengeAb(long grenze)
+    {
+        for (Konsument konsument : _konsumenten)
+        {
+            if (konsument._sequenz.get() < grenze)
+            {
+                konsument._abgehaengt = true;
+            }
+        }
+    }
+
+    /**
+     * Weckt einen einstellenden Thread, der auf ein freies Fach wartet.
+     */
+    private void gebeFrei()
+    {
+        if (_schreiberWartet)
+        {
+            synchronized (_freigabe)
+            {
+                _freigabe.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Weckt wartende Beobachter-Threads.
+     */
+    private void wecke()
+    {
+        if (_wartende.get() > 0)
+        {
+            synchronized (_signal)
+            {
+                _signal.notifyAll();
+            }
+        }
+    }
+
+    private Konsument sucheKonsument(ServiceObserver beobachter)
+    {
+        for (Konsument konsument : _konsumenten)
+        {
+            if (konsument._beobachter == beobachter)
+            {
+                return konsument;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wartet ohne Unterbrechung auf das Ende eines Beobachter-Threads, sofern
+     * es nicht der aktuelle Thread ist.
+     */
+    private static void warteAufEnde(Thread thread)
+    {
+        if (thread == Thread.currentThread())
+        {
+            return;
+        }
+        boolean unterbrochen = false;
+        while (thread.isAlive())
+        {
+            try
+            {
+                thread.join();
+            }
+            catch (InterruptedException e)
+            {
+                unterbrochen = true;
+            }
+        }
+        if (unterbrochen)
+        {
+            Thread.currentThread()
+                .interrupt();
+        }
+    }
+
+    /**
+     * Ein Fach des Ringpuffers.
+     */
+    private static final class Fach
+    {
+        /**
+         * Die Änderung oder null für eine Änderung ohne Einzelheiten. Wird
+         * vor dem Vorrücken des Cursors geschrieben und danach gelesen. Ein
+         * Beobachter, der ein überschriebenes Fach liest, sieht danach auch,
+         * dass er abgehängt wurde.
+         */
+        private volatile ServiceAenderung _aenderung;
+    }
+
+    /**
+     * Liest den Ringpuffer für einen Beobachter in dessen eigenem Thread.
+     */
+    private final class Konsument implements Runnable
+    {
+        private final ServiceObserver _beobachter;
+
+        /**
+         * Die Sequenznummer der zuletzt gelesenen Änderung. Fächer bis
+         * einschließlich dieser Nummer dürfen überschrieben werden.
+         */
+        private final AtomicLong _sequenz;
+
+        private final Thread _thread;
+
+        private volatile boolean _aktiv;
+
+        /**
+         * Ist gesetzt, wenn der einstellende Thread nicht länger auf diesen
+         * Beobachter gewartet und seine ungelesenen Fächer überschrieben hat.
+         */
+        private volatile boolean _abgehaengt;
+
+        Konsument(ServiceObserver beobachter, long sequenz, String threadName)
+        {
+            _beobachter = beobachter;
+            _sequenz = new AtomicLong(sequenz);
+            _thread = new Thread(this, threadName);
+            _thread.setDaemon(true);
+            _aktiv = true;
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                List<ServiceAenderung> gelesen = new ArrayList<ServiceAenderung>();
+                while (true)
+                {
+                    long verfuegbar = warteAufAenderungen();
+                    if (verfuegbar < 0)
+                    {
+                        return;
+                    }
+                    gelesen.clear();
+                    long ende = Math.min(verfuegbar,
+                            _sequenz.get() + _faecher.length);
+                    for (long sequenz = _sequenz.get()
+                            + 1; sequenz <= ende; ++sequenz)
+                    {
+                        gelesen.add(_faecher[(int) (sequenz
+                                & _maske)]._aenderung);
+                    }
+                    // Erst nach dem Lesen prüfen: Wurde ein gelesenes Fach
+                    // überschrieben, ist die Markierung jetzt sichtbar
+                    if (_abgehaengt)
+                    {
+                        holeAuf();
+                        meldeOhneEinzelheiten();
+                    }
+                    else
+                    {
+                        liefereAus(gelesen);
+                        _sequenz.set(verfuegbar);
+                        gebeFrei();
+                    }
+                }
+            }
+            finally
+            {
+                // Auch nach einem Error oder einer Unterbrechung, damit der
+                // einstellende Thread nicht auf einen toten Beobachter wartet
+                _konsumenten.remove(this);
+                gebeFrei();
+            }
+        }
+
+        /**
+         * Überspringt alle bisher geschriebenen Änderungen und zählt sie als
+         * verworfen. Unter der Sperre des Busses, damit kein einstellender
+         * Thread gerade ein Fach beschreibt. Ein einstellender Thread, der
+         * gerade auf Beobachter wartet, hält die Sperre nicht.
+         */
+        private void holeAuf()
+        {
+            synchronized (AenderungsBus.this)
+            {
+                _verworfen.addAndGet(_geschrieben - _sequenz.get());
+                _sequenz.set(_geschrieben);
+                _abgehaengt = false;
+            }
+        }
+
+        /**
+         * Übergibt die gelesenen Änderungen an den Beobachter. Änderungen ohne
+         * Einzelheiten trennen die Stapel.
+         */
+        private void liefereAus(List<ServiceAenderung> gelesen)
+        {
+            List<ServiceAenderung> stapel = new ArrayList<ServiceAenderung>();
+            for (int i = 0; i < gelesen.size(); ++i)
+            {
+                ServiceAenderung aenderung = gelesen.get(i);
+                if (aenderung == null)
+                {
+                    stapel = melde(stapel);
+                    meldeOhneEinzelheiten();
+                }
+                else
+                {
+                    stapel.add(aenderung);
+                }
+            }
+            melde(stapel);
+        }
+
+        /**
+         * Wartet, bis neue Änderungen sichtbar sind.
+         *
+         * @return Die Sequenznummer der zuletzt sichtbaren Änderung oder -1,
+         *         wenn der Thread enden soll.
+         */
+        private long warteAufAenderungen()
+        {
+            long gelesen = _sequenz.get();
+            _wartende.incrementAndGet();
+            try
+            {
+                synchronized (_signal)
+                {
+                    while (true)
+                    {
+                        if (!_aktiv)
+                        {
+                            return -1;
+                        }
+                        long cursor = _cursor.get();
+                        if (cursor > gelesen)
+                        {
+                            return cursor;
+                        }
+                        if (_geschlossen)
+                        {
+                            return -1;
+                        }
+                        try
+                        {
+                            _signal.wait(WARTEZEIT);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            return -1;
+                        }
+                    }
+                }
+            }
+            finally
+            {
+                _wartende.decrementAndGet();
+            }
+        }
+
+        /**
+         * Übergibt einen Stapel von Änderungen an den Beobachter. Ein Fehler
+         * des Beobachters beendet seinen Thread nicht.
+         *
+         * @return Eine leere Liste für den nächsten Stapel. Der übergebene
+         *         Stapel gehört danach dem Beobachter.
+         */
+        private List<ServiceAenderung> melde(List<ServiceAenderung> stapel)
+        {
+            if (stapel.isEmpty())
+            {
+                return stapel;
+            }
+            try
+            {
+                _beobachter.reagiereAufAenderungen(
+                        Collections.unmodifiableList(stapel));
+            }
+            catch (RuntimeException e)
+            {
+                e.printStackTrace();
+            }
+            return new ArrayList<ServiceAenderung>();
+        }
+
+        private void meldeOhneEinzelheiten()
+        {
+            try
+            {
+                _beobachter.reagiereAufAenderung();
+            }
+            catch (RuntimeException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+
+/**
+ * @author SE2-Team
+ */
+public class AenderungsBusTest
+{
+    private AenderungsBus _bus;
+    private MedienbestandService _medienbestand;
+
+    public AenderungsBusTest()
+    {
+        _bus = new AenderungsBus(8);
+        _medienbestand = new MedienbestandServiceImpl(new ArrayList<Medium>());
+        _bus.beobachte(_medienbestand);
+    }
+
+    @After
+    public void raeumeAuf()
+    {
+        _bus.schliesse();
+    }
+
+    @Test
+    public void testeAlleAenderungenKommenInReihenfolgeAn()
+    {
+        final List<Medium> erhalten = Collections
+            .synchronizedList(new ArrayList<Medium>());
+        _bus.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                for (ServiceAenderung aenderung : aenderungen)
+                {
+                    erhalten.add(aenderung.getMedium());
+                }
+            }
+        });
+
+        List<Medium> medien = new ArrayList<Medium>();
+        for (int i = 0; i < 100; ++i)
+        {
+            Medium medium = new CD("CD" + i, "baz", "foo", 123);
+            medien.add(medium);
+            _medienbestand.fuegeMediumEin(medium);
+        }
+        _bus.schliesse();
+
+        assertEquals(medien, erhalten);
+    }
+
+    @Test(timeout = 10000)
+    public void testeLangsamerBeobachterHaeltServiceNichtAuf()
+            throws InterruptedException
+    {
+        final CountDownLatch freigabe = new CountDownLatch(1);
+        final AtomicInteger langsamErhalten = new AtomicInteger();
+        final CountDownLatch schnellErhalten = new CountDownLatch(5);
+        _bus.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                try
+                {
+                    freigabe.await();
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                langsamErhalten.addAndGet(aenderungen.size());
+            }
+        });
+        _bus.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                for (int i = 0; i < aenderungen.size(); ++i)
+                {
+                    schnellErhalten.countDown();
+                }
+            }
+        });
+
+        for (int i = 0; i < 5; ++i)
+        {
+            _medienbestand.fuegeMediumEin(new CD("CD" + i, "baz", "foo", 123));
+        }
+        assertTrue(schnellErhalten.await(5, TimeUnit.SECONDS));
+        assertEquals(0, langsamErhalten.get());
+
+        freigabe.countDown();
+        _bus.schliesse();
+        assertEquals(5, langsamErhalten.get());
+    }
+
+    @Test
+    public void testeAenderungOhneEinzelheiten()
+    {
+        final List<Thread> threads = Collections
+            .synchronizedList(new ArrayList<Thread>());
+        _bus.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+                threads.add(Thread.currentThread());
+            }
+        });
+
+        _medienbestand.medienWurdenGeaendert();
+        _bus.schliesse();
+
+        assertEquals(1, threads.size());
+        assertTrue(threads.get(0)
+            .getName()
+            .startsWith("Aenderungsbus-"));
+        assertSame(Thread.State.TERMINATED, threads.get(0)
+            .getState());
+    }
+
+    @Test(timeout = 10000)
+    public void testeHaengenderBeobachterWirdAbgehaengt()
+            throws InterruptedException
+    {
+        final CountDownLatch freigabe = new CountDownLatch(1);
+        final AtomicInteger erhalten = new AtomicInteger();
+        final AtomicInteger ohneEinzelheiten = new AtomicInteger();
+        _bus.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+                ohneEinzelheiten.incrementAndGet();
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                try
+                {
+                    freigabe.await();
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                erhalten.addAndGet(aenderungen.size());
+            }
+        });
+
+        // Der Ringpuffer hat nur 8 Fächer
+        for (int i = 0; i < 20; ++i)
+        {
+            _medienbestand.fuegeMediumEin(new CD("CD" + i, "baz", "foo", 123));
+        }
+        freigabe.countDown();
+        _bus.schliesse();
+
+        assertEquals(1, ohneEinzelheiten.get());
+        assertTrue(_bus.getVerworfeneAenderungen() > 0);
+        assertEquals(20, erhalten.get() + _bus.getVerworfeneAenderungen());
+    }
+
+    @Test(timeout = 10000)
+    public void testeAbgestuerzterBeobachterWirdAbgemeldet()
+            throws InterruptedException
+    {
+        final CountDownLatch abgestuerzt = new CountDownLatch(1);
+        final CountDownLatch erhalten = new CountDownLatch(1);
+        ServiceObserver beobachter = new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                if (abgestuerzt.getCount() > 0)
+                {
+                    abgestuerzt.countDown();
+                    throw new Error("Absturz im Test");
+                }
+                erhalten.countDown();
+            }
+        };
+        _bus.registriereBeobachter(beobachter);
+        _medienbestand.fuegeMediumEin(new CD("CD", "baz", "foo", 123));
+        abgestuerzt.await();
+
+        // Erst wenn der tote Beobachter abgemeldet ist, wirkt die erneute
+        // Anmeldung
+        do
+        {
+            _bus.registriereBeobachter(beobachter);
+            _medienbestand.fuegeMediumEin(new CD("CD", "baz", "foo", 123));
+        }
+        while (!erhalten.await(10, TimeUnit.MILLISECONDS));
+        assertEquals(0, _bus.getVerworfeneAenderungen());
+    }
+}
@@ -0,0 +1,146 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * Eine ServiceAenderung beschreibt eine einzelne Änderung an einem
+ * beobachtbaren Service: welches Medium, welcher Kunde oder welche
+ * Verleihkarte hinzugefügt, entfernt oder geändert wurde.
+ * 
+ * Bei Verleihkarten steht HINZUGEFUEGT für einen Verleih und ENTFERNT für eine
+ * Rücknahme. Eine Änderung der Vormerkungen eines Mediums wird als GEAENDERT
+ * für das Medium gemeldet.
+ * 
+ * ServiceAenderungen sind unveränderlich.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public final class ServiceAenderung
+{
+    /**
+     * Die Art einer Änderung.
+     */
+    public enum Art
+    {
+        HINZUGEFUEGT, ENTFERNT, GEAENDERT;
+    }
+
+    private final Art _art;
+    private final Medium _medium;
+    private final Kunde _kunde;
+    private final Verleihkarte _verleihkarte;
+
+    private ServiceAenderung(Art art, Medium medium, Kunde kunde,
+            Verleihkarte verleihkarte)
+    {
+        _art = art;
+        _medium = medium;
+        _kunde = kunde;
+        _verleihkarte = verleihkarte;
+    }
+
+    /**
+     * Erzeugt eine Änderung an einem Medium.
+     * 
+     * @param art Die Art der Änderung.
+     * @param medium Das betroffene Medium.
+     * 
+     * @require art != null
+     * @require medium != null
+     * 
+     * @ensure result.getMedium() == medium
+     */
+    public static ServiceAenderung fuerMedium(Art art, Medium medium)
+    {
+        assert art != null : "Vorbedingung verletzt: art != null";
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        return new ServiceAenderung(art, medium, null, null);
+    }
+
+    /**
+     * Erzeugt eine Änderung an einem Kunden.
+     * 
+     * @param art Die Art der Änderung.
+     * @param kunde Der betroffene Kunde.
+     * 
+     * @require art != null
+     * @require kunde != null
+     * 
+     * @ensure result.getKunde() == kunde
+     */
+    public static ServiceAenderung fuerKunde(Art art, Kunde kunde)
+    {
+        assert art != null : "Vorbedingung verletzt: art != null";
+        assert kunde != null : "Vorbedingung verletzt: kunde != null";
+        return new ServiceAenderung(art, null, kunde, null);
+    }
+
+    /**
+     * Erzeugt eine Änderung an einer Verleihkarte. Medium und Kunde der
+     * Änderung sind das Medium und der Entleiher der Verleihkarte.
+     * 
+     * @param art Die Art der Änderung.
+     * @param verleihkarte Die betroffene Verleihkarte.
+     * 
+     * @require art != null
+     * @require verleihkarte != null
+     * 
+     * @ensure result.getVerleihkarte() == verleihkarte
+     */
+    public static ServiceAenderung fuerVerleihkarte(Art art,
+            Verleihkarte verleihkarte)
+    {
+        assert art != null : "Vorbedingung verletzt: art != null";
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+        return new ServiceAenderung(art, verleihkarte.getMedium(),
+                verleihkarte.getEntleiher(), verleihkarte);
+    }
+
+    /**
+     * Gibt die Art der Änderung zurück.
+     * 
+     * @ensure result != null
+     */
+    public Art getArt()
+    {
+        return _art;
+    }
+
+    /**
+     * Gibt das betroffene Medium zurück, oder null, wenn kein Medium betroffen
+     * ist.
+     */
+    public Medium getMedium()
+    {
+        return _medium;
+    }
+
+    /**
+     * Gibt den betroffenen Kunden zurück, oder null, wenn kein Kunde betroffen
+     * ist.
+     */
+    public Kunde getKunde()
+    {
+        return _kunde;
+    }
+
+    /**
+     * Gibt die betroffene Verleihkarte zurück, oder null, wenn die Änderung
+     * keine Verleihkarte betrifft.
+     */
+    public Verleihkarte getVerleihkarte()
+    {
+        return _verleihkarte;
+    }
+
+    @Override
+    public String toString()
+    {
+        Object betroffen = _verleihkarte != null ? _verleihkarte
+                : (_medium != null ? _medium : _kunde);
+        return _art + ": " + betroffen;
+    }
+}
@@ -1,5 +1,7 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.services;
 
+import java.util.List;
+
 /**
  * Interface für Beobachter, die sich für Änderungen eines ObservableService
  * interessieren.
@@ -18,4 +20,25 @@ public interface ServiceObserver
      * reagieren.
      */
     void reagiereAufAenderung();
+
+    /**
+     * Diese Operation wird aufgerufen, wenn der beobachtete Service die
+     * einzelnen Änderungen einer Operation mitteilt. Beobachter, die nur die
+     * betroffenen Einträge aktualisieren wollen, überschreiben diese
+     * Operation.
+     * 
+     * Die Standardimplementation ruft #reagiereAufAenderung() auf. Meldet ein
+     * Service eine Änderung ohne Einzelheiten, wird weiterhin nur
+     * #reagiereAufAenderung() aufgerufen, auch bei Beobachtern, die diese
+     * Operation überschreiben.
+     * 
+     * @param aenderungen Die Änderungen in der Reihenfolge, in der sie
+     *            eingetreten sind.
+     * 
+     * @require aenderungen != null && !aenderungen.isEmpty()
+     */
+    default void reagiereAufAenderungen(List<ServiceAenderung> aenderungen)
+    {
+        reagiereAufAenderung();
+    }
 }
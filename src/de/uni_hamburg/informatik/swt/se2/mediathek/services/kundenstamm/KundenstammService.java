@@ -72,4 +72,23 @@ public interface KundenstammService extends ObservableService
      */
     Kunde getKunden(Kundennummer kundennummer);
 
+    /**
+     * Liefert die Kunden, deren Vor- oder Nachname mit dem gegebenen Anfang
+     * beginnt. Der Anfang darf auch einen ganzen Namen gefolgt vom Anfang des
+     * anderen Namens enthalten, etwa "susi so" oder "sonnenschein s". Groß- und
+     * Kleinschreibung spielt keine Rolle. Die Kunden werden alphabetisch nach
+     * dem passenden Namen geordnet, jeder Kunde höchstens einmal.
+     * 
+     * @param namensanfang Der Anfang eines Namens.
+     * @param maxTreffer Die Anzahl der ersten Treffer, die geliefert werden.
+     * @return Die ersten Kunden, deren Name mit dem Anfang beginnt.
+     * 
+     * @require namensanfang != null
+     * @require maxTreffer > 0
+     * 
+     * @ensure result != null
+     * @ensure result.size() <= maxTreffer
+     */
+    List<Kunde> sucheKunden(String namensanfang, int maxTreffer);
+
 }
@@ -1,15 +1,24 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.AbstractObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung.Art;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
 
 /**
  * Ein Kundenstamm ist ein Service, der die Menge von Kunden verwaltet. Auf
- * Kunden kann über ihre Kundennummer zugegriffen werden.
+ * Kunden kann über ihre Kundennummer zugegriffen werden. Über einen sortierten
+ * Namensindex lassen sich Kunden nach dem Anfang ihres Namens suchen.
  * 
  * @author SE2-Team
  * @version SoSe 2021
@@ -19,9 +28,28 @@ public class KundenstammServiceImpl extends AbstractObservableService
 {
 
     /**
-     * Eine Liste, die alle Kunden enthält.
+     * Eine Menge, die alle Kunden in der Reihenfolge ihres Einfügens enthält.
      */
-    private List<Kunde> _kundenstamm;
+    private Set<Kunde> _kundenstamm;
+
+    /**
+     * Der Index über die Kundennummern. Ist eine Kundennummer mehrfach
+     * vergeben, so verweist der Index auf den zuerst eingefügten Kunden.
+     */
+    private Map<Kundennummer, Kunde> _kundennummernIndex;
+
+    /**
+     * Ist true, sobald eine Kundennummer mehr als einmal eingefügt wurde.
+     */
+    private boolean _kundennummernMehrfachVergeben;
+
+    /**
+     * Der Namensindex. Jeder Kunde steht darin unter "vorname nachname" und
+     * unter "nachname vorname", normalisiert mit #normalisiereNamen. Alle
+     * Namen mit einem gemeinsamen Anfang bilden so einen zusammenhängenden
+     * Bereich des Index.
+     */
+    private NavigableMap<String, Set<Kunde>> _namensIndex;
 
     /**
      * Konstruktor. Initialisiert einen Kundenstamm.
@@ -33,7 +61,13 @@ public class KundenstammServiceImpl extends AbstractObservableService
     public KundenstammServiceImpl(List<Kunde> kunden)
     {
         assert kunden != null : "Vorbedingung verletzt: kunden != null";
-        _kundenstamm = new ArrayList<Kunde>(kunden);
+        _kundenstamm = new LinkedHashSet<Kunde>();
+        _kundennummernIndex = new HashMap<Kundennummer, Kunde>();
+        _namensIndex = new TreeMap<String, Set<Kunde>>();
+        for (Kunde kunde : kunden)
+        {
+            nimmKundenAuf(kunde);
+        }
     }
 
     @Override
@@ -42,7 +76,9 @@ public class KundenstammServiceImpl extends AbstractObservableService
         assert enthaeltKunden(
                 kunde) : "Vorbedingung verletzt: enthaeltKunden(kunde) ";
         _kundenstamm.remove(kunde);
-        informiereUeberAenderung();
+        entferneAusIndex(kunde);
+        entferneAusNamensIndex(kunde);
+        informiereUeberAenderung(ServiceAenderung.fuerKunde(Art.ENTFERNT, kunde));
     }
 
     @Override
@@ -57,8 +93,9 @@ public class KundenstammServiceImpl extends AbstractObservableService
     {
         assert !enthaeltKunden(
                 neuerKunde) : "Vorbedingung verletzt: !enthaelt(kunden)";
-        _kundenstamm.add(neuerKunde);
-        informiereUeberAenderung();
+        nimmKundenAuf(neuerKunde);
+        informiereUeberAenderung(
+                ServiceAenderung.fuerKunde(Art.HINZUGEFUEGT, neuerKunde));
     }
 
     @Override
@@ -72,17 +109,146 @@ public class KundenstammServiceImpl extends AbstractObservableService
     {
         assert kundennummer != null : "Vorbedingung verletzt: kundennummer != null";
 
-        Kunde result = null;
-        for (Kunde kunde : _kundenstamm)
+        return _kundennummernIndex.get(kundennummer);
+    }
+
+    @Override
+    public List<Kunde> sucheKunden(String namensanfang, int maxTreffer)
+    {
+        assert namensanfang != null : "Vorbedingung verletzt: namensanfang != null";
+        assert maxTreffer > 0 : "Vorbedingung verletzt: maxTreffer > 0";
+
+        String anfang = normalisiereNamen(namensanfang);
+        Set<Kunde> treffer = new LinkedHashSet<Kunde>();
+        for (Set<Kunde> kunden : _namensIndex
+            .subMap(anfang, true, anfang + Character.MAX_VALUE, true)
+            .values())
         {
-            if (kunde.getKundennummer()
-                .equals(kundennummer))
+            for (Kunde kunde : kunden)
+            {
+                treffer.add(kunde);
+                if (treffer.size() == maxTreffer)
+                {
+                    return new ArrayList<Kunde>(treffer);
+                }
+            }
+        }
+        return new ArrayList<Kunde>(treffer);
+    }
+
+    /**
+     * Nimmt einen Kunden in den Kundenstamm, in den Kundennummern-Index und in
+     * den Namensindex auf.
+     * 
+     * @param kunde Ein Kunde.
+     */
+    private void nimmKundenAuf(Kunde kunde)
+    {
+        if (_kundenstamm.add(kunde))
+        {
+            if (_kundennummernIndex.putIfAbsent(kunde.getKundennummer(),
+                    kunde) != null)
+            {
+                _kundennummernMehrfachVergeben = true;
+            }
+            for (String name : getIndexNamen(kunde))
+            {
+                Set<Kunde> kunden = _namensIndex.get(name);
+                if (kunden == null)
+                {
+                    kunden = new LinkedHashSet<Kunde>();
+                    _namensIndex.put(name, kunden);
+                }
+                kunden.add(kunde);
+            }
+        }
+    }
+
+    /**
+     * Entfernt einen Kunden aus dem Kundennummern-Index. Verweist der Index
+     * auf diesen Kunden, wird ein eventuell verbleibender Kunde mit derselben
+     * Kundennummer nachgetragen.
+     * 
+     * @param kunde Ein bereits aus dem Kundenstamm entfernter Kunde.
+     */
+    private void entferneAusIndex(Kunde kunde)
+    {
+        Kundennummer kundennummer = kunde.getKundennummer();
+        if (_kundennummernIndex.remove(kundennummer, kunde)
+                && _kundennummernMehrfachVergeben)
+        {
+            for (Kunde verbleibenderKunde : _kundenstamm)
+            {
+                if (verbleibenderKunde.getKundennummer()
+                    .equals(kundennummer))
+                {
+                    _kundennummernIndex.put(kundennummer, verbleibenderKunde);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Entfernt einen Kunden aus dem Namensindex. Namen ohne Kunden werden aus
+     * dem Index gelöscht.
+     * 
+     * @param kunde Ein bereits aus dem Kundenstamm entfernter Kunde.
+     */
+    private void entferneAusNamensIndex(Kunde kunde)
+    {
+        for (String name : getIndexNamen(kunde))
+        {
+            Set<Kunde> kunden = _namensIndex.get(name);
+            kunden.remove(kunde);
+            if (kunden.isEmpty())
+            {
+                _namensIndex.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Liefert die Namen, unter denen ein Kunde im Namensindex steht.
+     */
+    private static String[] getIndexNamen(Kunde kunde)
+    {
+        String vorname = normalisiereNamen(kunde.getVorname());
+        String nachname = normalisiereNamen(kunde.getNachname());
+        return new String[] {vorname + " " + nachname,
+                nachname + " " + vorname};
+    }
+
+    /**
+     * Bringt einen Namen in die Form des Namensindex: in Kleinbuchstaben, ohne
+     * Leerzeichen am Anfang und Ende und mit genau einem Leerzeichen zwischen
+     * zwei Wörtern.
+     * 
+     * @param name Ein Name oder Namensanfang.
+     * @return Der normalisierte Name.
+     */
+    static String normalisiereNamen(String name)
+    {
+        StringBuilder result = new StringBuilder(name.length());
+        boolean leerzeichen = false;
+        for (int i = 0; i < name.length(); ++i)
+        {
+            char zeichen = name.charAt(i);
+            if (Character.isWhitespace(zeichen))
+            {
+                leerzeichen = result.length() > 0;
+            }
+            else
             {
-                result = kunde;
-                break;
+                if (leerzeichen)
+                {
+                    result.append(' ');
+                    leerzeichen = false;
+                }
+                result.append(Character.toLowerCase(zeichen));
             }
         }
-        return result;
+        return result.toString();
     }
 
 }
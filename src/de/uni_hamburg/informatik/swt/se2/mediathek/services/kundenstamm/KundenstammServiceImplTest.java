@@ -7,6 +7,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import org.junit.Test;
 
@@ -122,4 +123,48 @@ public class KundenstammServiceImplTest
         assertNull(kunde);
     }
 
+    @Test
+    public void testgetKundenFuerMehrfachVergebeneKundennummer()
+    {
+        Kunde klausZwei = new Kunde(new Kundennummer(123456), "Klaus",
+                "Zwei");
+        _kundenstamm.fuegeKundenEin(_klaus);
+        _kundenstamm.fuegeKundenEin(klausZwei);
+        assertTrue(_kundenstamm.enthaeltKunden(klausZwei));
+        assertEquals(_klaus, _kundenstamm.getKunden(_klaus.getKundennummer()));
+
+        _kundenstamm.entferneKunden(_klaus);
+        assertEquals(klausZwei,
+                _kundenstamm.getKunden(_klaus.getKundennummer()));
+
+        _kundenstamm.entferneKunden(klausZwei);
+        assertNull(_kundenstamm.getKunden(_klaus.getKundennummer()));
+    }
+
+    @Test
+    public void testSucheKundenNachNamensanfang()
+    {
+        Kunde sabine = new Kunde(new Kundennummer(111111), "Sabine", "Klausen");
+        _kundenstamm.fuegeKundenEin(_klaus);
+        _kundenstamm.fuegeKundenEin(_susi);
+        _kundenstamm.fuegeKundenEin(sabine);
+
+        assertEquals(Arrays.asList(_klaus, sabine),
+                _kundenstamm.sucheKunden("KLAUS", 10));
+        assertEquals(Arrays.asList(sabine, _klaus, _susi),
+                _kundenstamm.sucheKunden("s", 10));
+        assertEquals(Arrays.asList(_susi),
+                _kundenstamm.sucheKunden("  susi   so", 10));
+        assertEquals(Arrays.asList(_klaus),
+                _kundenstamm.sucheKunden("schmidt k", 10));
+        assertEquals(Arrays.asList(sabine, _klaus),
+                _kundenstamm.sucheKunden("s", 2));
+        assertTrue(_kundenstamm.sucheKunden("x", 10)
+            .isEmpty());
+
+        _kundenstamm.entferneKunden(sabine);
+        assertEquals(Arrays.asList(_klaus),
+                _kundenstamm.sucheKunden("klaus", 10));
+    }
+
 }
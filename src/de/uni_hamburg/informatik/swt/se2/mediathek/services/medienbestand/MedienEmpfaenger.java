@@ -0,0 +1,65 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * Empfängt eingelesene Medien Feld für Feld, ohne dass der Einleser dafür
+ * Medium-Objekte erzeugen muss. Die Medien werden in der Reihenfolge der
+ * Aufrufe aufgenommen.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public interface MedienEmpfaenger
+{
+    /**
+     * Nimmt eine CD auf.
+     *
+     * @require titel != null
+     * @require kommentar != null
+     * @require interpret != null
+     * @require spiellaenge > 0
+     */
+    void nimmCDAuf(String titel, String kommentar, String interpret,
+            int spiellaenge);
+
+    /**
+     * Nimmt eine DVD auf.
+     *
+     * @require titel != null
+     * @require kommentar != null
+     * @require regisseur != null
+     * @require laufzeit > 0
+     */
+    void nimmDVDAuf(String titel, String kommentar, String regisseur,
+            int laufzeit);
+
+    /**
+     * Nimmt ein KonsolenVideospiel auf.
+     *
+     * @require titel != null
+     * @require kommentar != null
+     * @require system != null
+     */
+    void nimmKonsolenVideospielAuf(String titel, String kommentar,
+            String system);
+
+    /**
+     * Nimmt ein PCVideospiel auf.
+     *
+     * @require titel != null
+     * @require kommentar != null
+     * @require system != null
+     */
+    void nimmPCVideospielAuf(String titel, String kommentar, String system);
+
+    /**
+     * Gibt das zuletzt aufgenommene Medium zurück, etwa um eine Verleihkarte
+     * dafür anzulegen.
+     *
+     * @require Es wurde bereits ein Medium aufgenommen.
+     *
+     * @ensure result != null
+     */
+    Medium getLetztesMedium();
+}
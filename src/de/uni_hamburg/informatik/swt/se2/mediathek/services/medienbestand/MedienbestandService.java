@@ -66,11 +66,37 @@ public interface MedienbestandService extends ObservableService
      */
     List<Medium> getMedien();
 
+    /**
+     * Erfasst die vorhandenen Medien als Verzeichnis in der Reihenfolge von
+     * #getMedien(), etwa um ein Verleihjournal auf die Reihenfolge einer
+     * daraus geschriebenen Medien-Datei zu beziehen. Medien, die danach
+     * eingefügt werden, gehören nicht dazu.
+     * 
+     * @ensure result != null
+     */
+    Medienverzeichnis erfasseVerzeichnis();
+
     /**
      * Informiert diesen Service darüber, dass Medien von einem Werkzeug
      * geändert wurden. Eine Implementation wird daraufhin wahrscheinlich alle
      * ServiceBeobachter darüber informieren.
+     * 
+     * Die Beobachter erfahren dabei nicht, welche Medien betroffen sind, und
+     * müssen ihren gesamten Zustand neu ermitteln. Sind die geänderten Medien
+     * bekannt, sollte #medienWurdenGeaendert(List) benutzt werden.
      */
     void medienWurdenGeaendert();
 
+    /**
+     * Informiert diesen Service darüber, dass die angegebenen Medien von einem
+     * Werkzeug geändert wurden. Die Beobachter erhalten für jedes Medium eine
+     * Änderung der Art GEAENDERT und können nur diese Medien aktualisieren.
+     * 
+     * @param medien Die geänderten Medien.
+     * 
+     * @require medien != null
+     * @require alle Medien sind im Bestand enthalten
+     */
+    void medienWurdenGeaendert(List<Medium> medien);
+
 }
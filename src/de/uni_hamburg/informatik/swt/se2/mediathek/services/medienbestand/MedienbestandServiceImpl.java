@@ -1,10 +1,14 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.AbstractObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung.Art;
 
 /**
  * Ein Medienbestand enthält alle zur Verfügung stehenden Medien. Diese können
@@ -20,9 +24,11 @@ public class MedienbestandServiceImpl extends AbstractObservableService
 {
 
     /**
-     * Eine Liste aller Medien
+     * Eine Menge aller Medien in der Reihenfolge ihres Einfügens. Da Medien
+     * nicht über equals verglichen werden, entspricht die Mitgliedschaft der
+     * Objektidentität.
      */
-    private List<Medium> _medienbestand;
+    private Set<Medium> _medienbestand;
 
     /**
      * Initialisiert einen neuen Medienbestand.
@@ -34,7 +40,7 @@ public class MedienbestandServiceImpl extends AbstractObservableService
     public MedienbestandServiceImpl(List<Medium> medien)
     {
         assert medien != null : "Vorbedingung verletzt: medien != null";
-        _medienbestand = new ArrayList<Medium>(medien);
+        _medienbestand = new LinkedHashSet<Medium>(medien);
     }
 
     @Override
@@ -44,7 +50,8 @@ public class MedienbestandServiceImpl extends AbstractObservableService
                 medium) : "Vorbedingung verletzt: enthaeltMedium(medium)";
         _medienbestand.remove(medium);
 
-        informiereUeberAenderung();
+        informiereUeberAenderung(
+                ServiceAenderung.fuerMedium(Art.ENTFERNT, medium));
     }
 
     @Override
@@ -61,7 +68,8 @@ public class MedienbestandServiceImpl extends AbstractObservableService
                 neuesMedium) : "Vorbedingung verletzt: !enthaeltMedium(medium)";
         _medienbestand.add(neuesMedium);
 
-        informiereUeberAenderung();
+        informiereUeberAenderung(
+                ServiceAenderung.fuerMedium(Art.HINZUGEFUEGT, neuesMedium));
     }
 
     @Override
@@ -70,10 +78,31 @@ public class MedienbestandServiceImpl extends AbstractObservableService
         return new ArrayList<Medium>(_medienbestand);
     }
 
+    @Override
+    public Medienverzeichnis erfasseVerzeichnis()
+    {
+        return new Medienliste(getMedien());
+    }
+
     @Override
     public void medienWurdenGeaendert()
     {
         informiereUeberAenderung();
     }
 
+    @Override
+    public void medienWurdenGeaendert(List<Medium> medien)
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        List<ServiceAenderung> aenderungen = new ArrayList<ServiceAenderung>(
+                medien.size());
+        for (Medium medium : medien)
+        {
+            assert enthaeltMedium(
+                    medium) : "Vorbedingung verletzt: enthaeltMedium(medium)";
+            aenderungen.add(ServiceAenderung.fuerMedium(Art.GEAENDERT, medium));
+        }
+        informiereUeberAenderungen(aenderungen);
+    }
+
 }
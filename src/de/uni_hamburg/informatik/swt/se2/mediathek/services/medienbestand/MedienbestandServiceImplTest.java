@@ -102,4 +102,21 @@ public class MedienbestandServiceImplTest
             .size());
         assertTrue(_medienbestand.enthaeltMedium(_cd2));
     }
+
+    @Test
+    public void getMedienBehaeltEinfuegereihenfolgeTest()
+    {
+        Medium cd3 = new CD("Mein CD3-Titel", "Mein CD3-Kommentar",
+                "Mein Interpret 3", 42);
+        _medienbestand.fuegeMediumEin(_cd1);
+        _medienbestand.fuegeMediumEin(_cd2);
+        _medienbestand.fuegeMediumEin(cd3);
+        _medienbestand.entferneMedium(_cd2);
+        _medienbestand.fuegeMediumEin(_cd2);
+
+        List<Medium> medien = _medienbestand.getMedien();
+        assertEquals(_cd1, medien.get(0));
+        assertEquals(cd3, medien.get(1));
+        assertEquals(_cd2, medien.get(2));
+    }
 }
@@ -0,0 +1,64 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * Ein Medienverzeichnis über eine Kopie einer Medienliste. Es hält alle Medien
+ * der Liste und darf nach der Erzeugung aus mehreren Threads benutzt werden.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class Medienliste implements Medienverzeichnis
+{
+    private final List<Medium> _medien;
+
+    /**
+     * Der Index jedes verzeichneten Mediums.
+     */
+    private final Map<Medium, Integer> _medienIndizes;
+
+    /**
+     * Initialisiert eine neue Medienliste.
+     *
+     * @param medien Die Medien in der Reihenfolge ihrer Indizes.
+     *
+     * @require medien != null
+     */
+    public Medienliste(List<Medium> medien)
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        _medien = new ArrayList<Medium>(medien);
+        _medienIndizes = new HashMap<Medium, Integer>();
+        for (Medium medium : _medien)
+        {
+            _medienIndizes.put(medium, _medienIndizes.size());
+        }
+    }
+
+    @Override
+    public int getAnzahlMedien()
+    {
+        return _medien.size();
+    }
+
+    @Override
+    public int getIndex(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        Integer index = _medienIndizes.get(medium);
+        return index == null ? -1 : index;
+    }
+
+    @Override
+    public Medium getMedium(int index)
+    {
+        assert index >= 0 && index < getAnzahlMedien() : "Vorbedingung verletzt: index >= 0 && index < getAnzahlMedien()";
+        return _medien.get(index);
+    }
+}
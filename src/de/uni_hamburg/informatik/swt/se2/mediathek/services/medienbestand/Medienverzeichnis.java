@@ -0,0 +1,44 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * Ein Medienverzeichnis nummeriert die Medien eines geschriebenen oder
+ * eingelesenen Bestands in der Reihenfolge der Medien-Datei, ohne dass dafür
+ * eine Liste aller Medium-Objekte gehalten werden muss.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public interface Medienverzeichnis
+{
+    /**
+     * Gibt die Anzahl der verzeichneten Medien zurück.
+     *
+     * @ensure result >= 0
+     */
+    int getAnzahlMedien();
+
+    /**
+     * Gibt den Index eines Mediums zurück.
+     *
+     * @param medium Ein Medium.
+     * @return Der Index des Mediums oder -1, wenn es nicht verzeichnet ist.
+     *
+     * @require medium != null
+     *
+     * @ensure result >= -1 && result < getAnzahlMedien()
+     */
+    int getIndex(Medium medium);
+
+    /**
+     * Gibt das Medium mit einem Index zurück.
+     *
+     * @param index Ein Index.
+     *
+     * @require index >= 0 && index < getAnzahlMedien()
+     *
+     * @ensure result != null
+     */
+    Medium getMedium(int index);
+}
@@ -0,0 +1,1054 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.AbstractObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung.Art;
+
+/**
+ * Ein Medienbestand, der die Daten seiner Medien spaltenweise außerhalb des
+ * Java-Heaps ablegt. Pro Medium belegt er einen Typcode, die Spiellänge oder
+ * Laufzeit als int und je einen Verweis auf Titel, Kommentar und Interpret,
+ * Regisseur oder System in einem gemeinsamen UTF-8-Textspeicher. Die Medien
+ * selbst müssen damit nicht dauerhaft im Heap liegen.
+ *
+ * Nach außen gibt der Bestand leichtgewichtige Ansichten heraus: Objekte der
+ * gewohnten Medienklassen, deren Getter und Setter direkt auf den Spalten
+ * arbeiten. Solange eine Ansicht erreichbar ist, liefert der Bestand für ihr
+ * Medium dasselbe Objekt, sodass Vergleiche über die Objektidentität wie beim
+ * {@link MedienbestandServiceImpl} funktionieren. Ein eingefügtes Medium wird
+ * in die Spalten kopiert und, solange es erreichbar ist, selbst als Ansicht
+ * seines Eintrags verwendet. Änderungen an solchen Medien werden bei
+ * {@link #medienWurdenGeaendert()} und
+ * {@link #medienWurdenGeaendert(List)} in die Spalten übernommen.
+ *
+ * Suchen über die Spalten wie {@link #sucheLaengerAls(String, int)} laufen
+ * als Schleife über die primitiven Werte und erzeugen nur für Treffer
+ * Ansichten.
+ *
+ * Über {@link #getEinleseEmpfaenger()} schreibt ein Einleser die Felder
+ * eingelesener Medien direkt in die Spalten, ohne dass dafür Medium-Objekte
+ * im Heap entstehen.
+ *
+ * Die Spalten fassen höchstens {@link #MAX_ANZAHL_EINTRAEGE} Einträge
+ * einschließlich der entfernten, da ihre Positionen als int gerechnet werden.
+ *
+ * Wie der {@link MedienbestandServiceImpl} ist dieser Bestand nicht
+ * threadsicher.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class SpaltenMedienbestandServiceImpl extends AbstractObservableService
+        implements MedienbestandService
+{
+    private static final byte TYP_ENTFERNT = 0;
+    private static final byte TYP_CD = 1;
+    private static final byte TYP_DVD = 2;
+    private static final byte TYP_KONSOLENVIDEOSPIEL = 3;
+    private static final byte TYP_PCVIDEOSPIEL = 4;
+
+    private static final int TITEL = 0;
+    private static final int KOMMENTAR = 1;
+    private static final int DETAIL = 2;
+    private static final int TEXTE_PRO_MEDIUM = 3;
+
+    private static final int ANFANGSKAPAZITAET = 1024;
+    private static final int BYTES_PRO_TEXT = 64;
+
+    /**
+     * Die größte Kapazität, die ein ByteBuffer sicher annehmen kann.
+     */
+    private static final int MAX_SPALTENBYTES = Integer.MAX_VALUE - 8;
+
+    /**
+     * Die größte Anzahl an Einträgen, deren Textverweise noch in eine Spalte
+     * passen, etwa 89 Millionen.
+     */
+    public static final int MAX_ANZAHL_EINTRAEGE = MAX_SPALTENBYTES
+            / (TEXTE_PRO_MEDIUM * Long.BYTES);
+
+    /**
+     * Der Verweis einer Textspalte, in die noch nichts geschrieben wurde.
+     */
+    private static final long KEIN_TEXT = -1L;
+
+    /**
+     * Der Inhalt eines Fachs, dessen Ansicht nicht mehr erreichbar ist.
+     */
+    private static final AnsichtsReferenz LEERE_REFERENZ = new AnsichtsReferenz(
+            null, -1, null);
+
+    /**
+     * Der Typcode jedes Eintrags. Ein entfernter Eintrag behält seine übrigen
+     * Spalten, damit noch erreichbare Ansichten lesbar bleiben.
+     */
+    private ByteBuffer _typen;
+
+    /**
+     * Spiellänge oder Laufzeit jedes Eintrags als int, bei Videospielen 0.
+     */
+    private ByteBuffer _laengen;
+
+    /**
+     * Drei Verweise in den Textspeicher pro Eintrag als long.
+     */
+    private ByteBuffer _texte;
+
+    private final Textspeicher _textspeicher;
+
+    /**
+     * Die Anzahl der Einträge einschließlich der entfernten.
+     */
+    private int _anzahl;
+
+    private int _kapazitaet;
+
+    /**
+     * Die aktuelle Ansicht jedes Eintrags, sofern noch erreichbar.
+     */
+    private final List<AnsichtsReferenz> _ansichten;
+
+    private final ReferenceQueue<Medium> _verworfeneAnsichten;
+
+    /**
+     * Die eingefügten Medien, die selbst als Ansicht dienen, mit dem Index
+     * ihres Eintrags.
+     */
+    private final Map<Medium, Integer> _uebernommeneMedien;
+
+    /**
+     * Initialisiert einen neuen, leeren Medienbestand, etwa um ihn über
+     * {@link #getEinleseEmpfaenger()} zu füllen.
+     */
+    public SpaltenMedienbestandServiceImpl()
+    {
+        this(new ArrayList<Medium>());
+    }
+
+    /**
+     * Initialisiert einen neuen Medienbestand.
+     *
+     * @param medien Der initiale Medienbestand.
+     *
+     * @require medien != null
+     */
+    public SpaltenMedienbestandServiceImpl(List<Medium> medien)
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        _kapazitaet = Math.min(MAX_ANZAHL_EINTRAEGE,
+                Math.max(ANFANGSKAPAZITAET, medien.size()));
+        _typen = erzeugeSpalte(_kapazitaet);
+        _laengen = erzeugeSpalte(_kapazitaet * Integer.BYTES);
+        _texte = erzeugeSpalte(
+                _kapazitaet * TEXTE_PRO_MEDIUM * Long.BYTES);
+        _textspeicher = new Textspeicher((int) Math.min(MAX_SPALTENBYTES,
+                (long) _kapazitaet * BYTES_PRO_TEXT));
+        _ansichten = new ArrayList<AnsichtsReferenz>(_kapazitaet);
+        _verworfeneAnsichten = new ReferenceQueue<Medium>();
+        _uebernommeneMedien = new WeakHashMap<Medium, Integer>();
+        for (Medium medium : medien)
+        {
+            if (!enthaeltMedium(medium))
+            {
+                nimmAuf(medium);
+            }
+        }
+    }
+
+    @Override
+    public void entferneMedium(Medium medium)
+    {
+        assert enthaeltMedium(
+                medium) : "Vorbedingung verletzt: enthaeltMedium(medium)";
+        int index = indexVon(medium);
+        _typen.put(index, TYP_ENTFERNT);
+
+        informiereUeberAenderung(
+                ServiceAenderung.fuerMedium(Art.ENTFERNT, medium));
+    }
+
+    @Override
+    public boolean enthaeltMedium(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        int index = indexVon(medium);
+        return index >= 0 && _typen.get(index) != TYP_ENTFERNT;
+    }
+
+    @Override
+    public void fuegeMediumEin(Medium neuesMedium)
+    {
+        assert !enthaeltMedium(
+                neuesMedium) : "Vorbedingung verletzt: !enthaeltMedium(medium)";
+        nimmAuf(neuesMedium);
+
+        informiereUeberAenderung(
+                ServiceAenderung.fuerMedium(Art.HINZUGEFUEGT, neuesMedium));
+    }
+
+    @Override
+    public List<Medium> getMedien()
+    {
+        raeumeAnsichtenAuf();
+        List<Medium> medien = new ArrayList<Medium>();
+        for (int index = 0; index < _anzahl; ++index)
+        {
+            if (_typen.get(index) != TYP_ENTFERNT)
+            {
+                medien.add(ansicht(index));
+            }
+        }
+        return medien;
+    }
+
+    @Override
+    public void medienWurdenGeaendert()
+    {
+        for (Map.Entry<Medium, Integer> eintrag : _uebernommeneMedien
+            .entrySet())
+        {
+            schreibeFelder(eintrag.getValue(), eintrag.getKey());
+        }
+        informiereUeberAenderung();
+    }
+
+    @Override
+    public void medienWurdenGeaendert(List<Medium> medien)
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        List<ServiceAenderung> aenderungen = new ArrayList<ServiceAenderung>(
+                medien.size());
+        for (Medium medium : medien)
+        {
+            assert enthaeltMedium(
+                    medium) : "Vorbedingung verletzt: enthaeltMedium(medium)";
+            if (_uebernommeneMedien.containsKey(medium))
+            {
+                schreibeFelder(indexVon(medium), medium);
+            }
+            aenderungen.add(ServiceAenderung.fuerMedium(Art.GEAENDERT, medium));
+        }
+        informiereUeberAenderungen(aenderungen);
+    }
+
+    /**
+     * Gibt alle Medien einer Art zurück, deren Spiellänge oder Laufzeit größer
+     * als die angegebene Anzahl Minuten ist, etwa alle DVDs mit mehr als 120
+     * Minuten Laufzeit. Die Suche läuft über die Spalten, ohne Texte zu lesen.
+     *
+     * @param medienBezeichnung Die Bezeichnung der Medienart, "CD" oder
+     *            "DVD".
+     * @param minuten Die Grenze in Minuten.
+     * @return Die gefundenen Medien in der Reihenfolge des Bestands.
+     *
+     * @require medienBezeichnung != null
+     *
+     * @ensure result != null
+     */
+    public List<Medium> sucheLaengerAls(String medienBezeichnung, int minuten)
+    {
+        assert medienBezeichnung != null : "Vorbedingung verletzt: medienBezeichnung != null";
+        raeumeAnsichtenAuf();
+        byte typ = typZu(medienBezeichnung);
+        List<Medium> treffer = new ArrayList<Medium>();
+        for (int index = 0; index < _anzahl; ++index)
+        {
+            if (_typen.get(index) == typ
+                    && _laengen.getInt(index * Integer.BYTES) > minuten)
+            {
+                treffer.add(ansicht(index));
+            }
+        }
+        return treffer;
+    }
+
+    /**
+     * Gibt einen Empfänger zurück, der eingelesene Medien ohne Medium-Objekte
+     * als neue Einträge am Ende des Bestands aufnimmt. Die Beobachter werden
+     * dabei nicht benachrichtigt, der Empfänger ist daher nur zum Befüllen
+     * eines neuen Bestands gedacht. Erst ein Aufruf von
+     * {@link MedienEmpfaenger#getLetztesMedium()} erzeugt eine Ansicht.
+     *
+     * @throws IllegalStateException beim Aufnehmen, wenn der Bestand
+     *             MAX_ANZAHL_EINTRAEGE erreicht hat.
+     *
+     * @ensure result != null
+     */
+    public MedienEmpfaenger getEinleseEmpfaenger()
+    {
+        return new Einleser();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Das Verzeichnis hält statt der Medien nur die Indizes ihrer Einträge,
+     * bei einem Bestand ohne entfernte Einträge gar nichts. Wie der Bestand
+     * selbst darf es nur in dem Thread benutzt werden, der den Bestand
+     * verändert.
+     */
+    @Override
+    public Medienverzeichnis erfasseVerzeichnis()
+    {
+        int enthalten = 0;
+        for (int index = 0; index < _anzahl; ++index)
+        {
+            if (_typen.get(index) != TYP_ENTFERNT)
+            {
+                ++enthalten;
+            }
+        }
+        int[] eintraege = null;
+        if (enthalten < _anzahl)
+        {
+            eintraege = new int[enthalten];
+            int position = 0;
+            for (int index = 0; index < _anzahl; ++index)
+            {
+                if (_typen.get(index) != TYP_ENTFERNT)
+                {
+                    eintraege[position++] = index;
+                }
+            }
+        }
+        return new Verzeichnis(enthalten, eintraege);
+    }
+
+    /**
+     * Gibt die Anzahl der Bytes zurück, die die Texte des Bestands
+     * einschließlich überschriebener Werte belegen.
+     */
+    public int getTextBytes()
+    {
+        return _textspeicher.getFuellstand();
+    }
+
+    /**
+     * Nimmt ein Medium in einen neuen Eintrag am Ende des Bestands auf. Eine
+     * entfernte Ansicht dieses Bestands zieht dabei in den neuen Eintrag um,
+     * jedes andere Medium wird kopiert und dient danach als Ansicht.
+     */
+    private void nimmAuf(Medium medium)
+    {
+        raeumeAnsichtenAuf();
+        int bisherigerIndex = indexVon(medium);
+        int index = neuerEintrag(typVon(medium));
+        schreibeFelder(index, medium);
+        if (bisherigerIndex >= 0)
+        {
+            _ansichten.set(bisherigerIndex, LEERE_REFERENZ);
+        }
+        if (medium instanceof Ansicht
+                && ((Ansicht) medium).getBestand() == this)
+        {
+            ((Ansicht) medium).setIndex(index);
+        }
+        else
+        {
+            _uebernommeneMedien.put(medium, index);
+        }
+        _ansichten.set(index, new AnsichtsReferenz(medium, index,
+                _verworfeneAnsichten));
+    }
+
+    /**
+     * Legt einen leeren Eintrag am Ende des Bestands an und erweitert die
+     * Spalten bei Bedarf.
+     *
+     * @return Der Index des neuen Eintrags.
+     */
+    private int neuerEintrag(byte typ)
+    {
+        if (_anzahl == _kapazitaet)
+        {
+            erweitereSpalten();
+        }
+        int index = _anzahl++;
+        _typen.put(index, typ);
+        for (int text = 0; text < TEXTE_PRO_MEDIUM; ++text)
+        {
+            _texte.putLong(textPosition(index, text), KEIN_TEXT);
+        }
+        schreibeLaenge(index, 0);
+        _ansichten.add(LEERE_REFERENZ);
+        return index;
+    }
+
+    /**
+     * Gibt den Index des Eintrags zu einem Medium zurück, oder -1, wenn das
+     * Medium nie in diesen Bestand eingefügt wurde.
+     */
+    private int indexVon(Medium medium)
+    {
+        if (medium instanceof Ansicht
+                && ((Ansicht) medium).getBestand() == this)
+        {
+            return ((Ansicht) medium).getIndex();
+        }
+        Integer index = _uebernommeneMedien.get(medium);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gibt die Ansicht eines Eintrags zurück und erzeugt sie, falls keine
+     * erreichbar ist.
+     */
+    private Medium ansicht(int index)
+    {
+        Medium ansicht = _ansichten.get(index)
+            .get();
+        if (ansicht == null)
+        {
+            ansicht = erzeugeAnsicht(index);
+            _ansichten.set(index, new AnsichtsReferenz(ansicht, index,
+                    _verworfeneAnsichten));
+        }
+        return ansicht;
+    }
+
+    private Medium erzeugeAnsicht(int index)
+    {
+        switch (_typen.get(index))
+        {
+        case TYP_CD:
+            return new CDAnsicht(this, index);
+        case TYP_DVD:
+            return new DVDAnsicht(this, index);
+        case TYP_KONSOLENVIDEOSPIEL:
+            return new KonsolenVideospielAnsicht(this, index);
+        default:
+            return new PCVideospielAnsicht(this, index);
+        }
+    }
+
+    /**
+     * Leert die Fächer der Ansichten, die vom Garbage Collector eingesammelt
+     * wurden, damit ihre Referenzobjekte nicht im Heap bleiben.
+     */
+    private void raeumeAnsichtenAuf()
+    {
+        AnsichtsReferenz referenz;
+        while ((referenz = (AnsichtsReferenz) _verworfeneAnsichten
+            .poll()) != null)
+        {
+            if (_ansichten.get(referenz._index) == referenz)
+            {
+                _ansichten.set(referenz._index, LEERE_REFERENZ);
+            }
+        }
+    }
+
+    /**
+     * Kopiert die Felder eines Mediums in die Spalten eines Eintrags.
+     */
+    private void schreibeFelder(int index, Medium medium)
+    {
+        schreibeText(index, TITEL, medium.getTitel());
+        schreibeText(index, KOMMENTAR, medium.getKommentar());
+        if (medium instanceof CD)
+        {
+            CD cd = (CD) medium;
+            schreibeText(index, DETAIL, cd.getInterpret());
+            schreibeLaenge(index, cd.getSpiellaenge());
+        }
+        else if (medium instanceof DVD)
+        {
+            DVD dvd = (DVD) medium;
+            schreibeText(index, DETAIL, dvd.getRegisseur());
+            schreibeLaenge(index, dvd.getLaufzeit());
+        }
+        else if (medium instanceof KonsolenVideospiel)
+        {
+            schreibeText(index, DETAIL,
+                    ((KonsolenVideospiel) medium).getSystem());
+        }
+        else
+        {
+            schreibeText(index, DETAIL, ((PCVideospiel) medium).getSystem());
+        }
+    }
+
+    private String leseText(int index, int text)
+    {
+        return _textspeicher.lese(_texte.getLong(textPosition(index, text)));
+    }
+
+    /**
+     * Schreibt einen Text in eine Textspalte. Ein unveränderter Wert wird
+     * nicht erneut angehängt.
+     */
+    private void schreibeText(int index, int text, String wert)
+    {
+        int position = textPosition(index, text);
+        long verweis = _texte.getLong(position);
+        if (verweis != KEIN_TEXT && _textspeicher.stimmtUeberein(verweis, wert))
+        {
+            return;
+        }
+        _texte.putLong(position, _textspeicher.schreibe(wert));
+    }
+
+    private int leseLaenge(int index)
+    {
+        return _laengen.getInt(index * Integer.BYTES);
+    }
+
+    private void schreibeLaenge(int index, int laenge)
+    {
+        _laengen.putInt(index * Integer.BYTES, laenge);
+    }
+
+    private void erweitereSpalten()
+    {
+        int neueKapazitaet = naechsteKapazitaet(_kapazitaet);
+        _typen = kopiereSpalte(_typen, neueKapazitaet, _anzahl);
+        _laengen = kopiereSpalte(_laengen, neueKapazitaet * Integer.BYTES,
+                _anzahl * Integer.BYTES);
+        _texte = kopiereSpalte(_texte,
+                neueKapazitaet * TEXTE_PRO_MEDIUM * Long.BYTES,
+                _anzahl * TEXTE_PRO_MEDIUM * Long.BYTES);
+        _kapazitaet = neueKapazitaet;
+    }
+
+    /**
+     * Gibt die Kapazität zurück, auf die volle Spalten erweitert werden. Sie
+     * verdoppelt sich, höchstens bis MAX_ANZAHL_EINTRAEGE.
+     *
+     * @throws IllegalStateException wenn die Kapazität bereits
+     *             MAX_ANZAHL_EINTRAEGE ist.
+     */
+    static int naechsteKapazitaet(int kapazitaet)
+    {
+        if (kapazitaet >= MAX_ANZAHL_EINTRAEGE)
+        {
+            throw new IllegalStateException("Der Medienbestand ist voll.");
+        }
+        return (int) Math.min(MAX_ANZAHL_EINTRAEGE, 2L * kapazitaet);
+    }
+
+    /**
+     * Gibt die Position eines Textverweises in der Textspalte zurück. Läuft
+     * nicht über, da index kleiner als MAX_ANZAHL_EINTRAEGE ist.
+     */
+    private static int textPosition(int index, int text)
+    {
+        return (index * TEXTE_PRO_MEDIUM + text) * Long.BYTES;
+    }
+
+    private static ByteBuffer erzeugeSpalte(int bytes)
+    {
+        return ByteBuffer.allocateDirect(bytes)
+            .order(ByteOrder.nativeOrder());
+    }
+
+    private static ByteBuffer kopiereSpalte(ByteBuffer alt, int bytes,
+            int belegt)
+    {
+        ByteBuffer neu = erzeugeSpalte(bytes);
+        neu.put(0, alt, 0, belegt);
+        return neu;
+    }
+
+    private static byte typVon(Medium medium)
+    {
+        if (medium instanceof CD)
+        {
+            return TYP_CD;
+        }
+        if (medium instanceof DVD)
+        {
+            return TYP_DVD;
+        }
+        if (medium instanceof KonsolenVideospiel)
+        {
+            return TYP_KONSOLENVIDEOSPIEL;
+        }
+        if (medium instanceof PCVideospiel)
+        {
+            return TYP_PCVIDEOSPIEL;
+        }
+        throw new IllegalArgumentException(
+                "Unbekannte Medienart: " + medium.getMedienBezeichnung());
+    }
+
+    private static byte typZu(String medienBezeichnung)
+    {
+        switch (medienBezeichnung)
+        {
+        case "CD":
+            return TYP_CD;
+        case "DVD":
+            return TYP_DVD;
+        case "KonsolenVideospiel":
+            return TYP_KONSOLENVIDEOSPIEL;
+        case "PCVideospiel":
+            return TYP_PCVIDEOSPIEL;
+        default:
+            throw new IllegalArgumentException(
+                    "Unbekannte Medienart: " + medienBezeichnung);
+        }
+    }
+
+    /**
+     * Schreibt eingelesene Medien direkt in neue Einträge.
+     */
+    private final class Einleser implements MedienEmpfaenger
+    {
+        @Override
+        public void nimmCDAuf(String titel, String kommentar,
+                String interpret, int spiellaenge)
+        {
+            assert spiellaenge > 0 : "Vorbedingung verletzt: spiellaenge > 0";
+            int index = nimmAuf(TYP_CD, titel, kommentar, interpret);
+            schreibeLaenge(index, spiellaenge);
+        }
+
+        @Override
+        public void nimmDVDAuf(String titel, String kommentar,
+                String regisseur, int laufzeit)
+        {
+            assert laufzeit > 0 : "Vorbedingung verletzt: laufzeit > 0";
+            int index = nimmAuf(TYP_DVD, titel, kommentar, regisseur);
+            schreibeLaenge(index, laufzeit);
+        }
+
+        @Override
+        public void nimmKonsolenVideospielAuf(String titel, String kommentar,
+                String system)
+        {
+            nimmAuf(TYP_KONSOLENVIDEOSPIEL, titel, kommentar, system);
+        }
+
+        @Override
+        public void nimmPCVideospielAuf(String titel, String kommentar,
+                String system)
+        {
+            nimmAuf(TYP_PCVIDEOSPIEL, titel, kommentar, system);
+        }
+
+        @Override
+        public Medium getLetztesMedium()
+        {
+            assert _anzahl > 0 : "Vorbedingung verletzt: Es wurde bereits ein Medium aufgenommen.";
+            return ansicht(_anzahl - 1);
+        }
+
+        private int nimmAuf(byte typ, String titel, String kommentar,
+                String detail)
+        {
+            assert titel != null : "Vorbedingung verletzt: titel != null";
+            assert kommentar != null : "Vorbedingung verletzt: kommentar != null";
+            assert detail != null : "Vorbedingung verletzt: detail != null";
+            int index = neuerEintrag(typ);
+            schreibeText(index, TITEL, titel);
+            schreibeText(index, KOMMENTAR, kommentar);
+            schreibeText(index, DETAIL, detail);
+            return index;
+        }
+    }
+
+    /**
+     * Ein Verzeichnis der bei der Erfassung enthaltenen Einträge. Die Indizes
+     * der Einträge sind aufsteigend, da neue Einträge nur am Ende entstehen.
+     */
+    private final class Verzeichnis implements Medienverzeichnis
+    {
+        private final int _anzahlMedien;
+
+        /**
+         * Der Index des Eintrags jedes verzeichneten Mediums oder null, wenn
+         * beide übereinstimmen.
+         */
+        private final int[] _eintraege;
+
+        Verzeichnis(int anzahlMedien, int[] eintraege)
+        {
+            _anzahlMedien = anzahlMedien;
+            _eintraege = eintraege;
+        }
+
+        @Override
+        public int getAnzahlMedien()
+        {
+            return _anzahlMedien;
+        }
+
+        @Override
+        public int getIndex(Medium medium)
+        {
+            assert medium != null : "Vorbedingung verletzt: medium != null";
+            int eintrag = indexVon(medium);
+            if (eintrag < 0)
+            {
+                return -1;
+            }
+            if (_eintraege == null)
+            {
+                return eintrag < _anzahlMedien ? eintrag : -1;
+            }
+            int index = Arrays.binarySearch(_eintraege, eintrag);
+            return index >= 0 ? index : -1;
+        }
+
+        @Override
+        public Medium getMedium(int index)
+        {
+            assert index >= 0
+                    && index < _anzahlMedien : "Vorbedingung verletzt: index >= 0 && index < getAnzahlMedien()";
+            return ansicht(_eintraege == null ? index : _eintraege[index]);
+        }
+    }
+
+    /**
+     * Eine schwache Referenz auf die Ansicht eines Eintrags, die ihren Index
+     * kennt, damit ihr Fach nach dem Einsammeln geleert werden kann.
+     */
+    private static final class AnsichtsReferenz extends WeakReference<Medium>
+    {
+        private int _index;
+
+        AnsichtsReferenz(Medium ansicht, int index,
+                ReferenceQueue<Medium> warteschlange)
+        {
+            super(ansicht, warteschlange);
+            _index = index;
+        }
+    }
+
+    /**
+     * Eine Ansicht auf einen Eintrag des Bestands.
+     */
+    private interface Ansicht
+    {
+        SpaltenMedienbestandServiceImpl getBestand();
+
+        int getIndex();
+
+        void setIndex(int index);
+    }
+
+    private static final class CDAnsicht extends CD implements Ansicht
+    {
+        private final SpaltenMedienbestandServiceImpl _bestand;
+        private int _index;
+
+        CDAnsicht(SpaltenMedienbestandServiceImpl bestand, int index)
+        {
+            super("", "", "", 1);
+            _bestand = bestand;
+            _index = index;
+        }
+
+        @Override
+        public SpaltenMedienbestandServiceImpl getBestand()
+        {
+            return _bestand;
+        }
+
+        @Override
+        public int getIndex()
+        {
+            return _index;
+        }
+
+        @Override
+        public void setIndex(int index)
+        {
+            _index = index;
+        }
+
+        @Override
+        public String getTitel()
+        {
+            return _bestand.leseText(_index, TITEL);
+        }
+
+        @Override
+        public void setTitel(String titel)
+        {
+            assert titel != null : "Vorbedingung verletzt: titel != null";
+            _bestand.schreibeText(_index, TITEL, titel);
+        }
+
+        @Override
+        public String getKommentar()
+        {
+            return _bestand.leseText(_index, KOMMENTAR);
+        }
+
+        @Override
+        public void setKommentar(String kommentar)
+        {
+            assert kommentar != null : "Vorbedingung verletzt: kommentar != null";
+            _bestand.schreibeText(_index, KOMMENTAR, kommentar);
+        }
+
+        @Override
+        public String getInterpret()
+        {
+            return _bestand.leseText(_index, DETAIL);
+        }
+
+        @Override
+        public void setInterpret(String interpret)
+        {
+            assert interpret != null : "Vorbedingung verletzt: interpret != null";
+            _bestand.schreibeText(_index, DETAIL, interpret);
+        }
+
+        @Override
+        public int getSpiellaenge()
+        {
+            return _bestand.leseLaenge(_index);
+        }
+
+        @Override
+        public void setSpiellaenge(int spiellaenge)
+        {
+            assert spiellaenge > 0 : "Vorbedingung verletzt: spiellaenge > 0";
+            _bestand.schreibeLaenge(_index, spiellaenge);
+        }
+    }
+
+    private static final class DVDAnsicht extends DVD implements Ansicht
+    {
+        private final SpaltenMedienbestandServiceImpl _bestand;
+        private int _index;
+
+        DVDAnsicht(SpaltenMedienbestandServiceImpl bestand, int index)
+        {
+            super("", "", "", 1);
+            _bestand = bestand;
+            _index = index;
+        }
+
+        @Override
+        public SpaltenMedienbestandServiceImpl getBestand()
+        {
+            return _bestand;
+        }
+
+        @Override
+        public int getIndex()
+        {
+            return _index;
+        }
+
+        @Override
+        public void setIndex(int index)
+        {
+            _index = index;
+        }
+
+        @Override
+        public String getTitel()
+        {
+            return _bestand.leseText(_index, TITEL);
+        }
+
+        @Override
+        public void setTitel(String titel)
+        {
+            assert titel != null : "Vorbedingung verletzt: titel != null";
+            _bestand.schreibeText(_index, TITEL, titel);
+        }
+
+        @Override
+        public String getKommentar()
+        {
+            return _bestand.leseText(_index, KOMMENTAR);
+        }
+
+        @Override
+        public void setKommentar(String kommentar)
+        {
+            assert kommentar != null : "Vorbedingung verletzt: kommentar != null";
+            _bestand.schreibeText(_index, KOMMENTAR, kommentar);
+        }
+
+        @Override
+        public String getRegisseur()
+        {
+            return _bestand.leseText(_index, DETAIL);
+        }
+
+        @Override
+        public void setRegisseur(String regisseur)
+        {
+            assert regisseur != null : "Vorbedingung verletzt: regisseur != null";
+            _bestand.schreibeText(_index, DETAIL, regisseur);
+        }
+
+        @Override
+        public int getLaufzeit()
+        {
+            return _bestand.leseLaenge(_index);
+        }
+
+        @Override
+        public void setLaufzeit(int laufzeit)
+        {
+            assert laufzeit > 0 : "Vorbedingung verletzt: laufzeit > 0";
+            _bestand.schreibeLaenge(_index, laufzeit);
+        }
+    }
+
+    private static final class KonsolenVideospielAnsicht extends
+            KonsolenVideospiel implements Ansicht
+    {
+        private final SpaltenMedienbestandServiceImpl _bestand;
+        private int _index;
+
+        KonsolenVideospielAnsicht(SpaltenMedienbestandServiceImpl bestand,
+                int index)
+        {
+            super("", "", "");
+            _bestand = bestand;
+            _index = index;
+        }
+
+        @Override
+        public SpaltenMedienbestandServiceImpl getBestand()
+        {
+            return _bestand;
+        }
+
+        @Override
+        public int getIndex()
+        {
+            return _index;
+        }
+
+        @Override
+        public void setIndex(int index)
+        {
+            _index = index;
+        }
+
+        @Override
+        public String getTitel()
+        {
+            return _bestand.leseText(_index, TITEL);
+        }
+
+        @Override
+        public void setTitel(String titel)
+        {
+            assert titel != null : "Vorbedingung verletzt: titel != null";
+            _bestand.schreibeText(_index, TITEL, titel);
+        }
+
+        @Override
+        public String getKommentar()
+        {
+            return _bestand.leseText(_index, KOMMENTAR);
+        }
+
+        @Override
+        public void setKommentar(String kommentar)
+        {
+            assert kommentar != null : "Vorbedingung verletzt: kommentar != null";
+            _bestand.schreibeText(_index, KOMMENTAR, kommentar);
+        }
+
+        @Override
+        public String getSystem()
+        {
+            return _bestand.leseText(_index, DETAIL);
+        }
+
+        @Override
+        public void setSystem(String system)
+        {
+            assert system != null : "Vorbedingung verletzt: system != null";
+            _bestand.schreibeText(_index, DETAIL, system);
+        }
+    }
+
+    private static final class PCVideospielAnsicht extends PCVideospiel
+            implements Ansicht
+    {
+        private final SpaltenMedienbestandServiceImpl _bestand;
+        private int _index;
+
+        PCVideospielAnsicht(SpaltenMedienbestandServiceImpl bestand,
+                int index)
+        {
+            super("", "", "");
+            _bestand = bestand;
+            _index = index;
+        }
+
+        @Override
+        public SpaltenMedienbestandServiceImpl getBestand()
+        {
+            return _bestand;
+        }
+
+        @Override
+        public int getIndex()
+        {
+            return _index;
+        }
+
+        @Override
+        public void setIndex(int index)
+        {
+            _index = index;
+        }
+
+        @Override
+        public String getTitel()
+        {
+            return _bestand.leseText(_index, TITEL);
+        }
+
+        @Override
+        public void setTitel(String titel)
+        {
+            assert titel != null : "Vorbedingung verletzt: titel != null";
+            _bestand.schreibeText(_index, TITEL, titel);
+        }
+
+        @Override
+        public String getKommentar()
+        {
+            return _bestand.leseText(_index, KOMMENTAR);
+        }
+
+        @Override
+        public void setKommentar(String kommentar)
+        {
+            assert kommentar != null : "Vorbedingung verletzt: kommentar != null";
+            _bestand.schreibeText(_index, KOMMENTAR, kommentar);
+        }
+
+        @Override
+        public String getSystem()
+        {
+            return _bestand.leseText(_index, DETAIL);
+        }
+
+        @Override
+        public void setSystem(String system)
+        {
+            assert system != null : "Vorbedingung verletzt: system != null";
+            _bestand.schreibeText(_index, DETAIL, system);
+        }
+    }
+}
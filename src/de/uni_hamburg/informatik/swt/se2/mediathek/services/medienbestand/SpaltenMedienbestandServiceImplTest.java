@@ -0,0 +1,269 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DatenEinleser;
+
+/**
+ * @author SE2-Team
+ */
+public class SpaltenMedienbestandServiceImplTest
+{
+    private Medium _cd1;
+    private Medium _cd2;
+    private SpaltenMedienbestandServiceImpl _medienbestand;
+
+    public SpaltenMedienbestandServiceImplTest()
+    {
+        _medienbestand = new SpaltenMedienbestandServiceImpl(
+                new ArrayList<Medium>());
+        _cd1 = new CD("Mein CD1-Titel", "Mein CD1-Kommentar",
+                "Mein Interpret 1", 100);
+        _cd2 = new CD("Mein CD2-Titel", "Mein CD2-Kommentar",
+                "Mein Interpret 2", 71);
+    }
+
+    @Test
+    public void testeEinfuegenUndEntfernen()
+    {
+        assertTrue(_medienbestand.getMedien()
+            .isEmpty());
+        _medienbestand.fuegeMediumEin(_cd1);
+        _medienbestand.fuegeMediumEin(_cd2);
+        assertTrue(_medienbestand.enthaeltMedium(_cd1));
+        assertTrue(_medienbestand.enthaeltMedium(_cd2));
+        assertFalse(_medienbestand
+            .enthaeltMedium(new CD("Titel", "Kommentar", "Interpret", 53)));
+
+        _medienbestand.entferneMedium(_cd1);
+        assertFalse(_medienbestand.enthaeltMedium(_cd1));
+        assertEquals(Arrays.asList(_cd2), _medienbestand.getMedien());
+    }
+
+    @Test
+    public void testeGetMedienBehaeltEinfuegereihenfolge()
+    {
+        Medium cd3 = new CD("Mein CD3-Titel", "Mein CD3-Kommentar",
+                "Mein Interpret 3", 42);
+        _medienbestand.fuegeMediumEin(_cd1);
+        _medienbestand.fuegeMediumEin(_cd2);
+        _medienbestand.fuegeMediumEin(cd3);
+        _medienbestand.entferneMedium(_cd2);
+        _medienbestand.fuegeMediumEin(_cd2);
+
+        assertEquals(Arrays.asList(_cd1, cd3, _cd2),
+                _medienbestand.getMedien());
+    }
+
+    @Test
+    public void testeAnsichtenLesenUndSchreibenDieSpalten()
+    {
+        SpaltenMedienbestandServiceImpl bestand = new SpaltenMedienbestandServiceImpl(
+                Arrays.asList(
+                        (Medium) new DVD("Metropolis", "Stummfilm",
+                                "Fritz Lang", 153),
+                        new KonsolenVideospiel("Zelda", "", "Nintendo DS"),
+                        new PCVideospiel("Myst", "Klassiker", "Windows")));
+
+        DVD dvd = (DVD) bestand.getMedien()
+            .get(0);
+        assertEquals("Metropolis", dvd.getTitel());
+        assertEquals("Stummfilm", dvd.getKommentar());
+        assertEquals("Fritz Lang", dvd.getRegisseur());
+        assertEquals(153, dvd.getLaufzeit());
+        assertEquals("Nintendo DS", ((KonsolenVideospiel) bestand.getMedien()
+            .get(1)).getSystem());
+        assertEquals("Myst", bestand.getMedien()
+            .get(2)
+            .getTitel());
+
+        dvd.setTitel("Metropolis (restauriert)");
+        dvd.setLaufzeit(148);
+        dvd.setRegisseur("Lang");
+        assertEquals("Metropolis (restauriert)", dvd.getTitel());
+        assertEquals(148, dvd.getLaufzeit());
+        assertEquals("Lang", dvd.getRegisseur());
+        assertTrue(dvd.getFormatiertenString()
+            .contains("Metropolis (restauriert)"));
+
+        int textBytes = bestand.getTextBytes();
+        dvd.setKommentar("Stummfilm");
+        assertEquals(textBytes, bestand.getTextBytes());
+    }
+
+    @Test
+    public void testeAnsichtenBleibenIdentisch()
+    {
+        _medienbestand.fuegeMediumEin(_cd1);
+        assertSame(_cd1, _medienbestand.getMedien()
+            .get(0));
+
+        CD cd = new CD("Titel", "Kommentar", "Interpret", 60);
+        _medienbestand.fuegeMediumEin(cd);
+        cd.setInterpret("Anderer Interpret");
+        _medienbestand.medienWurdenGeaendert();
+
+        SpaltenMedienbestandServiceImpl kopie = new SpaltenMedienbestandServiceImpl(
+                new ArrayList<Medium>());
+        kopie.fuegeMediumEin(cd);
+        CD ansicht = (CD) _medienbestand.getMedien()
+            .get(1);
+        assertSame(cd, ansicht);
+        assertEquals("Anderer Interpret", ansicht.getInterpret());
+
+        Medium ansichtDerKopie = kopie.getMedien()
+            .get(0);
+        assertSame(cd, ansichtDerKopie);
+    }
+
+    @Test
+    public void testeSucheLaengerAls()
+    {
+        List<Medium> medien = new ArrayList<Medium>();
+        for (int i = 0; i < 3000; ++i)
+        {
+            medien.add(new DVD("DVD " + i, "", "Regie", 60 + i % 120));
+            medien.add(new CD("CD " + i, "", "Interpret", 60 + i % 120));
+        }
+        SpaltenMedienbestandServiceImpl bestand = new SpaltenMedienbestandServiceImpl(
+                medien);
+        bestand.fuegeMediumEin(new DVD("Lang", "", "Regie", 200));
+        bestand.entferneMedium(medien.get(124));
+
+        List<Medium> treffer = bestand.sucheLaengerAls("DVD", 120);
+        assertEquals(59 * 25, treffer.size());
+        for (Medium medium : treffer)
+        {
+            assertTrue(((DVD) medium).getLaufzeit() > 120);
+        }
+        assertSame(medien.get(122), treffer.get(0));
+        assertEquals("Lang", treffer.get(treffer.size() - 1)
+            .getTitel());
+    }
+
+    @Test
+    public void testeEinleseEmpfaengerSchreibtInDieSpalten()
+    {
+        MedienEmpfaenger empfaenger = _medienbestand.getEinleseEmpfaenger();
+        empfaenger.nimmCDAuf("Abbey Road", "", "The Beatles", 47);
+        empfaenger.nimmDVDAuf("Metropolis", "Stummfilm", "Fritz Lang", 153);
+        Medium dvd = empfaenger.getLetztesMedium();
+        empfaenger.nimmPCVideospielAuf("Myst", "Klassiker", "Windows");
+
+        List<Medium> medien = _medienbestand.getMedien();
+        assertEquals(3, medien.size());
+        assertEquals("The Beatles", ((CD) medien.get(0)).getInterpret());
+        assertEquals(47, ((CD) medien.get(0)).getSpiellaenge());
+        assertSame(dvd, medien.get(1));
+        assertEquals(153, ((DVD) dvd).getLaufzeit());
+        assertEquals("Windows", ((PCVideospiel) medien.get(2)).getSystem());
+        assertTrue(_medienbestand.enthaeltMedium(dvd));
+    }
+
+    @Test
+    public void testeDatenEinleserFuelltDieSpalten() throws Exception
+    {
+        File kundenDatei = File.createTempFile("kundenstamm", ".txt");
+        File medienDatei = File.createTempFile("medienbestand", ".txt");
+        try
+        {
+            Files.write(kundenDatei.toPath(), Arrays.asList(
+                    "123456;Susi;Sonnenschein;Sonnenallee 20;22760;Hamburg"),
+                    Charset.defaultCharset());
+            Files.write(medienDatei.toPath(), Arrays.asList(
+                    "2.4.2021;123456;CD;Garden State;Soundtrack;Various;56",
+                    " ; ;DVD;Heat;Kommentar;Michael Mann;170",
+                    " ; ;KonsolenVideospiel;Zelda; ;Switch"),
+                    Charset.defaultCharset());
+            DatenEinleser einleser = new DatenEinleser(medienDatei,
+                    kundenDatei);
+            einleser.leseDaten(_medienbestand.getEinleseEmpfaenger());
+
+            List<Medium> medien = _medienbestand.getMedien();
+            assertEquals(3, medien.size());
+            assertEquals("Garden State", medien.get(0)
+                .getTitel());
+            assertEquals(170, ((DVD) medien.get(1)).getLaufzeit());
+            assertEquals("", medien.get(2)
+                .getKommentar());
+            List<Verleihkarte> verleihkarten = einleser.getVerleihkarten();
+            assertEquals(1, verleihkarten.size());
+            assertSame(medien.get(0), verleihkarten.get(0)
+                .getMedium());
+            assertEquals("Susi", verleihkarten.get(0)
+                .getEntleiher()
+                .getVorname());
+        }
+        finally
+        {
+            kundenDatei.delete();
+            medienDatei.delete();
+        }
+    }
+
+    @Test
+    public void testeVerzeichnisFolgtDerReihenfolgeVonGetMedien()
+    {
+        Medium cd3 = new CD("Mein CD3-Titel", "Mein CD3-Kommentar",
+                "Mein Interpret 3", 42);
+        _medienbestand.fuegeMediumEin(_cd1);
+        _medienbestand.fuegeMediumEin(_cd2);
+        _medienbestand.fuegeMediumEin(cd3);
+        Medienverzeichnis vollstaendig = _medienbestand.erfasseVerzeichnis();
+        assertEquals(3, vollstaendig.getAnzahlMedien());
+        assertEquals(1, vollstaendig.getIndex(_cd2));
+
+        _medienbestand.entferneMedium(_cd2);
+        Medienverzeichnis verzeichnis = _medienbestand.erfasseVerzeichnis();
+        assertEquals(2, verzeichnis.getAnzahlMedien());
+        assertEquals(0, verzeichnis.getIndex(_cd1));
+        assertEquals(-1, verzeichnis.getIndex(_cd2));
+        assertEquals(1, verzeichnis.getIndex(cd3));
+        assertSame(cd3, verzeichnis.getMedium(1));
+
+        // Später eingefügte Medien gehören nicht dazu
+        _medienbestand.fuegeMediumEin(_cd2);
+        assertEquals(-1, verzeichnis.getIndex(_cd2));
+        assertEquals(-1, vollstaendig.getIndex(_cd2));
+    }
+
+    @Test
+    public void testeKapazitaetIstBegrenzt()
+    {
+        int max = SpaltenMedienbestandServiceImpl.MAX_ANZAHL_EINTRAEGE;
+        assertEquals(2048,
+                SpaltenMedienbestandServiceImpl.naechsteKapazitaet(1024));
+        assertEquals(max,
+                SpaltenMedienbestandServiceImpl.naechsteKapazitaet(max - 1));
+        // Die Textverweise des letzten Eintrags liegen noch im int-Bereich
+        assertTrue((long) max * 3 * Long.BYTES <= Integer.MAX_VALUE);
+        try
+        {
+            SpaltenMedienbestandServiceImpl.naechsteKapazitaet(max);
+            fail("Der Medienbestand ist voll");
+        }
+        catch (IllegalStateException e)
+        {
+            // Fehler erwartet
+        }
+    }
+}
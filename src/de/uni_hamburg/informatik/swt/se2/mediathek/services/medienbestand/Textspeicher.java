@@ -0,0 +1,139 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Ein Textspeicher legt Texte als UTF-8 hintereinander in einem direkten
+ * ByteBuffer außerhalb des Java-Heaps ab. Ein abgelegter Text wird über einen
+ * Verweis angesprochen, der Anfang und Länge seiner Bytes in einem long
+ * zusammenfasst.
+ *
+ * Texte werden nur angehängt, nie überschrieben. Wird ein Wert geändert,
+ * bleibt der alte Text als ungenutzter Platz im Speicher stehen.
+ *
+ * Ein Textspeicher ist nicht threadsicher.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+class Textspeicher
+{
+    /**
+     * Die größte Kapazität, die ein ByteBuffer sicher annehmen kann.
+     */
+    private static final int MAX_KAPAZITAET = Integer.MAX_VALUE - 8;
+
+    private ByteBuffer _bytes;
+
+    /**
+     * Die Anzahl der belegten Bytes.
+     */
+    private int _fuellstand;
+
+    /**
+     * Erzeugt einen leeren Textspeicher.
+     *
+     * @param anfangskapazitaet Die anfängliche Größe in Bytes.
+     *
+     * @require anfangskapazitaet > 0
+     */
+    Textspeicher(int anfangskapazitaet)
+    {
+        assert anfangskapazitaet > 0 : "Vorbedingung verletzt: anfangskapazitaet > 0";
+        _bytes = ByteBuffer.allocateDirect(anfangskapazitaet);
+    }
+
+    /**
+     * Hängt einen Text an den Speicher an.
+     *
+     * @param text Der Text.
+     * @return Den Verweis, unter dem der Text gelesen werden kann.
+     *
+     * @require text != null
+     */
+    long schreibe(String text)
+    {
+        assert text != null : "Vorbedingung verletzt: text != null";
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        stelleKapazitaetSicher(utf8.length);
+        int anfang = _fuellstand;
+        _bytes.put(anfang, utf8);
+        _fuellstand += utf8.length;
+        return ((long) anfang << 32) | utf8.length;
+    }
+
+    /**
+     * Liest den Text zu einem Verweis.
+     *
+     * @param verweis Ein von {@link #schreibe(String)} gelieferter Verweis.
+     *
+     * @ensure result != null
+     */
+    String lese(long verweis)
+    {
+        byte[] utf8 = new byte[laenge(verweis)];
+        _bytes.get(anfang(verweis), utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Prüft, ob der Text zu einem Verweis gleich dem gegebenen Text ist.
+     *
+     * @require text != null
+     */
+    boolean stimmtUeberein(long verweis, String text)
+    {
+        assert text != null : "Vorbedingung verletzt: text != null";
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length != laenge(verweis))
+        {
+            return false;
+        }
+        int anfang = anfang(verweis);
+        for (int i = 0; i < utf8.length; ++i)
+        {
+            if (_bytes.get(anfang + i) != utf8[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gibt die Anzahl der belegten Bytes zurück.
+     */
+    int getFuellstand()
+    {
+        return _fuellstand;
+    }
+
+    private void stelleKapazitaetSicher(int zusaetzlich)
+    {
+        long benoetigt = (long) _fuellstand + zusaetzlich;
+        if (benoetigt <= _bytes.capacity())
+        {
+            return;
+        }
+        if (benoetigt > MAX_KAPAZITAET)
+        {
+            throw new IllegalStateException("Der Textspeicher ist voll.");
+        }
+        int neueKapazitaet = (int) Math.min(MAX_KAPAZITAET,
+                Math.max(benoetigt, 2L * _bytes.capacity()));
+        ByteBuffer neu = ByteBuffer.allocateDirect(neueKapazitaet);
+        neu.put(0, _bytes, 0, _fuellstand);
+        _bytes = neu;
+    }
+
+    private static int anfang(long verweis)
+    {
+        return (int) (verweis >>> 32);
+    }
+
+    private static int laenge(long verweis)
+    {
+        return (int) verweis;
+    }
+}
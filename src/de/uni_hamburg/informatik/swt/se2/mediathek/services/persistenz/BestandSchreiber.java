@@ -0,0 +1,314 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.PLZ;
+
+/**
+ * Ein BestandSchreiber schreibt Kunden und Medien mit ihren Verleihkarten in
+ * die Textdateien, die der DatenEinleser liest.
+ *
+ * Jede Datei wird zunächst unter einem temporären Namen geschrieben und mit
+ * dem Datenträger synchronisiert. Danach wird die bisherige Datei in die
+ * Backup-Datei kopiert und die neue Datei an ihre Stelle umbenannt, so dass nie
+ * eine halb geschriebene Bestandsdatei gelesen wird.
+ *
+ * Ein ";" oder Zeilenumbruch in einem Text würde die Felder verschieben und
+ * wird deshalb durch ein Leerzeichen ersetzt. Leere Texte werden als " "
+ * geschrieben, da der FeldScanner keine leeren Felder kennt.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class BestandSchreiber
+{
+    private static final char TRENNZEICHEN = ';';
+
+    private static final String LEERES_FELD = " ";
+
+    private static final String ENDUNG_TEMPORAER = ".tmp";
+
+    private final File _medienDatei;
+    private final File _kundenDatei;
+    private final File _medienBackup;
+    private final File _kundenBackup;
+
+    /**
+     * Initialisiert einen neuen BestandSchreiber.
+     *
+     * @param medienDatei Die Medien-Datei.
+     * @param kundenDatei Die Kunden-Datei.
+     * @param medienBackup Die Datei, in die die bisherige Medien-Datei
+     *            gesichert wird.
+     * @param kundenBackup Die Datei, in die die bisherige Kunden-Datei
+     *            gesichert wird.
+     *
+     * @require medienDatei != null
+     * @require kundenDatei != null
+     * @require medienBackup != null
+     * @require kundenBackup != null
+     */
+    public BestandSchreiber(File medienDatei, File kundenDatei,
+            File medienBackup, File kundenBackup)
+    {
+        assert medienDatei != null : "Vorbedingung verletzt: medienDatei != null";
+        assert kundenDatei != null : "Vorbedingung verletzt: kundenDatei != null";
+        assert medienBackup != null : "Vorbedingung verletzt: medienBackup != null";
+        assert kundenBackup != null : "Vorbedingung verletzt: kundenBackup != null";
+        _medienDatei = medienDatei;
+        _kundenDatei = kundenDatei;
+        _medienBackup = medienBackup;
+        _kundenBackup = kundenBackup;
+    }
+
+    /**
+     * Schreibt die Kunden in eine neue Kunden-Datei und ersetzt damit die
+     * bisherige, die zur Backup-Datei wird.
+     *
+     * @param kunden Die Kunden.
+     *
+     * @throws DateiSchreibException wenn die Kunden-Datei nicht geschrieben
+     *             werden konnte.
+     *
+     * @require kunden != null
+     */
+    public void schreibeKunden(List<Kunde> kunden) throws DateiSchreibException
+    {
+        assert kunden != null : "Vorbedingung verletzt: kunden != null";
+
+        File temporaereDatei = getTemporaereDatei(_kundenDatei);
+        try
+        {
+            try (FileOutputStream datei = new FileOutputStream(
+                    temporaereDatei))
+            {
+                Writer ausgabe = new BufferedWriter(new OutputStreamWriter(
+                        datei, Charset.defaultCharset()), 1 << 16);
+                for (Kunde kunde : kunden)
+                {
+                    schreibeKunde(ausgabe, kunde);
+                }
+                ausgabe.flush();
+                datei.getFD()
+                    .sync();
+            }
+            ersetze(temporaereDatei, _kundenDatei, _kundenBackup);
+        }
+        catch (IOException e)
+        {
+            temporaereDatei.delete();
+            throw new DateiSchreibException(
+                    "Der Kundenstamm konnte nicht geschrieben werden.");
+        }
+    }
+
+    /**
+     * Schreibt die Medien mit ihren Verleihkarten in eine temporäre Datei, die
+     * erst mit #uebernimmMedien die bisherige Medien-Datei ersetzt. Zwischen
+     * beiden Schritten kann sich ein Aufrufer auf die geschriebene Datei
+     * beziehen, etwa über eine Prüfsumme ihres Inhalts, der beim Umbenennen
+     * erhalten bleibt.
+     *
+     * @param medien Die Medien in der Reihenfolge, in der sie wieder
+     *            eingelesen werden sollen.
+     * @param verleihkarten Die Verleihkarten der verliehenen Medien.
+     * @return Die geschriebene temporäre Datei.
+     *
+     * @throws DateiSchreibException wenn die Datei nicht geschrieben werden
+     *             konnte.
+     *
+     * @require medien != null
+     * @require verleihkarten != null
+     */
+    public File bereiteMedienVor(List<Medium> medien,
+            List<Verleihkarte> verleihkarten) throws DateiSchreibException
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert verleihkarten != null : "Vorbedingung verletzt: verleihkarten != null";
+
+        Map<Medium, Verleihkarte> verleihkartenProMedium = new HashMap<Medium, Verleihkarte>();
+        for (Verleihkarte verleihkarte : verleihkarten)
+        {
+            verleihkartenProMedium.put(verleihkarte.getMedium(), verleihkarte);
+        }
+
+        File temporaereDatei = getTemporaereDatei(_medienDatei);
+        try (FileOutputStream datei = new FileOutputStream(temporaereDatei))
+        {
+            Writer ausgabe = new BufferedWriter(
+                    new OutputStreamWriter(datei, Charset.defaultCharset()),
+                    1 << 16);
+            for (Medium medium : medien)
+            {
+                schreibeMedium(ausgabe, medium,
+                        verleihkartenProMedium.get(medium));
+            }
+            ausgabe.flush();
+            datei.getFD()
+                .sync();
+        }
+        catch (IOException e)
+        {
+            temporaereDatei.delete();
+            throw new DateiSchreibException(
+                    "Der Medienbestand konnte nicht geschrieben werden.");
+        }
+        return temporaereDatei;
+    }
+
+    /**
+     * Ersetzt die bisherige Medien-Datei, die zur Backup-Datei wird, durch die
+     * mit #bereiteMedienVor geschriebene Datei.
+     *
+     * @throws DateiSchreibException wenn die Datei nicht ersetzt werden
+     *             konnte.
+     */
+    public void uebernimmMedien() throws DateiSchreibException
+    {
+        try
+        {
+            ersetze(getTemporaereDatei(_medienDatei), _medienDatei,
+                    _medienBackup);
+        }
+        catch (IOException e)
+        {
+            throw new DateiSchreibException(
+                    "Der Medienbestand konnte nicht ersetzt werden.");
+        }
+    }
+
+    /**
+     * Löscht eine mit #bereiteMedienVor geschriebene, aber nicht übernommene
+     * Datei.
+     */
+    public void verwerfeMedien()
+    {
+        getTemporaereDatei(_medienDatei).delete();
+    }
+
+    /**
+     * Kopiert die bisherige Datei in die Backup-Datei und benennt die neue
+     * Datei an ihre Stelle um.
+     */
+    private static void ersetze(File neueDatei, File datei, File backup)
+            throws IOException
+    {
+        if (datei.isFile())
+        {
+            Files.copy(datei.toPath(), backup.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(neueDatei.toPath(), datei.toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static File getTemporaereDatei(File datei)
+    {
+        return new File(datei.getPath() + ENDUNG_TEMPORAER);
+    }
+
+    /**
+     * Schreibt eine Zeile der Kunden-Datei:
+     *
+     * Kundennummer; Vorname; Nachname; Strasse; PLZ; Ort
+     */
+    private static void schreibeKunde(Writer ausgabe, Kunde kunde)
+            throws IOException
+    {
+        ausgabe.write(kunde.getKundennummer()
+            .toString());
+        schreibeFeld(ausgabe, kunde.getVorname());
+        schreibeFeld(ausgabe, kunde.getNachname());
+        schreibeFeld(ausgabe, kunde.getStrasse());
+        PLZ plz = kunde.getPLZ();
+        schreibeFeld(ausgabe, plz == null ? null : plz.toString());
+        schreibeFeld(ausgabe, kunde.getWohnort());
+        ausgabe.write('\n');
+    }
+
+    /**
+     * Schreibt eine Zeile der Medien-Datei: Ausleihdatum und Kundennummer des
+     * Entleihers, jeweils " " wenn das Medium nicht verliehen ist, danach
+     * Medienbezeichnung, Titel, Kommentar und die Felder des Medientyps.
+     */
+    private static void schreibeMedium(Writer ausgabe, Medium medium,
+            Verleihkarte verleihkarte) throws IOException
+    {
+        if (verleihkarte != null)
+        {
+            ausgabe.write(verleihkarte.getAusleihdatum()
+                .toString());
+            schreibeFeld(ausgabe, verleihkarte.getEntleiher()
+                .getKundennummer()
+                .toString());
+        }
+        else
+        {
+            ausgabe.write(LEERES_FELD);
+            schreibeFeld(ausgabe, null);
+        }
+        schreibeFeld(ausgabe, medium.getMedienBezeichnung());
+        schreibeFeld(ausgabe, medium.getTitel());
+        schreibeFeld(ausgabe, medium.getKommentar());
+        if (medium instanceof CD)
+        {
+            CD cd = (CD) medium;
+            schreibeFeld(ausgabe, cd.getInterpret());
+            schreibeFeld(ausgabe, String.valueOf(cd.getSpiellaenge()));
+        }
+        else if (medium instanceof DVD)
+        {
+            DVD dvd = (DVD) medium;
+            schreibeFeld(ausgabe, dvd.getRegisseur());
+            schreibeFeld(ausgabe, String.valueOf(dvd.getLaufzeit()));
+        }
+        else if (medium instanceof KonsolenVideospiel)
+        {
+            schreibeFeld(ausgabe, ((KonsolenVideospiel) medium).getSystem());
+        }
+        else if (medium instanceof PCVideospiel)
+        {
+            schreibeFeld(ausgabe, ((PCVideospiel) medium).getSystem());
+        }
+        ausgabe.write('\n');
+    }
+
+    /**
+     * Schreibt ein Trennzeichen und danach den Text als Feld.
+     */
+    private static void schreibeFeld(Writer ausgabe, String text)
+            throws IOException
+    {
+        ausgabe.write(TRENNZEICHEN);
+        if (text == null || text.trim()
+            .isEmpty())
+        {
+            ausgabe.write(LEERES_FELD);
+        }
+        else
+        {
+            ausgabe.write(text.replace(TRENNZEICHEN, ' ')
+                .replace('\n', ' ')
+                .replace('\r', ' '));
+        }
+    }
+}
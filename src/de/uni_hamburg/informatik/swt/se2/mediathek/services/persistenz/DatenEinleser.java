@@ -2,13 +2,16 @@ package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienEmpfaenger;
 
 /**
  * Ein DatenEinleser kann verwendet werden um Kunden, Medien und Verleihkarten
@@ -81,8 +84,71 @@ public class DatenEinleser
         KundenEinleser kundenEinleser = new KundenEinleser();
         _kunden = kundenEinleser.leseKundenEin(_kundenDatei);
         MedienEinleser medienEinleser = new MedienEinleser();
-        Map<Medium, Verleihkarte> medienMap = medienEinleser
-            .leseMedienEin(_kunden, _medienDatei);
+        uebernehmeMedien(medienEinleser.leseMedienEin(_kunden, _medienDatei));
+    }
+
+    /**
+     * Liest die Daten aus den, beim Konstruktoraufruf angegebenen Dateien aus.
+     * Die Dateien werden dabei in Abschnitte geteilt, die im übergebenen Pool
+     * parallel verarbeitet werden. Das Ergebnis entspricht dem von
+     * #leseDaten().
+     * 
+     * @param pool Der Pool, in dem die Abschnitte verarbeitet werden.
+     * 
+     * @throws DateiLeseException Wenn ein Fehler beim Lesen der Dateien
+     *             auftritt.
+     * 
+     * @require pool != null
+     * 
+     * @ensure wurdeEingelesen() == true
+     */
+    public void leseDaten(ForkJoinPool pool) throws DateiLeseException
+    {
+        assert pool != null : "Vorbedingung verletzt: pool != null";
+
+        KundenEinleser kundenEinleser = new KundenEinleser();
+        _kunden = kundenEinleser.leseKundenEin(_kundenDatei, pool);
+        MedienEinleser medienEinleser = new MedienEinleser();
+        uebernehmeMedien(
+                medienEinleser.leseMedienEin(_kunden, _medienDatei, pool));
+    }
+
+    /**
+     * Liest die Daten aus den, beim Konstruktoraufruf angegebenen Dateien aus.
+     * Die Medien werden dabei nicht als Objekte erzeugt, sondern Feld für Feld
+     * an den Empfänger übergeben, etwa an einen
+     * SpaltenMedienbestandServiceImpl.
+     * 
+     * #getKunden() und #getVerleihkarten() liefern danach das Ergebnis,
+     * #getMedien() eine leere Liste.
+     * 
+     * @param empfaenger Der Empfänger der Medien.
+     * 
+     * @throws DateiLeseException Wenn ein Fehler beim Lesen der Dateien
+     *             auftritt.
+     * 
+     * @require empfaenger != null
+     * 
+     * @ensure wurdeEingelesen() == true
+     */
+    public void leseDaten(MedienEmpfaenger empfaenger)
+            throws DateiLeseException
+    {
+        assert empfaenger != null : "Vorbedingung verletzt: empfaenger != null";
+
+        KundenEinleser kundenEinleser = new KundenEinleser();
+        _kunden = kundenEinleser.leseKundenEin(_kundenDatei);
+        MedienEinleser medienEinleser = new MedienEinleser();
+        _verleihkarten = medienEinleser.leseMedienEin(_kunden, _medienDatei,
+                empfaenger);
+        _medien = Collections.emptyList();
+    }
+
+    /**
+     * Übernimmt die eingelesenen Medien und ihre Verleihkarten.
+     */
+    private void uebernehmeMedien(Map<Medium, Verleihkarte> medienMap)
+    {
         _medien = new ArrayList<Medium>(medienMap.keySet());
         _verleihkarten = new ArrayList<Verleihkarte>();
         for (Entry<Medium, Verleihkarte> entry : medienMap.entrySet())
@@ -121,7 +187,7 @@ public class DatenEinleser
     /**
      * Gibt die eingelesenen Medien zurück.
      * 
-     * @return Die eingelesenen Medien.
+     * @return Die eingelesenen Medien in der Reihenfolge der Medien-Datei.
      * 
      * @require wurdeEingelesen()
      */
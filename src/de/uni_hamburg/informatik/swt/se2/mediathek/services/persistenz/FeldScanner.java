@@ -0,0 +1,386 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.ZeichenkettenPool;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * Ein FeldScanner zerlegt die Zeilen der Bestandsdateien in ihre durch ";"
+ * getrennten Felder. Er arbeitet direkt auf einem wiederverwendbaren
+ * Zeichenpuffer: Zahlen, Datumsangaben und Kundennummern werden ohne reguläre
+ * Ausdrücke und ohne Zwischen-Strings aus den Zeichen des Feldes gelesen, nur
+ * #feldAlsText() erzeugt einen String.
+ * 
+ * Wie bei einem StringTokenizer werden aufeinanderfolgende Trennzeichen
+ * übersprungen, es gibt also keine leeren Felder.
+ * 
+ * Ein FeldScanner ist nicht threadsicher, jeder Thread braucht einen eigenen.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+class FeldScanner
+{
+    private static final char TRENNZEICHEN = ';';
+
+    private static final int STANDARD_PUFFERGROESSE = 8192;
+
+    /**
+     * Die Zeichen, in denen die aktuelle Zeile liegt.
+     */
+    private char[] _zeichen;
+
+    private int _zeilenAnfang;
+    private int _zeilenEnde;
+
+    /**
+     * Die Position, ab der das nächste Feld gesucht wird.
+     */
+    private int _position;
+
+    private int _feldAnfang;
+    private int _feldEnde;
+
+    /**
+     * Der Puffer für #leseZeile(Reader) und die Anzahl der gültigen Zeichen
+     * darin.
+     */
+    private char[] _puffer;
+    private int _fuellstand;
+
+    /**
+     * Die Position im Puffer, an der die nächste Zeile beginnt.
+     */
+    private int _naechsteZeile;
+
+    /**
+     * Initialisiert einen neuen FeldScanner ohne aktuelle Zeile.
+     */
+    FeldScanner()
+    {
+        _zeichen = new char[0];
+    }
+
+    /**
+     * Setzt die aktuelle Zeile auf den angegebenen Bereich eines
+     * Zeichen-Arrays. Ein "\r" am Ende der Zeile wird ignoriert. Das Array wird
+     * nicht kopiert.
+     * 
+     * @param zeichen Die Zeichen.
+     * @param anfang Die Position des ersten Zeichens der Zeile.
+     * @param ende Die Position hinter dem letzten Zeichen der Zeile.
+     * 
+     * @require zeichen != null
+     * @require 0 <= anfang && anfang <= ende && ende <= zeichen.length
+     */
+    void setzeZeile(char[] zeichen, int anfang, int ende)
+    {
+        assert zeichen != null : "Vorbedingung verletzt: zeichen != null";
+        assert 0 <= anfang && anfang <= ende
+                && ende <= zeichen.length : "Vorbedingung verletzt: 0 <= anfang && anfang <= ende && ende <= zeichen.length";
+
+        if (ende > anfang && zeichen[ende - 1] == '\r')
+        {
+            --ende;
+        }
+        _zeichen = zeichen;
+        _zeilenAnfang = anfang;
+        _zeilenEnde = ende;
+        _position = anfang;
+        _feldAnfang = anfang;
+        _feldEnde = anfang;
+    }
+
+    /**
+     * Liest die nächste Zeile aus dem Reader in den internen Puffer und macht
+     * sie zur aktuellen Zeile. Zeilen werden durch "\n" oder "\r\n" getrennt.
+     * Es muss immer derselbe Reader übergeben werden.
+     * 
+     * @param reader Der Reader, aus dem gelesen wird.
+     * @return true, wenn eine Zeile gelesen wurde, false am Ende des Readers.
+     * @throws IOException wenn nicht gelesen werden konnte.
+     * 
+     * @require reader != null
+     */
+    boolean leseZeile(Reader reader) throws IOException
+    {
+        assert reader != null : "Vorbedingung verletzt: reader != null";
+
+        if (_puffer == null)
+        {
+            _puffer = new char[STANDARD_PUFFERGROESSE];
+        }
+        int suchAnfang = _naechsteZeile;
+        while (true)
+        {
+            for (int i = suchAnfang; i < _fuellstand; ++i)
+            {
+                if (_puffer[i] == '\n')
+                {
+                    setzeZeile(_puffer, _naechsteZeile, i);
+                    _naechsteZeile = i + 1;
+                    return true;
+                }
+            }
+            int rest = _fuellstand - _naechsteZeile;
+            if (_naechsteZeile > 0)
+            {
+                System.arraycopy(_puffer, _naechsteZeile, _puffer, 0, rest);
+                _naechsteZeile = 0;
+                _fuellstand = rest;
+            }
+            else if (_fuellstand == _puffer.length)
+            {
+                char[] groessererPuffer = new char[_puffer.length * 2];
+                System.arraycopy(_puffer, 0, groessererPuffer, 0,
+                        _fuellstand);
+                _puffer = groessererPuffer;
+            }
+            suchAnfang = rest;
+            int gelesen = reader.read(_puffer, _fuellstand,
+                    _puffer.length - _fuellstand);
+            if (gelesen < 0)
+            {
+                if (_fuellstand == 0)
+                {
+                    return false;
+                }
+                setzeZeile(_puffer, 0, _fuellstand);
+                _naechsteZeile = _fuellstand;
+                return true;
+            }
+            _fuellstand += gelesen;
+        }
+    }
+
+    /**
+     * Geht zum nächsten Feld der aktuellen Zeile.
+     * 
+     * @throws NoSuchElementException wenn die Zeile kein weiteres Feld hat.
+     */
+    void naechstesFeld()
+    {
+        int anfang = _position;
+        while (anfang < _zeilenEnde && _zeichen[anfang] == TRENNZEICHEN)
+        {
+            ++anfang;
+        }
+        if (anfang == _zeilenEnde)
+        {
+            throw new NoSuchElementException();
+        }
+        int ende = anfang;
+        while (ende < _zeilenEnde && _zeichen[ende] != TRENNZEICHEN)
+        {
+            ++ende;
+        }
+        _feldAnfang = anfang;
+        _feldEnde = ende;
+        _position = ende;
+    }
+
+    /**
+     * Prüft, ob das aktuelle Feld genau den angegebenen Text enthält.
+     * 
+     * @param text Ein Text.
+     * @return true, wenn das Feld den Text enthält, sonst false.
+     * 
+     * @require text != null
+     */
+    boolean feldIst(String text)
+    {
+        assert text != null : "Vorbedingung verletzt: text != null";
+
+        int laenge = _feldEnde - _feldAnfang;
+        if (laenge != text.length())
+        {
+            return false;
+        }
+        for (int i = 0; i < laenge; ++i)
+        {
+            if (_zeichen[_feldAnfang + i] != text.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liefert das aktuelle Feld als String.
+     * 
+     * @ensure result != null
+     */
+    String feldAlsText()
+    {
+        return new String(_zeichen, _feldAnfang, _feldEnde - _feldAnfang);
+    }
+
+    /**
+     * Liefert das aktuelle Feld als kanonischen String aus dem Pool. Für
+     * Werte, die der Pool bereits kennt, wird kein neuer String erzeugt.
+     * 
+     * @require pool != null
+     * 
+     * @ensure result != null
+     */
+    String feldAlsKanonischerText(ZeichenkettenPool pool)
+    {
+        assert pool != null : "Vorbedingung verletzt: pool != null";
+        return pool.kanonisiere(_zeichen, _feldAnfang,
+                _feldEnde - _feldAnfang);
+    }
+
+    /**
+     * Liefert das aktuelle Feld als ganze Zahl, wie Integer.parseInt.
+     * 
+     * @throws NumberFormatException wenn das Feld keine ganze Zahl ist.
+     */
+    int feldAlsInt()
+    {
+        int i = _feldAnfang;
+        boolean negativ = false;
+        if (i < _feldEnde && (_zeichen[i] == '-' || _zeichen[i] == '+'))
+        {
+            negativ = _zeichen[i] == '-';
+            ++i;
+        }
+        if (i == _feldEnde)
+        {
+            throw new NumberFormatException(
+                    "Keine Zahl: \"" + feldAlsText() + "\"");
+        }
+        long ergebnis = 0;
+        for (; i < _feldEnde; ++i)
+        {
+            int ziffer = ziffer(_zeichen[i]);
+            if (ziffer < 0)
+            {
+                throw new NumberFormatException(
+                        "Keine Zahl: \"" + feldAlsText() + "\"");
+            }
+            ergebnis = ergebnis * 10 + ziffer;
+            if (ergebnis > (long) Integer.MAX_VALUE + 1)
+            {
+                throw new NumberFormatException(
+                        "Zahl zu groß: \"" + feldAlsText() + "\"");
+            }
+        }
+        if (negativ)
+        {
+            ergebnis = -ergebnis;
+        }
+        if (ergebnis > Integer.MAX_VALUE)
+        {
+            throw new NumberFormatException(
+                    "Zahl zu groß: \"" + feldAlsText() + "\"");
+        }
+        return (int) ergebnis;
+    }
+
+    /**
+     * Liest ein Datum der Form t.m.jjjj aus dem aktuellen Feld, wobei Tag und
+     * Monat ein- oder zweistellig sein dürfen.
+     * 
+     * @return Das Datum oder null, wenn das Feld kein gültiges Datum enthält.
+     */
+    Datum feldAlsDatum()
+    {
+        int i = _feldAnfang;
+        int tag = 0;
+        int tagAnfang = i;
+        while (i < _feldEnde && i - tagAnfang < 2 && ziffer(_zeichen[i]) >= 0)
+        {
+            tag = tag * 10 + ziffer(_zeichen[i++]);
+        }
+        if (i == tagAnfang || i == _feldEnde || _zeichen[i++] != '.')
+        {
+            return null;
+        }
+        int monat = 0;
+        int monatAnfang = i;
+        while (i < _feldEnde && i - monatAnfang < 2
+                && ziffer(_zeichen[i]) >= 0)
+        {
+            monat = monat * 10 + ziffer(_zeichen[i++]);
+        }
+        if (i == monatAnfang || i == _feldEnde || _zeichen[i++] != '.')
+        {
+            return null;
+        }
+        if (_feldEnde - i != 4)
+        {
+            return null;
+        }
+        int jahr = 0;
+        for (; i < _feldEnde; ++i)
+        {
+            int ziffer = ziffer(_zeichen[i]);
+            if (ziffer < 0)
+            {
+                return null;
+            }
+            jahr = jahr * 10 + ziffer;
+        }
+        Datum ergebnis = null;
+        if (Datum.istGueltig(tag, monat, jahr))
+        {
+            ergebnis = new Datum(tag, monat, jahr);
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Liest eine sechsstellige Kundennummer aus dem aktuellen Feld.
+     * 
+     * @return Die Kundennummer oder null, wenn das Feld keine gültige
+     *         Kundennummer enthält.
+     */
+    Kundennummer feldAlsKundennummer()
+    {
+        if (_feldEnde - _feldAnfang != 6)
+        {
+            return null;
+        }
+        int nummer = 0;
+        for (int i = _feldAnfang; i < _feldEnde; ++i)
+        {
+            int ziffer = ziffer(_zeichen[i]);
+            if (ziffer < 0)
+            {
+                return null;
+            }
+            nummer = nummer * 10 + ziffer;
+        }
+        Kundennummer ergebnis = null;
+        if (Kundennummer.istGueltig(nummer))
+        {
+            ergebnis = new Kundennummer(nummer);
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Liefert die gesamte aktuelle Zeile als String.
+     * 
+     * @ensure result != null
+     */
+    String zeileAlsText()
+    {
+        return new String(_zeichen, _zeilenAnfang,
+                _zeilenEnde - _zeilenAnfang);
+    }
+
+    /**
+     * Liefert den Wert einer Dezimalziffer oder -1, wenn das Zeichen keine
+     * Ziffer ist.
+     */
+    private static int ziffer(char zeichen)
+    {
+        return zeichen >= '0' && zeichen <= '9' ? zeichen - '0' : -1;
+    }
+}
@@ -0,0 +1,121 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class FeldScannerTest
+{
+    private FeldScanner _scanner;
+
+    public FeldScannerTest()
+    {
+        _scanner = new FeldScanner();
+    }
+
+    @Test
+    public void testeFelderWerdenWieVomStringTokenizerGetrennt()
+    {
+        setzeZeile(";;2.4.2021;123457;;CD;Titel; ;140");
+        _scanner.naechstesFeld();
+        assertEquals(new Datum(2, 4, 2021), _scanner.feldAlsDatum());
+        _scanner.naechstesFeld();
+        assertEquals(new Kundennummer(123457), _scanner.feldAlsKundennummer());
+        _scanner.naechstesFeld();
+        assertTrue(_scanner.feldIst("CD"));
+        assertFalse(_scanner.feldIst("CDs"));
+        _scanner.naechstesFeld();
+        assertEquals("Titel", _scanner.feldAlsText());
+        _scanner.naechstesFeld();
+        assertTrue(_scanner.feldIst(" "));
+        _scanner.naechstesFeld();
+        assertEquals(140, _scanner.feldAlsInt());
+        try
+        {
+            _scanner.naechstesFeld();
+            fail("Die Zeile hat kein weiteres Feld");
+        }
+        catch (NoSuchElementException e)
+        {
+            // Fehler erwartet
+        }
+    }
+
+    @Test
+    public void testeUngueltigeDatenLiefernNull()
+    {
+        setzeZeile(" ;12345;1.13.2021;1234567;12a456;31.4.2021;1.1.21");
+        for (int i = 0; i < 7; ++i)
+        {
+            _scanner.naechstesFeld();
+            assertNull(_scanner.feldAlsDatum());
+            assertNull(_scanner.feldAlsKundennummer());
+        }
+    }
+
+    @Test
+    public void testeZahlen()
+    {
+        setzeZeile("-17;+3;2147483647;2147483648;x");
+        _scanner.naechstesFeld();
+        assertEquals(-17, _scanner.feldAlsInt());
+        _scanner.naechstesFeld();
+        assertEquals(3, _scanner.feldAlsInt());
+        _scanner.naechstesFeld();
+        assertEquals(Integer.MAX_VALUE, _scanner.feldAlsInt());
+        for (int i = 0; i < 2; ++i)
+        {
+            _scanner.naechstesFeld();
+            try
+            {
+                _scanner.feldAlsInt();
+                fail("Das Feld ist keine gültige Zahl");
+            }
+            catch (NumberFormatException e)
+            {
+                // Fehler erwartet
+            }
+        }
+    }
+
+    @Test
+    public void testeLeseZeileWieReadLine() throws Exception
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; ++i)
+        {
+            text.append("Zeile;")
+                .append(i)
+                .append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        text.append("Ende");
+        StringReader reader = new StringReader(text.toString());
+        for (int i = 0; i < 2000; ++i)
+        {
+            assertTrue(_scanner.leseZeile(reader));
+            assertEquals("Zeile;" + i, _scanner.zeileAlsText());
+        }
+        assertTrue(_scanner.leseZeile(reader));
+        assertEquals("Ende", _scanner.zeileAlsText());
+        assertFalse(_scanner.leseZeile(reader));
+    }
+
+    private void setzeZeile(String zeile)
+    {
+        char[] zeichen = ("xx" + zeile + "yy").toCharArray();
+        _scanner.setzeZeile(zeichen, 2, zeichen.length - 2);
+    }
+}
@@ -5,11 +5,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.concurrent.ForkJoinPool;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.ZeichenkettenPool;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.PLZ;
 
@@ -46,27 +48,13 @@ class KundenEinleser
 
         try (BufferedReader reader = new BufferedReader(new FileReader(kundenDatei)))
         {
-            String line = null;
+            FeldScanner scanner = new FeldScanner();
             // liest Datei Zeile für Zeile
-            while ((line = reader.readLine()) != null)
+            while (scanner.leseZeile(reader))
             {
-                StringTokenizer tokenizer = new StringTokenizer(line, ";");
-                int kundennummer = Integer.valueOf(tokenizer.nextToken());
-                String vorname = tokenizer.nextToken();
-                String nachname = tokenizer.nextToken();
-                String strasse = tokenizer.nextToken();
-                String plz = tokenizer.nextToken();
-                String ort = tokenizer.nextToken();
-
-                if (Kundennummer.istGueltig(kundennummer)
-                        && PLZ.istGueltig(plz))
+                Kunde kunde = leseKundeEin(scanner);
+                if (kunde != null)
                 {
-                    Kunde kunde = new Kunde(new Kundennummer(kundennummer),
-                            vorname, nachname);
-                    kunde.setStrasse(strasse);
-                    kunde.setWohnort(ort);
-                    kunde.setPLZ(new PLZ(plz));
-
                     eingeleseneKunden.add(kunde);
                 }
             }
@@ -83,4 +71,92 @@ class KundenEinleser
         }
         return eingeleseneKunden;
     }
+
+    /**
+     * Liest Kunden aus einer Textdatei ein, wobei die Datei an Zeilengrenzen
+     * in Abschnitte geteilt wird, die im übergebenen Pool parallel
+     * verarbeitet werden. Die Kunden werden in der Reihenfolge der Datei
+     * zurückgegeben, das Ergebnis entspricht also dem von
+     * #leseKundenEin(File).
+     * 
+     * @param kundenDatei Die Datei in der die Kunden gespeichert sind.
+     * @param pool Der Pool, in dem die Abschnitte verarbeitet werden.
+     * @throws DateiLeseException wenn der Kundenstamm nicht gelesen werden
+     *             konnte.
+     * 
+     * @require kundenDatei != null
+     * @require pool != null
+     * 
+     * @ensure result != null
+     */
+    public List<Kunde> leseKundenEin(File kundenDatei, ForkJoinPool pool)
+            throws DateiLeseException
+    {
+        assert kundenDatei != null : "Vorbedingung verletzt: kundenDatei != null";
+        assert pool != null : "Vorbedingung verletzt: pool != null";
+
+        ParallelerZeilenEinleser<Kunde> einleser = new ParallelerZeilenEinleser<Kunde>(
+                new ParallelerZeilenEinleser.ZeilenVerarbeiter<Kunde>()
+                {
+                    @Override
+                    public Kunde verarbeiteZeile(FeldScanner zeile)
+                    {
+                        return leseKundeEin(zeile);
+                    }
+                }, ParallelerZeilenEinleser.STANDARD_ABSCHNITTSGROESSE);
+        try
+        {
+            return einleser.leseEin(kundenDatei, pool);
+        }
+        catch (NoSuchFileException e)
+        {
+            throw new DateiLeseException(
+                    "Der Kundenstamm konnte nicht eingelesen werden, da die Datei nicht gefunden wurde.");
+        }
+        catch (IOException e)
+        {
+            throw new DateiLeseException(
+                    "Der Kundenstamm konnte nicht eingelesen werden, da die Datei nicht gelesen werden konnte.");
+        }
+    }
+
+    /**
+     * Liest einen Kunden aus einer Zeile der Kunden-Datei.
+     * 
+     * @param scanner Ein FeldScanner, der auf der Zeile steht.
+     * @return Der eingelesene Kunde oder null, wenn Kundennummer oder PLZ
+     *         ungültig sind.
+     */
+    private static Kunde leseKundeEin(FeldScanner scanner)
+    {
+        scanner.naechstesFeld();
+        int kundennummer = scanner.feldAlsInt();
+        String vorname = naechsterText(scanner);
+        String nachname = naechsterText(scanner);
+        String strasse = naechsterText(scanner);
+        String plz = naechsterText(scanner);
+        scanner.naechstesFeld();
+        String ort = scanner
+            .feldAlsKanonischerText(ZeichenkettenPool.gemeinsamerPool());
+
+        Kunde kunde = null;
+        if (Kundennummer.istGueltig(kundennummer) && PLZ.istGueltig(plz))
+        {
+            kunde = new Kunde(new Kundennummer(kundennummer), vorname,
+                    nachname);
+            kunde.setStrasse(strasse);
+            kunde.setWohnort(ort);
+            kunde.setPLZ(new PLZ(plz));
+        }
+        return kunde;
+    }
+
+    /**
+     * Geht zum nächsten Feld und liefert es als Text.
+     */
+    private static String naechsterText(FeldScanner scanner)
+    {
+        scanner.naechstesFeld();
+        return scanner.feldAlsText();
+    }
 }
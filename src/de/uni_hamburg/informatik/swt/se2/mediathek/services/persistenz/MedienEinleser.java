@@ -5,20 +5,25 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.ZeichenkettenPool;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienEmpfaenger;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
 
@@ -32,133 +37,175 @@ import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
 class MedienEinleser
 {
 
-    // Dieses Pattern dient der Überprüfung eines Datums
-    private static final Pattern DATUM_PATTERN = Pattern
-        .compile("([0-9]{1,2})\\.([0-9]{1,2})\\.([0-9]{4})");
-
-    // Dieses pattern dient der Überprüfung einer kundennumer
-    private static final Pattern KUNDENNUMEER_PATTERN = Pattern
-        .compile("([0-9]{6})");
+    // Die Medienbezeichnungen, die eingelesen werden können
+    private static final String[] MEDIEN_BEZEICHNUNGEN = {"CD", "DVD",
+            "KonsolenVideospiel", "PCVideospiel"};
 
     private static String LEERSTRING = "";
 
     private static String LEERZEICHEN = " ";
 
     /**
-     * Dekodiert den übergebenen String.
+     * Liest Medien aus einer Textdatei ein und gibt alle eingelesenen Medien
+     * und eventuell dazugehörende Verleihkarten zurück.
      * 
-     * @param text Ein String der dekodiert werden soll.
-     * @require text != null
-     * @return Ein dekodierter String.
+     * @param kundenstamm Ein Kundenstamm, um Kunden anhand ihrer Kundennummer
+     *            zu finden.
+     * @param medienDatei Die Datei in der die Medien gespeichert sind.
+     * @return Eine Map der Medien und zugehöriger Verleihkarten (falls
+     *         existent) in der Reihenfolge der Datei.
+     * @throws DateiLeseException wenn der Medien-Datenbestand nicht gelesen
+     *             werden konnte.
+     * 
+     * @require kundenstamm != null
+     * @require medienDatei != null
+     * 
+     * @ensure result != null
      */
-    private static String dekodiere(String text)
+    public Map<Medium, Verleihkarte> leseMedienEin(List<Kunde> kundenstamm,
+            File medienDatei) throws DateiLeseException
     {
-        String ergebnis = text;
-        if (text.equals(LEERZEICHEN))
+        assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm != null";
+        assert medienDatei != null : "Vorbedingung verletzt: medienDatei != null";
+        Map<Medium, Verleihkarte> eingeleseneMedien = new LinkedHashMap<Medium, Verleihkarte>();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(medienDatei)))
         {
-            ergebnis = LEERSTRING;
-        }
-        return ergebnis;
-    }
+            Map<Kundennummer, Kunde> kundenMap = erstelleKundenMap(kundenstamm);
 
-    /**
-     * Versucht aus dem übergebenen String ein Datum zu extrahieren.
-     * 
-     * @return Ein ermitteltes Datum oder null, wenn kein Datum extrahiert
-     *         werden konnte.
-     */
-    private static Datum ermittleAusleihdatum(String datumString)
-    {
-        Datum ergebnis = null;
-        Matcher m = DATUM_PATTERN.matcher(datumString);
-        if (m.matches())
-        {
-            int tag = Integer.parseInt(m.group(1), 10);
-            int monat = Integer.parseInt(m.group(2), 10);
-            int jahr = Integer.parseInt(m.group(3), 10);
-            if (Datum.istGueltig(tag, monat, jahr))
+            FeldScanner scanner = new FeldScanner();
+            // liest die Datei Zeile für Zeile
+            while (scanner.leseZeile(reader))
             {
-                ergebnis = new Datum(tag, monat, jahr);
+                Entry<Medium, Verleihkarte> eintrag = leseZeileEin(scanner,
+                        kundenMap);
+                if (eintrag != null)
+                {
+                    eingeleseneMedien.put(eintrag.getKey(), eintrag.getValue());
+                }
             }
         }
-        return ergebnis;
+        catch (FileNotFoundException e)
+        {
+            throw new DateiLeseException(
+                    "Der Medien-Datenbestand konnte nicht eingelesen werden, da die Datei nicht gefunden wurde.");
+        }
+        catch (IOException e)
+        {
+            throw new DateiLeseException(
+                    "Der Medien-Datenbestand konnte nicht eingelesen werden, da die Datei nicht gelesen werden konnte.");
+        }
+
+        return eingeleseneMedien;
     }
 
     /**
-     * Versucht aus dem übergebenen String eine Kundennummer zu extrahieren.
+     * Liest Medien aus einer Textdatei ein, wobei die Datei an Zeilengrenzen
+     * in Abschnitte geteilt wird, die im übergebenen Pool parallel
+     * verarbeitet werden. Das Ergebnis entspricht dem von
+     * #leseMedienEin(List, File).
      * 
-     * @return Eine ermittelte Kundennummer oder null, wenn keine Kundennummer
-     *         extrahiert werden konnte.
+     * @param kundenstamm Ein Kundenstamm, um Kunden anhand ihrer Kundennummer
+     *            zu finden.
+     * @param medienDatei Die Datei in der die Medien gespeichert sind.
+     * @param pool Der Pool, in dem die Abschnitte verarbeitet werden.
+     * @return Eine Map der Medien und zugehöriger Verleihkarten (falls
+     *         existent) in der Reihenfolge der Datei.
+     * @throws DateiLeseException wenn der Medien-Datenbestand nicht gelesen
+     *             werden konnte.
+     * 
+     * @require kundenstamm != null
+     * @require medienDatei != null
+     * @require pool != null
+     * 
+     * @ensure result != null
      */
-    private static Kundennummer ermittleKundennummer(String kundennummerString)
+    public Map<Medium, Verleihkarte> leseMedienEin(List<Kunde> kundenstamm,
+            File medienDatei, ForkJoinPool pool) throws DateiLeseException
     {
-        Kundennummer ergebnis = null;
-        Matcher m = KUNDENNUMEER_PATTERN.matcher(kundennummerString);
-        if (m.matches())
+        assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm != null";
+        assert medienDatei != null : "Vorbedingung verletzt: medienDatei != null";
+        assert pool != null : "Vorbedingung verletzt: pool != null";
+
+        final Map<Kundennummer, Kunde> kundenMap = erstelleKundenMap(
+                kundenstamm);
+        ParallelerZeilenEinleser<Entry<Medium, Verleihkarte>> einleser = new ParallelerZeilenEinleser<Entry<Medium, Verleihkarte>>(
+                new ParallelerZeilenEinleser.ZeilenVerarbeiter<Entry<Medium, Verleihkarte>>()
+                {
+                    @Override
+                    public Entry<Medium, Verleihkarte> verarbeiteZeile(
+                            FeldScanner zeile)
+                    {
+                        return leseZeileEin(zeile, kundenMap);
+                    }
+                }, ParallelerZeilenEinleser.STANDARD_ABSCHNITTSGROESSE);
+
+        List<Entry<Medium, Verleihkarte>> eintraege;
+        try
         {
-            int nummer = Integer.parseInt(m.group(1), 10);
-            if (Kundennummer.istGueltig(nummer))
-            {
-                ergebnis = new Kundennummer(nummer);
-            }
+            eintraege = einleser.leseEin(medienDatei, pool);
         }
-        return ergebnis;
+        catch (NoSuchFileException e)
+        {
+            throw new DateiLeseException(
+                    "Der Medien-Datenbestand konnte nicht eingelesen werden, da die Datei nicht gefunden wurde.");
+        }
+        catch (IOException e)
+        {
+            throw new DateiLeseException(
+                    "Der Medien-Datenbestand konnte nicht eingelesen werden, da die Datei nicht gelesen werden konnte.");
+        }
+
+        Map<Medium, Verleihkarte> eingeleseneMedien = new LinkedHashMap<Medium, Verleihkarte>(
+                eintraege.size() * 4 / 3 + 1);
+        for (Entry<Medium, Verleihkarte> eintrag : eintraege)
+        {
+            eingeleseneMedien.put(eintrag.getKey(), eintrag.getValue());
+        }
+        return eingeleseneMedien;
     }
 
     /**
-     * Liest Medien aus einer Textdatei ein und gibt alle eingelesenen Medien
-     * und eventuell dazugehörende Verleihkarten zurück.
+     * Liest Medien aus einer Textdatei ein und übergibt jedes Medium Feld für
+     * Feld an den Empfänger, ohne Medium-Objekte zu erzeugen. Nur für
+     * verliehene Medien wird der Empfänger nach seinem Medium gefragt.
      * 
      * @param kundenstamm Ein Kundenstamm, um Kunden anhand ihrer Kundennummer
      *            zu finden.
      * @param medienDatei Die Datei in der die Medien gespeichert sind.
-     * @return Eine Map der Medien und zugehöriger Verleihkarten (falls
-     *         existent).
+     * @param empfaenger Der Empfänger der Medien in der Reihenfolge der
+     *            Datei.
+     * @return Die Verleihkarten der verliehenen Medien.
      * @throws DateiLeseException wenn der Medien-Datenbestand nicht gelesen
      *             werden konnte.
      * 
      * @require kundenstamm != null
      * @require medienDatei != null
+     * @require empfaenger != null
      * 
      * @ensure result != null
      */
-    public Map<Medium, Verleihkarte> leseMedienEin(List<Kunde> kundenstamm,
-            File medienDatei) throws DateiLeseException
+    public List<Verleihkarte> leseMedienEin(List<Kunde> kundenstamm,
+            File medienDatei, MedienEmpfaenger empfaenger)
+            throws DateiLeseException
     {
         assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm != null";
         assert medienDatei != null : "Vorbedingung verletzt: medienDatei != null";
-        Map<Medium, Verleihkarte> eingeleseneMedien = new HashMap<Medium, Verleihkarte>();
+        assert empfaenger != null : "Vorbedingung verletzt: empfaenger != null";
+        List<Verleihkarte> verleihkarten = new ArrayList<Verleihkarte>();
 
         try (BufferedReader reader = new BufferedReader(new FileReader(medienDatei)))
         {
-            Map<Kundennummer, Kunde> kundenMap = new HashMap<Kundennummer, Kunde>();
-            for (Kunde kunde : kundenstamm)
-            {
-                kundenMap.put(kunde.getKundennummer(), kunde);
-            }
+            Map<Kundennummer, Kunde> kundenMap = erstelleKundenMap(kundenstamm);
 
-            String line = null;
-            // liest die Datei Zeile für Zeile
-            while ((line = reader.readLine()) != null)
+            FeldScanner scanner = new FeldScanner();
+            while (scanner.leseZeile(reader))
             {
-                StringTokenizer tokenizer = new StringTokenizer(line, ";");
-
-                Datum ausleihDatum = ermittleAusleihdatum(
-                        naechsterToken(tokenizer));
-                Kundennummer kundennummer = ermittleKundennummer(
-                        naechsterToken(tokenizer));
-
-                Medium medium = leseMediumEin(tokenizer);
-                Verleihkarte verleihkarte = null;
-                if (medium != null)
+                Verleihkarte verleihkarte = leseZeileEin(scanner, kundenMap,
+                        empfaenger);
+                if (verleihkarte != null)
                 {
-                    if (kundennummer != null)
-                    {
-                        Kunde kunde = kundenMap.get(kundennummer);
-                        verleihkarte = new Verleihkarte(kunde, medium,
-                                ausleihDatum);
-                    }
-                    eingeleseneMedien.put(medium, verleihkarte);
+                    verleihkarten.add(verleihkarte);
                 }
             }
         }
@@ -173,64 +220,232 @@ class MedienEinleser
                     "Der Medien-Datenbestand konnte nicht eingelesen werden, da die Datei nicht gelesen werden konnte.");
         }
 
-        return eingeleseneMedien;
+        return verleihkarten;
     }
 
     /**
-     * Liest die Daten für ein Medium aus dem übergebenen StringTokenizer aus
-     * und erzeugt ein konkretes Objekt eines Subtyps von Medium.
+     * Erstellt eine Map, in der die Kunden nach ihrer Kundennummer gefunden
+     * werden können.
+     */
+    private static Map<Kundennummer, Kunde> erstelleKundenMap(
+            List<Kunde> kundenstamm)
+    {
+        Map<Kundennummer, Kunde> kundenMap = new HashMap<Kundennummer, Kunde>();
+        for (Kunde kunde : kundenstamm)
+        {
+            kundenMap.put(kunde.getKundennummer(), kunde);
+        }
+        return kundenMap;
+    }
+
+    /**
+     * Liest ein Medium und dessen eventuelle Verleihkarte aus einer Zeile der
+     * Medien-Datei.
      * 
-     * @param tokenizer Ein StringTokenizer, der die Daten liefert.
-     * @return ein neu erzeugtes Medium oder null, wenn kein Medium erzeugt
-     *         werden konnte.
+     * @param scanner Ein FeldScanner, der auf der Zeile steht.
+     * @param kundenMap Die Kunden nach ihrer Kundennummer.
+     * @return Das Medium mit seiner Verleihkarte (oder null als Wert), oder
+     *         null, wenn kein Medium erzeugt werden konnte.
      */
-    private static Medium leseMediumEin(StringTokenizer tokenizer)
+    private static Entry<Medium, Verleihkarte> leseZeileEin(
+            FeldScanner scanner, Map<Kundennummer, Kunde> kundenMap)
     {
-        String medienBezeichnung = naechsterToken(tokenizer);
-        String titel = naechsterToken(tokenizer);
-        String kommentar = naechsterToken(tokenizer);
+        MedienErzeuger erzeuger = new MedienErzeuger();
+        Verleihkarte verleihkarte = leseZeileEin(scanner, kundenMap,
+                erzeuger);
+        Medium medium = erzeuger._medium;
+        Entry<Medium, Verleihkarte> eintrag = null;
+        if (medium != null)
+        {
+            eintrag = new SimpleImmutableEntry<Medium, Verleihkarte>(medium,
+                    verleihkarte);
+        }
+        return eintrag;
+    }
 
-        Medium medium = null;
-        if (medienBezeichnung.equals("CD"))
+    /**
+     * Liest ein Medium aus einer Zeile der Medien-Datei und übergibt es an den
+     * Empfänger.
+     * 
+     * @param scanner Ein FeldScanner, der auf der Zeile steht.
+     * @param kundenMap Die Kunden nach ihrer Kundennummer.
+     * @param empfaenger Der Empfänger des Mediums.
+     * @return Die Verleihkarte des Mediums oder null, wenn es nicht verliehen
+     *         ist oder kein Medium gelesen werden konnte.
+     */
+    private static Verleihkarte leseZeileEin(FeldScanner scanner,
+            Map<Kundennummer, Kunde> kundenMap, MedienEmpfaenger empfaenger)
+    {
+        scanner.naechstesFeld();
+        Datum ausleihDatum = scanner.feldAlsDatum();
+        scanner.naechstesFeld();
+        Kundennummer kundennummer = scanner.feldAlsKundennummer();
+
+        Verleihkarte verleihkarte = null;
+        if (leseMediumEin(scanner, empfaenger) && kundennummer != null)
+        {
+            Kunde kunde = kundenMap.get(kundennummer);
+            verleihkarte = new Verleihkarte(kunde,
+                    empfaenger.getLetztesMedium(), ausleihDatum);
+        }
+        return verleihkarte;
+    }
+
+    /**
+     * Liest die Daten für ein Medium aus dem übergebenen FeldScanner aus und
+     * übergibt sie dem Empfänger.
+     * 
+     * @param scanner Ein FeldScanner, der die Daten liefert.
+     * @param empfaenger Der Empfänger des Mediums.
+     * @return true, wenn ein Medium übergeben wurde, false, wenn die
+     *         Medienbezeichnung unbekannt ist.
+     */
+    private static boolean leseMediumEin(FeldScanner scanner,
+            MedienEmpfaenger empfaenger)
+    {
+        String medienBezeichnung = naechsteMedienBezeichnung(scanner);
+        String titel = naechsterText(scanner);
+        String kommentar = naechsterText(scanner);
+
+        if ("CD".equals(medienBezeichnung))
         {
-            String interpret = naechsterToken(tokenizer);
-            String spiellaenge = naechsterToken(tokenizer);
+            String interpret = naechsterKanonischerText(scanner);
+            scanner.naechstesFeld();
+            int spiellaenge = scanner.feldAlsInt();
 
-            medium = new CD(titel, kommentar, interpret,
-                    Integer.parseInt(spiellaenge));
+            empfaenger.nimmCDAuf(titel, kommentar, interpret, spiellaenge);
+            return true;
         }
-        else if (medienBezeichnung.equals("DVD"))
+        if ("DVD".equals(medienBezeichnung))
         {
-            String regisseur = naechsterToken(tokenizer);
-            int laufzeit = Integer.valueOf(naechsterToken(tokenizer));
+            String regisseur = naechsterKanonischerText(scanner);
+            scanner.naechstesFeld();
+            int laufzeit = scanner.feldAlsInt();
 
-            medium = new DVD(titel, kommentar, regisseur, laufzeit);
+            empfaenger.nimmDVDAuf(titel, kommentar, regisseur, laufzeit);
+            return true;
         }
-        else if (medienBezeichnung.equals("KonsolenVideospiel")
-                || medienBezeichnung.equals("PCVideospiel"))
+        if ("KonsolenVideospiel".equals(medienBezeichnung))
         {
-            String system = naechsterToken(tokenizer);
+            empfaenger.nimmKonsolenVideospielAuf(titel, kommentar,
+                    naechsterKanonischerText(scanner));
+            return true;
+        }
+        if ("PCVideospiel".equals(medienBezeichnung))
+        {
+            empfaenger.nimmPCVideospielAuf(titel, kommentar,
+                    naechsterKanonischerText(scanner));
+            return true;
+        }
+        return false;
+    }
 
-            if (medienBezeichnung.equals("KonsolenVideospiel"))
-            {
-                medium = new KonsolenVideospiel(titel, kommentar, system);
-            }
-            else if (medienBezeichnung.equals("PCVideospiel"))
+    /**
+     * Geht zum nächsten Feld und liefert die bekannte Medienbezeichnung, die
+     * darin steht, ohne einen neuen String zu erzeugen.
+     * 
+     * @param scanner Ein FeldScanner.
+     * @return Die Medienbezeichnung oder null, wenn sie unbekannt ist.
+     */
+    private static String naechsteMedienBezeichnung(FeldScanner scanner)
+    {
+        scanner.naechstesFeld();
+        for (String medienBezeichnung : MEDIEN_BEZEICHNUNGEN)
+        {
+            if (scanner.feldIst(medienBezeichnung))
             {
-                medium = new PCVideospiel(titel, kommentar, system);
+                return medienBezeichnung;
             }
         }
-        return medium;
+        return null;
     }
 
     /**
-     * Holt das nächste Token vom Tokenizer und dekodiert es.
+     * Geht zum nächsten Feld und liefert es als kanonischen Text aus dem
+     * gemeinsamen ZeichenkettenPool. Für Felder, deren Werte sich oft
+     * wiederholen.
      * 
-     * @param tokenizer Ein Tokenizer.
-     * @return Das nächste dekodierte Token.
+     * @param scanner Ein FeldScanner.
+     * @return Das nächste Feld als kanonischer Text.
      */
-    private static String naechsterToken(StringTokenizer tokenizer)
+    private static String naechsterKanonischerText(FeldScanner scanner)
     {
-        return dekodiere(tokenizer.nextToken());
+        scanner.naechstesFeld();
+        String ergebnis;
+        if (scanner.feldIst(LEERZEICHEN))
+        {
+            ergebnis = LEERSTRING;
+        }
+        else
+        {
+            ergebnis = scanner.feldAlsKanonischerText(
+                    ZeichenkettenPool.gemeinsamerPool());
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Geht zum nächsten Feld und liefert es dekodiert als Text.
+     * 
+     * @param scanner Ein FeldScanner.
+     * @return Das nächste dekodierte Feld.
+     */
+    private static String naechsterText(FeldScanner scanner)
+    {
+        scanner.naechstesFeld();
+        String ergebnis;
+        if (scanner.feldIst(LEERZEICHEN))
+        {
+            ergebnis = LEERSTRING;
+        }
+        else
+        {
+            ergebnis = scanner.feldAlsText();
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Erzeugt für jedes empfangene Medium ein Objekt der passenden
+     * Medienklasse.
+     */
+    private static final class MedienErzeuger implements MedienEmpfaenger
+    {
+        private Medium _medium;
+
+        @Override
+        public void nimmCDAuf(String titel, String kommentar,
+                String interpret, int spiellaenge)
+        {
+            _medium = new CD(titel, kommentar, interpret, spiellaenge);
+        }
+
+        @Override
+        public void nimmDVDAuf(String titel, String kommentar,
+                String regisseur, int laufzeit)
+        {
+            _medium = new DVD(titel, kommentar, regisseur, laufzeit);
+        }
+
+        @Override
+        public void nimmKonsolenVideospielAuf(String titel, String kommentar,
+                String system)
+        {
+            _medium = new KonsolenVideospiel(titel, kommentar, system);
+        }
+
+        @Override
+        public void nimmPCVideospielAuf(String titel, String kommentar,
+                String system)
+        {
+            _medium = new PCVideospiel(titel, kommentar, system);
+        }
+
+        @Override
+        public Medium getLetztesMedium()
+        {
+            assert _medium != null : "Vorbedingung verletzt: Es wurde bereits ein Medium aufgenommen.";
+            return _medium;
+        }
     }
 }
@@ -0,0 +1,198 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ein ParallelerZeilenEinleser liest eine Textdatei ein, teilt sie an
+ * Zeilengrenzen in Abschnitte und lässt die Zeilen der Abschnitte in einem
+ * ForkJoinPool parallel verarbeiten. Die Ergebnisse werden in der Reihenfolge
+ * der Zeilen in der Datei zusammengeführt.
+ * 
+ * Die Datei wird im Standard-Zeichensatz gelesen, wie es auch ein FileReader
+ * tut. Zeilen werden durch "\n" oder "\r\n" getrennt.
+ * 
+ * @param <T> Der Typ der Ergebnisse, die aus einer Zeile erzeugt werden.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+class ParallelerZeilenEinleser<T>
+{
+    /**
+     * Ab dieser Größe in Bytes wird ein Abschnitt weiter geteilt.
+     */
+    static final int STANDARD_ABSCHNITTSGROESSE = 1 << 18;
+
+    private static final byte ZEILENENDE = '\n';
+
+    /**
+     * Verarbeitet eine einzelne Zeile. Implementationen müssen von mehreren
+     * Threads gleichzeitig aufgerufen werden können.
+     * 
+     * @param <T> Der Typ des Ergebnisses.
+     */
+    interface ZeilenVerarbeiter<T>
+    {
+        /**
+         * Verarbeitet eine Zeile. Der FeldScanner gehört dem aufrufenden
+         * Abschnitt und ist nur während des Aufrufs gültig.
+         * 
+         * @param zeile Ein FeldScanner, der auf der Zeile steht.
+         * @return Das Ergebnis der Zeile oder null, wenn die Zeile kein
+         *         Ergebnis liefert.
+         */
+        T verarbeiteZeile(FeldScanner zeile);
+    }
+
+    private final ZeilenVerarbeiter<T> _verarbeiter;
+    private final int _abschnittsgroesse;
+
+    /**
+     * Initialisiert einen neuen ParallelerZeilenEinleser.
+     * 
+     * @param verarbeiter Der Verarbeiter für die einzelnen Zeilen.
+     * @param abschnittsgroesse Die Größe in Bytes, bis zu der ein Abschnitt
+     *            ohne weitere Teilung verarbeitet wird.
+     * 
+     * @require verarbeiter != null
+     * @require abschnittsgroesse > 0
+     */
+    ParallelerZeilenEinleser(ZeilenVerarbeiter<T> verarbeiter,
+            int abschnittsgroesse)
+    {
+        assert verarbeiter != null : "Vorbedingung verletzt: verarbeiter != null";
+        assert abschnittsgroesse > 0 : "Vorbedingung verletzt: abschnittsgroesse > 0";
+        _verarbeiter = verarbeiter;
+        _abschnittsgroesse = abschnittsgroesse;
+    }
+
+    /**
+     * Liest die Datei ein und verarbeitet ihre Zeilen im übergebenen Pool.
+     * 
+     * @param datei Die einzulesende Datei.
+     * @param pool Der Pool, in dem die Abschnitte verarbeitet werden.
+     * @return Die Ergebnisse aller Zeilen in der Reihenfolge der Datei.
+     * @throws IOException wenn die Datei nicht gelesen werden konnte.
+     * 
+     * @require datei != null
+     * @require pool != null
+     * 
+     * @ensure result != null
+     */
+    List<T> leseEin(File datei, ForkJoinPool pool) throws IOException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+        assert pool != null : "Vorbedingung verletzt: pool != null";
+
+        byte[] inhalt = Files.readAllBytes(datei.toPath());
+        Charset zeichensatz = Charset.defaultCharset();
+        // Nur wenn "\n" als einzelnes Byte kodiert wird, ist jedes
+        // "\n"-Byte auch ein Zeilenende und die Datei darf geteilt werden.
+        byte[] zeilenende = "\n".getBytes(zeichensatz);
+        boolean teilbar = zeilenende.length == 1
+                && zeilenende[0] == ZEILENENDE;
+        return pool.invoke(new Abschnitt(inhalt, 0, inhalt.length,
+                zeichensatz, teilbar));
+    }
+
+    /**
+     * Ein Abschnitt der Datei, der entweder direkt verarbeitet oder an einer
+     * Zeilengrenze in zwei Hälften geteilt wird.
+     */
+    private class Abschnitt extends RecursiveTask<List<T>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] _inhalt;
+        private final int _anfang;
+        private final int _ende;
+        private final Charset _zeichensatz;
+        private final boolean _teilbar;
+
+        Abschnitt(byte[] inhalt, int anfang, int ende, Charset zeichensatz,
+                boolean teilbar)
+        {
+            _inhalt = inhalt;
+            _anfang = anfang;
+            _ende = ende;
+            _zeichensatz = zeichensatz;
+            _teilbar = teilbar;
+        }
+
+        @Override
+        protected List<T> compute()
+        {
+            if (_teilbar && _ende - _anfang > _abschnittsgroesse)
+            {
+                int mitte = naechsteZeilengrenze(_anfang + (_ende - _anfang) / 2);
+                if (mitte < _ende)
+                {
+                    Abschnitt links = new Abschnitt(_inhalt, _anfang, mitte,
+                            _zeichensatz, true);
+                    Abschnitt rechts = new Abschnitt(_inhalt, mitte, _ende,
+                            _zeichensatz, true);
+                    links.fork();
+                    List<T> ergebnisRechts = rechts.compute();
+                    List<T> ergebnis = links.join();
+                    ergebnis.addAll(ergebnisRechts);
+                    return ergebnis;
+                }
+            }
+            return verarbeiteZeilen();
+        }
+
+        /**
+         * Liefert die Position hinter dem ersten Zeilenende ab der
+         * übergebenen Position.
+         */
+        private int naechsteZeilengrenze(int position)
+        {
+            int i = position;
+            while (i < _ende && _inhalt[i] != ZEILENENDE)
+            {
+                ++i;
+            }
+            return i + 1;
+        }
+
+        /**
+         * Verarbeitet alle Zeilen dieses Abschnitts nacheinander mit einem
+         * gemeinsamen FeldScanner.
+         */
+        private List<T> verarbeiteZeilen()
+        {
+            CharBuffer text = _zeichensatz
+                .decode(ByteBuffer.wrap(_inhalt, _anfang, _ende - _anfang));
+            char[] zeichen = text.array();
+            int ende = text.arrayOffset() + text.limit();
+            FeldScanner scanner = new FeldScanner();
+            List<T> ergebnis = new ArrayList<T>();
+            int zeilenanfang = text.arrayOffset();
+            while (zeilenanfang < ende)
+            {
+                int zeilenende = zeilenanfang;
+                while (zeilenende < ende && zeichen[zeilenende] != '\n')
+                {
+                    ++zeilenende;
+                }
+                scanner.setzeZeile(zeichen, zeilenanfang, zeilenende);
+                T zeilenergebnis = _verarbeiter.verarbeiteZeile(scanner);
+                if (zeilenergebnis != null)
+                {
+                    ergebnis.add(zeilenergebnis);
+                }
+                zeilenanfang = zeilenende + 1;
+            }
+            return ergebnis;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * @author SE2-Team
+ */
+public class ParallelerZeilenEinleserTest
+{
+    private File _datei;
+    private ForkJoinPool _pool;
+
+    public ParallelerZeilenEinleserTest() throws IOException
+    {
+        _datei = File.createTempFile("bestand", ".txt");
+        _pool = new ForkJoinPool(4);
+    }
+
+    @After
+    public void raeumeAuf()
+    {
+        _pool.shutdown();
+        _datei.delete();
+    }
+
+    @Test
+    public void testeZeilenBleibenInReihenfolgeBeiKleinenAbschnitten()
+            throws Exception
+    {
+        StringBuilder inhalt = new StringBuilder();
+        List<String> erwartet = new ArrayList<String>();
+        for (int i = 0; i < 500; ++i)
+        {
+            String zeile = "Zeile " + i;
+            erwartet.add(zeile);
+            inhalt.append(zeile)
+                .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        inhalt.append("letzte Zeile");
+        erwartet.add("letzte Zeile");
+        schreibe(inhalt.toString());
+
+        ParallelerZeilenEinleser<String> einleser = new ParallelerZeilenEinleser<String>(
+                new ParallelerZeilenEinleser.ZeilenVerarbeiter<String>()
+                {
+                    @Override
+                    public String verarbeiteZeile(FeldScanner zeile)
+                    {
+                        return zeile.zeileAlsText();
+                    }
+                }, 16);
+
+        assertEquals(erwartet, einleser.leseEin(_datei, _pool));
+    }
+
+    @Test
+    public void testeParallelesEinlesenEntsprichtSequentiellem()
+            throws Exception
+    {
+        StringBuilder kunden = new StringBuilder();
+        for (int i = 0; i < 5000; ++i)
+        {
+            kunden.append(100000 + i)
+                .append(";Vorname;Nachname")
+                .append(i)
+                .append(";Strasse 1;22527;Hamburg\n");
+        }
+        schreibe(kunden.toString());
+        KundenEinleser kundenEinleser = new KundenEinleser();
+        List<Kunde> sequentiell = kundenEinleser.leseKundenEin(_datei);
+        List<Kunde> parallel = kundenEinleser.leseKundenEin(_datei, _pool);
+        assertEquals(sequentiell.size(), parallel.size());
+        for (int i = 0; i < sequentiell.size(); ++i)
+        {
+            assertEquals(sequentiell.get(i)
+                .getFormatiertenString(),
+                    parallel.get(i)
+                        .getFormatiertenString());
+        }
+
+        StringBuilder medien = new StringBuilder();
+        for (int i = 0; i < 5000; ++i)
+        {
+            medien.append(i % 2 == 0 ? "1.2.2021;" + (100000 + i) : " ; ")
+                .append(";CD;Titel")
+                .append(i)
+                .append(";Kommentar;Interpret;60\n");
+        }
+        schreibe(medien.toString());
+        Map<Medium, Verleihkarte> medienMap = new MedienEinleser()
+            .leseMedienEin(parallel, _datei, _pool);
+        assertEquals(5000, medienMap.size());
+        int verliehen = 0;
+        for (Entry<Medium, Verleihkarte> eintrag : medienMap.entrySet())
+        {
+            Verleihkarte verleihkarte = eintrag.getValue();
+            if (verleihkarte != null)
+            {
+                ++verliehen;
+                assertSame(eintrag.getKey(), verleihkarte.getMedium());
+                int nummer = Integer.parseInt(eintrag.getKey()
+                    .getTitel()
+                    .substring(5));
+                assertSame(parallel.get(nummer), verleihkarte.getEntleiher());
+            }
+        }
+        assertEquals(2500, verliehen);
+    }
+
+    private void schreibe(String inhalt) throws IOException
+    {
+        Files.write(_datei.toPath(), inhalt.getBytes(Charset.defaultCharset()));
+    }
+}
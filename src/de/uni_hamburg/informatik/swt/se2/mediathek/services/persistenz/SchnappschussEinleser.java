@@ -0,0 +1,399 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.PLZ;
+
+/**
+ * Ein SchnappschussEinleser liest Kunden, Medien und Verleihkarten aus einer
+ * vom SchnappschussSchreiber geschriebenen Datei ein. Die Datei wird dazu in
+ * den Speicher abgebildet und ohne Zerlegen von Textzeilen direkt dekodiert.
+ * 
+ * Die Schnittstelle entspricht der des DatenEinlesers.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class SchnappschussEinleser
+{
+    /**
+     * Die Mindestgröße eines Kunden im Schnappschuss in Bytes: die
+     * Kundennummer und fünf Textlängen.
+     */
+    private static final int MIN_KUNDENGROESSE = 6 * Integer.BYTES;
+
+    /**
+     * Die Mindestgröße eines Mediums im Schnappschuss in Bytes: der Typ und
+     * drei Textlängen.
+     */
+    private static final int MIN_MEDIENGROESSE = 1 + 3 * Integer.BYTES;
+
+    /**
+     * Die Größe einer Verleihkarte im Schnappschuss in Bytes.
+     */
+    private static final int VERLEIHKARTENGROESSE = 3 * Integer.BYTES;
+
+    /**
+     * Die Datei, in der der Schnappschuss gespeichert ist.
+     */
+    private final File _schnappschussDatei;
+
+    /**
+     * Die eingelesenen Kunden, ist null wenn noch nicht eingelesen wurde.
+     */
+    private List<Kunde> _kunden;
+
+    /**
+     * Die eingelesenen Medien, ist null wenn noch nicht eingelesen wurde.
+     */
+    private List<Medium> _medien;
+
+    /**
+     * Die eingelesenen Verleihkarten, ist null wenn noch nicht eingelesen
+     * wurde.
+     */
+    private List<Verleihkarte> _verleihkarten;
+
+    /**
+     * Initialisiert einen neuen SchnappschussEinleser, der aus der angegebenen
+     * Datei einliest.
+     * 
+     * @param schnappschussDatei Die Datei, in der der Schnappschuss
+     *            gespeichert ist.
+     * 
+     * @require schnappschussDatei != null
+     */
+    public SchnappschussEinleser(File schnappschussDatei)
+    {
+        assert schnappschussDatei != null : "Vorbedingung verletzt: schnappschussDatei != null";
+        _schnappschussDatei = schnappschussDatei;
+    }
+
+    /**
+     * Liest die Daten aus dem beim Konstruktoraufruf angegebenen Schnappschuss
+     * aus.
+     * 
+     * Das Ergebnis des Einlesens kann mit #getKunden(), #getMedien() und
+     * #getVerleihkarten() abgefragt werden.
+     * 
+     * @throws DateiLeseException Wenn die Datei nicht gelesen werden kann oder
+     *             kein gültiger Schnappschuss ist.
+     * 
+     * @ensure wurdeEingelesen() == true
+     */
+    public void leseDaten() throws DateiLeseException
+    {
+        ByteBuffer puffer = bildeDateiAb();
+        try
+        {
+            if (puffer.getInt() != SchnappschussFormat.KENNUNG)
+            {
+                throw new DateiLeseException("Die Datei "
+                        + _schnappschussDatei + " ist kein Schnappschuss.");
+            }
+            if (puffer.getInt() != SchnappschussFormat.VERSION)
+            {
+                throw new DateiLeseException("Der Schnappschuss "
+                        + _schnappschussDatei
+                        + " hat eine unbekannte Version.");
+            }
+            List<Kunde> kunden = leseKunden(puffer);
+            List<Medium> medien = leseMedien(puffer);
+            List<Verleihkarte> verleihkarten = leseVerleihkarten(puffer,
+                    kunden, medien);
+            _kunden = kunden;
+            _medien = medien;
+            _verleihkarten = verleihkarten;
+        }
+        catch (BufferUnderflowException | IllegalArgumentException
+                | IndexOutOfBoundsException e)
+        {
+            throw new DateiLeseException(
+                    "Der Schnappschuss " + _schnappschussDatei
+                            + " ist beschädigt.");
+        }
+    }
+
+    /**
+     * Prüft ob eingelesen wurde.
+     * 
+     * @return true wenn eingelesen wurde, sonst false .
+     */
+    public boolean wurdeEingelesen()
+    {
+        return _kunden != null;
+    }
+
+    /**
+     * Gibt die eingelesenen Kunden zurück.
+     * 
+     * @return Die eingelesenen Kunden.
+     * 
+     * @require wurdeEingelesen()
+     */
+    public List<Kunde> getKunden()
+    {
+        assert wurdeEingelesen() : "Vorbedingung verletzt: wurdeEingelesen()";
+        return _kunden;
+    }
+
+    /**
+     * Gibt die eingelesenen Medien zurück.
+     * 
+     * @return Die eingelesenen Medien.
+     * 
+     * @require wurdeEingelesen()
+     */
+    public List<Medium> getMedien()
+    {
+        assert wurdeEingelesen() : "Vorbedingung verletzt: wurdeEingelesen()";
+        return _medien;
+    }
+
+    /**
+     * Gibt die eingelesenen Verleihkarten zurück.
+     * 
+     * @return Die eingelesenen Verleihkarten.
+     * 
+     * @require wurdeEingelesen()
+     */
+    public List<Verleihkarte> getVerleihkarten()
+    {
+        assert wurdeEingelesen() : "Vorbedingung verletzt: wurdeEingelesen()";
+        return _verleihkarten;
+    }
+
+    /**
+     * Bildet die Schnappschuss-Datei lesend in den Speicher ab.
+     */
+    private ByteBuffer bildeDateiAb() throws DateiLeseException
+    {
+        try (RandomAccessFile datei = new RandomAccessFile(_schnappschussDatei,
+                "r"); FileChannel kanal = datei.getChannel())
+        {
+            long groesse = kanal.size();
+            if (groesse > Integer.MAX_VALUE)
+            {
+                throw new DateiLeseException("Der Schnappschuss "
+                        + _schnappschussDatei + " ist zu groß.");
+            }
+            return kanal.map(FileChannel.MapMode.READ_ONLY, 0, groesse);
+        }
+        catch (DateiLeseException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new DateiLeseException("Der Schnappschuss "
+                    + _schnappschussDatei + " konnte nicht gelesen werden.");
+        }
+    }
+
+    /**
+     * Liest alle Kunden in der Reihenfolge des Schnappschusses.
+     */
+    private static List<Kunde> leseKunden(ByteBuffer puffer)
+            throws DateiLeseException
+    {
+        int anzahl = leseAnzahl(puffer, MIN_KUNDENGROESSE);
+        List<Kunde> kunden = new ArrayList<Kunde>(anzahl);
+        for (int i = 0; i < anzahl; ++i)
+        {
+            int kundennummer = puffer.getInt();
+            if (!Kundennummer.istGueltig(kundennummer))
+            {
+                throw beschaedigt("ungültige Kundennummer " + kundennummer);
+            }
+            String vorname = lesePflichttext(puffer);
+            String nachname = lesePflichttext(puffer);
+            Kunde kunde = new Kunde(new Kundennummer(kundennummer), vorname,
+                    nachname);
+            kunde.setStrasse(leseText(puffer));
+            String plz = leseText(puffer);
+            if (plz != null)
+            {
+                if (!PLZ.istGueltig(plz))
+                {
+                    throw beschaedigt("ungültige Postleitzahl " + plz);
+                }
+                kunde.setPLZ(new PLZ(plz));
+            }
+            kunde.setWohnort(leseText(puffer));
+            kunden.add(kunde);
+        }
+        return kunden;
+    }
+
+    /**
+     * Liest alle Medien in der Reihenfolge des Schnappschusses.
+     */
+    private static List<Medium> leseMedien(ByteBuffer puffer)
+            throws DateiLeseException
+    {
+        int anzahl = leseAnzahl(puffer, MIN_MEDIENGROESSE);
+        List<Medium> medien = new ArrayList<Medium>(anzahl);
+        for (int i = 0; i < anzahl; ++i)
+        {
+            byte typ = puffer.get();
+            String titel = lesePflichttext(puffer);
+            String kommentar = lesePflichttext(puffer);
+            Medium medium;
+            switch (typ)
+            {
+            case SchnappschussFormat.TYP_CD:
+                String interpret = lesePflichttext(puffer);
+                medium = new CD(titel, kommentar, interpret,
+                        leseDauer(puffer));
+                break;
+            case SchnappschussFormat.TYP_DVD:
+                String regisseur = lesePflichttext(puffer);
+                medium = new DVD(titel, kommentar, regisseur,
+                        leseDauer(puffer));
+                break;
+            case SchnappschussFormat.TYP_KONSOLENVIDEOSPIEL:
+                medium = new KonsolenVideospiel(titel, kommentar,
+                        lesePflichttext(puffer));
+                break;
+            case SchnappschussFormat.TYP_PCVIDEOSPIEL:
+                medium = new PCVideospiel(titel, kommentar,
+                        lesePflichttext(puffer));
+                break;
+            default:
+                throw new DateiLeseException("Unbekannter Medientyp " + typ
+                        + " im Schnappschuss.");
+            }
+            medien.add(medium);
+        }
+        return medien;
+    }
+
+    /**
+     * Liest alle Verleihkarten und löst dabei die Indizes auf die bereits
+     * gelesenen Kunden und Medien auf.
+     */
+    private static List<Verleihkarte> leseVerleihkarten(ByteBuffer puffer,
+            List<Kunde> kunden, List<Medium> medien) throws DateiLeseException
+    {
+        int anzahl = leseAnzahl(puffer, VERLEIHKARTENGROESSE);
+        List<Verleihkarte> verleihkarten = new ArrayList<Verleihkarte>(anzahl);
+        for (int i = 0; i < anzahl; ++i)
+        {
+            Medium medium = medien.get(leseIndex(puffer, medien.size()));
+            Kunde kunde = kunden.get(leseIndex(puffer, kunden.size()));
+            int datum = puffer.getInt();
+            int tag = datum % 100;
+            int monat = datum / 100 % 100;
+            int jahr = datum / 10000;
+            if (!Datum.istGueltig(tag, monat, jahr))
+            {
+                throw beschaedigt("ungültiges Ausleihdatum " + datum);
+            }
+            verleihkarten.add(new Verleihkarte(kunde, medium,
+                    new Datum(tag, monat, jahr)));
+        }
+        return verleihkarten;
+    }
+
+    /**
+     * Liest die Anzahl der folgenden Einträge und prüft, ob so viele Einträge
+     * der angegebenen Mindestgröße noch in den Puffer passen.
+     */
+    private static int leseAnzahl(ByteBuffer puffer, int mindestgroesse)
+            throws DateiLeseException
+    {
+        int anzahl = puffer.getInt();
+        if (anzahl < 0 || anzahl > puffer.remaining() / mindestgroesse)
+        {
+            throw beschaedigt("ungültige Anzahl " + anzahl);
+        }
+        return anzahl;
+    }
+
+    /**
+     * Liest einen Index in eine Liste der angegebenen Größe.
+     */
+    private static int leseIndex(ByteBuffer puffer, int groesse)
+            throws DateiLeseException
+    {
+        int index = puffer.getInt();
+        if (index < 0 || index >= groesse)
+        {
+            throw beschaedigt("ungültiger Index " + index);
+        }
+        return index;
+    }
+
+    /**
+     * Liest die Spiellänge einer CD oder die Laufzeit einer DVD.
+     */
+    private static int leseDauer(ByteBuffer puffer) throws DateiLeseException
+    {
+        int dauer = puffer.getInt();
+        if (dauer <= 0)
+        {
+            throw beschaedigt("ungültige Dauer " + dauer);
+        }
+        return dauer;
+    }
+
+    /**
+     * Liest einen Text, der nicht fehlen darf.
+     */
+    private static String lesePflichttext(ByteBuffer puffer)
+            throws DateiLeseException
+    {
+        String text = leseText(puffer);
+        if (text == null)
+        {
+            throw beschaedigt("fehlender Text");
+        }
+        return text;
+    }
+
+    /**
+     * Liest einen Text, der als Länge und UTF-8-Bytes gespeichert ist.
+     */
+    private static String leseText(ByteBuffer puffer)
+            throws DateiLeseException
+    {
+        int laenge = puffer.getInt();
+        if (laenge == SchnappschussFormat.KEIN_TEXT)
+        {
+            return null;
+        }
+        if (laenge < 0 || laenge > puffer.remaining())
+        {
+            throw beschaedigt("ungültige Textlänge " + laenge);
+        }
+        byte[] bytes = new byte[laenge];
+        puffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Erzeugt die Exception für einen beschädigten Schnappschuss.
+     */
+    private static DateiLeseException beschaedigt(String grund)
+    {
+        return new DateiLeseException(
+                "Der Schnappschuss ist beschädigt: " + grund + ".");
+    }
+}
@@ -0,0 +1,179 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.PLZ;
+
+/**
+ * @author SE2-Team
+ */
+public class SchnappschussEinleserTest
+{
+    private File _datei;
+    private List<Kunde> _kunden;
+    private List<Medium> _medien;
+    private List<Verleihkarte> _verleihkarten;
+
+    public SchnappschussEinleserTest() throws IOException
+    {
+        _datei = File.createTempFile("mediathek", ".schnappschuss");
+        Kunde kunde = new Kunde(new Kundennummer(123456), "Jörg", "Müller");
+        kunde.setStrasse("Vogt-Kölln-Straße 30");
+        kunde.setPLZ(new PLZ("22527"));
+        kunde.setWohnort("Hamburg");
+        _kunden = Arrays.asList(kunde,
+                new Kunde(new Kundennummer(654321), "ich", "du"));
+        _medien = Arrays.asList(new CD("CD1", "baz", "foo", 123),
+                new DVD("DVD1", "", "bar", 90),
+                new KonsolenVideospiel("Spiel1", "kommentar", "Switch"),
+                new PCVideospiel("Spiel2", "kommentar", "Linux"));
+        _verleihkarten = new ArrayList<Verleihkarte>();
+        _verleihkarten.add(new Verleihkarte(_kunden.get(1), _medien.get(2),
+                new Datum(29, 2, 2020)));
+    }
+
+    @After
+    public void loescheDatei()
+    {
+        _datei.delete();
+    }
+
+    @Test
+    public void testeSchreibenUndEinlesenErgibtGleicheDaten() throws Exception
+    {
+        new SchnappschussSchreiber(_datei).schreibeDaten(_kunden, _medien,
+                _verleihkarten);
+        SchnappschussEinleser einleser = new SchnappschussEinleser(_datei);
+        einleser.leseDaten();
+
+        assertEquals(2, einleser.getKunden()
+            .size());
+        Kunde kunde = einleser.getKunden()
+            .get(0);
+        assertEquals(new Kundennummer(123456), kunde.getKundennummer());
+        assertEquals("Jörg", kunde.getVorname());
+        assertEquals("Müller", kunde.getNachname());
+        assertEquals("Vogt-Kölln-Straße 30", kunde.getStrasse());
+        assertEquals(new PLZ("22527"), kunde.getPLZ());
+        assertEquals("Hamburg", kunde.getWohnort());
+        assertNull(einleser.getKunden()
+            .get(1)
+            .getPLZ());
+
+        assertEquals(_medien.size(), einleser.getMedien()
+            .size());
+        for (int i = 0; i < _medien.size(); ++i)
+        {
+            assertEquals(_medien.get(i)
+                .getFormatiertenString(),
+                    einleser.getMedien()
+                        .get(i)
+                        .getFormatiertenString());
+        }
+
+        assertEquals(1, einleser.getVerleihkarten()
+            .size());
+        Verleihkarte verleihkarte = einleser.getVerleihkarten()
+            .get(0);
+        assertSame(einleser.getKunden()
+            .get(1), verleihkarte.getEntleiher());
+        assertSame(einleser.getMedien()
+            .get(2), verleihkarte.getMedium());
+        assertEquals(new Datum(29, 2, 2020), verleihkarte.getAusleihdatum());
+    }
+
+    @Test
+    public void testeVerleihkarteMitUnbekanntemMediumWirdUebersprungen()
+            throws Exception
+    {
+        _verleihkarten.add(new Verleihkarte(_kunden.get(0),
+                new CD("CD2", "baz", "foo", 123), new Datum(1, 1, 2020)));
+        new SchnappschussSchreiber(_datei).schreibeDaten(_kunden, _medien,
+                _verleihkarten);
+        SchnappschussEinleser einleser = new SchnappschussEinleser(_datei);
+        einleser.leseDaten();
+
+        assertEquals(1, einleser.getVerleihkarten()
+            .size());
+    }
+
+    @Test
+    public void testeUngueltigeDateiWirdAbgelehnt() throws Exception
+    {
+        Files.write(_datei.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        try
+        {
+            new SchnappschussEinleser(_datei).leseDaten();
+            fail("Die Datei ist kein Schnappschuss");
+        }
+        catch (DateiLeseException e)
+        {
+            // Fehler erwartet
+        }
+    }
+
+    @Test
+    public void testeBeschaedigterSchnappschussWirdAbgelehnt()
+            throws Exception
+    {
+        new SchnappschussSchreiber(_datei).schreibeDaten(_kunden, _medien,
+                _verleihkarten);
+        byte[] inhalt = Files.readAllBytes(_datei.toPath());
+
+        // Jeder abgeschnittene Schnappschuss wird abgelehnt
+        for (int laenge = 0; laenge < inhalt.length; ++laenge)
+        {
+            Files.write(_datei.toPath(), Arrays.copyOf(inhalt, laenge));
+            try
+            {
+                new SchnappschussEinleser(_datei).leseDaten();
+                fail("Der Schnappschuss ist abgeschnitten");
+            }
+            catch (DateiLeseException e)
+            {
+                // Fehler erwartet
+            }
+        }
+
+        // Ein verfälschtes Byte führt höchstens zu einer DateiLeseException
+        for (byte wert : new byte[] {(byte) 0xFF, 0x7F, 0})
+        {
+            for (int position = 0; position < inhalt.length; ++position)
+            {
+                byte[] verfaelscht = inhalt.clone();
+                verfaelscht[position] = wert;
+                Files.write(_datei.toPath(), verfaelscht);
+                try
+                {
+                    new SchnappschussEinleser(_datei).leseDaten();
+                }
+                catch (DateiLeseException e)
+                {
+                    // Fehler erwartet
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+/**
+ * Beschreibt das binäre Schnappschuss-Format, in dem Kunden, Medien und
+ * Verleihkarten für einen schnellen Start abgelegt werden. Alle Zahlen werden
+ * im Big-Endian-Format geschrieben.
+ * 
+ * Aufbau einer Schnappschuss-Datei:
+ * 
+ * <pre>
+ * int     KENNUNG
+ * int     VERSION
+ * int     Anzahl der Kunden
+ *         je Kunde: int Kundennummer, Text Vorname, Text Nachname,
+ *                   Text Strasse, Text PLZ, Text Wohnort
+ * int     Anzahl der Medien
+ *         je Medium: byte Medientyp, Text Titel, Text Kommentar, danach
+ *                    CD: Text Interpret, int Spiellänge
+ *                    DVD: Text Regisseur, int Laufzeit
+ *                    Videospiele: Text System
+ * int     Anzahl der Verleihkarten
+ *         je Verleihkarte: int Index des Mediums, int Index des Kunden,
+ *                          int Ausleihdatum als jjjjmmtt
+ * </pre>
+ * 
+ * Ein Text besteht aus seiner Länge in Bytes als int, gefolgt von den
+ * UTF-8-kodierten Zeichen. Für null wird die Länge -1 geschrieben.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+final class SchnappschussFormat
+{
+    /**
+     * Die Kennung am Anfang jeder Schnappschuss-Datei ("MDTH").
+     */
+    static final int KENNUNG = 0x4D445448;
+
+    /**
+     * Die Version des Formats.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Die Länge, die für einen fehlenden Text geschrieben wird.
+     */
+    static final int KEIN_TEXT = -1;
+
+    /**
+     * Medientyp einer CD.
+     */
+    static final byte TYP_CD = 0;
+
+    /**
+     * Medientyp einer DVD.
+     */
+    static final byte TYP_DVD = 1;
+
+    /**
+     * Medientyp eines KonsolenVideospiels.
+     */
+    static final byte TYP_KONSOLENVIDEOSPIEL = 2;
+
+    /**
+     * Medientyp eines PCVideospiels.
+     */
+    static final byte TYP_PCVIDEOSPIEL = 3;
+
+    private SchnappschussFormat()
+    {
+    }
+}
@@ -0,0 +1,248 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.PCVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Ein SchnappschussSchreiber schreibt Kunden, Medien und Verleihkarten in eine
+ * binäre Schnappschuss-Datei, die vom SchnappschussEinleser deutlich schneller
+ * eingelesen werden kann als die Textdateien. Das Format ist in
+ * SchnappschussFormat beschrieben.
+ * 
+ * Die Datei wird zunächst unter einem temporären Namen geschrieben, mit dem
+ * Datenträger synchronisiert und erst dann umbenannt, so dass nie ein halb
+ * geschriebener Schnappschuss gelesen wird.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class SchnappschussSchreiber
+{
+    /**
+     * Die Datei, in die der Schnappschuss geschrieben wird.
+     */
+    private final File _schnappschussDatei;
+
+    /**
+     * Initialisiert einen neuen SchnappschussSchreiber, der in die angegebene
+     * Datei schreibt.
+     * 
+     * @param schnappschussDatei Die Datei für den Schnappschuss.
+     * 
+     * @require schnappschussDatei != null
+     */
+    public SchnappschussSchreiber(File schnappschussDatei)
+    {
+        assert schnappschussDatei != null : "Vorbedingung verletzt: schnappschussDatei != null";
+        _schnappschussDatei = schnappschussDatei;
+    }
+
+    /**
+     * Schreibt die übergebenen Daten als Schnappschuss. Verleihkarten, deren
+     * Medium oder Entleiher nicht in den übergebenen Listen enthalten ist,
+     * werden nicht geschrieben.
+     * 
+     * @param kunden Die Kunden.
+     * @param medien Die Medien.
+     * @param verleihkarten Die Verleihkarten.
+     * 
+     * @throws DateiSchreibException wenn der Schnappschuss nicht geschrieben
+     *             werden konnte.
+     * 
+     * @require kunden != null
+     * @require medien != null
+     * @require verleihkarten != null
+     */
+    public void schreibeDaten(List<Kunde> kunden, List<Medium> medien,
+            List<Verleihkarte> verleihkarten) throws DateiSchreibException
+    {
+        assert kunden != null : "Vorbedingung verletzt: kunden != null";
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert verleihkarten != null : "Vorbedingung verletzt: verleihkarten != null";
+
+        File temporaereDatei = new File(_schnappschussDatei.getPath() + ".tmp");
+        try
+        {
+            try (FileOutputStream datei = new FileOutputStream(
+                    temporaereDatei))
+            {
+                DataOutputStream ausgabe = new DataOutputStream(
+                        new BufferedOutputStream(datei, 1 << 16));
+                ausgabe.writeInt(SchnappschussFormat.KENNUNG);
+                ausgabe.writeInt(SchnappschussFormat.VERSION);
+                Map<Kunde, Integer> kundenIndizes = schreibeKunden(ausgabe,
+                        kunden);
+                Map<Medium, Integer> medienIndizes = schreibeMedien(ausgabe,
+                        medien);
+                schreibeVerleihkarten(ausgabe, verleihkarten, kundenIndizes,
+                        medienIndizes);
+                ausgabe.flush();
+                // Erst synchronisieren, damit nach einem Stromausfall nicht
+                // die Umbenennung ohne die Daten auf dem Datenträger steht
+                datei.getChannel()
+                    .force(true);
+            }
+            Files.move(temporaereDatei.toPath(), _schnappschussDatei.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            temporaereDatei.delete();
+            throw new DateiSchreibException(
+                    "Der Schnappschuss konnte nicht geschrieben werden.");
+        }
+    }
+
+    /**
+     * Schreibt alle Kunden und liefert für jeden Kunden seinen Index im
+     * Schnappschuss.
+     */
+    private static Map<Kunde, Integer> schreibeKunden(DataOutputStream ausgabe,
+            List<Kunde> kunden) throws IOException
+    {
+        Map<Kunde, Integer> indizes = new HashMap<Kunde, Integer>();
+        ausgabe.writeInt(kunden.size());
+        for (Kunde kunde : kunden)
+        {
+            indizes.put(kunde, indizes.size());
+            ausgabe.writeInt(Integer.parseInt(kunde.getKundennummer()
+                .toString()));
+            schreibeText(ausgabe, kunde.getVorname());
+            schreibeText(ausgabe, kunde.getNachname());
+            schreibeText(ausgabe, kunde.getStrasse());
+            schreibeText(ausgabe,
+                    kunde.getPLZ() == null ? null : kunde.getPLZ()
+                        .toString());
+            schreibeText(ausgabe, kunde.getWohnort());
+        }
+        return indizes;
+    }
+
+    /**
+     * Schreibt alle Medien und liefert für jedes Medium seinen Index im
+     * Schnappschuss.
+     */
+    private static Map<Medium, Integer> schreibeMedien(
+            DataOutputStream ausgabe, List<Medium> medien) throws IOException
+    {
+        Map<Medium, Integer> indizes = new HashMap<Medium, Integer>();
+        ausgabe.writeInt(medien.size());
+        for (Medium medium : medien)
+        {
+            indizes.put(medium, indizes.size());
+            if (medium instanceof CD)
+            {
+                CD cd = (CD) medium;
+                schreibeKopf(ausgabe, SchnappschussFormat.TYP_CD, medium);
+                schreibeText(ausgabe, cd.getInterpret());
+                ausgabe.writeInt(cd.getSpiellaenge());
+            }
+            else if (medium instanceof DVD)
+            {
+                DVD dvd = (DVD) medium;
+                schreibeKopf(ausgabe, SchnappschussFormat.TYP_DVD, medium);
+                schreibeText(ausgabe, dvd.getRegisseur());
+                ausgabe.writeInt(dvd.getLaufzeit());
+            }
+            else if (medium instanceof KonsolenVideospiel)
+            {
+                schreibeKopf(ausgabe,
+                        SchnappschussFormat.TYP_KONSOLENVIDEOSPIEL, medium);
+                schreibeText(ausgabe,
+                        ((KonsolenVideospiel) medium).getSystem());
+            }
+            else if (medium instanceof PCVideospiel)
+            {
+                schreibeKopf(ausgabe, SchnappschussFormat.TYP_PCVIDEOSPIEL,
+                        medium);
+                schreibeText(ausgabe, ((PCVideospiel) medium).getSystem());
+            }
+            else
+            {
+                throw new IOException("Unbekannter Medientyp: "
+                        + medium.getMedienBezeichnung());
+            }
+        }
+        return indizes;
+    }
+
+    /**
+     * Schreibt alle Verleihkarten, deren Medium und Entleiher im Schnappschuss
+     * enthalten sind.
+     */
+    private static void schreibeVerleihkarten(DataOutputStream ausgabe,
+            List<Verleihkarte> verleihkarten, Map<Kunde, Integer> kundenIndizes,
+            Map<Medium, Integer> medienIndizes) throws IOException
+    {
+        int anzahl = 0;
+        int[] eintraege = new int[verleihkarten.size() * 3];
+        for (Verleihkarte verleihkarte : verleihkarten)
+        {
+            Integer medienIndex = medienIndizes.get(verleihkarte.getMedium());
+            Integer kundenIndex = kundenIndizes
+                .get(verleihkarte.getEntleiher());
+            if (medienIndex != null && kundenIndex != null)
+            {
+                Datum datum = verleihkarte.getAusleihdatum();
+                eintraege[anzahl * 3] = medienIndex;
+                eintraege[anzahl * 3 + 1] = kundenIndex;
+                eintraege[anzahl * 3 + 2] = datum.getJahr() * 10000
+                        + datum.getMonat() * 100 + datum.getTag();
+                ++anzahl;
+            }
+        }
+        ausgabe.writeInt(anzahl);
+        for (int i = 0; i < anzahl * 3; ++i)
+        {
+            ausgabe.writeInt(eintraege[i]);
+        }
+    }
+
+    /**
+     * Schreibt Medientyp, Titel und Kommentar eines Mediums.
+     */
+    private static void schreibeKopf(DataOutputStream ausgabe, byte typ,
+            Medium medium) throws IOException
+    {
+        ausgabe.writeByte(typ);
+        schreibeText(ausgabe, medium.getTitel());
+        schreibeText(ausgabe, medium.getKommentar());
+    }
+
+    /**
+     * Schreibt einen Text als Länge und UTF-8-Bytes.
+     */
+    private static void schreibeText(DataOutputStream ausgabe, String text)
+            throws IOException
+    {
+        if (text == null)
+        {
+            ausgabe.writeInt(SchnappschussFormat.KEIN_TEXT);
+        }
+        else
+        {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            ausgabe.writeInt(bytes.length);
+            ausgabe.write(bytes);
+        }
+    }
+}
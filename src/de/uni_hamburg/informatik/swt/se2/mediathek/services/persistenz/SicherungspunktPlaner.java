@@ -0,0 +1,303 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceObserver;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihJournal;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+
+/**
+ * Ein SicherungspunktPlaner schreibt in regelmäßigen Abständen den aktuellen
+ * Zustand von Kundenstamm, Medienbestand und Verleih in neue Bestandsdateien
+ * und kürzt danach das VerleihJournal. Die Zeit für das Einspielen des
+ * Journals beim Start bleibt dadurch begrenzt, egal wie lange die Anwendung
+ * läuft.
+ *
+ * Ein Sicherungspunkt entsteht in zwei Schritten. Zuerst werden im Thread, der
+ * die Services verändert, nur die Listen der Kunden, Medien und Verleihkarten
+ * kopiert und im Journal ein neuer Abschnitt begonnen. Das geht schnell und
+ * ergibt einen Zustand, in dem jeder Vorgang entweder enthalten ist oder im
+ * neuen Abschnitt steht. Danach schreibt ein Hintergrund-Thread die Dateien,
+ * während die Services weiter benutzt werden.
+ *
+ * Die Reihenfolge beim Schreiben ist: Kunden-Datei ersetzen, Medien-Datei
+ * temporär schreiben, ihre Kennung im neuen Abschnitt besiegeln, Medien-Datei
+ * ersetzen, zum neuen Abschnitt wechseln. Bei einem Absturz passt damit immer
+ * eine der beiden Journal-Dateien zur Medien-Datei auf dem Datenträger.
+ *
+ * Ein Sicherungspunkt wird nur geschrieben, wenn sich seit dem letzten einer
+ * der Services geändert hat.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class SicherungspunktPlaner
+{
+    /**
+     * Der Abstand zwischen zwei Sicherungspunkten in Millisekunden, wenn keiner
+     * angegeben wird.
+     */
+    public static final long STANDARD_INTERVALL = 10 * 60 * 1000;
+
+    private final KundenstammService _kundenstamm;
+    private final MedienbestandService _medienbestand;
+    private final VerleihService _verleihService;
+    private final VerleihJournal _journal;
+    private final BestandSchreiber _bestandSchreiber;
+
+    /**
+     * Führt das Erfassen im Thread aus, der die Services verändert.
+     */
+    private final Executor _erfasser;
+
+    /**
+     * Der Hintergrund-Thread, in dem die Sicherungspunkte geschrieben werden.
+     */
+    private final ScheduledExecutorService _ausfuehrer;
+
+    /**
+     * Ist true, wenn sich seit dem letzten Erfassen ein Service geändert hat.
+     */
+    private final AtomicBoolean _geaendert;
+
+    /**
+     * Initialisiert einen neuen SicherungspunktPlaner und meldet ihn als
+     * Beobachter an den Services an. Sicherungspunkte werden erst nach
+     * #starte(long) regelmäßig geschrieben.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param verleihService Der VerleihService.
+     * @param journal Das Journal des VerleihServices.
+     * @param bestandSchreiber Der Schreiber für die Bestandsdateien.
+     * @param erfasser Führt Aufgaben in dem Thread aus, der die Services
+     *            verändert, in der Oberfläche also im Event-Dispatch-Thread.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require verleihService != null
+     * @require journal != null
+     * @require bestandSchreiber != null
+     * @require erfasser != null
+     */
+    public SicherungspunktPlaner(KundenstammService kundenstamm,
+            MedienbestandService medienbestand, VerleihService verleihService,
+            VerleihJournal journal, BestandSchreiber bestandSchreiber,
+            Executor erfasser)
+    {
+        assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm != null";
+        assert medienbestand != null : "Vorbedingung verletzt: medienbestand != null";
+        assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+        assert journal != null : "Vorbedingung verletzt: journal != null";
+        assert bestandSchreiber != null : "Vorbedingung verletzt: bestandSchreiber != null";
+        assert erfasser != null : "Vorbedingung verletzt: erfasser != null";
+
+        _kundenstamm = kundenstamm;
+        _medienbestand = medienbestand;
+        _verleihService = verleihService;
+        _journal = journal;
+        _bestandSchreiber = bestandSchreiber;
+        _erfasser = erfasser;
+        // Eingespielte Journal-Einträge sind noch in keinem Sicherungspunkt
+        _geaendert = new AtomicBoolean(true);
+        _ausfuehrer = Executors
+            .newSingleThreadScheduledExecutor(new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable aufgabe)
+                {
+                    Thread thread = new Thread(aufgabe,
+                            "Sicherungspunkt-Schreiber");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+        ServiceObserver beobachter = new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+                _geaendert.set(true);
+            }
+        };
+        _kundenstamm.registriereBeobachter(beobachter);
+        _medienbestand.registriereBeobachter(beobachter);
+        _verleihService.registriereBeobachter(beobachter);
+    }
+
+    /**
+     * Schreibt von nun an im angegebenen Abstand einen Sicherungspunkt, falls
+     * sich seit dem letzten etwas geändert hat. Fehler beim Schreiben werden
+     * ausgegeben, der nächste Versuch folgt nach dem nächsten Intervall.
+     *
+     * @param intervall Der Abstand in Millisekunden.
+     *
+     * @require intervall > 0
+     */
+    public void starte(long intervall)
+    {
+        assert intervall > 0 : "Vorbedingung verletzt: intervall > 0";
+
+        _ausfuehrer.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (_geaendert.get())
+                {
+                    try
+                    {
+                        erstelleSicherungspunkt();
+                    }
+                    catch (DateiSchreibException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }, intervall, intervall, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schreibt sofort einen Sicherungspunkt und wartet, bis er vollständig
+     * geschrieben ist.
+     *
+     * Darf nicht im Thread des Erfassers aufgerufen werden, da das Erfassen
+     * dort stattfindet.
+     *
+     * @throws DateiSchreibException wenn der Sicherungspunkt nicht geschrieben
+     *             werden konnte. Das Journal bleibt dann unverändert.
+     */
+    public synchronized void erstelleSicherungspunkt()
+            throws DateiSchreibException
+    {
+        Erfassung erfassung = erfasse();
+        try
+        {
+            _bestandSchreiber.schreibeKunden(erfassung._kunden);
+            _journal.besiegleNeuenAbschnitt(
+                    VerleihJournal.berechneBestandskennung(_bestandSchreiber
+                        .bereiteMedienVor(erfassung._medien,
+                                erfassung._verleihkarten)));
+            _bestandSchreiber.uebernimmMedien();
+            _journal.wechsleZumNeuenAbschnitt();
+        }
+        catch (DateiSchreibException e)
+        {
+            verwerfe();
+            throw e;
+        }
+        catch (ProtokollierException e)
+        {
+            verwerfe();
+            throw new DateiSchreibException(e.getMessage());
+        }
+    }
+
+    /**
+     * Beendet das regelmäßige Schreiben. Ein laufender Sicherungspunkt wird
+     * noch fertig geschrieben.
+     */
+    public void beende()
+    {
+        _ausfuehrer.shutdown();
+        try
+        {
+            _ausfuehrer.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                .interrupt();
+        }
+    }
+
+    /**
+     * Kopiert im Thread des Erfassers die Listen der Services und beginnt
+     * einen neuen Abschnitt im Journal.
+     */
+    private Erfassung erfasse() throws DateiSchreibException
+    {
+        FutureTask<Erfassung> aufgabe = new FutureTask<Erfassung>(
+                new Callable<Erfassung>()
+                {
+                    @Override
+                    public Erfassung call() throws ProtokollierException
+                    {
+                        Erfassung erfassung = new Erfassung(
+                                _kundenstamm.getKunden(),
+                                _medienbestand.getMedien(),
+                                _verleihService.getVerleihkarten());
+                        _journal.beginneNeuenAbschnitt(
+                                _medienbestand.erfasseVerzeichnis(),
+                                _verleihService);
+                        _geaendert.set(false);
+                        return erfassung;
+                    }
+                });
+        _erfasser.execute(aufgabe);
+        try
+        {
+            return aufgabe.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                .interrupt();
+            throw new DateiSchreibException(
+                    "Das Erfassen des Bestands wurde unterbrochen.");
+        }
+        catch (ExecutionException e)
+        {
+            throw new DateiSchreibException(
+                    "Der Bestand konnte nicht erfasst werden: "
+                            + e.getCause()
+                                .getMessage());
+        }
+    }
+
+    /**
+     * Räumt nach einem fehlgeschlagenen Sicherungspunkt auf. Da die Änderungen
+     * seitdem nicht gesichert sind, wird beim nächsten Mal erneut geschrieben.
+     */
+    private void verwerfe()
+    {
+        _bestandSchreiber.verwerfeMedien();
+        _journal.verwerfeNeuenAbschnitt();
+        _geaendert.set(true);
+    }
+
+    /**
+     * Die im Thread des Erfassers kopierten Listen.
+     */
+    private static class Erfassung
+    {
+        private final List<Kunde> _kunden;
+        private final List<Medium> _medien;
+        private final List<Verleihkarte> _verleihkarten;
+
+        Erfassung(List<Kunde> kunden, List<Medium> medien,
+                List<Verleihkarte> verleihkarten)
+        {
+            _kunden = kunden;
+            _medien = medien;
+            _verleihkarten = verleihkarten;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihJournal;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihProtokollierer;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class SicherungspunktPlanerTest
+{
+    private static final List<String> KUNDEN_ZEILEN = Arrays.asList(
+            "123456;Susi;Sonnenschein;Sonnenallee 20;22760;Hamburg",
+            "123457;Kai;Konrad;Kannenweg 23;21868;Stade");
+    private static final List<String> MEDIEN_ZEILEN = Arrays.asList(
+            "2.4.2021;123457;CD;Garden State;Soundtrack;Various;56",
+            " ; ;DVD;Heat;Kommentar;Michael Mann;170",
+            " ; ;PCVideospiel;Portal;Puzzle;Linux");
+
+    private File _verzeichnis;
+    private File _medienDatei;
+    private File _kundenDatei;
+    private File _medienBackup;
+    private File _kundenBackup;
+    private File _journalDatei;
+    private Datum _datum;
+
+    public SicherungspunktPlanerTest() throws IOException
+    {
+        _verzeichnis = Files.createTempDirectory("bestand")
+            .toFile();
+        _medienDatei = new File(_verzeichnis, "medienbestand.txt");
+        _kundenDatei = new File(_verzeichnis, "kundenstamm.txt");
+        _medienBackup = new File(_verzeichnis, "medienbestandBackup.txt");
+        _kundenBackup = new File(_verzeichnis, "kundenstammBackup.txt");
+        _journalDatei = new File(_verzeichnis, "verleih.journal");
+        Files.write(_medienDatei.toPath(), MEDIEN_ZEILEN,
+                Charset.defaultCharset());
+        Files.write(_kundenDatei.toPath(), KUNDEN_ZEILEN,
+                Charset.defaultCharset());
+        _datum = new Datum(3, 4, 2021);
+    }
+
+    @After
+    public void loescheVerzeichnis()
+    {
+        for (File datei : _verzeichnis.listFiles())
+        {
+            datei.delete();
+        }
+        _verzeichnis.delete();
+    }
+
+    @Test
+    public void testeSicherungspunktUebernimmtJournalInBestand()
+            throws Exception
+    {
+        Mediathek mediathek = new Mediathek();
+        mediathek.verleiheUndMerkeVor();
+        long journalVorher = _journalDatei.length();
+
+        mediathek._planer.erstelleSicherungspunkt();
+        assertTrue(_journalDatei.length() < journalVorher);
+        assertFalse(new File(_journalDatei.getPath() + ".neu").exists());
+        assertEquals(MEDIEN_ZEILEN, Files.readAllLines(_medienBackup.toPath(),
+                Charset.defaultCharset()));
+        assertEquals(KUNDEN_ZEILEN, Files.readAllLines(_kundenBackup.toPath(),
+                Charset.defaultCharset()));
+        mediathek._journal.schliesse();
+
+        pruefeZustand(new Mediathek());
+    }
+
+    @Test
+    public void testeVorgaengeNachDemSicherungspunktBleibenErhalten()
+            throws Exception
+    {
+        Mediathek mediathek = new Mediathek();
+        mediathek._planer.erstelleSicherungspunkt();
+        mediathek.verleiheUndMerkeVor();
+        mediathek._journal.schliesse();
+
+        pruefeZustand(new Mediathek());
+    }
+
+    @Test
+    public void testeMehrereSicherungspunkte() throws Exception
+    {
+        Mediathek mediathek = new Mediathek();
+        mediathek.verleiheUndMerkeVor();
+        mediathek._planer.erstelleSicherungspunkt();
+        mediathek._planer.erstelleSicherungspunkt();
+        mediathek._journal.schliesse();
+
+        pruefeZustand(new Mediathek());
+    }
+
+    /**
+     * Prüft den Zustand nach Mediathek#verleiheUndMerkeVor.
+     */
+    private void pruefeZustand(Mediathek mediathek)
+    {
+        List<Medium> medien = mediathek._medienbestand.getMedien();
+        VerleihService verleihService = mediathek._verleihService;
+        assertFalse(verleihService.istVerliehen(medien.get(0)));
+        assertEquals("123456", verleihService.getEntleiherFuer(medien.get(1))
+            .getKundennummer()
+            .toString());
+        assertEquals(_datum, verleihService.getVerleihkarteFuer(medien.get(1))
+            .getAusleihdatum());
+        List<Kunde> vormerker = verleihService.getVormerkerFuer(medien.get(1));
+        assertEquals(1, vormerker.size());
+        assertEquals("123457", vormerker.get(0)
+            .getKundennummer()
+            .toString());
+        assertFalse(verleihService.istVerliehen(medien.get(2)));
+    }
+
+    /**
+     * Die Services einer Mediathek, wie sie beim Start aus den Dateien im
+     * Verzeichnis des Tests erzeugt werden.
+     */
+    private class Mediathek
+    {
+        private final KundenstammService _kundenstamm;
+        private final MedienbestandService _medienbestand;
+        private final VerleihService _verleihService;
+        private final VerleihJournal _journal;
+        private final SicherungspunktPlaner _planer;
+
+        Mediathek() throws Exception
+        {
+            DatenEinleser einleser = new DatenEinleser(_medienDatei,
+                    _kundenDatei);
+            einleser.leseDaten();
+            _kundenstamm = new KundenstammServiceImpl(einleser.getKunden());
+            _medienbestand = new MedienbestandServiceImpl(
+                    einleser.getMedien());
+            _journal = new VerleihJournal(_journalDatei, einleser.getMedien(),
+                    VerleihJournal.berechneBestandskennung(_medienDatei));
+            _verleihService = new VerleihServiceImpl(_kundenstamm,
+                    _medienbestand, einleser.getVerleihkarten(),
+                    new VerleihProtokollierer(), _journal);
+            _planer = new SicherungspunktPlaner(_kundenstamm, _medienbestand,
+                    _verleihService, _journal,
+                    new BestandSchreiber(_medienDatei, _kundenDatei,
+                            _medienBackup, _kundenBackup),
+                    new Executor()
+                    {
+                        @Override
+                        public void execute(Runnable aufgabe)
+                        {
+                            aufgabe.run();
+                        }
+                    });
+        }
+
+        /**
+         * Nimmt die verliehene CD zurück, verleiht die DVD an Susi und lässt
+         * Kai die DVD vormerken.
+         */
+        void verleiheUndMerkeVor() throws ProtokollierException
+        {
+            List<Medium> medien = _medienbestand.getMedien();
+            Kunde susi = _kundenstamm.getKunden(new Kundennummer(123456));
+            Kunde kai = _kundenstamm.getKunden(new Kundennummer(123457));
+            _verleihService.nimmZurueck(Arrays.asList(medien.get(0)), _datum);
+            _verleihService.verleiheAn(susi, Arrays.asList(medien.get(1)),
+                    _datum);
+            _verleihService.merkeVor(kai, medien.get(1));
+        }
+    }
+}
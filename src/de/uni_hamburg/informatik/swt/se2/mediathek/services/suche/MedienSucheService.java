@@ -0,0 +1,36 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.suche;
+
+import java.util.List;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * Ein MedienSucheService findet Medien des Medienbestands über die Wörter in
+ * ihren Texten: Titel, Kommentar, Interpret, Regisseur und System.
+ * 
+ * Eine Anfrage wird wie die Texte in Wörter zerlegt, Groß- und Kleinschreibung
+ * spielt keine Rolle. Ein Medium ist ein Treffer, wenn jedes Wort der Anfrage
+ * Anfang eines seiner Wörter ist. "beat abb" findet also "Abbey Road" von
+ * "The Beatles".
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public interface MedienSucheService
+{
+    /**
+     * Sucht die Medien, deren Wörter mit allen Wörtern der Anfrage beginnen.
+     * Enthält die Anfrage kein Wort, gibt es keine Treffer.
+     * 
+     * @param anfrage Die Suchanfrage.
+     * @param maxTreffer Die Anzahl an Treffern, nach der die Suche abbricht.
+     * @return Die gefundenen Medien in keiner festgelegten Reihenfolge.
+     * 
+     * @require anfrage != null
+     * @require maxTreffer > 0
+     * 
+     * @ensure result != null
+     * @ensure result.size() <= maxTreffer
+     */
+    List<Medium> sucheMedien(String anfrage, int maxTreffer);
+}
@@ -0,0 +1,370 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.suche;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.AbstractVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceObserver;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+
+/**
+ * Ein MedienSucheServiceImpl hält einen invertierten Index vom Wort auf die
+ * Medien, in deren Texten es vorkommt. Die Wörter sind sortiert, so dass alle
+ * Wörter mit einem Anfang ein zusammenhängender Bereich des Index sind.
+ * Zusätzlich sind zu jedem Medium seine Wörter abgelegt.
+ * 
+ * Der Index beobachtet den Medienbestand. Eingefügte, entfernte und
+ * geänderte Medien werden einzeln nachgetragen. Meldet der Medienbestand eine
+ * Änderung ohne Einzelheiten, wird der Index als veraltet markiert und erst
+ * bei der nächsten Suche einmal neu aufgebaut, so dass mehrere solche
+ * Änderungen hintereinander nur einen Neuaufbau kosten. Statt am Medienbestand
+ * selbst kann der Index an einem AenderungsBus angemeldet werden. Er wird dann
+ * im Thread des Busses nachgetragen und liest dabei nur die gemeldeten Medien,
+ * nicht den Medienbestand.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class MedienSucheServiceImpl implements MedienSucheService
+{
+    /**
+     * Der beobachtete Medienbestand.
+     */
+    private final MedienbestandService _medienbestand;
+
+    /**
+     * Der invertierte Index vom Wort auf die Medien, die es enthalten.
+     */
+    private final NavigableMap<String, Set<Medium>> _medienProWort;
+
+    /**
+     * Die Wörter jedes indizierten Mediums.
+     */
+    private final Map<Medium, NavigableSet<String>> _woerterProMedium;
+
+    /**
+     * Ist true, wenn der Medienbestand eine Änderung ohne Einzelheiten
+     * gemeldet hat und der Index vor der nächsten Suche neu aufgebaut werden
+     * muss.
+     */
+    private boolean _veraltet;
+
+    /**
+     * Initialisiert einen neuen MedienSucheServiceImpl, indiziert alle Medien
+     * des Bestands und meldet sich als Beobachter am Medienbestand an.
+     * 
+     * @param medienbestand Der zu durchsuchende Medienbestand.
+     * 
+     * @require medienbestand != null
+     */
+    public MedienSucheServiceImpl(MedienbestandService medienbestand)
+    {
+        this(medienbestand, medienbestand);
+    }
+
+    /**
+     * Initialisiert einen neuen MedienSucheServiceImpl, indiziert alle Medien
+     * des Bestands und meldet sich als Beobachter an der angegebenen Quelle
+     * der Änderungen an.
+     * 
+     * @param medienbestand Der zu durchsuchende Medienbestand.
+     * @param aenderungen Meldet die Änderungen am Medienbestand, etwa ein
+     *            AenderungsBus, der den Medienbestand beobachtet.
+     * 
+     * @require medienbestand != null
+     * @require aenderungen != null
+     */
+    public MedienSucheServiceImpl(MedienbestandService medienbestand,
+            ObservableService aenderungen)
+    {
+        assert medienbestand != null : "Vorbedingung verletzt: medienbestand != null";
+        assert aenderungen != null : "Vorbedingung verletzt: aenderungen != null";
+        _medienbestand = medienbestand;
+        _medienProWort = new TreeMap<String, Set<Medium>>();
+        _woerterProMedium = new HashMap<Medium, NavigableSet<String>>();
+        indiziereBestand();
+
+        aenderungen.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+                markiereAlsVeraltet();
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                aktualisiereIndex(aenderungen);
+            }
+        });
+    }
+
+    @Override
+    public synchronized List<Medium> sucheMedien(String anfrage,
+            int maxTreffer)
+    {
+        assert anfrage != null : "Vorbedingung verletzt: anfrage != null";
+        assert maxTreffer > 0 : "Vorbedingung verletzt: maxTreffer > 0";
+
+        if (_veraltet)
+        {
+            indiziereBestand();
+        }
+        List<Medium> result = new ArrayList<Medium>();
+        List<String> anfangswoerter = zerlegeInWoerter(anfrage);
+        if (anfangswoerter.isEmpty())
+        {
+            return result;
+        }
+
+        // Nur die Medien zum Wort der Anfrage, das die wenigsten Medien trifft,
+        // werden mit den übrigen Wörtern geprüft.
+        NavigableMap<String, Set<Medium>> kleinsterBereich = null;
+        int kleinsteAnzahl = Integer.MAX_VALUE;
+        for (String wort : anfangswoerter)
+        {
+            NavigableMap<String, Set<Medium>> bereich = woerterMitAnfang(wort);
+            int anzahl = zaehleEintraege(bereich, kleinsteAnzahl);
+            if (anzahl < kleinsteAnzahl)
+            {
+                kleinsterBereich = bereich;
+                kleinsteAnzahl = anzahl;
+            }
+        }
+        Set<Medium> geprueft = new HashSet<Medium>();
+        for (Set<Medium> kandidaten : kleinsterBereich.values())
+        {
+            for (Medium medium : kandidaten)
+            {
+                if (geprueft.add(medium)
+                        && enthaeltAlleAnfaenge(_woerterProMedium.get(medium),
+                                anfangswoerter))
+                {
+                    result.add(medium);
+                    if (result.size() == maxTreffer)
+                    {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Baut den Index für alle Medien des Bestands neu auf.
+     */
+    private synchronized void indiziereBestand()
+    {
+        _veraltet = false;
+        _medienProWort.clear();
+        _woerterProMedium.clear();
+        for (Medium medium : _medienbestand.getMedien())
+        {
+            indiziere(medium);
+        }
+    }
+
+    /**
+     * Markiert den Index als veraltet, so dass er vor der nächsten Suche neu
+     * aufgebaut wird.
+     */
+    private synchronized void markiereAlsVeraltet()
+    {
+        _veraltet = true;
+    }
+
+    /**
+     * Trägt die gemeldeten Änderungen in den Index ein. Ein betroffenes Medium
+     * wird aus dem Index entfernt und neu indiziert, falls es nicht entfernt
+     * wurde. Änderungen ohne Medium werden übergangen.
+     * 
+     * @param aenderungen Die gemeldeten Änderungen in ihrer Reihenfolge.
+     */
+    private synchronized void aktualisiereIndex(
+            List<ServiceAenderung> aenderungen)
+    {
+        if (_veraltet)
+        {
+            return;
+        }
+        for (ServiceAenderung aenderung : aenderungen)
+        {
+            Medium medium = aenderung.getMedium();
+            if (medium != null)
+            {
+                entferneAusIndex(medium);
+                if (aenderung.getArt() != ServiceAenderung.Art.ENTFERNT)
+                {
+                    indiziere(medium);
+                }
+            }
+        }
+    }
+
+    /**
+     * Nimmt ein Medium mit allen Wörtern seiner Texte in den Index auf.
+     */
+    private void indiziere(Medium medium)
+    {
+        NavigableSet<String> woerter = new TreeSet<String>();
+        for (String text : getTexte(medium))
+        {
+            woerter.addAll(zerlegeInWoerter(text));
+        }
+        _woerterProMedium.put(medium, woerter);
+        for (String wort : woerter)
+        {
+            Set<Medium> medien = _medienProWort.get(wort);
+            if (medien == null)
+            {
+                medien = new LinkedHashSet<Medium>();
+                _medienProWort.put(wort, medien);
+            }
+            medien.add(medium);
+        }
+    }
+
+    /**
+     * Entfernt ein Medium aus dem Index, falls es indiziert ist. Wörter ohne
+     * Medien werden aus dem Index gelöscht.
+     */
+    private void entferneAusIndex(Medium medium)
+    {
+        NavigableSet<String> woerter = _woerterProMedium.remove(medium);
+        if (woerter != null)
+        {
+            for (String wort : woerter)
+            {
+                Set<Medium> medien = _medienProWort.get(wort);
+                medien.remove(medium);
+                if (medien.isEmpty())
+                {
+                    _medienProWort.remove(wort);
+                }
+            }
+        }
+    }
+
+    /**
+     * Liefert den Bereich des Index mit allen Wörtern, die mit dem gegebenen
+     * Anfang beginnen.
+     */
+    private NavigableMap<String, Set<Medium>> woerterMitAnfang(String anfang)
+    {
+        return _medienProWort.subMap(anfang, true,
+                anfang + Character.MAX_VALUE, true);
+    }
+
+    /**
+     * Zählt die Medien in einem Bereich des Index. Ein Medium mit mehreren
+     * Wörtern im Bereich wird mehrfach gezählt. Das Zählen endet, sobald die
+     * Grenze erreicht ist.
+     */
+    private static int zaehleEintraege(
+            NavigableMap<String, Set<Medium>> bereich, int grenze)
+    {
+        int anzahl = 0;
+        for (Set<Medium> medien : bereich.values())
+        {
+            anzahl += medien.size();
+            if (anzahl >= grenze)
+            {
+                break;
+            }
+        }
+        return anzahl;
+    }
+
+    /**
+     * Prüft, ob es zu jedem der gegebenen Anfänge ein Wort gibt, das mit ihm
+     * beginnt.
+     */
+    private static boolean enthaeltAlleAnfaenge(NavigableSet<String> woerter,
+            List<String> anfaenge)
+    {
+        for (String anfang : anfaenge)
+        {
+            String kandidat = woerter.ceiling(anfang);
+            if ((kandidat == null) || !kandidat.startsWith(anfang))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Liefert die durchsuchbaren Texte eines Mediums.
+     */
+    private static List<String> getTexte(Medium medium)
+    {
+        List<String> texte = new ArrayList<String>();
+        texte.add(medium.getTitel());
+        texte.add(medium.getKommentar());
+        if (medium instanceof CD)
+        {
+            texte.add(((CD) medium).getInterpret());
+        }
+        else if (medium instanceof DVD)
+        {
+            texte.add(((DVD) medium).getRegisseur());
+        }
+        else if (medium instanceof AbstractVideospiel)
+        {
+            texte.add(((AbstractVideospiel) medium).getSystem());
+        }
+        return texte;
+    }
+
+    /**
+     * Zerlegt einen Text in Wörter aus Buchstaben und Ziffern. Alle anderen
+     * Zeichen trennen Wörter. Die Wörter werden in Kleinbuchstaben geliefert.
+     * 
+     * @param text Ein Text, kann null sein.
+     * @return Die Wörter in der Reihenfolge ihres Auftretens.
+     */
+    static List<String> zerlegeInWoerter(String text)
+    {
+        List<String> woerter = new ArrayList<String>();
+        if (text == null)
+        {
+            return woerter;
+        }
+        StringBuilder wort = new StringBuilder();
+        for (int i = 0; i < text.length(); ++i)
+        {
+            char zeichen = text.charAt(i);
+            if (Character.isLetterOrDigit(zeichen))
+            {
+                wort.append(Character.toLowerCase(zeichen));
+            }
+            else if (wort.length() > 0)
+            {
+                woerter.add(wort.toString());
+                wort.setLength(0);
+            }
+        }
+        if (wort.length() > 0)
+        {
+            woerter.add(wort.toString());
+        }
+        return woerter;
+    }
+}
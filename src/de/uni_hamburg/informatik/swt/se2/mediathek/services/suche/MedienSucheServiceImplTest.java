@@ -0,0 +1,144 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.suche;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.KonsolenVideospiel;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.AenderungsBus;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+
+/**
+ * @author SE2-Team
+ */
+public class MedienSucheServiceImplTest
+{
+    private static final int MAX_TREFFER = 100;
+
+    private CD _abbeyRoad;
+    private CD _letItBe;
+    private DVD _metropolis;
+    private KonsolenVideospiel _zelda;
+    private MedienbestandService _medienbestand;
+    private MedienSucheService _suche;
+
+    public MedienSucheServiceImplTest()
+    {
+        _abbeyRoad = new CD("Abbey Road", "Remastered", "The Beatles", 47);
+        _letItBe = new CD("Let It Be", "", "The Beatles", 35);
+        _metropolis = new DVD("Metropolis", "Stummfilm von 1927",
+                "Fritz Lang", 153);
+        _zelda = new KonsolenVideospiel("Zelda: Breath of the Wild",
+                "Open World", "Switch");
+        List<Medium> medien = new ArrayList<Medium>();
+        medien.add(_abbeyRoad);
+        medien.add(_letItBe);
+        medien.add(_metropolis);
+        medien.add(_zelda);
+        _medienbestand = new MedienbestandServiceImpl(medien);
+        _suche = new MedienSucheServiceImpl(_medienbestand);
+    }
+
+    @Test
+    public void testeSucheNachAllenTextfeldern()
+    {
+        assertEquals(Arrays.asList(_abbeyRoad), suche("abbey"));
+        assertEquals(Arrays.asList(_abbeyRoad), suche("remastered"));
+        assertEquals(Arrays.asList(_metropolis), suche("LANG"));
+        assertEquals(Arrays.asList(_metropolis), suche("1927"));
+        assertEquals(Arrays.asList(_zelda), suche("switch"));
+        assertEquals(new HashSet<Medium>(Arrays.asList(_abbeyRoad, _letItBe)),
+                new HashSet<Medium>(suche("beatles")));
+    }
+
+    @Test
+    public void testeAnfaengeWerdenUndVerknuepft()
+    {
+        assertEquals(Arrays.asList(_abbeyRoad), suche("beat abb"));
+        assertEquals(Arrays.asList(_letItBe), suche("the, let"));
+        assertEquals(Arrays.asList(_zelda), suche("zel wild"));
+        assertTrue(suche("beat metro").isEmpty());
+        assertTrue(suche("  ;; ").isEmpty());
+        assertEquals(1, _suche.sucheMedien("the", 1)
+            .size());
+    }
+
+    @Test
+    public void testeIndexFolgtDemMedienbestand()
+    {
+        DVD dvd = new DVD("Abbey Road Live", "", "Unbekannt", 90);
+        _medienbestand.fuegeMediumEin(dvd);
+        assertEquals(
+                new HashSet<Medium>(Arrays.<Medium> asList(_abbeyRoad, dvd)),
+                new HashSet<Medium>(suche("abbey road")));
+
+        _medienbestand.entferneMedium(_abbeyRoad);
+        assertEquals(Arrays.asList(dvd), suche("abbey"));
+        assertTrue(suche("remastered").isEmpty());
+
+        _metropolis.setTitel("Nosferatu");
+        _medienbestand.medienWurdenGeaendert();
+        assertTrue(suche("metropolis").isEmpty());
+        assertEquals(Arrays.asList(_metropolis), suche("nosfer"));
+    }
+
+    @Test
+    public void testeGeaenderteMedienWerdenEinzelnNachgetragen()
+    {
+        _zelda.setSystem("Wii U");
+        _letItBe.setKommentar("Naked");
+        _medienbestand
+            .medienWurdenGeaendert(Arrays.<Medium> asList(_zelda, _letItBe));
+
+        assertTrue(suche("switch").isEmpty());
+        assertEquals(Arrays.asList(_zelda), suche("wii"));
+        assertEquals(Arrays.asList(_letItBe), suche("naked"));
+        assertEquals(Arrays.asList(_abbeyRoad), suche("remastered"));
+    }
+
+    @Test
+    public void testeIndexFolgtDemAenderungsBus()
+    {
+        AenderungsBus bus = new AenderungsBus();
+        bus.beobachte(_medienbestand);
+        _suche = new MedienSucheServiceImpl(_medienbestand, bus);
+        DVD dvd = new DVD("Abbey Road Live", "", "Unbekannt", 90);
+        _medienbestand.fuegeMediumEin(dvd);
+        _medienbestand.entferneMedium(_abbeyRoad);
+        _zelda.setSystem("Wii U");
+        _medienbestand.medienWurdenGeaendert(Arrays.<Medium> asList(_zelda));
+        // Liefert alle eingestellten Änderungen aus
+        bus.schliesse();
+
+        assertEquals(Arrays.asList(dvd), suche("abbey"));
+        assertTrue(suche("remastered").isEmpty());
+        assertEquals(Arrays.asList(_zelda), suche("wii"));
+    }
+
+    @Test
+    public void testeZerlegeInWoerter()
+    {
+        assertEquals(Arrays.asList("zelda", "breath", "of", "the", "wild"),
+                MedienSucheServiceImpl
+                    .zerlegeInWoerter("Zelda: Breath of the Wild"));
+        assertEquals(Arrays.asList("über", "r2d2"),
+                MedienSucheServiceImpl.zerlegeInWoerter("Über-R2D2!"));
+        assertTrue(MedienSucheServiceImpl.zerlegeInWoerter(null)
+            .isEmpty());
+    }
+
+    private List<Medium> suche(String anfrage)
+    {
+        return _suche.sucheMedien(anfrage, MAX_TREFFER);
+    }
+}
@@ -0,0 +1,209 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.AbstractObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Ein AbstractVerleihService bietet eine Standardimplementation der
+ * sondierenden Operationen eines VerleihService an. Unterklassen legen fest,
+ * wie die Verleihkarten gespeichert werden, indem sie #sucheVerleihkarte
+ * implementieren.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+abstract class AbstractVerleihService extends AbstractObservableService
+        implements VerleihService
+{
+    /**
+     * Der Medienbestand.
+     */
+    private final MedienbestandService _medienbestand;
+
+    /**
+     * Der Kundenstamm.
+     */
+    private final KundenstammService _kundenstamm;
+
+    /**
+     * Initialisiert einen neuen AbstractVerleihService.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     */
+    public AbstractVerleihService(KundenstammService kundenstamm,
+            MedienbestandService medienbestand)
+    {
+        assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm  != null";
+        assert medienbestand != null : "Vorbedingung verletzt: medienbestand  != null";
+        _kundenstamm = kundenstamm;
+        _medienbestand = medienbestand;
+    }
+
+    @Override
+    public boolean istVerliehen(Medium medium)
+    {
+        assert mediumImBestand(
+                medium) : "Vorbedingung verletzt: mediumExistiert(medium)";
+        return sucheVerleihkarte(medium) != null;
+    }
+
+    @Override
+    public boolean istVerleihenMoeglich(Kunde kunde, List<Medium> medien)
+    {
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+
+        return sindAlleNichtVerliehen(medien);
+    }
+
+    @Override
+    public boolean sindAlleNichtVerliehen(List<Medium> medien)
+    {
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+        boolean result = true;
+        for (Medium medium : medien)
+        {
+            if (istVerliehen(medium))
+            {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean sindAlleVerliehenAn(Kunde kunde, List<Medium> medien)
+    {
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+
+        boolean result = true;
+        for (Medium medium : medien)
+        {
+            if (!istVerliehenAn(kunde, medium))
+            {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean istVerliehenAn(Kunde kunde, Medium medium)
+    {
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        assert mediumImBestand(
+                medium) : "Vorbedingung verletzt: mediumImBestand(medium)";
+
+        Verleihkarte verleihkarte = sucheVerleihkarte(medium);
+        return verleihkarte != null && verleihkarte.getEntleiher()
+            .equals(kunde);
+    }
+
+    @Override
+    public boolean sindAlleVerliehen(List<Medium> medien)
+    {
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+
+        boolean result = true;
+        for (Medium medium : medien)
+        {
+            if (!istVerliehen(medium))
+            {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean kundeImBestand(Kunde kunde)
+    {
+        return _kundenstamm.enthaeltKunden(kunde);
+    }
+
+    @Override
+    public boolean mediumImBestand(Medium medium)
+    {
+        return _medienbestand.enthaeltMedium(medium);
+    }
+
+    @Override
+    public boolean medienImBestand(List<Medium> medien)
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert !medien.isEmpty() : "Vorbedingung verletzt: !medien.isEmpty()";
+
+        boolean result = true;
+        for (Medium medium : medien)
+        {
+            if (!mediumImBestand(medium))
+            {
+                result = false;
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Medium> getAusgelieheneMedienFuer(Kunde kunde)
+    {
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        List<Medium> result = new ArrayList<Medium>();
+        for (Verleihkarte verleihkarte : getVerleihkartenFuer(kunde))
+        {
+            result.add(verleihkarte.getMedium());
+        }
+        return result;
+    }
+
+    @Override
+    public Kunde getEntleiherFuer(Medium medium)
+    {
+        assert istVerliehen(
+                medium) : "Vorbedingung verletzt: istVerliehen(medium)";
+        return getVerleihkarteFuer(medium).getEntleiher();
+    }
+
+    @Override
+    public Verleihkarte getVerleihkarteFuer(Medium medium)
+    {
+        assert istVerliehen(
+                medium) : "Vorbedingung verletzt: istVerliehen(medium)";
+        return sucheVerleihkarte(medium);
+    }
+
+    /**
+     * Liefert den letzten Ausleihtag, an dem ein Medium ausgeliehen worden
+     * sein muss, um am Stichtag überfällig zu sein. Die Ausleihdauer am
+     * Stichtag ist dann größer als LEIHFRIST.
+     * 
+     * @param stichtag Der Tag, für den geprüft wird.
+     * @return Der letzte überfällige Ausleihtag.
+     */
+    protected static Datum letzterUeberfaelligerAusleihtag(Datum stichtag)
+    {
+        return stichtag.minus(LEIHFRIST);
+    }
+}
@@ -0,0 +1,141 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Ein FaelligkeitsIndex ordnet die Verleihkarten eines VerleihServices nach
+ * ihrem Ausleihdatum. Da alle Medien dieselbe Leihfrist haben, ist das auch
+ * die Reihenfolge, in der sie fällig werden.
+ *
+ * Einfügen und Entfernen einer Karte kosten O(log n). Die k ältesten Karten
+ * oder alle bis zu einem Ausleihdatum ausgeliehenen Karten werden in
+ * O(log n + k) geliefert, ohne die übrigen Karten anzusehen. Karten mit
+ * gleichem Ausleihdatum werden in der Reihenfolge ihres Einfügens geliefert.
+ *
+ * Ein FaelligkeitsIndex ist nicht threadsicher.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+final class FaelligkeitsIndex
+{
+    /**
+     * Die Verleihkarten, gruppiert nach ihrem Ausleihdatum.
+     */
+    private final NavigableMap<Datum, Set<Verleihkarte>> _kartenProAusleihdatum;
+
+    /**
+     * Initialisiert einen leeren FaelligkeitsIndex.
+     */
+    FaelligkeitsIndex()
+    {
+        _kartenProAusleihdatum = new TreeMap<Datum, Set<Verleihkarte>>();
+    }
+
+    /**
+     * Fügt eine Verleihkarte ein.
+     *
+     * @param verleihkarte Die Verleihkarte.
+     *
+     * @require verleihkarte != null
+     */
+    void fuegeEin(Verleihkarte verleihkarte)
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+
+        Set<Verleihkarte> karten = _kartenProAusleihdatum
+            .get(verleihkarte.getAusleihdatum());
+        if (karten == null)
+        {
+            karten = new LinkedHashSet<Verleihkarte>();
+            _kartenProAusleihdatum.put(verleihkarte.getAusleihdatum(), karten);
+        }
+        karten.add(verleihkarte);
+    }
+
+    /**
+     * Entfernt eine Verleihkarte. Ist sie nicht enthalten, hat der Aufruf
+     * keine Wirkung.
+     *
+     * @param verleihkarte Die Verleihkarte.
+     *
+     * @require verleihkarte != null
+     */
+    void entferne(Verleihkarte verleihkarte)
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+
+        Set<Verleihkarte> karten = _kartenProAusleihdatum
+            .get(verleihkarte.getAusleihdatum());
+        if (karten != null)
+        {
+            karten.remove(verleihkarte);
+            if (karten.isEmpty())
+            {
+                _kartenProAusleihdatum.remove(verleihkarte.getAusleihdatum());
+            }
+        }
+    }
+
+    /**
+     * Liefert alle Verleihkarten, die spätestens am angegebenen Tag
+     * ausgeliehen wurden, die ältesten zuerst.
+     *
+     * @param letzterAusleihtag Der letzte Ausleihtag, der noch geliefert wird.
+     * @return Die Verleihkarten.
+     *
+     * @require letzterAusleihtag != null
+     *
+     * @ensure result != null
+     */
+    List<Verleihkarte> getAusgeliehenBis(Datum letzterAusleihtag)
+    {
+        assert letzterAusleihtag != null : "Vorbedingung verletzt: letzterAusleihtag != null";
+
+        List<Verleihkarte> ergebnis = new ArrayList<Verleihkarte>();
+        for (Set<Verleihkarte> karten : _kartenProAusleihdatum
+            .headMap(letzterAusleihtag, true)
+            .values())
+        {
+            ergebnis.addAll(karten);
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Liefert die ältesten Verleihkarten, die ältesten zuerst.
+     *
+     * @param anzahl Die höchstens gelieferte Anzahl.
+     * @return Die Verleihkarten.
+     *
+     * @require anzahl >= 0
+     *
+     * @ensure result != null
+     */
+    List<Verleihkarte> getAelteste(int anzahl)
+    {
+        assert anzahl >= 0 : "Vorbedingung verletzt: anzahl >= 0";
+
+        List<Verleihkarte> ergebnis = new ArrayList<Verleihkarte>();
+        for (Set<Verleihkarte> karten : _kartenProAusleihdatum.values())
+        {
+            for (Verleihkarte verleihkarte : karten)
+            {
+                if (ergebnis.size() == anzahl)
+                {
+                    return ergebnis;
+                }
+                ergebnis.add(verleihkarte);
+            }
+        }
+        return ergebnis;
+    }
+}
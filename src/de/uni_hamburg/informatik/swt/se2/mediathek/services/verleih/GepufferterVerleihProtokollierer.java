@@ -0,0 +1,457 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+
+/**
+ * Ein GepufferterVerleihProtokollierer schreibt Verleihvorgänge nicht direkt,
+ * sondern stellt sie in eine beschränkte Warteschlange. Ein Hintergrund-Thread
+ * entnimmt die Einträge stapelweise und hängt sie über einen dauerhaft
+ * geöffneten FileChannel an die Protokolldatei an.
+ *
+ * Ist die Warteschlange voll, blockiert #protokolliere, bis der
+ * Hintergrund-Thread wieder Platz geschaffen hat. Wann die Datei mit dem
+ * Datenträger synchronisiert wird, legt die SyncStrategie fest.
+ *
+ * Ein Schreibfehler im Hintergrund wird beim nächsten Aufruf von
+ * #protokolliere oder #schliesse als ProtokollierException gemeldet. Mit
+ * #schliesse werden alle ausstehenden Einträge geschrieben und die Datei
+ * geschlossen.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class GepufferterVerleihProtokollierer extends VerleihProtokollierer
+{
+    /**
+     * Legt fest, wann geschriebene Einträge mit dem Datenträger synchronisiert
+     * werden.
+     */
+    public enum SyncStrategie
+    {
+        /**
+         * Nach jedem geschriebenen Stapel.
+         */
+        PRO_STAPEL,
+
+        /**
+         * Höchstens einmal pro Synchronisationsintervall.
+         */
+        IM_INTERVALL,
+
+        /**
+         * Nie, die Synchronisation bleibt dem Betriebssystem überlassen.
+         */
+        KEINE;
+    }
+
+    /**
+     * Die Kapazität der Warteschlange, wenn keine angegeben wird.
+     */
+    public static final int STANDARD_KAPAZITAET = 4096;
+
+    /**
+     * Das Synchronisationsintervall in Millisekunden, wenn keines angegeben
+     * wird.
+     */
+    public static final long STANDARD_SYNC_INTERVALL = 1000;
+
+    /**
+     * Die maximale Anzahl von Einträgen, die in einem Stapel geschrieben
+     * werden.
+     */
+    private static final int MAX_STAPELGROESSE = 512;
+
+    /**
+     * Die maximale Zeit in Millisekunden, die der Hintergrund-Thread auf einen
+     * neuen Eintrag wartet, bevor er den Zustand erneut prüft.
+     */
+    private static final long WARTEZEIT = 100;
+
+    /**
+     * Die Warteschlange der noch nicht geschriebenen Einträge.
+     */
+    private final BlockingQueue<String> _warteschlange;
+
+    /**
+     * Der Kanal zur Protokolldatei.
+     */
+    private final FileChannel _kanal;
+
+    /**
+     * Der Zeichensatz, mit dem die Einträge geschrieben werden.
+     */
+    private final Charset _zeichensatz;
+
+    /**
+     * Die Strategie für die Synchronisation mit dem Datenträger.
+     */
+    private final SyncStrategie _syncStrategie;
+
+    /**
+     * Das Synchronisationsintervall in Millisekunden.
+     */
+    private final long _syncIntervall;
+
+    /**
+     * Schützt das Schließen gegen gleichzeitiges Einstellen von Einträgen.
+     * Protokollierende Threads halten die Lesesperre, #schliesse die
+     * Schreibsperre.
+     */
+    private final ReadWriteLock _schliessSperre;
+
+    /**
+     * Der Hintergrund-Thread, der die Einträge schreibt.
+     */
+    private final Thread _schreiber;
+
+    /**
+     * Ist true, sobald #schliesse aufgerufen wurde.
+     */
+    private volatile boolean _geschlossen;
+
+    /**
+     * Der erste Fehler, der beim Schreiben im Hintergrund aufgetreten ist,
+     * oder null.
+     */
+    private volatile IOException _schreibfehler;
+
+    /**
+     * Erzeugt einen neuen GepufferterVerleihProtokollierer, der in die Datei
+     * ./verleihProtokoll.txt schreibt und sie höchstens einmal pro Sekunde
+     * synchronisiert.
+     *
+     * @throws ProtokollierException wenn die Datei nicht geöffnet werden
+     *             konnte.
+     */
+    public GepufferterVerleihProtokollierer() throws ProtokollierException
+    {
+        this(new File(DATEIPFAD), STANDARD_KAPAZITAET,
+                SyncStrategie.IM_INTERVALL, STANDARD_SYNC_INTERVALL);
+    }
+
+    /**
+     * Erzeugt einen neuen GepufferterVerleihProtokollierer und startet seinen
+     * Hintergrund-Thread.
+     *
+     * @param datei Die Protokolldatei, an die angehängt wird.
+     * @param kapazitaet Die maximale Anzahl noch nicht geschriebener Einträge.
+     * @param syncStrategie Die Strategie für die Synchronisation mit dem
+     *            Datenträger.
+     * @param syncIntervall Das Synchronisationsintervall in Millisekunden bei
+     *            SyncStrategie.IM_INTERVALL.
+     *
+     * @throws ProtokollierException wenn die Datei nicht geöffnet werden
+     *             konnte.
+     *
+     * @require datei != null
+     * @require kapazitaet > 0
+     * @require syncStrategie != null
+     * @require syncIntervall > 0
+     */
+    public GepufferterVerleihProtokollierer(File datei, int kapazitaet,
+            SyncStrategie syncStrategie, long syncIntervall)
+            throws ProtokollierException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+        assert kapazitaet > 0 : "Vorbedingung verletzt: kapazitaet > 0";
+        assert syncStrategie != null : "Vorbedingung verletzt: syncStrategie != null";
+        assert syncIntervall > 0 : "Vorbedingung verletzt: syncIntervall > 0";
+
+        try
+        {
+            _kanal = FileChannel.open(datei.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        catch (IOException e)
+        {
+            throw new ProtokollierException(
+                    "Die Datei für das Verleihprotokoll konnte nicht geöffnet werden.");
+        }
+        _warteschlange = new ArrayBlockingQueue<String>(kapazitaet);
+        _zeichensatz = Charset.defaultCharset();
+        _syncStrategie = syncStrategie;
+        _syncIntervall = syncIntervall;
+        _schliessSperre = new ReentrantReadWriteLock();
+        _schreiber = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                schreibeBisGeschlossen();
+            }
+        }, "Verleihprotokoll-Schreiber");
+        _schreiber.setDaemon(true);
+        _schreiber.start();
+    }
+
+    /**
+     * Stellt eine übergebene Verleihkarte zum Protokollieren in die
+     * Warteschlange. Ist die Warteschlange voll, wartet der Aufrufer, bis
+     * wieder Platz ist.
+     *
+     * @param ereignis Der Name des Verleihereignis: mögliche Namen sind durch
+     *            die Konstanten EREIGNIS_AUSLEIHE und EREIGNIS_RUECKGABE
+     *            definiert.
+     * @param verleihkarte eine Verleihkarte, die das Verleihereignis betrifft.
+     *
+     * @require EREIGNIS_AUSLEIHE.equals(ereignis) ||
+     *          EREIGNIS_RUECKGABE.equals(ereignis)
+     * @require verleihkarte != null
+     *
+     * @throws ProtokollierException wenn der Protokollierer geschlossen ist
+     *             oder ein vorheriger Eintrag nicht geschrieben werden konnte.
+     */
+    @Override
+    public void protokolliere(String ereignis, Verleihkarte verleihkarte)
+            throws ProtokollierException
+    {
+        assert EREIGNIS_AUSLEIHE.equals(ereignis) || EREIGNIS_RUECKGABE.equals(
+                ereignis) : "Precondition failed: EREIGNIS_AUSLEIHE.equals(ereignis) || EREIGNIS_RUECKGABE.equals(ereignis)";
+        assert verleihkarte != null : "Precondition failed: verleihkarte != null";
+
+        pruefeSchreibfehler();
+        stelleEin(formatiereEintrag(ereignis, verleihkarte));
+    }
+
+    /**
+     * Stellt einen formatierten Eintrag in die Warteschlange. Ist sie voll,
+     * wartet der Aufrufer, bis wieder Platz ist.
+     */
+    private void stelleEin(String eintrag) throws ProtokollierException
+    {
+        _schliessSperre.readLock()
+            .lock();
+        try
+        {
+            if (_geschlossen)
+            {
+                throw new ProtokollierException(
+                        "Das Verleihprotokoll ist bereits geschlossen.");
+            }
+            _warteschlange.put(eintrag);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                .interrupt();
+            throw new ProtokollierException(
+                    "Das Protokollieren wurde unterbrochen.");
+        }
+        finally
+        {
+            _schliessSperre.readLock()
+                .unlock();
+        }
+    }
+
+    /**
+     * Stellt die Einträge für die übergebenen Verleihkarten als einen
+     * einzigen Eintrag in die Warteschlange, so dass sie zusammenhängend und
+     * mit einem Schreibvorgang in die Datei gelangen.
+     *
+     * @param ereignis Der Name des Verleihereignis: mögliche Namen sind durch
+     *            die Konstanten EREIGNIS_AUSLEIHE und EREIGNIS_RUECKGABE
+     *            definiert.
+     * @param verleihkarten Die Verleihkarten, die das Verleihereignis
+     *            betrifft.
+     *
+     * @require EREIGNIS_AUSLEIHE.equals(ereignis) ||
+     *          EREIGNIS_RUECKGABE.equals(ereignis)
+     * @require verleihkarten != null
+     *
+     * @throws ProtokollierException wenn der Protokollierer geschlossen ist
+     *             oder ein vorheriger Eintrag nicht geschrieben werden konnte.
+     */
+    @Override
+    public void protokolliere(String ereignis, List<Verleihkarte> verleihkarten)
+            throws ProtokollierException
+    {
+        assert EREIGNIS_AUSLEIHE.equals(ereignis) || EREIGNIS_RUECKGABE.equals(
+                ereignis) : "Precondition failed: EREIGNIS_AUSLEIHE.equals(ereignis) || EREIGNIS_RUECKGABE.equals(ereignis)";
+        assert verleihkarten != null : "Precondition failed: verleihkarten != null";
+
+        if (!verleihkarten.isEmpty())
+        {
+            pruefeSchreibfehler();
+            stelleEin(formatiereEintraege(ereignis, verleihkarten));
+        }
+    }
+
+    /**
+     * Schreibt alle ausstehenden Einträge, synchronisiert die Datei mit dem
+     * Datenträger und schließt sie. Weitere Aufrufe haben keine Wirkung.
+     *
+     * @throws ProtokollierException wenn Einträge nicht geschrieben werden
+     *             konnten.
+     */
+    @Override
+    public void schliesse() throws ProtokollierException
+    {
+        _schliessSperre.writeLock()
+            .lock();
+        try
+        {
+            _geschlossen = true;
+        }
+        finally
+        {
+            _schliessSperre.writeLock()
+                .unlock();
+        }
+
+        boolean unterbrochen = false;
+        while (_schreiber.isAlive())
+        {
+            try
+            {
+                _schreiber.join();
+            }
+            catch (InterruptedException e)
+            {
+                unterbrochen = true;
+            }
+        }
+        if (unterbrochen)
+        {
+            Thread.currentThread()
+                .interrupt();
+        }
+        pruefeSchreibfehler();
+    }
+
+    /**
+     * Registriert einen Shutdown-Hook, der diesen Protokollierer beim
+     * Beenden der virtuellen Maschine schließt, damit keine Einträge
+     * verloren gehen.
+     */
+    public void schliesseBeimBeenden()
+    {
+        Runtime.getRuntime()
+            .addShutdownHook(new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        schliesse();
+                    }
+                    catch (ProtokollierException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }, "Verleihprotokoll-Shutdown"));
+    }
+
+    /**
+     * Wirft eine ProtokollierException, wenn beim Schreiben im Hintergrund ein
+     * Fehler aufgetreten ist.
+     */
+    private void pruefeSchreibfehler() throws ProtokollierException
+    {
+        if (_schreibfehler != null)
+        {
+            throw new ProtokollierException(
+                    "Beim Schreiben des Verleihprotokolls ist ein Fehler aufgetreten.");
+        }
+    }
+
+    /**
+     * Die Schleife des Hintergrund-Threads. Entnimmt Einträge stapelweise aus
+     * der Warteschlange und schreibt sie, bis der Protokollierer geschlossen
+     * und die Warteschlange leer ist.
+     */
+    private void schreibeBisGeschlossen()
+    {
+        List<String> stapel = new ArrayList<String>(MAX_STAPELGROESSE);
+        long letzteSynchronisation = System.currentTimeMillis();
+        boolean ungesichert = false;
+        try
+        {
+            while (!_geschlossen || !_warteschlange.isEmpty())
+            {
+                String eintrag = _warteschlange.poll(
+                        Math.min(WARTEZEIT, _syncIntervall),
+                        TimeUnit.MILLISECONDS);
+                if (eintrag != null)
+                {
+                    stapel.add(eintrag);
+                    _warteschlange.drainTo(stapel, MAX_STAPELGROESSE - 1);
+                    schreibe(stapel);
+                    stapel.clear();
+                    ungesichert = true;
+                }
+
+                long jetzt = System.currentTimeMillis();
+                if (ungesichert && (_syncStrategie == SyncStrategie.PRO_STAPEL
+                        || (_syncStrategie == SyncStrategie.IM_INTERVALL
+                                && jetzt - letzteSynchronisation >= _syncIntervall)))
+                {
+                    _kanal.force(false);
+                    letzteSynchronisation = jetzt;
+                    ungesichert = false;
+                }
+            }
+            _kanal.force(false);
+        }
+        catch (IOException e)
+        {
+            _schreibfehler = e;
+            _warteschlange.clear();
+        }
+        catch (InterruptedException e)
+        {
+            _schreibfehler = new IOException(e);
+        }
+        finally
+        {
+            try
+            {
+                _kanal.close();
+            }
+            catch (IOException e)
+            {
+                if (_schreibfehler == null)
+                {
+                    _schreibfehler = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Schreibt einen Stapel von Einträgen mit einem Schreibvorgang in die
+     * Datei.
+     *
+     * @param stapel Die zu schreibenden Einträge.
+     */
+    private void schreibe(List<String> stapel) throws IOException
+    {
+        StringBuilder text = new StringBuilder();
+        for (String eintrag : stapel)
+        {
+            text.append(eintrag);
+        }
+        ByteBuffer puffer = _zeichensatz.encode(text.toString());
+        while (puffer.hasRemaining())
+        {
+            _kanal.write(puffer);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.GepufferterVerleihProtokollierer.SyncStrategie;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class GepufferterVerleihProtokolliererTest
+{
+    private File _datei;
+    private Verleihkarte _verleihkarte;
+
+    public GepufferterVerleihProtokolliererTest() throws IOException
+    {
+        _datei = File.createTempFile("verleihProtokoll", ".txt");
+        _verleihkarte = new Verleihkarte(
+                new Kunde(new Kundennummer(123456), "ich", "du"),
+                new CD("CD1", "baz", "foo", 123), new Datum(3, 4, 2009));
+    }
+
+    @After
+    public void loescheDatei()
+    {
+        _datei.delete();
+    }
+
+    @Test
+    public void testeSchliessenSchreibtAlleEintraege() throws Exception
+    {
+        // Eine kleine Warteschlange erzwingt das Warten der Aufrufer
+        GepufferterVerleihProtokollierer protokollierer = new GepufferterVerleihProtokollierer(
+                _datei, 4, SyncStrategie.PRO_STAPEL, 1000);
+        for (int i = 0; i < 100; ++i)
+        {
+            protokollierer.protokolliere(
+                    VerleihProtokollierer.EREIGNIS_AUSLEIHE, _verleihkarte);
+        }
+        protokollierer.protokolliere(VerleihProtokollierer.EREIGNIS_RUECKGABE,
+                _verleihkarte);
+        protokollierer.schliesse();
+
+        String inhalt = new String(Files.readAllBytes(_datei.toPath()),
+                Charset.defaultCharset());
+        assertEquals(100, zaehle(inhalt,
+                ": " + VerleihProtokollierer.EREIGNIS_AUSLEIHE + "\n"));
+        assertEquals(101, zaehle(inhalt, " verliehen an\n"));
+    }
+
+    @Test
+    public void testeProtokollierenNachSchliessen() throws Exception
+    {
+        GepufferterVerleihProtokollierer protokollierer = new GepufferterVerleihProtokollierer(
+                _datei, 16, SyncStrategie.KEINE, 1000);
+        protokollierer.schliesse();
+        try
+        {
+            protokollierer.protokolliere(
+                    VerleihProtokollierer.EREIGNIS_AUSLEIHE, _verleihkarte);
+            fail("Protokollierer ist geschlossen");
+        }
+        catch (ProtokollierException e)
+        {
+            // Fehler erwartet
+        }
+    }
+
+    /**
+     * Zählt, wie oft ein Teilstring im Text vorkommt.
+     */
+    private static int zaehle(String text, String teil)
+    {
+        int anzahl = 0;
+        int index = text.indexOf(teil);
+        while (index >= 0)
+        {
+            ++anzahl;
+            index = text.indexOf(teil, index + teil.length());
+        }
+        return anzahl;
+    }
+}
@@ -0,0 +1,642 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Vormerkkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung.Art;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Eine threadsichere Implementation des Interfaces VerleihService, die von
+ * mehreren Theken und Selbstverbuchern gleichzeitig benutzt werden kann.
+ *
+ * Jedes Medium ist über seine Identität einer von mehreren Sperren zugeordnet.
+ * Verändernde Operationen sperren alle betroffenen Sperren in aufsteigender
+ * Reihenfolge, prüfen dann alle Medien und führen erst danach die Änderungen
+ * durch. Ein Verleih mehrerer Medien findet dadurch entweder vollständig oder
+ * gar nicht statt. Lesende Operationen wie istVerliehen arbeiten ohne Sperre
+ * direkt auf den nebenläufigen Maps. Auch getVormerkerFuer und
+ * istVormerkenMoeglich sperren nicht: Eine veröffentlichte Vormerkkarte wird
+ * nie mehr verändert, sondern unter der Sperre ihres Mediums durch eine neue
+ * ersetzt.
+ *
+ * Da ein Aufrufer die Vorbedingungen sindAlleNichtVerliehen(medien) bzw.
+ * sindAlleVerliehen(medien) unter Nebenläufigkeit nicht sicherstellen kann,
+ * werden sie hier unter der Sperre geprüft. Ist eine davon verletzt, wird eine
+ * IllegalStateException geworfen, ohne dass sich der Zustand ändert. Ebenso
+ * prüft merkeVor unter der Sperre, ob das Vormerken möglich ist.
+ *
+ * Der verwendete Kundenstamm und Medienbestand werden nur gelesen und dürfen
+ * während des Betriebs nicht nebenläufig verändert werden.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class NebenlaeufigerVerleihServiceImpl extends AbstractVerleihService
+{
+    /**
+     * Die Anzahl der Sperren, wenn beim Erzeugen keine angegeben wird.
+     */
+    public static final int STANDARD_ANZAHL_SPERREN = 64;
+
+    /**
+     * Diese Map speichert für jedes verliehene Medium die dazugehörige
+     * Verleihkarte.
+     */
+    private final Map<Medium, Verleihkarte> _verleihkarten;
+
+    /**
+     * Dieser Index speichert für jeden Kunden die Menge seiner
+     * Verleihkarten. Leer gewordene Mengen bleiben erhalten, damit sie nicht
+     * nebenläufig zu einem Einfügen entfernt werden.
+     */
+    private final Map<Kunde, Set<Verleihkarte>> _verleihkartenProKunde;
+
+    /**
+     * Die Vormerkkarten. Eine eingetragene Vormerkkarte wird nicht mehr
+     * verändert und darf ohne Sperre gelesen werden. Ersetzt oder entfernt
+     * wird sie nur unter der Sperre ihres Mediums. Medien ohne Vormerker haben
+     * keine Vormerkkarte.
+     */
+    private final Map<Medium, Vormerkkarte> _vormerkkarten;
+
+    /**
+     * Dieser Index ordnet die Verleihkarten nach ihrem Ausleihdatum. Zugriffe
+     * werden über das Index-Objekt synchronisiert.
+     */
+    private final FaelligkeitsIndex _faelligkeitsIndex;
+
+    /**
+     * Die Sperren, auf die die Medien verteilt werden.
+     */
+    private final ReentrantLock[] _sperren;
+
+    /**
+     * Der Protokollierer für die Verleihvorgänge. Zugriffe werden über das
+     * Protokollierer-Objekt synchronisiert, damit die Einträge eines Vorgangs
+     * zusammenhängend in der Datei stehen.
+     */
+    private final VerleihProtokollierer _protokollierer;
+
+    /**
+     * Konstruktor. Erzeugt einen neuen NebenlaeufigerVerleihServiceImpl mit
+     * STANDARD_ANZAHL_SPERREN Sperren.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param initialBestand Der initiale Bestand.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require initialBestand != null
+     */
+    public NebenlaeufigerVerleihServiceImpl(KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            List<Verleihkarte> initialBestand)
+    {
+        this(kundenstamm, medienbestand, initialBestand,
+                STANDARD_ANZAHL_SPERREN, new VerleihProtokollierer());
+    }
+
+    /**
+     * Konstruktor. Erzeugt einen neuen NebenlaeufigerVerleihServiceImpl.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param initialBestand Der initiale Bestand.
+     * @param anzahlSperren Die Anzahl der Sperren, auf die die Medien verteilt
+     *            werden.
+     * @param protokollierer Der Protokollierer für die Verleihvorgänge.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require initialBestand != null
+     * @require anzahlSperren > 0
+     * @require protokollierer != null
+     */
+    public NebenlaeufigerVerleihServiceImpl(KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            List<Verleihkarte> initialBestand, int anzahlSperren,
+            VerleihProtokollierer protokollierer)
+    {
+        super(kundenstamm, medienbestand);
+        assert initialBestand != null : "Vorbedingung verletzt: initialBestand  != null";
+        assert anzahlSperren > 0 : "Vorbedingung verletzt: anzahlSperren > 0";
+        assert protokollierer != null : "Vorbedingung verletzt: protokollierer != null";
+
+        _verleihkarten = new ConcurrentHashMap<Medium, Verleihkarte>();
+        _verleihkartenProKunde = new ConcurrentHashMap<Kunde, Set<Verleihkarte>>();
+        _vormerkkarten = new ConcurrentHashMap<Medium, Vormerkkarte>();
+        _faelligkeitsIndex = new FaelligkeitsIndex();
+        _sperren = new ReentrantLock[anzahlSperren];
+        for (int i = 0; i < anzahlSperren; ++i)
+        {
+            _sperren[i] = new ReentrantLock();
+        }
+        _protokollierer = protokollierer;
+        for (Verleihkarte verleihkarte : initialBestand)
+        {
+            fuegeVerleihkarteEin(verleihkarte);
+        }
+    }
+
+    @Override
+    public Verleihkarte sucheVerleihkarte(Medium medium)
+    {
+        return _verleihkarten.get(medium);
+    }
+
+    @Override
+    public List<Verleihkarte> getVerleihkarten()
+    {
+        return new ArrayList<Verleihkarte>(_verleihkarten.values());
+    }
+
+    @Override
+    public List<Verleihkarte> getUeberfaelligeVerleihkarten(Datum stichtag)
+    {
+        assert stichtag != null : "Vorbedingung verletzt: stichtag != null";
+        synchronized (_faelligkeitsIndex)
+        {
+            return _faelligkeitsIndex
+                .getAusgeliehenBis(letzterUeberfaelligerAusleihtag(stichtag));
+        }
+    }
+
+    @Override
+    public List<Verleihkarte> getNaechsteFaelligeVerleihkarten(int anzahl)
+    {
+        assert anzahl >= 0 : "Vorbedingung verletzt: anzahl >= 0";
+        synchronized (_faelligkeitsIndex)
+        {
+            return _faelligkeitsIndex.getAelteste(anzahl);
+        }
+    }
+
+    @Override
+    public List<Verleihkarte> getVerleihkartenFuer(Kunde kunde)
+    {
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        Set<Verleihkarte> karten = _verleihkartenProKunde.get(kunde);
+        if (karten == null)
+        {
+            return new ArrayList<Verleihkarte>();
+        }
+        return new ArrayList<Verleihkarte>(karten);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException wenn eines der Medien bereits verliehen
+     *             ist oder für einen anderen Kunden vorgemerkt ist. In diesem
+     *             Fall wird keines der Medien verliehen.
+     */
+    @Override
+    public void verleiheAn(Kunde kunde, List<Medium> medien, Datum ausleihDatum)
+            throws ProtokollierException
+    {
+        assert kunde != null : "Vorbedingung verletzt: kunde != null";
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+        assert ausleihDatum != null : "Vorbedingung verletzt: ausleihDatum != null";
+
+        List<Verleihkarte> neueKarten = new ArrayList<Verleihkarte>();
+        int[] sperrIndizes = sperre(medien);
+        try
+        {
+            for (Medium medium : medien)
+            {
+                if (_verleihkarten.containsKey(medium))
+                {
+                    throw new IllegalStateException(
+                            "Das Medium ist bereits verliehen!");
+                }
+                Vormerkkarte vormerker = _vormerkkarten.get(medium);
+                if (vormerker != null && vormerker.istVorgemerkt()
+                        && !vormerker.istErsterVormerker(kunde))
+                {
+                    throw new IllegalStateException(
+                            "Nur der erste Vormerker darf ausleihen!");
+                }
+            }
+
+            for (Medium medium : new LinkedHashSet<Medium>(medien))
+            {
+                Verleihkarte verleihkarte = new Verleihkarte(kunde, medium,
+                        ausleihDatum);
+                fuegeVerleihkarteEin(verleihkarte);
+                neueKarten.add(verleihkarte);
+                Vormerkkarte vormerker = _vormerkkarten.get(medium);
+                if (vormerker != null && vormerker.istVorgemerkt())
+                {
+                    List<Kunde> verbleibende = new ArrayList<Kunde>(
+                            vormerker.getVormerker());
+                    verbleibende.remove(kunde);
+                    ersetzeVormerkkarte(medium, verbleibende);
+                }
+            }
+        }
+        finally
+        {
+            entsperre(sperrIndizes);
+        }
+
+        try
+        {
+            protokolliere(VerleihProtokollierer.EREIGNIS_AUSLEIHE, neueKarten);
+        }
+        finally
+        {
+            informiereUeberAenderungen(
+                    erzeugeAenderungen(Art.HINZUGEFUEGT, neueKarten));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException wenn eines der Medien nicht verliehen ist.
+     *             In diesem Fall wird keines der Medien zurückgenommen.
+     */
+    @Override
+    public void nimmZurueck(List<Medium> medien, Datum rueckgabeDatum)
+            throws ProtokollierException
+    {
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+        assert rueckgabeDatum != null : "Vorbedingung verletzt: rueckgabeDatum != null";
+
+        List<Verleihkarte> entfernteKarten = new ArrayList<Verleihkarte>();
+        int[] sperrIndizes = sperre(medien);
+        try
+        {
+            for (Medium medium : medien)
+            {
+                if (!_verleihkarten.containsKey(medium))
+                {
+                    throw new IllegalStateException(
+                            "Das Medium ist nicht verliehen!");
+                }
+            }
+            for (Medium medium : new LinkedHashSet<Medium>(medien))
+            {
+                entfernteKarten.add(entferneVerleihkarte(medium));
+            }
+        }
+        finally
+        {
+            entsperre(sperrIndizes);
+        }
+
+        try
+        {
+            protokolliere(VerleihProtokollierer.EREIGNIS_RUECKGABE,
+                    entfernteKarten);
+        }
+        finally
+        {
+            informiereUeberAenderungen(
+                    erzeugeAenderungen(Art.ENTFERNT, entfernteKarten));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Es werden nur die Sperren der Medien aus dem Medienbestand gehalten,
+     * solange der Stapel angewendet wird.
+     */
+    @Override
+    public List<Rueckgabeergebnis> nimmZurueckImStapel(List<Medium> medien,
+            Datum rueckgabeDatum) throws ProtokollierException
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert rueckgabeDatum != null : "Vorbedingung verletzt: rueckgabeDatum != null";
+
+        List<Rueckgabeergebnis> ergebnisse = new ArrayList<Rueckgabeergebnis>(
+                medien.size());
+        List<Medium> medienImBestand = new ArrayList<Medium>(medien.size());
+        for (Medium medium : medien)
+        {
+            if (mediumImBestand(medium))
+            {
+                medienImBestand.add(medium);
+            }
+        }
+
+        List<Verleihkarte> entfernteKarten = new ArrayList<Verleihkarte>();
+        int[] sperrIndizes = sperre(medienImBestand);
+        try
+        {
+            for (Medium medium : medien)
+            {
+                if (!mediumImBestand(medium))
+                {
+                    ergebnisse.add(Rueckgabeergebnis.abgelehnt(medium,
+                            Rueckgabeergebnis.Status.NICHT_IM_BESTAND));
+                }
+                else if (!_verleihkarten.containsKey(medium))
+                {
+                    ergebnisse.add(Rueckgabeergebnis.abgelehnt(medium,
+                            Rueckgabeergebnis.Status.NICHT_VERLIEHEN));
+                }
+                else
+                {
+                    Verleihkarte verleihkarte = entferneVerleihkarte(medium);
+                    entfernteKarten.add(verleihkarte);
+                    ergebnisse
+                        .add(Rueckgabeergebnis.zurueckgenommen(verleihkarte));
+                }
+            }
+        }
+        finally
+        {
+            entsperre(sperrIndizes);
+        }
+
+        try
+        {
+            protokolliere(VerleihProtokollierer.EREIGNIS_RUECKGABE,
+                    entfernteKarten);
+        }
+        finally
+        {
+            informiereUeberAenderungen(
+                    erzeugeAenderungen(Art.ENTFERNT, entfernteKarten));
+        }
+        return ergebnisse;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException wenn der Kunde das Medium nicht vormerken
+     *             kann, siehe #istVormerkenMoeglich. In diesem Fall ändert
+     *             sich nichts.
+     */
+    @Override
+    public void merkeVor(Kunde kunde, Medium medium)
+    {
+        assert kunde != null : "Vorbedingung verletzt: kunde != null";
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        assert mediumImBestand(
+                medium) : "Vorbedingung verletzt: mediumImBestand(kunde)";
+
+        ReentrantLock sperre = sperreFuer(medium);
+        sperre.lock();
+        try
+        {
+            if (istVerliehenAn(kunde, medium))
+            {
+                throw new IllegalStateException(
+                        "Das Medium kann nicht vorgemerkt werden.");
+            }
+            Vormerkkarte vormerker = _vormerkkarten.get(medium);
+            if (vormerker == null)
+            {
+                _vormerkkarten.put(medium, new Vormerkkarte(medium, kunde));
+            }
+            else if (vormerker.istVormerkenMoeglich(kunde))
+            {
+                List<Kunde> neueVormerker = new ArrayList<Kunde>(
+                        vormerker.getVormerker());
+                neueVormerker.add(kunde);
+                ersetzeVormerkkarte(medium, neueVormerker);
+            }
+            else
+            {
+                throw new IllegalStateException(
+                        "Das Medium kann nicht vorgemerkt werden.");
+            }
+        }
+        finally
+        {
+            sperre.unlock();
+        }
+        informiereUeberAenderung(
+                ServiceAenderung.fuerMedium(Art.GEAENDERT, medium));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Liefert eine Kopie der Vormerkerliste, ohne zu sperren.
+     */
+    @Override
+    public List<Kunde> getVormerkerFuer(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        Vormerkkarte vormerkkarte = _vormerkkarten.get(medium);
+        if (vormerkkarte == null)
+        {
+            return new LinkedList<Kunde>();
+        }
+        return new LinkedList<Kunde>(vormerkkarte.getVormerker());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Prüft ohne zu sperren. Das Ergebnis kann daher bereits veraltet sein;
+     * merkeVor prüft unter der Sperre erneut.
+     */
+    @Override
+    public boolean istVormerkenMoeglich(Kunde kunde, Medium medium)
+    {
+        if (!istVerliehenAn(kunde, medium))
+        {
+            Vormerkkarte karte = _vormerkkarten.get(medium);
+            return karte == null || karte.istVormerkenMoeglich(kunde);
+        }
+        return false;
+    }
+
+    /**
+     * Ersetzt die Vormerkkarte eines Mediums durch eine neue mit den
+     * angegebenen Vormerkern. Ohne Vormerker wird die Vormerkkarte entfernt.
+     * Muss unter der Sperre des Mediums aufgerufen werden.
+     *
+     * @param medium Das vorgemerkte Medium.
+     * @param vormerker Die Vormerker in ihrer Reihenfolge.
+     */
+    private void ersetzeVormerkkarte(Medium medium, List<Kunde> vormerker)
+    {
+        if (vormerker.isEmpty())
+        {
+            _vormerkkarten.remove(medium);
+            return;
+        }
+        Vormerkkarte karte = new Vormerkkarte(medium, vormerker.get(0));
+        for (int i = 1; i < vormerker.size(); ++i)
+        {
+            karte.fuegeKundeHinzu(vormerker.get(i));
+        }
+        _vormerkkarten.put(medium, karte);
+    }
+
+    /**
+     * Trägt eine Verleihkarte in die Verleihkarten-Map, in den Index der
+     * Verleihkarten pro Kunde und in den Fälligkeitsindex ein.
+     *
+     * @param verleihkarte Die einzutragende Verleihkarte.
+     */
+    private void fuegeVerleihkarteEin(Verleihkarte verleihkarte)
+    {
+        Kunde entleiher = verleihkarte.getEntleiher();
+        Set<Verleihkarte> karten = _verleihkartenProKunde.get(entleiher);
+        if (karten == null)
+        {
+            Set<Verleihkarte> neueKarten = ConcurrentHashMap.newKeySet();
+            karten = _verleihkartenProKunde.putIfAbsent(entleiher, neueKarten);
+            if (karten == null)
+            {
+                karten = neueKarten;
+            }
+        }
+        _verleihkarten.put(verleihkarte.getMedium(), verleihkarte);
+        karten.add(verleihkarte);
+        synchronized (_faelligkeitsIndex)
+        {
+            _faelligkeitsIndex.fuegeEin(verleihkarte);
+        }
+    }
+
+    /**
+     * Entfernt die Verleihkarte für ein Medium aus der Verleihkarten-Map, aus
+     * dem Index der Verleihkarten pro Kunde und aus dem Fälligkeitsindex.
+     *
+     * @param medium Ein verliehenes Medium.
+     * @return Die entfernte Verleihkarte.
+     */
+    private Verleihkarte entferneVerleihkarte(Medium medium)
+    {
+        Verleihkarte verleihkarte = _verleihkarten.remove(medium);
+        Set<Verleihkarte> karten = _verleihkartenProKunde
+            .get(verleihkarte.getEntleiher());
+        if (karten != null)
+        {
+            karten.remove(verleihkarte);
+        }
+        synchronized (_faelligkeitsIndex)
+        {
+            _faelligkeitsIndex.entferne(verleihkarte);
+        }
+        return verleihkarte;
+    }
+
+    /**
+     * Schreibt die übergebenen Verleihkarten ins Protokoll.
+     *
+     * @param ereignis Der Name des Verleihereignisses.
+     * @param verleihkarten Die betroffenen Verleihkarten.
+     *
+     * @throws ProtokollierException wenn das Protokollieren nicht geklappt
+     *             hat.
+     */
+    private void protokolliere(String ereignis,
+            List<Verleihkarte> verleihkarten) throws ProtokollierException
+    {
+        synchronized (_protokollierer)
+        {
+            _protokollierer.protokolliere(ereignis, verleihkarten);
+        }
+    }
+
+    /**
+     * Erzeugt für jede der Verleihkarten eine Änderung der angegebenen Art.
+     */
+    private static List<ServiceAenderung> erzeugeAenderungen(Art art,
+            List<Verleihkarte> verleihkarten)
+    {
+        List<ServiceAenderung> aenderungen = new ArrayList<ServiceAenderung>(
+                verleihkarten.size());
+        for (Verleihkarte verleihkarte : verleihkarten)
+        {
+            aenderungen.add(ServiceAenderung.fuerVerleihkarte(art, verleihkarte));
+        }
+        return aenderungen;
+    }
+
+    /**
+     * Liefert die Sperre, der das Medium zugeordnet ist.
+     */
+    private ReentrantLock sperreFuer(Medium medium)
+    {
+        return _sperren[sperrIndex(medium)];
+    }
+
+    /**
+     * Liefert den Index der Sperre, der das Medium zugeordnet ist.
+     */
+    private int sperrIndex(Medium medium)
+    {
+        int hash = System.identityHashCode(medium);
+        return Math.floorMod(hash ^ (hash >>> 16), _sperren.length);
+    }
+
+    /**
+     * Sperrt alle Sperren der übergebenen Medien in aufsteigender Reihenfolge
+     * ihres Index. Durch die feste Reihenfolge können sich zwei Vorgänge nicht
+     * gegenseitig blockieren.
+     *
+     * @param medien Die zu sperrenden Medien.
+     * @return Die gesperrten Indizes für #entsperre.
+     */
+    private int[] sperre(List<Medium> medien)
+    {
+        int[] indizes = new int[medien.size()];
+        for (int i = 0; i < indizes.length; ++i)
+        {
+            indizes[i] = sperrIndex(medien.get(i));
+        }
+        Arrays.sort(indizes);
+        int anzahl = 0;
+        for (int i = 0; i < indizes.length; ++i)
+        {
+            if (anzahl == 0 || indizes[anzahl - 1] != indizes[i])
+            {
+                indizes[anzahl++] = indizes[i];
+            }
+        }
+        indizes = Arrays.copyOf(indizes, anzahl);
+        for (int i = 0; i < indizes.length; ++i)
+        {
+            _sperren[indizes[i]].lock();
+        }
+        return indizes;
+    }
+
+    /**
+     * Gibt die übergebenen Sperren in umgekehrter Reihenfolge wieder frei.
+     *
+     * @param indizes Die von #sperre gelieferten Indizes.
+     */
+    private void entsperre(int[] indizes)
+    {
+        for (int i = indizes.length - 1; i >= 0; --i)
+        {
+            _sperren[indizes[i]].unlock();
+        }
+    }
+}
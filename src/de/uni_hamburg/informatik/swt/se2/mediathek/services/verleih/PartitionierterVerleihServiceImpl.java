@@ -0,0 +1,1209 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Vormerkkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung.Art;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * Eine threadsichere Implementation des Interfaces VerleihService, die die
+ * Medien auf mehrere Partitionen verteilt. Jede Partition besitzt die
+ * Verleihkarten und Vormerkkarten ihrer Medien und wird von genau einem
+ * eigenen Thread verändert. Vorgänge auf verschiedenen Partitionen laufen
+ * dadurch ohne gemeinsame Sperre parallel.
+ *
+ * Betrifft ein Vorgang nur eine Partition, wird er als Aufgabe an deren Thread
+ * übergeben, und der Aufrufer wartet auf das Ergebnis. Betrifft er mehrere
+ * Partitionen, hält der Aufrufer deren Threads in aufsteigender Reihenfolge an
+ * und führt den Vorgang selbst aus, während keiner von ihnen schreibt. Ein
+ * Verleih mehrerer Medien findet dadurch entweder vollständig oder gar nicht
+ * statt, und durch die feste Reihenfolge können sich zwei Vorgänge nicht
+ * gegenseitig blockieren.
+ *
+ * Lesende Operationen wie istVerliehen arbeiten ohne Aufgabe direkt auf den
+ * nebenläufigen Maps der Partitionen. Nur Vormerkkarten und der
+ * Fälligkeitsindex werden im Thread ihrer Partition gelesen.
+ *
+ * Wie beim NebenlaeufigerVerleihServiceImpl werden die Vorbedingungen
+ * sindAlleNichtVerliehen(medien) bzw. sindAlleVerliehen(medien) im Vorgang
+ * geprüft. Ist eine davon verletzt, wird eine IllegalStateException geworfen,
+ * ohne dass sich der Zustand ändert. Ebenso prüft merkeVor im Vorgang, ob das
+ * Vormerken möglich ist.
+ *
+ * Mit einem VerleihJournal hängt ein Vorgang seine Einträge im selben Schritt
+ * an das Journal an, bevor er die Partitionen verändert, und wartet nach dem
+ * Vorgang auf ihre Sicherung. Für Sicherungspunkte liefert #getErfasser einen
+ * Executor, der alle Partitionen anhält.
+ *
+ * Der verwendete Kundenstamm und Medienbestand werden nur gelesen und dürfen
+ * während des Betriebs nicht nebenläufig verändert werden.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class PartitionierterVerleihServiceImpl extends AbstractVerleihService
+{
+    /**
+     * Die Anzahl der Partitionen, wenn beim Erzeugen keine angegeben wird.
+     */
+    public static final int STANDARD_ANZAHL_PARTITIONEN = Runtime.getRuntime()
+        .availableProcessors();
+
+    /**
+     * Ordnet Verleihkarten nach ihrem Ausleihdatum.
+     */
+    private static final Comparator<Verleihkarte> NACH_AUSLEIHDATUM = new Comparator<Verleihkarte>()
+    {
+        @Override
+        public int compare(Verleihkarte karte1, Verleihkarte karte2)
+        {
+            return karte1.getAusleihdatum()
+                .compareTo(karte2.getAusleihdatum());
+        }
+    };
+
+    /**
+     * Die Partitionen, auf die die Medien verteilt werden.
+     */
+    private final Partition[] _partitionen;
+
+    /**
+     * Der Protokollierer für die Verleihvorgänge. Zugriffe werden über das
+     * Protokollierer-Objekt synchronisiert.
+     */
+    private final VerleihProtokollierer _protokollierer;
+
+    /**
+     * Das Journal, in dem Ausleihen, Rückgaben und Vormerkungen gesichert
+     * werden, oder null.
+     */
+    private VerleihJournal _journal;
+
+    /**
+     * Konstruktor. Erzeugt einen neuen PartitionierterVerleihServiceImpl mit
+     * STANDARD_ANZAHL_PARTITIONEN Partitionen.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param initialBestand Der initiale Bestand.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require initialBestand != null
+     */
+    public PartitionierterVerleihServiceImpl(KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            List<Verleihkarte> initialBestand)
+    {
+        this(kundenstamm, medienbestand, initialBestand,
+                STANDARD_ANZAHL_PARTITIONEN, new VerleihProtokollierer());
+    }
+
+    /**
+     * Konstruktor. Erzeugt einen neuen PartitionierterVerleihServiceImpl und
+     * startet die Threads seiner Partitionen.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param initialBestand Der initiale Bestand.
+     * @param anzahlPartitionen Die Anzahl der Partitionen, auf die die Medien
+     *            verteilt werden.
+     * @param protokollierer Der Protokollierer für die Verleihvorgänge.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require initialBestand != null
+     * @require anzahlPartitionen > 0
+     * @require protokollierer != null
+     */
+    public PartitionierterVerleihServiceImpl(KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            List<Verleihkarte> initialBestand, int anzahlPartitionen,
+            VerleihProtokollierer protokollierer)
+    {
+        super(kundenstamm, medienbestand);
+        assert initialBestand != null : "Vorbedingung verletzt: initialBestand  != null";
+        assert anzahlPartitionen > 0 : "Vorbedingung verletzt: anzahlPartitionen > 0";
+        assert protokollierer != null : "Vorbedingung verletzt: protokollierer != null";
+
+        _partitionen = new Partition[anzahlPartitionen];
+        for (int i = 0; i < anzahlPartitionen; ++i)
+        {
+            _partitionen[i] = new Partition(i);
+        }
+        // Die Threads sehen diese Einträge, da sie erst mit der ersten
+        // Aufgabe starten
+        for (Verleihkarte verleihkarte : initialBestand)
+        {
+            partitionFuer(verleihkarte.getMedium()).fuegeEin(verleihkarte);
+        }
+        _protokollierer = protokollierer;
+    }
+
+    /**
+     * Konstruktor. Erzeugt einen neuen PartitionierterVerleihServiceImpl,
+     * wendet die Vorgänge aus dem Journal auf den initialen Bestand an und
+     * sichert alle weiteren Ausleihen, Rückgaben und Vormerkungen im Journal,
+     * bevor die Operation zurückkehrt.
+     *
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param initialBestand Der initiale Bestand.
+     * @param anzahlPartitionen Die Anzahl der Partitionen, auf die die Medien
+     *            verteilt werden.
+     * @param protokollierer Der Protokollierer für die Verleihvorgänge.
+     * @param journal Das Journal, das mit den Medien des Medienbestands
+     *            geöffnet wurde.
+     *
+     * @throws ProtokollierException wenn das Journal nicht gelesen werden
+     *             konnte.
+     *
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require initialBestand != null
+     * @require anzahlPartitionen > 0
+     * @require protokollierer != null
+     * @require journal != null
+     */
+    public PartitionierterVerleihServiceImpl(
+            final KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            List<Verleihkarte> initialBestand, int anzahlPartitionen,
+            VerleihProtokollierer protokollierer, VerleihJournal journal)
+            throws ProtokollierException
+    {
+        this(kundenstamm, medienbestand, initialBestand, anzahlPartitionen,
+                protokollierer);
+        assert journal != null : "Vorbedingung verletzt: journal != null";
+        // Wie der initiale Bestand wird das Journal eingespielt, bevor die
+        // Threads der Partitionen starten
+        journal.spieleEin(new VerleihJournal.Empfaenger()
+        {
+            @Override
+            public void verleihe(Medium medium, Kundennummer kundennummer,
+                    Datum ausleihDatum)
+            {
+                Kunde kunde = kundenstamm.getKunden(kundennummer);
+                if (kunde != null)
+                {
+                    Partition partition = partitionFuer(medium);
+                    partition.entferne(medium);
+                    trageAusleiheEin(partition,
+                            new Verleihkarte(kunde, medium, ausleihDatum));
+                }
+            }
+
+            @Override
+            public void nimmZurueck(Medium medium)
+            {
+                partitionFuer(medium).entferne(medium);
+            }
+
+            @Override
+            public void merkeVor(Medium medium, Kundennummer kundennummer)
+            {
+                Kunde kunde = kundenstamm.getKunden(kundennummer);
+                Partition partition = partitionFuer(medium);
+                if (kunde != null
+                        && istVormerkenMoeglich(partition, kunde, medium))
+                {
+                    trageVormerkungEin(partition, kunde, medium);
+                }
+            }
+        });
+        _journal = journal;
+    }
+
+    /**
+     * Gibt einen Executor zurück, der jede Aufgabe sofort im Thread des
+     * Aufrufers ausführt, während die Threads aller Partitionen angehalten
+     * sind. Die Aufgabe sieht dadurch einen Zustand, in dem jeder Vorgang
+     * entweder vollständig oder gar nicht enthalten ist, und darf die
+     * Operationen dieses Services aufrufen. Er dient einem
+     * SicherungspunktPlaner als Erfasser.
+     *
+     * @ensure result != null
+     */
+    public Executor getErfasser()
+    {
+        return new Executor()
+        {
+            @Override
+            public void execute(final Runnable aufgabe)
+            {
+                fuehreAus(Arrays.asList(_partitionen), new Callable<Void>()
+                {
+                    @Override
+                    public Void call()
+                    {
+                        aufgabe.run();
+                        return null;
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Beendet die Threads der Partitionen, nachdem alle übergebenen Aufgaben
+     * ausgeführt sind. Danach dürfen keine verändernden Operationen mehr
+     * aufgerufen werden.
+     */
+    public void beende()
+    {
+        for (Partition partition : _partitionen)
+        {
+            partition._ausfuehrer.shutdown();
+        }
+    }
+
+    @Override
+    public Verleihkarte sucheVerleihkarte(Medium medium)
+    {
+        return partitionFuer(medium)._verleihkarten.get(medium);
+    }
+
+    @Override
+    public List<Verleihkarte> getVerleihkarten()
+    {
+        List<Verleihkarte> ergebnis = new ArrayList<Verleihkarte>();
+        for (Partition partition : _partitionen)
+        {
+            ergebnis.addAll(partition._verleihkarten.values());
+        }
+        return ergebnis;
+    }
+
+    @Override
+    public List<Verleihkarte> getVerleihkartenFuer(Kunde kunde)
+    {
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        List<Verleihkarte> ergebnis = new ArrayList<Verleihkarte>();
+        for (Partition partition : _partitionen)
+        {
+            Set<Verleihkarte> karten = partition._verleihkartenProKunde
+                .get(kunde);
+            if (karten != null)
+            {
+                ergebnis.addAll(karten);
+            }
+        }
+        return ergebnis;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException wenn eines der Medien bereits verliehen
+     *             ist oder für einen anderen Kunden vorgemerkt ist. In diesem
+     *             Fall wird keines der Medien verliehen.
+     */
+    @Override
+    public void verleiheAn(final Kunde kunde, final List<Medium> medien,
+            final Datum ausleihDatum) throws ProtokollierException
+    {
+        assert kunde != null : "Vorbedingung verletzt: kunde != null";
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+        assert ausleihDatum != null : "Vorbedingung verletzt: ausleihDatum != null";
+
+        List<Verleihkarte> neueKarten = fuehreMitJournalAus(
+                partitionenFuer(medien), new Callable<List<Verleihkarte>>()
+                {
+                    @Override
+                    public List<Verleihkarte> call()
+                    {
+                        for (Medium medium : medien)
+                        {
+                            Partition partition = partitionFuer(medium);
+                            if (partition._verleihkarten.containsKey(medium))
+                            {
+                                throw new IllegalStateException(
+                                        "Das Medium ist bereits verliehen!");
+                            }
+                            Vormerkkarte vormerker = partition._vormerkkarten
+                                .get(medium);
+                            if (vormerker != null && vormerker.istVorgemerkt()
+                                    && !vormerker.istErsterVormerker(kunde))
+                            {
+                                throw new IllegalStateException(
+                                        "Nur der erste Vormerker darf ausleihen!");
+                            }
+                        }
+
+                        List<Verleihkarte> karten = new ArrayList<Verleihkarte>();
+                        for (Medium medium : new LinkedHashSet<Medium>(medien))
+                        {
+                            karten.add(new Verleihkarte(kunde, medium,
+                                    ausleihDatum));
+                        }
+                        schreibeAusleihen(karten);
+                        for (Verleihkarte verleihkarte : karten)
+                        {
+                            trageAusleiheEin(
+                                    partitionFuer(verleihkarte.getMedium()),
+                                    verleihkarte);
+                        }
+                        return karten;
+                    }
+                });
+
+        try
+        {
+            protokolliere(VerleihProtokollierer.EREIGNIS_AUSLEIHE, neueKarten);
+            sichereJournal();
+        }
+        finally
+        {
+            informiereUeberAenderungen(
+                    erzeugeAenderungen(Art.HINZUGEFUEGT, neueKarten));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException wenn eines der Medien nicht verliehen ist.
+     *             In diesem Fall wird keines der Medien zurückgenommen.
+     */
+    @Override
+    public void nimmZurueck(final List<Medium> medien,
+            final Datum rueckgabeDatum) throws ProtokollierException
+    {
+        assert medienImBestand(
+                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+        assert rueckgabeDatum != null : "Vorbedingung verletzt: rueckgabeDatum != null";
+
+        List<Verleihkarte> entfernteKarten = fuehreMitJournalAus(
+                partitionenFuer(medien), new Callable<List<Verleihkarte>>()
+                {
+                    @Override
+                    public List<Verleihkarte> call()
+                    {
+                        for (Medium medium : medien)
+                        {
+                            if (!partitionFuer(medium)._verleihkarten
+                                .containsKey(medium))
+                            {
+                                throw new IllegalStateException(
+                                        "Das Medium ist nicht verliehen!");
+                            }
+                        }
+                        List<Verleihkarte> karten = new ArrayList<Verleihkarte>();
+                        for (Medium medium : new LinkedHashSet<Medium>(medien))
+                        {
+                            karten.add(partitionFuer(medium)._verleihkarten
+                                .get(medium));
+                        }
+                        schreibeRueckgaben(karten, rueckgabeDatum);
+                        for (Verleihkarte verleihkarte : karten)
+                        {
+                            partitionFuer(verleihkarte.getMedium())
+                                .entferne(verleihkarte.getMedium());
+                        }
+                        return karten;
+                    }
+                });
+
+        try
+        {
+            protokolliere(VerleihProtokollierer.EREIGNIS_RUECKGABE,
+                    entfernteKarten);
+            sichereJournal();
+        }
+        finally
+        {
+            informiereUeberAenderungen(
+                    erzeugeAenderungen(Art.ENTFERNT, entfernteKarten));
+        }
+    }
+
+    @Override
+    public List<Rueckgabeergebnis> nimmZurueckImStapel(List<Medium> medien,
+            final Datum rueckgabeDatum) throws ProtokollierException
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert rueckgabeDatum != null : "Vorbedingung verletzt: rueckgabeDatum != null";
+
+        final List<Medium> medienImBestand = new ArrayList<Medium>(
+                medien.size());
+        for (Medium medium : medien)
+        {
+            if (mediumImBestand(medium))
+            {
+                medienImBestand.add(medium);
+            }
+        }
+
+        final Map<Medium, Verleihkarte> entfernt = fuehreMitJournalAus(
+                partitionenFuer(medienImBestand),
+                new Callable<Map<Medium, Verleihkarte>>()
+                {
+                    @Override
+                    public Map<Medium, Verleihkarte> call()
+                    {
+                        Map<Medium, Verleihkarte> karten = new LinkedHashMap<Medium, Verleihkarte>();
+                        for (Medium medium : medienImBestand)
+                        {
+                            Verleihkarte verleihkarte = partitionFuer(medium)._verleihkarten
+                                .get(medium);
+                            if (verleihkarte != null)
+                            {
+                                karten.put(medium, verleihkarte);
+                            }
+                        }
+                        schreibeRueckgaben(
+                                new ArrayList<Verleihkarte>(karten.values()),
+                                rueckgabeDatum);
+                        for (Medium medium : karten.keySet())
+                        {
+                            partitionFuer(medium).entferne(medium);
+                        }
+                        return karten;
+                    }
+                });
+
+        List<Rueckgabeergebnis> ergebnisse = new ArrayList<Rueckgabeergebnis>(
+                medien.size());
+        List<Verleihkarte> entfernteKarten = new ArrayList<Verleihkarte>(
+                entfernt.size());
+        for (Medium medium : medien)
+        {
+            if (!mediumImBestand(medium))
+            {
+                ergebnisse.add(Rueckgabeergebnis.abgelehnt(medium,
+                        Rueckgabeergebnis.Status.NICHT_IM_BESTAND));
+                continue;
+            }
+            Verleihkarte verleihkarte = entfernt.remove(medium);
+            if (verleihkarte == null)
+            {
+                ergebnisse.add(Rueckgabeergebnis.abgelehnt(medium,
+                        Rueckgabeergebnis.Status.NICHT_VERLIEHEN));
+            }
+            else
+            {
+                entfernteKarten.add(verleihkarte);
+                ergebnisse.add(Rueckgabeergebnis.zurueckgenommen(verleihkarte));
+            }
+        }
+
+        try
+        {
+            protokolliere(VerleihProtokollierer.EREIGNIS_RUECKGABE,
+                    entfernteKarten);
+            sichereJournal();
+        }
+        finally
+        {
+            informiereUeberAenderungen(
+                    erzeugeAenderungen(Art.ENTFERNT, entfernteKarten));
+        }
+        return ergebnisse;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException wenn der Kunde das Medium nicht vormerken
+     *             kann, siehe #istVormerkenMoeglich. In diesem Fall ändert
+     *             sich nichts. Ebenso, wenn das Journal nicht geschrieben
+     *             werden konnte. Dann ist die ProtokollierException die
+     *             Ursache.
+     */
+    @Override
+    public void merkeVor(final Kunde kunde, final Medium medium)
+    {
+        assert kunde != null : "Vorbedingung verletzt: kunde != null";
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert kundeImBestand(
+                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
+        assert mediumImBestand(
+                medium) : "Vorbedingung verletzt: mediumImBestand(kunde)";
+
+        final Partition partition = partitionFuer(medium);
+        try
+        {
+            fuehreMitJournalAus(Collections.singletonList(partition),
+                    new Callable<Void>()
+                    {
+                        @Override
+                        public Void call()
+                        {
+                            if (!istVormerkenMoeglich(partition, kunde, medium))
+                            {
+                                throw new IllegalStateException(
+                                        "Das Medium kann nicht vorgemerkt werden.");
+                            }
+                            schreibeVormerkung(kunde, medium);
+                            trageVormerkungEin(partition, kunde, medium);
+                            return null;
+                        }
+                    });
+            sichereJournal();
+        }
+        catch (ProtokollierException e)
+        {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        informiereUeberAenderung(
+                ServiceAenderung.fuerMedium(Art.GEAENDERT, medium));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Liefert eine Kopie der Vormerkerliste.
+     */
+    @Override
+    public List<Kunde> getVormerkerFuer(final Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        final Partition partition = partitionFuer(medium);
+        return fuehreAus(Collections.singletonList(partition),
+                new Callable<List<Kunde>>()
+                {
+                    @Override
+                    public List<Kunde> call()
+                    {
+                        Vormerkkarte vormerkkarte = partition._vormerkkarten
+                            .get(medium);
+                        if (vormerkkarte == null)
+                        {
+                            return new LinkedList<Kunde>();
+                        }
+                        return new LinkedList<Kunde>(
+                                vormerkkarte.getVormerker());
+                    }
+                });
+    }
+
+    @Override
+    public boolean istVormerkenMoeglich(final Kunde kunde, final Medium medium)
+    {
+        final Partition partition = partitionFuer(medium);
+        return fuehreAus(Collections.singletonList(partition),
+                new Callable<Boolean>()
+                {
+                    @Override
+                    public Boolean call()
+                    {
+                        return istVormerkenMoeglich(partition, kunde, medium);
+                    }
+                });
+    }
+
+    @Override
+    public List<Verleihkarte> getUeberfaelligeVerleihkarten(Datum stichtag)
+    {
+        assert stichtag != null : "Vorbedingung verletzt: stichtag != null";
+        final Datum letzterAusleihtag = letzterUeberfaelligerAusleihtag(
+                stichtag);
+        List<Verleihkarte> ergebnis = new ArrayList<Verleihkarte>();
+        for (List<Verleihkarte> karten : fuehreInJederPartitionAus(
+                new Aufgabe<List<Verleihkarte>>()
+                {
+                    @Override
+                    public List<Verleihkarte> fuehreAus(Partition partition)
+                    {
+                        return partition._faelligkeitsIndex
+                            .getAusgeliehenBis(letzterAusleihtag);
+                    }
+                }))
+        {
+            ergebnis.addAll(karten);
+        }
+        Collections.sort(ergebnis, NACH_AUSLEIHDATUM);
+        return ergebnis;
+    }
+
+    @Override
+    public List<Verleihkarte> getNaechsteFaelligeVerleihkarten(
+            final int anzahl)
+    {
+        assert anzahl >= 0 : "Vorbedingung verletzt: anzahl >= 0";
+        List<Verleihkarte> ergebnis = new ArrayList<Verleihkarte>();
+        for (List<Verleihkarte> karten : fuehreInJederPartitionAus(
+                new Aufgabe<List<Verleihkarte>>()
+                {
+                    @Override
+                    public List<Verleihkarte> fuehreAus(Partition partition)
+                    {
+                        return partition._faelligkeitsIndex.getAelteste(anzahl);
+                    }
+                }))
+        {
+            ergebnis.addAll(karten);
+        }
+        Collections.sort(ergebnis, NACH_AUSLEIHDATUM);
+        return ergebnis.subList(0, Math.min(anzahl, ergebnis.size()));
+    }
+
+    /**
+     * Liefert die Partition, der das Medium zugeordnet ist.
+     */
+    private Partition partitionFuer(Medium medium)
+    {
+        int hash = System.identityHashCode(medium);
+        return _partitionen[Math.floorMod(hash ^ (hash >>> 16),
+                _partitionen.length)];
+    }
+
+    /**
+     * Liefert die Partitionen der übergebenen Medien in aufsteigender
+     * Reihenfolge ihres Index und ohne Wiederholungen.
+     */
+    private List<Partition> partitionenFuer(List<Medium> medien)
+    {
+        Map<Integer, Partition> partitionen = new TreeMap<Integer, Partition>();
+        for (Medium medium : medien)
+        {
+            Partition partition = partitionFuer(medium);
+            partitionen.put(partition._index, partition);
+        }
+        return new ArrayList<Partition>(partitionen.values());
+    }
+
+    /**
+     * Prüft in der Partition des Mediums, ob der Kunde es vormerken kann.
+     */
+    private boolean istVormerkenMoeglich(Partition partition, Kunde kunde,
+            Medium medium)
+    {
+        if (istVerliehenAn(kunde, medium))
+        {
+            return false;
+        }
+        Vormerkkarte vormerker = partition._vormerkkarten.get(medium);
+        return vormerker == null || vormerker.istVormerkenMoeglich(kunde);
+    }
+
+    /**
+     * Merkt das Medium in seiner Partition für den Kunden vor.
+     *
+     * @require istVormerkenMoeglich(partition, kunde, medium)
+     */
+    private static void trageVormerkungEin(Partition partition, Kunde kunde,
+            Medium medium)
+    {
+        Vormerkkarte vormerker = partition._vormerkkarten.get(medium);
+        if (vormerker == null)
+        {
+            partition._vormerkkarten.put(medium,
+                    new Vormerkkarte(medium, kunde));
+        }
+        else
+        {
+            vormerker.fuegeKundeHinzu(kunde);
+        }
+    }
+
+    /**
+     * Trägt eine Verleihkarte in die Partition ihres Mediums ein und streicht
+     * den Entleiher aus den Vormerkern des Mediums.
+     */
+    private static void trageAusleiheEin(Partition partition,
+            Verleihkarte verleihkarte)
+    {
+        partition.fuegeEin(verleihkarte);
+        Vormerkkarte vormerker = partition._vormerkkarten
+            .get(verleihkarte.getMedium());
+        if (vormerker != null && vormerker.getVormerker()
+            .contains(verleihkarte.getEntleiher()))
+        {
+            vormerker.entferneKunde(verleihkarte.getEntleiher());
+        }
+    }
+
+    /**
+     * Führt eine Aufgabe auf den Daten der angegebenen Partitionen aus und
+     * wartet auf ihr Ergebnis. Bei einer Partition läuft die Aufgabe in deren
+     * Thread. Bei mehreren werden deren Threads in der gegebenen Reihenfolge
+     * angehalten, und die Aufgabe läuft im Thread des Aufrufers. Hat der
+     * Aufrufer die Partitionen bereits angehalten, läuft die Aufgabe sofort
+     * in seinem Thread.
+     *
+     * @param partitionen Die betroffenen Partitionen in aufsteigender
+     *            Reihenfolge ihres Index.
+     * @param aufgabe Die Aufgabe. Sie darf nur Laufzeitfehler werfen.
+     * @return Das Ergebnis der Aufgabe.
+     */
+    private static <T> T fuehreAus(List<Partition> partitionen,
+            Callable<T> aufgabe)
+    {
+        if (sindAngehalten(partitionen))
+        {
+            return rufeAuf(aufgabe);
+        }
+        if (partitionen.size() == 1)
+        {
+            return warteAuf(partitionen.get(0)._ausfuehrer.submit(aufgabe));
+        }
+
+        List<Halt> halte = new ArrayList<Halt>(partitionen.size());
+        try
+        {
+            for (Partition partition : partitionen)
+            {
+                Halt halt = new Halt();
+                halte.add(halt);
+                partition._ausfuehrer.execute(halt);
+                halt.warteAufStillstand();
+                partition._anhaltender = Thread.currentThread();
+            }
+            return rufeAuf(aufgabe);
+        }
+        finally
+        {
+            for (int i = 0; i < halte.size(); ++i)
+            {
+                partitionen.get(i)._anhaltender = null;
+                halte.get(i)
+                    .setzeFort();
+            }
+        }
+    }
+
+    /**
+     * Führt eine Aufgabe wie #fuehreAus aus und wirft eine ProtokollierException
+     * des Journals aus der Aufgabe im Thread des Aufrufers erneut.
+     */
+    private static <T> T fuehreMitJournalAus(List<Partition> partitionen,
+            Callable<T> aufgabe) throws ProtokollierException
+    {
+        try
+        {
+            return fuehreAus(partitionen, aufgabe);
+        }
+        catch (JournalFehler e)
+        {
+            throw e.getUrsache();
+        }
+    }
+
+    /**
+     * Prüft, ob der aktuelle Thread alle angegebenen Partitionen angehalten
+     * hat.
+     */
+    private static boolean sindAngehalten(List<Partition> partitionen)
+    {
+        for (Partition partition : partitionen)
+        {
+            if (partition._anhaltender != Thread.currentThread())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ruft eine Aufgabe im Thread des Aufrufers auf.
+     */
+    private static <T> T rufeAuf(Callable<T> aufgabe)
+    {
+        try
+        {
+            return aufgabe.call();
+        }
+        catch (RuntimeException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Führt eine Aufgabe in jeder Partition parallel aus und liefert die
+     * Ergebnisse in der Reihenfolge der Partitionen. Hat der Aufrufer alle
+     * Partitionen angehalten, läuft die Aufgabe nacheinander in seinem Thread.
+     */
+    private <T> List<T> fuehreInJederPartitionAus(final Aufgabe<T> aufgabe)
+    {
+        if (sindAngehalten(Arrays.asList(_partitionen)))
+        {
+            List<T> liste = new ArrayList<T>(_partitionen.length);
+            for (Partition partition : _partitionen)
+            {
+                liste.add(aufgabe.fuehreAus(partition));
+            }
+            return liste;
+        }
+        List<Future<T>> ergebnisse = new ArrayList<Future<T>>(
+                _partitionen.length);
+        for (final Partition partition : _partitionen)
+        {
+            ergebnisse.add(partition._ausfuehrer.submit(new Callable<T>()
+            {
+                @Override
+                public T call()
+                {
+                    return aufgabe.fuehreAus(partition);
+                }
+            }));
+        }
+        List<T> liste = new ArrayList<T>(_partitionen.length);
+        for (Future<T> ergebnis : ergebnisse)
+        {
+            liste.add(warteAuf(ergebnis));
+        }
+        return liste;
+    }
+
+    /**
+     * Wartet auf das Ergebnis einer Aufgabe und wirft deren Laufzeitfehler
+     * im Thread des Aufrufers erneut.
+     */
+    private static <T> T warteAuf(Future<T> zukunft)
+    {
+        boolean unterbrochen = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return zukunft.get();
+                }
+                catch (InterruptedException e)
+                {
+                    unterbrochen = true;
+                }
+            }
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        finally
+        {
+            if (unterbrochen)
+            {
+                Thread.currentThread()
+                    .interrupt();
+            }
+        }
+    }
+
+    /**
+     * Schreibt die übergebenen Verleihkarten ins Protokoll.
+     */
+    private void protokolliere(String ereignis,
+            List<Verleihkarte> verleihkarten) throws ProtokollierException
+    {
+        synchronized (_protokollierer)
+        {
+            _protokollierer.protokolliere(ereignis, verleihkarten);
+        }
+    }
+
+    /**
+     * Hängt die Ausleihen an das Journal an, falls eines verwendet wird.
+     * Wird in der Aufgabe eines Vorgangs aufgerufen.
+     */
+    private void schreibeAusleihen(List<Verleihkarte> verleihkarten)
+    {
+        if (_journal != null)
+        {
+            try
+            {
+                for (Verleihkarte verleihkarte : verleihkarten)
+                {
+                    _journal.schreibeAusleihe(verleihkarte);
+                }
+            }
+            catch (ProtokollierException e)
+            {
+                throw new JournalFehler(e);
+            }
+        }
+    }
+
+    /**
+     * Hängt die Rückgaben an das Journal an, falls eines verwendet wird.
+     * Wird in der Aufgabe eines Vorgangs aufgerufen.
+     */
+    private void schreibeRueckgaben(List<Verleihkarte> verleihkarten,
+            Datum rueckgabeDatum)
+    {
+        if (_journal != null)
+        {
+            try
+            {
+                for (Verleihkarte verleihkarte : verleihkarten)
+                {
+                    _journal.schreibeRueckgabe(verleihkarte, rueckgabeDatum);
+                }
+            }
+            catch (ProtokollierException e)
+            {
+                throw new JournalFehler(e);
+            }
+        }
+    }
+
+    /**
+     * Hängt eine Vormerkung an das Journal an, falls eines verwendet wird.
+     * Wird in der Aufgabe eines Vorgangs aufgerufen.
+     */
+    private void schreibeVormerkung(Kunde kunde, Medium medium)
+    {
+        if (_journal != null)
+        {
+            try
+            {
+                _journal.schreibeVormerkung(kunde, medium, Datum.heute());
+            }
+            catch (ProtokollierException e)
+            {
+                throw new JournalFehler(e);
+            }
+        }
+    }
+
+    /**
+     * Wartet, bis die Einträge der laufenden Operation im Journal gesichert
+     * sind. Ohne Journal kehrt die Methode sofort zurück.
+     */
+    private void sichereJournal() throws ProtokollierException
+    {
+        if (_journal != null)
+        {
+            _journal.warteAufSicherung();
+        }
+    }
+
+    /**
+     * Erzeugt für jede der Verleihkarten eine Änderung der angegebenen Art.
+     */
+    private static List<ServiceAenderung> erzeugeAenderungen(Art art,
+            List<Verleihkarte> verleihkarten)
+    {
+        List<ServiceAenderung> aenderungen = new ArrayList<ServiceAenderung>(
+                verleihkarten.size());
+        for (Verleihkarte verleihkarte : verleihkarten)
+        {
+            aenderungen.add(ServiceAenderung.fuerVerleihkarte(art, verleihkarte));
+        }
+        return aenderungen;
+    }
+
+    /**
+     * Eine Aufgabe, die auf den Daten einer Partition ausgeführt wird.
+     */
+    private interface Aufgabe<T>
+    {
+        T fuehreAus(Partition partition);
+    }
+
+    /**
+     * Trägt eine ProtokollierException des Journals aus einer Aufgabe zum
+     * Aufrufer des Vorgangs.
+     */
+    private static final class JournalFehler extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        JournalFehler(ProtokollierException ursache)
+        {
+            super(ursache);
+        }
+
+        ProtokollierException getUrsache()
+        {
+            return (ProtokollierException) getCause();
+        }
+    }
+
+    /**
+     * Hält den Thread einer Partition an, bis der Aufrufer ihn wieder
+     * fortsetzt. Solange schreibt nur der Aufrufer in die Partition.
+     */
+    private static final class Halt implements Runnable
+    {
+        private final CountDownLatch _stillstand = new CountDownLatch(1);
+        private final CountDownLatch _fortsetzung = new CountDownLatch(1);
+
+        @Override
+        public void run()
+        {
+            _stillstand.countDown();
+            warte(_fortsetzung);
+        }
+
+        /**
+         * Wartet, bis der Thread der Partition angehalten ist.
+         */
+        void warteAufStillstand()
+        {
+            warte(_stillstand);
+        }
+
+        /**
+         * Lässt den Thread der Partition weiterlaufen.
+         */
+        void setzeFort()
+        {
+            _fortsetzung.countDown();
+        }
+
+        /**
+         * Wartet ohne Unterbrechung auf das Signal und stellt den
+         * Unterbrechungsstatus danach wieder her.
+         */
+        private static void warte(CountDownLatch signal)
+        {
+            boolean unterbrochen = false;
+            while (true)
+            {
+                try
+                {
+                    signal.await();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    unterbrochen = true;
+                }
+            }
+            if (unterbrochen)
+            {
+                Thread.currentThread()
+                    .interrupt();
+            }
+        }
+    }
+
+    /**
+     * Eine Partition mit den Karten ihrer Medien. Verändert wird sie nur im
+     * Thread ihres Ausführers oder von einem Aufrufer, der diesen Thread
+     * angehalten hat.
+     */
+    private static final class Partition
+    {
+        private final int _index;
+
+        private final ExecutorService _ausfuehrer;
+
+        /**
+         * Der Thread, der diese Partition gerade angehalten hat, oder null.
+         */
+        private volatile Thread _anhaltender;
+
+        /**
+         * Die Verleihkarten der Medien dieser Partition. Wird ohne Sperre
+         * gelesen.
+         */
+        private final Map<Medium, Verleihkarte> _verleihkarten;
+
+        /**
+         * Die Verleihkarten dieser Partition pro Kunde. Wird ohne Sperre
+         * gelesen. Leer gewordene Mengen bleiben erhalten.
+         */
+        private final Map<Kunde, Set<Verleihkarte>> _verleihkartenProKunde;
+
+        private final Map<Medium, Vormerkkarte> _vormerkkarten;
+
+        private final FaelligkeitsIndex _faelligkeitsIndex;
+
+        Partition(final int index)
+        {
+            _index = index;
+            _ausfuehrer = Executors
+                .newSingleThreadExecutor(new ThreadFactory()
+                {
+                    @Override
+                    public Thread newThread(Runnable aufgabe)
+                    {
+                        Thread thread = new Thread(aufgabe,
+                                "Verleih-Partition-" + index);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            _verleihkarten = new ConcurrentHashMap<Medium, Verleihkarte>();
+            _verleihkartenProKunde = new ConcurrentHashMap<Kunde, Set<Verleihkarte>>();
+            _vormerkkarten = new HashMap<Medium, Vormerkkarte>();
+            _faelligkeitsIndex = new FaelligkeitsIndex();
+        }
+
+        /**
+         * Trägt eine Verleihkarte in alle Maps dieser Partition ein.
+         */
+        void fuegeEin(Verleihkarte verleihkarte)
+        {
+            Set<Verleihkarte> karten = _verleihkartenProKunde
+                .get(verleihkarte.getEntleiher());
+            if (karten == null)
+            {
+                karten = ConcurrentHashMap.newKeySet();
+                _verleihkartenProKunde.put(verleihkarte.getEntleiher(), karten);
+            }
+            _verleihkarten.put(verleihkarte.getMedium(), verleihkarte);
+            karten.add(verleihkarte);
+            _faelligkeitsIndex.fuegeEin(verleihkarte);
+        }
+
+        /**
+         * Entfernt die Verleihkarte eines Mediums aus allen Maps dieser
+         * Partition.
+         *
+         * @return Die entfernte Verleihkarte oder null, wenn das Medium nicht
+         *         verliehen war.
+         */
+        Verleihkarte entferne(Medium medium)
+        {
+            Verleihkarte verleihkarte = _verleihkarten.remove(medium);
+            if (verleihkarte != null)
+            {
+                Set<Verleihkarte> karten = _verleihkartenProKunde
+                    .get(verleihkarte.getEntleiher());
+                if (karten != null)
+                {
+                    karten.remove(verleihkarte);
+                }
+                _faelligkeitsIndex.entferne(verleihkarte);
+            }
+            return verleihkarte;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class PartitionierterVerleihServiceImplTest
+{
+    private static final int ANZAHL_THREADS = 8;
+    private static final int ANZAHL_VERSUCHE = 300;
+
+    private Datum _datum;
+    private List<Kunde> _kunden;
+    private List<Medium> _medienListe;
+    private KundenstammService _kundenstamm;
+    private MedienbestandService _medienbestand;
+    private VerleihService _service;
+    private File _journalDatei;
+
+    public PartitionierterVerleihServiceImplTest() throws IOException
+    {
+        _datum = new Datum(3, 4, 2009);
+        _kunden = new ArrayList<Kunde>();
+        for (int i = 0; i < ANZAHL_THREADS; ++i)
+        {
+            _kunden.add(new Kunde(new Kundennummer(100000 + i), "Kunde",
+                    String.valueOf(i)));
+        }
+        _kundenstamm = new KundenstammServiceImpl(_kunden);
+        _medienListe = new ArrayList<Medium>();
+        for (int i = 0; i < 12; ++i)
+        {
+            _medienListe.add(new CD("CD" + i, "baz", "foo", 123));
+        }
+        _medienbestand = new MedienbestandServiceImpl(_medienListe);
+        _service = new PartitionierterVerleihServiceImpl(_kundenstamm,
+                _medienbestand, new ArrayList<Verleihkarte>(), 4,
+                new VerleihProtokollierer());
+        _journalDatei = File.createTempFile("verleih", ".journal");
+    }
+
+    @After
+    public void loescheJournal()
+    {
+        _journalDatei.delete();
+        new File(_journalDatei.getPath() + ".neu").delete();
+    }
+
+    @Test
+    public void testeVerleihUndRueckgabeVonMedien() throws Exception
+    {
+        Kunde kunde = _kunden.get(0);
+        List<Medium> verlieheneMedien = _medienListe.subList(0, 2);
+        _service.verleiheAn(kunde, verlieheneMedien, _datum);
+
+        assertTrue(_service.sindAlleVerliehenAn(kunde, verlieheneMedien));
+        assertTrue(_service.sindAlleNichtVerliehen(_medienListe.subList(2, 4)));
+        assertEquals(2, _service.getVerleihkarten()
+            .size());
+        assertEquals(2, _service.getVerleihkartenFuer(kunde)
+            .size());
+
+        _service.nimmZurueck(verlieheneMedien, _datum);
+        assertTrue(_service.sindAlleNichtVerliehen(_medienListe));
+        assertTrue(_service.getVerleihkartenFuer(kunde)
+            .isEmpty());
+    }
+
+    @Test
+    public void testeFaelligkeitsIndexFolgtVerleihUndRueckgabe()
+            throws Exception
+    {
+        _service.verleiheAn(_kunden.get(0), _medienListe.subList(0, 2),
+                new Datum(10, 4, 2021));
+        _service.verleiheAn(_kunden.get(1), _medienListe.subList(2, 3),
+                new Datum(1, 4, 2021));
+        assertEquals(_medienListe.get(2),
+                _service.getNaechsteFaelligeVerleihkarten(1)
+                    .get(0)
+                    .getMedium());
+        assertEquals(1,
+                _service.getUeberfaelligeVerleihkarten(new Datum(20, 4, 2021))
+                    .size());
+
+        _service.nimmZurueck(_medienListe.subList(2, 3), _datum);
+        assertEquals(2, _service.getNaechsteFaelligeVerleihkarten(5)
+            .size());
+        assertTrue(_service.getUeberfaelligeVerleihkarten(new Datum(20, 4, 2021))
+            .isEmpty());
+    }
+
+    @Test
+    public void testeVerleihIstAllesOderNichts() throws Exception
+    {
+        Kunde kunde = _kunden.get(0);
+        _service.verleiheAn(kunde, _medienListe.subList(1, 2), _datum);
+        try
+        {
+            _service.verleiheAn(_kunden.get(1), _medienListe.subList(0, 3),
+                    _datum);
+            fail("Medium ist bereits verliehen");
+        }
+        catch (IllegalStateException e)
+        {
+            // Fehler erwartet
+        }
+        assertFalse(_service.istVerliehen(_medienListe.get(0)));
+        assertFalse(_service.istVerliehen(_medienListe.get(2)));
+        assertTrue(_service.istVerliehenAn(kunde, _medienListe.get(1)));
+    }
+
+    @Test
+    public void testeStapelrueckgabeUeberMehrerePartitionen() throws Exception
+    {
+        _service.verleiheAn(_kunden.get(0), _medienListe.subList(0, 8), _datum);
+        List<Medium> medien = new ArrayList<Medium>(_medienListe.subList(4, 10));
+        medien.add(_medienListe.get(4));
+
+        List<Rueckgabeergebnis> ergebnisse = _service
+            .nimmZurueckImStapel(medien, _datum);
+
+        assertEquals(7, ergebnisse.size());
+        for (int i = 0; i < 4; ++i)
+        {
+            assertTrue(ergebnisse.get(i)
+                .istZurueckgenommen());
+        }
+        for (int i = 4; i < 7; ++i)
+        {
+            assertEquals(Rueckgabeergebnis.Status.NICHT_VERLIEHEN,
+                    ergebnisse.get(i)
+                        .getStatus());
+        }
+        assertTrue(_service.sindAlleVerliehen(_medienListe.subList(0, 4)));
+        assertEquals(4, _service.getVerleihkartenFuer(_kunden.get(0))
+            .size());
+    }
+
+    @Test
+    public void testeNurErsterVormerkerDarfAusleihen() throws Exception
+    {
+        Medium medium = _medienListe.get(0);
+        _service.merkeVor(_kunden.get(1), medium);
+        _service.merkeVor(_kunden.get(2), medium);
+        try
+        {
+            _service.verleiheAn(_kunden.get(2),
+                    Collections.singletonList(medium), _datum);
+            fail("Nur der erste Vormerker darf ausleihen");
+        }
+        catch (IllegalStateException e)
+        {
+            // Fehler erwartet
+        }
+        _service.verleiheAn(_kunden.get(1), Collections.singletonList(medium),
+                _datum);
+        assertEquals(Arrays.asList(_kunden.get(2)),
+                _service.getVormerkerFuer(medium));
+    }
+
+    @Test
+    public void testeVorgaengeWerdenBeimNeustartEingespielt() throws Exception
+    {
+        VerleihJournal journal = new VerleihJournal(_journalDatei,
+                _medienListe, 42);
+        VerleihService service = erzeugeServiceMitJournal(journal);
+        service.verleiheAn(_kunden.get(0), _medienListe.subList(0, 6), _datum);
+        service.nimmZurueck(_medienListe.subList(1, 2), _datum);
+        service.nimmZurueckImStapel(_medienListe.subList(2, 4), _datum);
+        service.merkeVor(_kunden.get(1), _medienListe.get(0));
+        journal.schliesse();
+
+        VerleihService neuerService = erzeugeServiceMitJournal(
+                new VerleihJournal(_journalDatei, _medienListe, 42));
+        assertTrue(neuerService.istVerliehenAn(_kunden.get(0),
+                _medienListe.get(0)));
+        assertTrue(neuerService.sindAlleNichtVerliehen(
+                _medienListe.subList(1, 4)));
+        assertTrue(neuerService.sindAlleVerliehenAn(_kunden.get(0),
+                _medienListe.subList(4, 6)));
+        assertEquals(Arrays.asList(_kunden.get(1)),
+                neuerService.getVormerkerFuer(_medienListe.get(0)));
+    }
+
+    /**
+     * Der Erfasser hält alle Partitionen an, und die Aufgabe darf dabei den
+     * Service benutzen, wie es ein SicherungspunktPlaner beim Beginn eines
+     * neuen Journal-Abschnitts tut.
+     */
+    @Test
+    public void testeErfasserDarfServiceBenutzen() throws Exception
+    {
+        final VerleihJournal journal = new VerleihJournal(_journalDatei,
+                _medienListe, 42);
+        final PartitionierterVerleihServiceImpl service = erzeugeServiceMitJournal(
+                journal);
+        service.verleiheAn(_kunden.get(0), _medienListe.subList(0, 6), _datum);
+        service.merkeVor(_kunden.get(1), _medienListe.get(0));
+
+        FutureTask<List<Verleihkarte>> aufgabe = new FutureTask<List<Verleihkarte>>(
+                new Callable<List<Verleihkarte>>()
+                {
+                    @Override
+                    public List<Verleihkarte> call() throws Exception
+                    {
+                        journal.beginneNeuenAbschnitt(_medienListe, service);
+                        assertEquals(Arrays.asList(_kunden.get(1)),
+                                service.getVormerkerFuer(_medienListe.get(0)));
+                        return service.getNaechsteFaelligeVerleihkarten(10);
+                    }
+                });
+        service.getErfasser()
+            .execute(aufgabe);
+
+        assertEquals(6, aufgabe.get()
+            .size());
+        assertTrue(journal.hatNeuenAbschnitt());
+        journal.verwerfeNeuenAbschnitt();
+        journal.schliesse();
+    }
+
+    @Test
+    public void testeUnmoeglichesVormerkenWirdAbgelehnt() throws Exception
+    {
+        Medium medium = _medienListe.get(0);
+        _service.verleiheAn(_kunden.get(0), Collections.singletonList(medium),
+                _datum);
+        _service.merkeVor(_kunden.get(1), medium);
+        for (Kunde kunde : Arrays.asList(_kunden.get(0), _kunden.get(1)))
+        {
+            try
+            {
+                _service.merkeVor(kunde, medium);
+                fail("Vormerken ist nicht möglich");
+            }
+            catch (IllegalStateException e)
+            {
+                // Fehler erwartet
+            }
+        }
+        assertEquals(Arrays.asList(_kunden.get(1)),
+                _service.getVormerkerFuer(medium));
+    }
+
+    /**
+     * Mehrere Threads versuchen gleichzeitig, zufällige Medien auszuleihen und
+     * wieder zurückzugeben. Ein Medium darf dabei nie an zwei Kunden
+     * gleichzeitig verliehen sein, und ein fehlgeschlagener Verleih darf
+     * keines seiner Medien verleihen.
+     */
+    @Test
+    public void testeKeineDoppeltenVerleiheUnterLast() throws Exception
+    {
+        final AtomicIntegerArray entleiherProMedium = new AtomicIntegerArray(
+                _medienListe.size());
+        final AtomicInteger fehler = new AtomicInteger();
+        final AtomicInteger erfolgreicheVerleihe = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int t = 0; t < ANZAHL_THREADS; ++t)
+        {
+            final Kunde kunde = _kunden.get(t);
+            final Random random = new Random(t);
+            Thread thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        for (int i = 0; i < ANZAHL_VERSUCHE; ++i)
+                        {
+                            List<Integer> indizes = waehleMedien(random);
+                            List<Medium> medien = new ArrayList<Medium>();
+                            for (int index : indizes)
+                            {
+                                medien.add(_medienListe.get(index));
+                            }
+                            try
+                            {
+                                _service.verleiheAn(kunde, medien, _datum);
+                            }
+                            catch (IllegalStateException e)
+                            {
+                                for (Medium medium : medien)
+                                {
+                                    if (_service.istVerliehenAn(kunde, medium))
+                                    {
+                                        fehler.incrementAndGet();
+                                    }
+                                }
+                                continue;
+                            }
+                            erfolgreicheVerleihe.incrementAndGet();
+                            for (int index : indizes)
+                            {
+                                if (!entleiherProMedium.compareAndSet(index, 0,
+                                        kunde.getKundennummer()
+                                            .hashCode()))
+                                {
+                                    fehler.incrementAndGet();
+                                }
+                            }
+                            if (!_service.sindAlleVerliehenAn(kunde, medien))
+                            {
+                                fehler.incrementAndGet();
+                            }
+                            for (int index : indizes)
+                            {
+                                entleiherProMedium.set(index, 0);
+                            }
+                            _service.nimmZurueck(medien, _datum);
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        fehler.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertEquals(0, fehler.get());
+        assertTrue(erfolgreicheVerleihe.get() > 0);
+        assertTrue(_service.getVerleihkarten()
+            .isEmpty());
+        assertTrue(_service.sindAlleNichtVerliehen(_medienListe));
+    }
+
+    /**
+     * Wählt ein bis drei verschiedene Medienindizes aus.
+     */
+    private List<Integer> waehleMedien(Random random)
+    {
+        List<Integer> indizes = new ArrayList<Integer>();
+        int anzahl = 1 + random.nextInt(3);
+        while (indizes.size() < anzahl)
+        {
+            int index = random.nextInt(_medienListe.size());
+            if (!indizes.contains(index))
+            {
+                indizes.add(index);
+            }
+        }
+        return indizes;
+    }
+
+    private PartitionierterVerleihServiceImpl erzeugeServiceMitJournal(
+            VerleihJournal journal) throws ProtokollierException
+    {
+        return new PartitionierterVerleihServiceImpl(_kundenstamm,
+                _medienbestand, new ArrayList<Verleihkarte>(), 4,
+                new VerleihProtokollierer(), journal);
+    }
+}
@@ -0,0 +1,295 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+
+/**
+ * Ein RueckgabeStrom nimmt einen fortlaufenden Strom zurückgegebener Medien
+ * entgegen, etwa von einem Rückgabeautomaten, und nimmt sie in Stapeln beim
+ * VerleihService zurück.
+ *
+ * Die Medien werden in eine beschränkte Warteschlange gestellt. Ein
+ * Hintergrund-Thread entnimmt alle wartenden Medien bis zur maximalen
+ * Stapelgröße und übergibt sie mit VerleihService#nimmZurueckImStapel. Je
+ * Stapel wird also einmal protokolliert und einmal über Änderungen
+ * informiert. Die Ergebnisse jedes Stapels erhält der Empfänger. Je mehr
+ * Medien gleichzeitig zurückgegeben werden, desto größer werden die Stapel.
+ *
+ * Der VerleihService wird aus dem Hintergrund-Thread aufgerufen. Er muss also
+ * threadsicher sein wie der NebenlaeufigerVerleihServiceImpl oder darf sonst
+ * von keinem anderen Thread verändert werden. Auch der Empfänger wird in
+ * diesem Thread aufgerufen.
+ *
+ * Scheitert ein Stapel, erhält der Empfänger den Fehler und der
+ * Hintergrund-Thread macht mit dem nächsten Stapel weiter. Wird er
+ * unterbrochen, schließt er den Strom und nimmt vorher noch alle wartenden
+ * Medien zurück, so dass kein Aufrufer von #gibZurueck vergeblich wartet.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class RueckgabeStrom
+{
+    /**
+     * Empfängt die Ergebnisse der Stapel eines RueckgabeStroms.
+     */
+    public interface Empfaenger
+    {
+        /**
+         * Wird nach jedem Stapel mit den Ergebnissen seiner Medien aufgerufen.
+         *
+         * @param ergebnisse Die Ergebnisse in der Reihenfolge der Rückgabe.
+         */
+        void empfangeErgebnisse(List<Rueckgabeergebnis> ergebnisse);
+
+        /**
+         * Wird aufgerufen, wenn ein Stapel scheitert. Ist der Fehler eine
+         * ProtokollierException, konnten nur die Rücknahmen nicht
+         * protokolliert werden und die Medien sind trotzdem zurückgenommen,
+         * soweit sie verliehen waren. Bei jedem anderen Fehler des
+         * VerleihService ist offen, welche Medien zurückgenommen wurden.
+         *
+         * @param medien Die Medien des Stapels.
+         * @param fehler Der aufgetretene Fehler.
+         */
+        void empfangeFehler(List<Medium> medien, Throwable fehler);
+    }
+
+    /**
+     * Die Kapazität der Warteschlange, wenn keine angegeben wird.
+     */
+    public static final int STANDARD_KAPAZITAET = 4096;
+
+    /**
+     * Die maximale Stapelgröße, wenn keine angegeben wird.
+     */
+    public static final int STANDARD_STAPELGROESSE = 256;
+
+    /**
+     * Die maximale Zeit in Millisekunden, die der Hintergrund-Thread auf ein
+     * neues Medium wartet, bevor er den Zustand erneut prüft.
+     */
+    private static final long WARTEZEIT = 100;
+
+    private final VerleihService _verleihService;
+    private final Empfaenger _empfaenger;
+    private final int _maxStapelgroesse;
+
+    /**
+     * Die Warteschlange der noch nicht zurückgenommenen Medien.
+     */
+    private final BlockingQueue<Medium> _warteschlange;
+
+    /**
+     * Schützt das Schließen gegen gleichzeitiges Einstellen von Medien.
+     * Zurückgebende Threads halten die Lesesperre, #schliesse die
+     * Schreibsperre.
+     */
+    private final ReentrantReadWriteLock _schliessSperre;
+
+    /**
+     * Der Hintergrund-Thread, der die Stapel zurücknimmt.
+     */
+    private final Thread _verarbeiter;
+
+    /**
+     * Ist true, sobald #schliesse aufgerufen wurde.
+     */
+    private volatile boolean _geschlossen;
+
+    /**
+     * Erzeugt einen neuen RueckgabeStrom mit STANDARD_KAPAZITAET und
+     * STANDARD_STAPELGROESSE und startet seinen Hintergrund-Thread.
+     *
+     * @param verleihService Der VerleihService, bei dem zurückgegeben wird.
+     * @param empfaenger Der Empfänger der Ergebnisse.
+     *
+     * @require verleihService != null
+     * @require empfaenger != null
+     */
+    public RueckgabeStrom(VerleihService verleihService, Empfaenger empfaenger)
+    {
+        this(verleihService, empfaenger, STANDARD_KAPAZITAET,
+                STANDARD_STAPELGROESSE);
+    }
+
+    /**
+     * Erzeugt einen neuen RueckgabeStrom und startet seinen
+     * Hintergrund-Thread.
+     *
+     * @param verleihService Der VerleihService, bei dem zurückgegeben wird.
+     * @param empfaenger Der Empfänger der Ergebnisse.
+     * @param kapazitaet Die maximale Anzahl wartender Medien.
+     * @param maxStapelgroesse Die maximale Anzahl Medien pro Stapel.
+     *
+     * @require verleihService != null
+     * @require empfaenger != null
+     * @require kapazitaet > 0
+     * @require maxStapelgroesse > 0
+     */
+    public RueckgabeStrom(VerleihService verleihService, Empfaenger empfaenger,
+            int kapazitaet, int maxStapelgroesse)
+    {
+        assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+        assert empfaenger != null : "Vorbedingung verletzt: empfaenger != null";
+        assert kapazitaet > 0 : "Vorbedingung verletzt: kapazitaet > 0";
+        assert maxStapelgroesse > 0 : "Vorbedingung verletzt: maxStapelgroesse > 0";
+
+        _verleihService = verleihService;
+        _empfaenger = empfaenger;
+        _maxStapelgroesse = maxStapelgroesse;
+        _warteschlange = new ArrayBlockingQueue<Medium>(kapazitaet);
+        _schliessSperre = new ReentrantReadWriteLock();
+        _verarbeiter = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                verarbeiteBisGeschlossen();
+            }
+        }, "Rueckgabe-Verarbeiter");
+        _verarbeiter.setDaemon(true);
+        _verarbeiter.start();
+    }
+
+    /**
+     * Stellt ein zurückgegebenes Medium in die Warteschlange. Ist sie voll,
+     * wartet der Aufrufer, bis wieder Platz ist.
+     *
+     * @param medium Das zurückgegebene Medium.
+     *
+     * @throws IllegalStateException wenn der Strom geschlossen ist.
+     *
+     * @require medium != null
+     */
+    public void gibZurueck(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+
+        _schliessSperre.readLock()
+            .lock();
+        try
+        {
+            if (_geschlossen)
+            {
+                throw new IllegalStateException(
+                        "Der Rückgabestrom ist bereits geschlossen.");
+            }
+            _warteschlange.put(medium);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                .interrupt();
+            throw new IllegalStateException(
+                    "Die Rückgabe wurde unterbrochen.");
+        }
+        finally
+        {
+            _schliessSperre.readLock()
+                .unlock();
+        }
+    }
+
+    /**
+     * Nimmt alle wartenden Medien noch zurück und beendet dann den
+     * Hintergrund-Thread. Weitere Aufrufe haben keine Wirkung.
+     */
+    public void schliesse()
+    {
+        _schliessSperre.writeLock()
+            .lock();
+        try
+        {
+            _geschlossen = true;
+        }
+        finally
+        {
+            _schliessSperre.writeLock()
+                .unlock();
+        }
+
+        boolean unterbrochen = false;
+        while (_verarbeiter.isAlive())
+        {
+            try
+            {
+                _verarbeiter.join();
+            }
+            catch (InterruptedException e)
+            {
+                unterbrochen = true;
+            }
+        }
+        if (unterbrochen)
+        {
+            Thread.currentThread()
+                .interrupt();
+        }
+    }
+
+    /**
+     * Die Schleife des Hintergrund-Threads. Entnimmt Medien stapelweise aus
+     * der Warteschlange und nimmt sie zurück, bis der Strom geschlossen ist,
+     * kein Aufrufer von #gibZurueck mehr einstellt und die Warteschlange leer
+     * ist. Eine Unterbrechung schließt den Strom.
+     */
+    private void verarbeiteBisGeschlossen()
+    {
+        List<Medium> stapel = new ArrayList<Medium>(_maxStapelgroesse);
+        // Die Lesesperre wird vor der Warteschlange geprüft: Ist der Strom
+        // geschlossen und hält niemand mehr die Lesesperre, kommt kein Medium
+        // mehr hinzu.
+        while (!_geschlossen || _schliessSperre.getReadLockCount() > 0
+                || !_warteschlange.isEmpty())
+        {
+            Medium medium;
+            try
+            {
+                medium = _warteschlange.poll(WARTEZEIT,
+                        TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                _geschlossen = true;
+                continue;
+            }
+            if (medium != null)
+            {
+                stapel.add(medium);
+                _warteschlange.drainTo(stapel, _maxStapelgroesse - 1);
+                verarbeite(stapel);
+                stapel.clear();
+            }
+        }
+    }
+
+    /**
+     * Nimmt einen Stapel zurück und meldet das Ergebnis an den Empfänger.
+     * Fehler des VerleihService erhält der Empfänger, damit der
+     * Hintergrund-Thread weiterläuft.
+     */
+    private void verarbeite(List<Medium> stapel)
+    {
+        List<Medium> medien = new ArrayList<Medium>(stapel);
+        List<Rueckgabeergebnis> ergebnisse;
+        try
+        {
+            ergebnisse = _verleihService.nimmZurueckImStapel(medien,
+                    Datum.heute());
+        }
+        catch (ProtokollierException | RuntimeException | AssertionError e)
+        {
+            _empfaenger.empfangeFehler(medien, e);
+            return;
+        }
+        _empfaenger.empfangeErgebnisse(ergebnisse);
+    }
+}
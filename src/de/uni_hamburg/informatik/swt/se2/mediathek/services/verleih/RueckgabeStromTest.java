@@ -0,0 +1,201 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class RueckgabeStromTest
+{
+    private static final int ANZAHL_THREADS = 4;
+    private static final int ANZAHL_MEDIEN = 400;
+
+    private List<Kunde> _kunden;
+    private List<Medium> _medienListe;
+    private List<Verleihkarte> _verleihkarten;
+    private VerleihService _service;
+    private List<Rueckgabeergebnis> _ergebnisse;
+    private List<Integer> _stapelgroessen;
+    private RueckgabeStrom _strom;
+
+    public RueckgabeStromTest() throws Exception
+    {
+        _kunden = new ArrayList<Kunde>();
+        for (int i = 0; i < ANZAHL_THREADS; ++i)
+        {
+            _kunden.add(new Kunde(new Kundennummer(100000 + i), "Kunde",
+                    String.valueOf(i)));
+        }
+        _medienListe = new ArrayList<Medium>();
+        _verleihkarten = new ArrayList<Verleihkarte>();
+        for (int i = 0; i < ANZAHL_MEDIEN; ++i)
+        {
+            Medium medium = new CD("CD" + i, "baz", "foo", 123);
+            _medienListe.add(medium);
+            _verleihkarten.add(new Verleihkarte(
+                    _kunden.get(i % _kunden.size()), medium,
+                    new Datum(3, 4, 2009)));
+        }
+        _service = new NebenlaeufigerVerleihServiceImpl(
+                new KundenstammServiceImpl(_kunden),
+                new MedienbestandServiceImpl(_medienListe), _verleihkarten);
+        _ergebnisse = Collections
+            .synchronizedList(new ArrayList<Rueckgabeergebnis>());
+        _stapelgroessen = Collections.synchronizedList(new ArrayList<Integer>());
+        _strom = new RueckgabeStrom(_service, new RueckgabeStrom.Empfaenger()
+        {
+            @Override
+            public void empfangeErgebnisse(List<Rueckgabeergebnis> ergebnisse)
+            {
+                _ergebnisse.addAll(ergebnisse);
+                _stapelgroessen.add(ergebnisse.size());
+            }
+
+            @Override
+            public void empfangeFehler(List<Medium> medien, Throwable fehler)
+            {
+                fail(fehler.getMessage());
+            }
+        }, 64, 32);
+    }
+
+    @Test
+    public void testeAlleMedienWerdenInStapelnZurueckgenommen()
+            throws Exception
+    {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < ANZAHL_THREADS; ++t)
+        {
+            final int start = t;
+            Thread thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int i = start; i < ANZAHL_MEDIEN; i += ANZAHL_THREADS)
+                    {
+                        _strom.gibZurueck(_medienListe.get(i));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        _strom.gibZurueck(_medienListe.get(0));
+        _strom.schliesse();
+
+        assertTrue(_service.getVerleihkarten()
+            .isEmpty());
+        assertEquals(ANZAHL_MEDIEN + 1, _ergebnisse.size());
+        int zurueckgenommen = 0;
+        for (Rueckgabeergebnis ergebnis : _ergebnisse)
+        {
+            if (ergebnis.istZurueckgenommen())
+            {
+                ++zurueckgenommen;
+            }
+        }
+        assertEquals(ANZAHL_MEDIEN, zurueckgenommen);
+        for (int stapelgroesse : _stapelgroessen)
+        {
+            assertTrue(stapelgroesse <= 32);
+        }
+    }
+
+    @Test
+    public void testeGeschlossenerStromLehntRueckgabeAb()
+    {
+        _strom.schliesse();
+        try
+        {
+            _strom.gibZurueck(_medienListe.get(0));
+            fail("Der Strom ist geschlossen");
+        }
+        catch (IllegalStateException e)
+        {
+            // Fehler erwartet
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testeFehlerDesServiceBeendetVerarbeitungNicht()
+            throws Exception
+    {
+        final AtomicBoolean gescheitert = new AtomicBoolean();
+        VerleihService service = new NebenlaeufigerVerleihServiceImpl(
+                new KundenstammServiceImpl(_kunden),
+                new MedienbestandServiceImpl(_medienListe), _verleihkarten)
+        {
+            @Override
+            public List<Rueckgabeergebnis> nimmZurueckImStapel(
+                    List<Medium> medien, Datum rueckgabeDatum)
+                    throws ProtokollierException
+            {
+                if (!gescheitert.getAndSet(true))
+                {
+                    throw new IllegalStateException("Fehler im Test");
+                }
+                return super.nimmZurueckImStapel(medien, rueckgabeDatum);
+            }
+        };
+        final List<Medium> fehlgeschlagen = Collections
+            .synchronizedList(new ArrayList<Medium>());
+        final CountDownLatch fehlerGemeldet = new CountDownLatch(1);
+        RueckgabeStrom strom = new RueckgabeStrom(service,
+                new RueckgabeStrom.Empfaenger()
+                {
+                    @Override
+                    public void empfangeErgebnisse(
+                            List<Rueckgabeergebnis> ergebnisse)
+                    {
+                        _ergebnisse.addAll(ergebnisse);
+                    }
+
+                    @Override
+                    public void empfangeFehler(List<Medium> medien,
+                            Throwable fehler)
+                    {
+                        fehlgeschlagen.addAll(medien);
+                        fehlerGemeldet.countDown();
+                    }
+                }, 64, 32);
+
+        strom.gibZurueck(_medienListe.get(0));
+        fehlerGemeldet.await();
+        // Mehr Medien, als die Warteschlange fasst
+        for (int i = 1; i < ANZAHL_MEDIEN; ++i)
+        {
+            strom.gibZurueck(_medienListe.get(i));
+        }
+        strom.schliesse();
+
+        assertEquals(Arrays.asList(_medienListe.get(0)), fehlgeschlagen);
+        assertEquals(ANZAHL_MEDIEN - 1, _ergebnisse.size());
+        assertEquals(1, service.getVerleihkarten()
+            .size());
+    }
+}
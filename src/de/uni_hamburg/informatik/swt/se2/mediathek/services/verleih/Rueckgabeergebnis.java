@@ -0,0 +1,131 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * Ein Rueckgabeergebnis beschreibt, was bei der Rückgabe eines einzelnen
+ * Mediums in einem Stapel passiert ist. Ein Medium, das nicht zurückgenommen
+ * werden konnte, bricht den Stapel nicht ab, sondern erhält ein Ergebnis mit
+ * dem entsprechenden Status.
+ *
+ * Rueckgabeergebnisse sind unveränderlich.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public final class Rueckgabeergebnis
+{
+    /**
+     * Der Ausgang der Rückgabe eines Mediums.
+     */
+    public enum Status
+    {
+        /**
+         * Das Medium war verliehen und wurde zurückgenommen.
+         */
+        ZURUECKGENOMMEN,
+
+        /**
+         * Das Medium war nicht verliehen, etwa weil es im selben Stapel schon
+         * einmal zurückgegeben wurde.
+         */
+        NICHT_VERLIEHEN,
+
+        /**
+         * Das Medium gehört nicht zum Medienbestand.
+         */
+        NICHT_IM_BESTAND;
+    }
+
+    private final Medium _medium;
+    private final Status _status;
+    private final Verleihkarte _verleihkarte;
+
+    private Rueckgabeergebnis(Medium medium, Status status,
+            Verleihkarte verleihkarte)
+    {
+        _medium = medium;
+        _status = status;
+        _verleihkarte = verleihkarte;
+    }
+
+    /**
+     * Erzeugt das Ergebnis für ein zurückgenommenes Medium.
+     *
+     * @param verleihkarte Die Verleihkarte, die bei der Rücknahme entfernt
+     *            wurde.
+     *
+     * @require verleihkarte != null
+     *
+     * @ensure result.getStatus() == Status.ZURUECKGENOMMEN
+     */
+    static Rueckgabeergebnis zurueckgenommen(Verleihkarte verleihkarte)
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+        return new Rueckgabeergebnis(verleihkarte.getMedium(),
+                Status.ZURUECKGENOMMEN, verleihkarte);
+    }
+
+    /**
+     * Erzeugt das Ergebnis für ein Medium, das nicht zurückgenommen wurde.
+     *
+     * @param medium Das Medium.
+     * @param status Der Grund.
+     *
+     * @require medium != null
+     * @require status != null && status != Status.ZURUECKGENOMMEN
+     */
+    static Rueckgabeergebnis abgelehnt(Medium medium, Status status)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert status != null
+                && status != Status.ZURUECKGENOMMEN : "Vorbedingung verletzt: status != null && status != Status.ZURUECKGENOMMEN";
+        return new Rueckgabeergebnis(medium, status, null);
+    }
+
+    /**
+     * Gibt das zurückgegebene Medium zurück.
+     *
+     * @ensure result != null
+     */
+    public Medium getMedium()
+    {
+        return _medium;
+    }
+
+    /**
+     * Gibt den Ausgang der Rückgabe zurück.
+     *
+     * @ensure result != null
+     */
+    public Status getStatus()
+    {
+        return _status;
+    }
+
+    /**
+     * Prüft, ob das Medium zurückgenommen wurde.
+     *
+     * @return true, wenn der Status ZURUECKGENOMMEN ist, sonst false.
+     */
+    public boolean istZurueckgenommen()
+    {
+        return _status == Status.ZURUECKGENOMMEN;
+    }
+
+    /**
+     * Gibt die bei der Rücknahme entfernte Verleihkarte zurück, oder null,
+     * wenn das Medium nicht zurückgenommen wurde.
+     */
+    public Verleihkarte getVerleihkarte()
+    {
+        return _verleihkarte;
+    }
+
+    @Override
+    public String toString()
+    {
+        return _status + ": " + _medium.getTitel();
+    }
+}
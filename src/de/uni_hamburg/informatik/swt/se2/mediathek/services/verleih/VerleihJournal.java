@@ -0,0 +1,1305 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.Medienliste;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.Medienverzeichnis;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * Ein VerleihJournal hält Ausleihen, Rückgaben und Vormerkungen in einer
+ * binären Datei fest, an die nur angehängt wird. Beim Start wird das Journal
+ * auf den eingelesenen Bestand angewendet, so dass kein Verleihvorgang seit dem
+ * Einlesen verloren geht.
+ *
+ * Aufbau einer Journal-Datei, alle Zahlen im Big-Endian-Format:
+ *
+ * <pre>
+ * int     KENNUNG
+ * int     VERSION
+ * long    Kennung des Bestands, auf den sich das Journal bezieht
+ * int     Anzahl der Medien in diesem Bestand
+ *         je Eintrag: byte Vorgang, int Index des Mediums, int Kundennummer,
+ *                     int Datum als jjjjmmtt, int CRC32 der ersten 13 Bytes
+ * </pre>
+ *
+ * Medien werden über ihren Index in der Medienliste oder dem
+ * Medienverzeichnis angegeben, mit dem das Journal geöffnet wurde. Medien, die
+ * erst danach in den Bestand aufgenommen werden, überdauern keinen Neustart und
+ * werden daher nicht erfasst.
+ *
+ * Die Einträge werden gesammelt und von einem Hintergrund-Thread mit einem
+ * Schreibvorgang und einer Synchronisation mit dem Datenträger geschrieben.
+ * Ein Aufrufer, der mit #warteAufSicherung auf seine Einträge wartet, teilt
+ * sich die Synchronisation mit allen, deren Einträge im selben Stapel liegen.
+ *
+ * Wird der Bestand neu geschrieben, beginnt mit #beginneNeuenAbschnitt ein
+ * neuer Abschnitt in einer zweiten Datei, der sich auf den neuen Bestand
+ * bezieht. Bis zum #wechsleZumNeuenAbschnitt gehen alle Einträge in beide
+ * Dateien, so dass zu jedem Zeitpunkt eines Absturzes eine der beiden Dateien
+ * zu dem Bestand passt, der auf dem Datenträger liegt.
+ *
+ * Ein beim Absturz nur teilweise geschriebener Eintrag am Ende der Datei wird
+ * beim Öffnen erkannt und abgeschnitten.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class VerleihJournal
+{
+    /**
+     * Empfängt die Vorgänge eines Journals beim Einspielen.
+     */
+    interface Empfaenger
+    {
+        /**
+         * Ein Medium wurde an den Kunden mit der Kundennummer verliehen.
+         */
+        void verleihe(Medium medium, Kundennummer kundennummer,
+                Datum ausleihDatum);
+
+        /**
+         * Ein Medium wurde zurückgegeben.
+         */
+        void nimmZurueck(Medium medium);
+
+        /**
+         * Der Kunde mit der Kundennummer hat ein Medium vorgemerkt.
+         */
+        void merkeVor(Medium medium, Kundennummer kundennummer);
+    }
+
+    /**
+     * Die Kennung am Anfang jeder Journal-Datei ("MDJN").
+     */
+    static final int KENNUNG = 0x4D444A4E;
+
+    /**
+     * Die Version des Formats.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * Die Größe des Dateikopfs in Bytes.
+     */
+    static final int KOPFGROESSE = 20;
+
+    /**
+     * Die Größe eines Eintrags in Bytes.
+     */
+    static final int EINTRAGSGROESSE = 17;
+
+    /**
+     * Die Bestandskennung eines neuen Abschnitts, solange der zugehörige
+     * Bestand noch nicht geschrieben ist. Sie passt zu keinem Bestand.
+     */
+    private static final long KEIN_BESTAND = 0;
+
+    /**
+     * Die Endung der Datei eines neuen Abschnitts.
+     */
+    private static final String ENDUNG_NEUER_ABSCHNITT = ".neu";
+
+    /**
+     * Die Anzahl der Bytes eines Eintrags, über die die Prüfsumme gebildet
+     * wird.
+     */
+    private static final int GEPRUEFTE_BYTES = 13;
+
+    private static final byte VORGANG_AUSLEIHE = 1;
+    private static final byte VORGANG_RUECKGABE = 2;
+    private static final byte VORGANG_VORMERKUNG = 3;
+
+    /**
+     * Die Größe des Puffers beim Lesen der Datei.
+     */
+    private static final int LESEPUFFERGROESSE = 64 * 1024;
+
+    /**
+     * Die anfängliche Größe der Puffer für noch nicht geschriebene Einträge.
+     */
+    private static final int SCHREIBPUFFERGROESSE = 256 * EINTRAGSGROESSE;
+
+    /**
+     * Die Datei des Journals.
+     */
+    private final File _datei;
+
+    /**
+     * Schützt die folgenden veränderlichen Felder.
+     */
+    private final ReentrantLock _sperre;
+
+    /**
+     * Wird signalisiert, wenn neue Einträge vorliegen, ein Abschnitt abgelöst
+     * oder das Journal geschlossen wird.
+     */
+    private final Condition _neueEintraege;
+
+    /**
+     * Wird signalisiert, wenn ein Stapel gesichert wurde oder das Schreiben
+     * fehlgeschlagen ist.
+     */
+    private final Condition _stapelGesichert;
+
+    /**
+     * Der Abschnitt in der Datei des Journals.
+     */
+    private Abschnitt _abschnitt;
+
+    /**
+     * Der begonnene neue Abschnitt oder null.
+     */
+    private Abschnitt _neuerAbschnitt;
+
+    /**
+     * Abgelöste Abschnitte, deren Kanäle der Hintergrund-Thread schließt.
+     */
+    private final List<Abschnitt> _abgeloesteAbschnitte;
+
+    /**
+     * Die Anzahl aller bisher angehängten Einträge.
+     */
+    private long _angehaengt;
+
+    /**
+     * Die Anzahl der Einträge, die geschrieben und mit dem Datenträger
+     * synchronisiert sind.
+     */
+    private long _gesichert;
+
+    /**
+     * Ist true, sobald #schliesse aufgerufen wurde.
+     */
+    private boolean _geschlossen;
+
+    /**
+     * Der erste Fehler, der beim Schreiben im Hintergrund aufgetreten ist,
+     * oder null.
+     */
+    private IOException _schreibfehler;
+
+    /**
+     * Der Hintergrund-Thread, der die Einträge schreibt.
+     */
+    private final Thread _schreiber;
+
+    /**
+     * Öffnet das Journal in der angegebenen Datei oder legt es neu an. Die
+     * Einträge werden erst mit #spieleEin angewendet.
+     *
+     * Liegt noch die Datei eines neuen Abschnitts vor, weil ein Wechsel durch
+     * einen Absturz unterbrochen wurde, wird sie übernommen, wenn sie zum
+     * Bestand passt, und sonst gelöscht.
+     *
+     * @param datei Die Journal-Datei.
+     * @param medien Die eingelesenen Medien, auf die sich das Journal bezieht.
+     * @param bestandskennung Die Kennung des eingelesenen Bestands, siehe
+     *            #berechneBestandskennung(File).
+     *
+     * @throws ProtokollierException wenn die Datei nicht geöffnet werden konnte
+     *             oder zu einem anderen Bestand gehört.
+     *
+     * @require datei != null
+     * @require medien != null
+     */
+    public VerleihJournal(File datei, List<Medium> medien, long bestandskennung)
+            throws ProtokollierException
+    {
+        this(datei, new Medienliste(medien), bestandskennung);
+    }
+
+    /**
+     * Öffnet das Journal wie #VerleihJournal(File, List, long), bezieht die
+     * Einträge aber auf die Indizes eines Medienverzeichnisses. Das Journal
+     * hält dann keine eigene Liste der Medien.
+     *
+     * @param datei Die Journal-Datei.
+     * @param verzeichnis Das Verzeichnis der eingelesenen Medien, auf die sich
+     *            das Journal bezieht.
+     * @param bestandskennung Die Kennung des eingelesenen Bestands, siehe
+     *            #berechneBestandskennung(File).
+     *
+     * @throws ProtokollierException wenn die Datei nicht geöffnet werden konnte
+     *             oder zu einem anderen Bestand gehört.
+     *
+     * @require datei != null
+     * @require verzeichnis != null
+     */
+    public VerleihJournal(File datei, Medienverzeichnis verzeichnis,
+            long bestandskennung) throws ProtokollierException
+    {
+        assert datei != null : "Vorbedingung verletzt: datei != null";
+        assert verzeichnis != null : "Vorbedingung verletzt: verzeichnis != null";
+
+        _datei = datei;
+        try
+        {
+            uebernimmUnterbrochenenWechsel(bestandskennung);
+        }
+        catch (IOException e)
+        {
+            throw new ProtokollierException(
+                    "Ein neuer Abschnitt des Verleihjournals konnte nicht übernommen werden.");
+        }
+        _abschnitt = new Abschnitt(datei, verzeichnis);
+        _abschnitt.oeffne(bestandskennung);
+
+        _sperre = new ReentrantLock();
+        _neueEintraege = _sperre.newCondition();
+        _stapelGesichert = _sperre.newCondition();
+        _abgeloesteAbschnitte = new ArrayList<Abschnitt>();
+        _schreiber = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                schreibeBisGeschlossen();
+            }
+        }, "Verleihjournal-Schreiber");
+        _schreiber.setDaemon(true);
+        _schreiber.start();
+    }
+
+    /**
+     * Berechnet eine Kennung für den Bestand, der in der angegebenen
+     * Medien-Datei liegt, aus ihrer Länge und einer CRC32-Prüfsumme ihres
+     * Inhalts. Die Kennung hängt nur vom Inhalt ab: Wird die Datei kopiert,
+     * zurückgespielt oder nur ihr Änderungszeitpunkt gesetzt, bleibt sie
+     * gleich. Wird die Datei neu geschrieben oder von Hand bearbeitet, ändert
+     * sie sich.
+     *
+     * @param medienDatei Die Medien-Datei des Bestands.
+     * @return Die Kennung des Bestands.
+     *
+     * @throws ProtokollierException wenn die Datei nicht gelesen werden
+     *             konnte.
+     *
+     * @require medienDatei != null
+     *
+     * @ensure result != KEIN_BESTAND
+     */
+    public static long berechneBestandskennung(File medienDatei)
+            throws ProtokollierException
+    {
+        assert medienDatei != null : "Vorbedingung verletzt: medienDatei != null";
+
+        CRC32 pruefsumme = new CRC32();
+        long laenge = 0;
+        try (FileChannel kanal = FileChannel.open(medienDatei.toPath(),
+                StandardOpenOption.READ))
+        {
+            ByteBuffer puffer = ByteBuffer.allocate(LESEPUFFERGROESSE);
+            while (kanal.read(puffer) >= 0)
+            {
+                puffer.flip();
+                laenge += puffer.remaining();
+                pruefsumme.update(puffer);
+                puffer.clear();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ProtokollierException(
+                    "Die Medien-Datei konnte nicht gelesen werden.");
+        }
+        // Die um eins erhöhte Länge hält die Kennung auch für eine leere
+        // Datei von KEIN_BESTAND verschieden
+        return (laenge + 1) << 32 | pruefsumme.getValue();
+    }
+
+    /**
+     * Übergibt alle beim Öffnen vorhandenen Einträge in ihrer Reihenfolge an
+     * den Empfänger.
+     *
+     * @param empfaenger Der Empfänger der Vorgänge.
+     *
+     * @throws ProtokollierException wenn die Datei nicht gelesen werden
+     *             konnte.
+     *
+     * @require empfaenger != null
+     */
+    void spieleEin(Empfaenger empfaenger) throws ProtokollierException
+    {
+        assert empfaenger != null : "Vorbedingung verletzt: empfaenger != null";
+
+        Abschnitt abschnitt;
+        _sperre.lock();
+        try
+        {
+            abschnitt = _abschnitt;
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+        try
+        {
+            abschnitt.durchlaufeEintraege(empfaenger);
+        }
+        catch (IOException e)
+        {
+            throw new ProtokollierException(
+                    "Die Datei für das Verleihjournal konnte nicht gelesen werden.");
+        }
+    }
+
+    /**
+     * Hängt eine Ausleihe an das Journal an.
+     *
+     * @param verleihkarte Die Verleihkarte der Ausleihe.
+     *
+     * @throws ProtokollierException wenn das Journal geschlossen ist oder ein
+     *             vorheriger Stapel nicht geschrieben werden konnte.
+     *
+     * @require verleihkarte != null
+     */
+    public void schreibeAusleihe(Verleihkarte verleihkarte)
+            throws ProtokollierException
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+
+        haengeAn(VORGANG_AUSLEIHE, verleihkarte.getMedium(),
+                verleihkarte.getEntleiher(), verleihkarte.getAusleihdatum());
+    }
+
+    /**
+     * Hängt eine Rückgabe an das Journal an.
+     *
+     * @param verleihkarte Die Verleihkarte des zurückgegebenen Mediums.
+     * @param rueckgabeDatum Das Datum der Rückgabe.
+     *
+     * @throws ProtokollierException wenn das Journal geschlossen ist oder ein
+     *             vorheriger Stapel nicht geschrieben werden konnte.
+     *
+     * @require verleihkarte != null
+     * @require rueckgabeDatum != null
+     */
+    public void schreibeRueckgabe(Verleihkarte verleihkarte,
+            Datum rueckgabeDatum) throws ProtokollierException
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+        assert rueckgabeDatum != null : "Vorbedingung verletzt: rueckgabeDatum != null";
+
+        haengeAn(VORGANG_RUECKGABE, verleihkarte.getMedium(),
+                verleihkarte.getEntleiher(), rueckgabeDatum);
+    }
+
+    /**
+     * Hängt eine Vormerkung an das Journal an.
+     *
+     * @param kunde Der vormerkende Kunde.
+     * @param medium Das vorgemerkte Medium.
+     * @param datum Das Datum der Vormerkung.
+     *
+     * @throws ProtokollierException wenn das Journal geschlossen ist oder ein
+     *             vorheriger Stapel nicht geschrieben werden konnte.
+     *
+     * @require kunde != null
+     * @require medium != null
+     * @require datum != null
+     */
+    public void schreibeVormerkung(Kunde kunde, Medium medium, Datum datum)
+            throws ProtokollierException
+    {
+        assert kunde != null : "Vorbedingung verletzt: kunde != null";
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert datum != null : "Vorbedingung verletzt: datum != null";
+
+        haengeAn(VORGANG_VORMERKUNG, medium, kunde, datum);
+    }
+
+    /**
+     * Wartet, bis alle bisher angehängten Einträge geschrieben und mit dem
+     * Datenträger synchronisiert sind.
+     *
+     * @throws ProtokollierException wenn die Einträge nicht geschrieben werden
+     *             konnten oder das Warten unterbrochen wurde.
+     */
+    public void warteAufSicherung() throws ProtokollierException
+    {
+        _sperre.lock();
+        try
+        {
+            long ziel = _angehaengt;
+            while (_gesichert < ziel)
+            {
+                pruefeSchreibfehler();
+                _stapelGesichert.await();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread()
+                .interrupt();
+            throw new ProtokollierException(
+                    "Das Sichern des Verleihjournals wurde unterbrochen.");
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Beginnt einen neuen Abschnitt für einen Bestand, der anschließend mit
+     * den angegebenen Medien geschrieben wird. Der neue Abschnitt beginnt mit
+     * den aktuellen Vormerkungen, da die Bestandsdateien sie nicht enthalten.
+     * Alle weiteren Einträge gehen in beide Abschnitte.
+     *
+     * Muss in demselben Thread aufgerufen werden, der den VerleihService
+     * verändert, damit kein Vorgang zwischen dem Erfassen des Bestands und dem
+     * Beginn des Abschnitts verloren geht.
+     *
+     * @param medien Die Medien des neuen Bestands in der Reihenfolge, in der
+     *            sie geschrieben werden.
+     * @param verleihService Der VerleihService, dessen Vormerkungen übernommen
+     *            werden.
+     *
+     * @throws ProtokollierException wenn die Datei des Abschnitts nicht
+     *             angelegt werden konnte.
+     *
+     * @require !hatNeuenAbschnitt()
+     * @require medien != null
+     * @require verleihService != null
+     */
+    public void beginneNeuenAbschnitt(List<Medium> medien,
+            VerleihService verleihService) throws ProtokollierException
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+
+        beginneNeuenAbschnitt(new Medienliste(medien), verleihService);
+    }
+
+    /**
+     * Beginnt einen neuen Abschnitt wie
+     * #beginneNeuenAbschnitt(List, VerleihService), bezieht seine Einträge
+     * aber auf die Indizes eines Medienverzeichnisses.
+     *
+     * @param verzeichnis Das Verzeichnis der Medien des neuen Bestands in der
+     *            Reihenfolge, in der sie geschrieben werden.
+     * @param verleihService Der VerleihService, dessen Vormerkungen übernommen
+     *            werden.
+     *
+     * @throws ProtokollierException wenn die Datei des Abschnitts nicht
+     *             angelegt werden konnte.
+     *
+     * @require !hatNeuenAbschnitt()
+     * @require verzeichnis != null
+     * @require verleihService != null
+     */
+    public void beginneNeuenAbschnitt(Medienverzeichnis verzeichnis,
+            VerleihService verleihService) throws ProtokollierException
+    {
+        assert !hatNeuenAbschnitt() : "Vorbedingung verletzt: !hatNeuenAbschnitt()";
+        assert verzeichnis != null : "Vorbedingung verletzt: verzeichnis != null";
+        assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+
+        Abschnitt abschnitt = new Abschnitt(getDateiDesNeuenAbschnitts(),
+                verzeichnis);
+        abschnitt.legeAn();
+        Datum heute = Datum.heute();
+        _sperre.lock();
+        try
+        {
+            pruefeSchreibfehler();
+            for (int index = 0; index < verzeichnis.getAnzahlMedien(); ++index)
+            {
+                Medium medium = verzeichnis.getMedium(index);
+                for (Kunde kunde : verleihService.getVormerkerFuer(medium))
+                {
+                    abschnitt.kodiereEintrag(VORGANG_VORMERKUNG, medium, kunde,
+                            heute);
+                }
+            }
+            _neuerAbschnitt = abschnitt;
+            if (abschnitt.hatAusstehendeEintraege())
+            {
+                ++_angehaengt;
+                _neueEintraege.signal();
+            }
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Prüft, ob ein neuer Abschnitt begonnen wurde.
+     *
+     * @return true, wenn ein neuer Abschnitt begonnen und noch nicht
+     *         übernommen oder verworfen wurde.
+     */
+    public boolean hatNeuenAbschnitt()
+    {
+        _sperre.lock();
+        try
+        {
+            return _neuerAbschnitt != null;
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Trägt die Kennung des fertig geschriebenen Bestands in den neuen
+     * Abschnitt ein und synchronisiert ihn mit dem Datenträger. Danach darf der
+     * Bestand an seinen endgültigen Platz gebracht werden.
+     *
+     * @param bestandskennung Die Kennung des neuen Bestands.
+     *
+     * @throws ProtokollierException wenn kein neuer Abschnitt begonnen wurde
+     *             oder der Dateikopf nicht geschrieben werden konnte.
+     */
+    public void besiegleNeuenAbschnitt(long bestandskennung)
+            throws ProtokollierException
+    {
+        Abschnitt abschnitt;
+        _sperre.lock();
+        try
+        {
+            pruefeNeuenAbschnitt();
+            abschnitt = _neuerAbschnitt;
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+        try
+        {
+            abschnitt.schreibeKopf(bestandskennung);
+        }
+        catch (IOException e)
+        {
+            throw new ProtokollierException(
+                    "Der neue Abschnitt des Verleihjournals konnte nicht besiegelt werden.");
+        }
+    }
+
+    /**
+     * Ersetzt das Journal durch den neuen Abschnitt, nachdem der zugehörige
+     * Bestand an seinem endgültigen Platz liegt. Die Einträge vor dem Beginn
+     * des Abschnitts werden damit verworfen.
+     *
+     * @throws ProtokollierException wenn kein neuer Abschnitt begonnen wurde
+     *             oder die Datei nicht ersetzt werden konnte.
+     */
+    public void wechsleZumNeuenAbschnitt() throws ProtokollierException
+    {
+        _sperre.lock();
+        try
+        {
+            pruefeNeuenAbschnitt();
+            Files.move(_neuerAbschnitt._datei.toPath(), _datei.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            _abgeloesteAbschnitte.add(_abschnitt);
+            _abschnitt = _neuerAbschnitt;
+            _abschnitt._datei = _datei;
+            _neuerAbschnitt = null;
+            _neueEintraege.signal();
+        }
+        catch (IOException e)
+        {
+            throw new ProtokollierException(
+                    "Das Verleihjournal konnte nicht durch den neuen Abschnitt ersetzt werden.");
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Verwirft einen begonnenen neuen Abschnitt, etwa weil der Bestand nicht
+     * geschrieben werden konnte. Ohne neuen Abschnitt hat der Aufruf keine
+     * Wirkung.
+     */
+    public void verwerfeNeuenAbschnitt()
+    {
+        _sperre.lock();
+        try
+        {
+            if (_neuerAbschnitt != null)
+            {
+                _abgeloesteAbschnitte.add(_neuerAbschnitt);
+                _neuerAbschnitt._datei.delete();
+                _neuerAbschnitt = null;
+                _neueEintraege.signal();
+            }
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Schreibt alle ausstehenden Einträge, synchronisiert die Datei mit dem
+     * Datenträger und schließt sie. Ein begonnener neuer Abschnitt wird
+     * verworfen. Weitere Aufrufe haben keine Wirkung.
+     *
+     * @throws ProtokollierException wenn Einträge nicht geschrieben werden
+     *             konnten.
+     */
+    public void schliesse() throws ProtokollierException
+    {
+        verwerfeNeuenAbschnitt();
+        _sperre.lock();
+        try
+        {
+            _geschlossen = true;
+            _neueEintraege.signalAll();
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+
+        boolean unterbrochen = false;
+        while (_schreiber.isAlive())
+        {
+            try
+            {
+                _schreiber.join();
+            }
+            catch (InterruptedException e)
+            {
+                unterbrochen = true;
+            }
+        }
+        if (unterbrochen)
+        {
+            Thread.currentThread()
+                .interrupt();
+        }
+        _sperre.lock();
+        try
+        {
+            pruefeSchreibfehler();
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Registriert einen Shutdown-Hook, der dieses Journal beim Beenden der
+     * virtuellen Maschine schließt.
+     */
+    public void schliesseBeimBeenden()
+    {
+        Runtime.getRuntime()
+            .addShutdownHook(new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        schliesse();
+                    }
+                    catch (ProtokollierException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }, "Verleihjournal-Shutdown"));
+    }
+
+    /**
+     * Liefert die Datei, in der ein neuer Abschnitt angelegt wird.
+     */
+    private File getDateiDesNeuenAbschnitts()
+    {
+        return new File(_datei.getPath() + ENDUNG_NEUER_ABSCHNITT);
+    }
+
+    /**
+     * Übernimmt die Datei eines neuen Abschnitts, wenn sie zum Bestand passt.
+     * Dann wurde der Bestand bereits geschrieben, nur der Wechsel des Journals
+     * fehlt noch. Andernfalls wird sie gelöscht.
+     */
+    private void uebernimmUnterbrochenenWechsel(long bestandskennung)
+            throws IOException
+    {
+        File neueDatei = getDateiDesNeuenAbschnitts();
+        if (!neueDatei.isFile())
+        {
+            return;
+        }
+        long kennungDesAbschnitts = KEIN_BESTAND;
+        if (neueDatei.length() >= KOPFGROESSE)
+        {
+            try (DataInputStream eingabe = new DataInputStream(
+                    new FileInputStream(neueDatei)))
+            {
+                if (eingabe.readInt() == KENNUNG
+                        && eingabe.readInt() == VERSION)
+                {
+                    kennungDesAbschnitts = eingabe.readLong();
+                }
+            }
+        }
+        if (kennungDesAbschnitts != KEIN_BESTAND
+                && kennungDesAbschnitts == bestandskennung)
+        {
+            Files.move(neueDatei.toPath(), _datei.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        else
+        {
+            Files.delete(neueDatei.toPath());
+        }
+    }
+
+    /**
+     * Kodiert einen Eintrag in die Puffer aller offenen Abschnitte und weckt
+     * den Hintergrund-Thread.
+     */
+    private void haengeAn(byte vorgang, Medium medium, Kunde kunde,
+            Datum datum) throws ProtokollierException
+    {
+        _sperre.lock();
+        try
+        {
+            pruefeSchreibfehler();
+            if (_geschlossen)
+            {
+                throw new ProtokollierException(
+                        "Das Verleihjournal ist bereits geschlossen.");
+            }
+            boolean angehaengt = _abschnitt.kodiereEintrag(vorgang, medium,
+                    kunde, datum);
+            if (_neuerAbschnitt != null)
+            {
+                angehaengt |= _neuerAbschnitt.kodiereEintrag(vorgang, medium,
+                        kunde, datum);
+            }
+            if (angehaengt)
+            {
+                ++_angehaengt;
+                _neueEintraege.signal();
+            }
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Berechnet die Prüfsumme über die ersten Bytes des Eintrags, der an der
+     * angegebenen Position des Puffers beginnt.
+     */
+    private static int berechnePruefsumme(ByteBuffer puffer, int anfang)
+    {
+        CRC32 pruefsumme = new CRC32();
+        pruefsumme.update(puffer.slice(anfang, GEPRUEFTE_BYTES));
+        return (int) pruefsumme.getValue();
+    }
+
+    /**
+     * Wirft eine ProtokollierException, wenn kein neuer Abschnitt begonnen
+     * wurde oder er inzwischen verworfen ist, etwa weil das Journal
+     * geschlossen wurde. Muss unter der Sperre aufgerufen werden.
+     */
+    private void pruefeNeuenAbschnitt() throws ProtokollierException
+    {
+        if (_neuerAbschnitt == null)
+        {
+            throw new ProtokollierException(
+                    "Es gibt keinen neuen Abschnitt des Verleihjournals.");
+        }
+    }
+
+    /**
+     * Wirft eine ProtokollierException, wenn beim Schreiben im Hintergrund ein
+     * Fehler aufgetreten ist. Muss unter der Sperre aufgerufen werden.
+     */
+    private void pruefeSchreibfehler() throws ProtokollierException
+    {
+        if (_schreibfehler != null)
+        {
+            throw new ProtokollierException(
+                    "Beim Schreiben des Verleihjournals ist ein Fehler aufgetreten.");
+        }
+    }
+
+    /**
+     * Die Schleife des Hintergrund-Threads. Tauscht die gesammelten Einträge
+     * der offenen Abschnitte gegen leere Puffer, schreibt sie und
+     * synchronisiert die Dateien, bis das Journal geschlossen und nichts mehr
+     * ausstehend ist. Während geschrieben wird, sammeln sich die nächsten
+     * Einträge in den anderen Puffern.
+     */
+    private void schreibeBisGeschlossen()
+    {
+        List<Abschnitt> offen = new ArrayList<Abschnitt>();
+        List<Abschnitt> abgeloest = new ArrayList<Abschnitt>();
+        try
+        {
+            while (true)
+            {
+                long anzahl;
+                _sperre.lock();
+                try
+                {
+                    while (!hatAusstehendeEintraege()
+                            && _abgeloesteAbschnitte.isEmpty() && !_geschlossen)
+                    {
+                        _neueEintraege.await();
+                    }
+                    abgeloest.addAll(_abgeloesteAbschnitte);
+                    _abgeloesteAbschnitte.clear();
+                    if (!hatAusstehendeEintraege() && abgeloest.isEmpty())
+                    {
+                        break;
+                    }
+                    offen.clear();
+                    offen.add(_abschnitt);
+                    if (_neuerAbschnitt != null)
+                    {
+                        offen.add(_neuerAbschnitt);
+                    }
+                    for (Abschnitt abschnitt : offen)
+                    {
+                        abschnitt.tauschePuffer();
+                    }
+                    anzahl = _angehaengt;
+                }
+                finally
+                {
+                    _sperre.unlock();
+                }
+
+                for (Abschnitt abschnitt : offen)
+                {
+                    abschnitt.schreibeStapel();
+                }
+                for (Abschnitt abschnitt : abgeloest)
+                {
+                    abschnitt.schliesseKanal();
+                }
+                abgeloest.clear();
+
+                _sperre.lock();
+                try
+                {
+                    _gesichert = anzahl;
+                    _stapelGesichert.signalAll();
+                }
+                finally
+                {
+                    _sperre.unlock();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            meldeSchreibfehler(e);
+        }
+        catch (InterruptedException e)
+        {
+            meldeSchreibfehler(new IOException(e));
+        }
+        finally
+        {
+            _sperre.lock();
+            try
+            {
+                _abschnitt.schliesseKanal();
+                if (_neuerAbschnitt != null)
+                {
+                    _neuerAbschnitt.schliesseKanal();
+                }
+                for (Abschnitt abschnitt : _abgeloesteAbschnitte)
+                {
+                    abschnitt.schliesseKanal();
+                }
+            }
+            finally
+            {
+                _sperre.unlock();
+            }
+            for (Abschnitt abschnitt : abgeloest)
+            {
+                abschnitt.schliesseKanal();
+            }
+        }
+    }
+
+    /**
+     * Prüft, ob in einem offenen Abschnitt Einträge auf das Schreiben warten.
+     * Muss unter der Sperre aufgerufen werden.
+     */
+    private boolean hatAusstehendeEintraege()
+    {
+        return _abschnitt.hatAusstehendeEintraege()
+                || (_neuerAbschnitt != null
+                        && _neuerAbschnitt.hatAusstehendeEintraege());
+    }
+
+    /**
+     * Merkt sich einen Schreibfehler und weckt alle wartenden Aufrufer.
+     */
+    private void meldeSchreibfehler(IOException fehler)
+    {
+        _sperre.lock();
+        try
+        {
+            _schreibfehler = fehler;
+            _stapelGesichert.signalAll();
+        }
+        finally
+        {
+            _sperre.unlock();
+        }
+    }
+
+    /**
+     * Ein Abschnitt ist eine Journal-Datei zusammen mit dem Verzeichnis der
+     * Medien, auf deren Indizes sich ihre Einträge beziehen.
+     */
+    private static class Abschnitt
+    {
+        /**
+         * Die Datei des Abschnitts. Sie ändert sich, wenn ein neuer Abschnitt
+         * das Journal ersetzt.
+         */
+        private File _datei;
+
+        /**
+         * Das Verzeichnis der Medien.
+         */
+        private final Medienverzeichnis _verzeichnis;
+
+        /**
+         * Die Anzahl der Medien im Verzeichnis.
+         */
+        private final int _anzahlMedien;
+
+        /**
+         * Der Kanal zur Datei.
+         */
+        private FileChannel _kanal;
+
+        /**
+         * Die gesammelten, noch nicht geschriebenen Einträge. Wird nur unter
+         * der Sperre des Journals verwendet.
+         */
+        private ByteBuffer _ausstehend;
+
+        /**
+         * Der Stapel, den der Hintergrund-Thread gerade schreibt.
+         */
+        private ByteBuffer _stapel;
+
+        /**
+         * Die Position, an die der nächste Stapel geschrieben wird.
+         */
+        private long _schreibposition;
+
+        Abschnitt(File datei, Medienverzeichnis verzeichnis)
+        {
+            _datei = datei;
+            _verzeichnis = verzeichnis;
+            _anzahlMedien = verzeichnis.getAnzahlMedien();
+            _ausstehend = ByteBuffer.allocate(SCHREIBPUFFERGROESSE);
+            _stapel = ByteBuffer.allocate(SCHREIBPUFFERGROESSE);
+        }
+
+        /**
+         * Öffnet eine vorhandene Datei oder legt sie an und schneidet einen
+         * unvollständigen Eintrag am Ende ab.
+         */
+        void oeffne(long bestandskennung) throws ProtokollierException
+        {
+            oeffneKanal();
+            try
+            {
+                if (_kanal.size() < KOPFGROESSE)
+                {
+                    schreibeKopf(bestandskennung);
+                }
+                else
+                {
+                    pruefeKopf(bestandskennung);
+                }
+                _schreibposition = durchlaufeEintraege(null);
+                _kanal.truncate(_schreibposition);
+            }
+            catch (IOException e)
+            {
+                schliesseKanal();
+                throw new ProtokollierException(
+                        "Die Datei für das Verleihjournal konnte nicht gelesen werden.");
+            }
+            catch (ProtokollierException e)
+            {
+                schliesseKanal();
+                throw e;
+            }
+        }
+
+        /**
+         * Legt die Datei neu an, noch ohne zugehörigen Bestand.
+         */
+        void legeAn() throws ProtokollierException
+        {
+            oeffneKanal();
+            try
+            {
+                _kanal.truncate(0);
+                schreibeKopf(KEIN_BESTAND);
+                _schreibposition = KOPFGROESSE;
+            }
+            catch (IOException e)
+            {
+                schliesseKanal();
+                throw new ProtokollierException(
+                        "Die Datei für das Verleihjournal konnte nicht angelegt werden.");
+            }
+        }
+
+        private void oeffneKanal() throws ProtokollierException
+        {
+            try
+            {
+                _kanal = FileChannel.open(_datei.toPath(),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+            catch (IOException e)
+            {
+                throw new ProtokollierException(
+                        "Die Datei für das Verleihjournal konnte nicht geöffnet werden.");
+            }
+        }
+
+        /**
+         * Kodiert einen Eintrag mit seiner Prüfsumme in den Puffer der
+         * ausstehenden Einträge. Medien, die nicht zu diesem Abschnitt
+         * gehören, werden übergangen.
+         *
+         * @return true, wenn der Eintrag angehängt wurde.
+         */
+        boolean kodiereEintrag(byte vorgang, Medium medium, Kunde kunde,
+                Datum datum)
+        {
+            int medienIndex = _verzeichnis.getIndex(medium);
+            if (medienIndex < 0)
+            {
+                return false;
+            }
+            if (_ausstehend.remaining() < EINTRAGSGROESSE)
+            {
+                ByteBuffer groesser = ByteBuffer
+                    .allocate(_ausstehend.capacity() * 2);
+                _ausstehend.flip();
+                groesser.put(_ausstehend);
+                _ausstehend = groesser;
+            }
+            int anfang = _ausstehend.position();
+            _ausstehend.put(vorgang);
+            _ausstehend.putInt(medienIndex);
+            _ausstehend.putInt(Integer.parseInt(kunde.getKundennummer()
+                .toString()));
+            _ausstehend.putInt(datum.getJahr() * 10000 + datum.getMonat() * 100
+                    + datum.getTag());
+            _ausstehend.putInt(berechnePruefsumme(_ausstehend, anfang));
+            return true;
+        }
+
+        boolean hatAusstehendeEintraege()
+        {
+            return _ausstehend.position() > 0;
+        }
+
+        /**
+         * Macht die ausstehenden Einträge zum nächsten Stapel.
+         */
+        void tauschePuffer()
+        {
+            ByteBuffer voll = _ausstehend;
+            _ausstehend = _stapel;
+            _stapel = voll;
+        }
+
+        /**
+         * Schreibt den Stapel ans Ende der Datei und synchronisiert sie.
+         */
+        void schreibeStapel() throws IOException
+        {
+            if (_stapel.position() == 0)
+            {
+                return;
+            }
+            _stapel.flip();
+            while (_stapel.hasRemaining())
+            {
+                _schreibposition += _kanal.write(_stapel, _schreibposition);
+            }
+            _stapel.clear();
+            _kanal.force(false);
+        }
+
+        /**
+         * Liest alle vollständigen Einträge mit gültiger Prüfsumme und
+         * übergibt sie an den Empfänger, falls einer angegeben ist.
+         *
+         * @return Die Position hinter dem letzten gültigen Eintrag.
+         */
+        long durchlaufeEintraege(Empfaenger empfaenger) throws IOException
+        {
+            ByteBuffer puffer = ByteBuffer.allocate(LESEPUFFERGROESSE);
+            long gueltigBis = KOPFGROESSE;
+            long leseposition = KOPFGROESSE;
+            while (true)
+            {
+                int gelesen = _kanal.read(puffer, leseposition);
+                if (gelesen > 0)
+                {
+                    leseposition += gelesen;
+                }
+                puffer.flip();
+                while (puffer.remaining() >= EINTRAGSGROESSE)
+                {
+                    if (!liesEintrag(puffer, empfaenger))
+                    {
+                        return gueltigBis;
+                    }
+                    gueltigBis += EINTRAGSGROESSE;
+                }
+                puffer.compact();
+                if (gelesen < 0)
+                {
+                    return gueltigBis;
+                }
+            }
+        }
+
+        /**
+         * Liest den Eintrag an der aktuellen Position des Puffers und übergibt
+         * ihn an den Empfänger, falls einer angegeben ist.
+         *
+         * @return false, wenn der Eintrag beschädigt ist.
+         */
+        private boolean liesEintrag(ByteBuffer puffer, Empfaenger empfaenger)
+        {
+            int anfang = puffer.position();
+            byte vorgang = puffer.get();
+            int medienIndex = puffer.getInt();
+            int kundennummer = puffer.getInt();
+            int datum = puffer.getInt();
+            int pruefsumme = puffer.getInt();
+            if (pruefsumme != berechnePruefsumme(puffer, anfang)
+                    || medienIndex < 0 || medienIndex >= _anzahlMedien
+                    || vorgang < VORGANG_AUSLEIHE
+                    || vorgang > VORGANG_VORMERKUNG)
+            {
+                return false;
+            }
+            if (empfaenger != null && Kundennummer.istGueltig(kundennummer))
+            {
+                Medium medium = _verzeichnis.getMedium(medienIndex);
+                if (vorgang == VORGANG_AUSLEIHE)
+                {
+                    empfaenger.verleihe(medium, new Kundennummer(kundennummer),
+                            new Datum(datum % 100, datum / 100 % 100,
+                                    datum / 10000));
+                }
+                else if (vorgang == VORGANG_RUECKGABE)
+                {
+                    empfaenger.nimmZurueck(medium);
+                }
+                else
+                {
+                    empfaenger.merkeVor(medium,
+                            new Kundennummer(kundennummer));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Schreibt den Dateikopf und synchronisiert die Datei.
+         */
+        void schreibeKopf(long bestandskennung) throws IOException
+        {
+            ByteBuffer kopf = ByteBuffer.allocate(KOPFGROESSE);
+            kopf.putInt(KENNUNG);
+            kopf.putInt(VERSION);
+            kopf.putLong(bestandskennung);
+            kopf.putInt(_anzahlMedien);
+            kopf.flip();
+            while (kopf.hasRemaining())
+            {
+                _kanal.write(kopf, kopf.position());
+            }
+            _kanal.force(false);
+        }
+
+        /**
+         * Prüft, ob der Dateikopf zu diesem Format und zum Bestand passt.
+         */
+        private void pruefeKopf(long bestandskennung)
+                throws IOException, ProtokollierException
+        {
+            ByteBuffer kopf = ByteBuffer.allocate(KOPFGROESSE);
+            while (kopf.hasRemaining())
+            {
+                _kanal.read(kopf, kopf.position());
+            }
+            kopf.flip();
+            if (kopf.getInt() != KENNUNG || kopf.getInt() != VERSION)
+            {
+                throw new ProtokollierException(
+                        "Die Datei ist kein Verleihjournal dieser Version.");
+            }
+            if (kopf.getLong() != bestandskennung
+                    || kopf.getInt() != _anzahlMedien)
+            {
+                throw new ProtokollierException(
+                        "Das Verleihjournal gehört zu einem anderen Bestand.");
+            }
+        }
+
+        /**
+         * Schließt den Kanal und übergeht dabei auftretende Fehler.
+         */
+        void schliesseKanal()
+        {
+            try
+            {
+                _kanal.close();
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
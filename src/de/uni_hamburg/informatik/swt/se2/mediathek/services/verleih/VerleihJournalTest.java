@@ -0,0 +1,253 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.DVD;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienEmpfaenger;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.SpaltenMedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
+
+/**
+ * @author SE2-Team
+ */
+public class VerleihJournalTest
+{
+    private static final long BESTANDSKENNUNG = 42;
+
+    private File _datei;
+    private Kunde _kunde;
+    private Kunde _vormerker;
+    private List<Kunde> _kunden;
+    private List<Medium> _medien;
+    private Datum _datum;
+
+    public VerleihJournalTest() throws IOException
+    {
+        _datei = File.createTempFile("verleih", ".journal");
+        _kunde = new Kunde(new Kundennummer(123456), "ich", "du");
+        _vormerker = new Kunde(new Kundennummer(654321), "paul", "panter");
+        _kunden = Arrays.asList(_kunde, _vormerker);
+        _medien = Arrays.<Medium> asList(new CD("CD1", "baz", "foo", 123),
+                new DVD("DVD1", "", "bar", 90), new CD("CD2", "", "qux", 40));
+        _datum = new Datum(3, 4, 2009);
+    }
+
+    @After
+    public void loescheDatei()
+    {
+        _datei.delete();
+    }
+
+    @Test
+    public void testeVorgaengeWerdenBeimNeustartEingespielt() throws Exception
+    {
+        VerleihJournal journal = new VerleihJournal(_datei, _medien,
+                BESTANDSKENNUNG);
+        VerleihService service = erzeugeService(journal);
+        service.verleiheAn(_kunde, Arrays.asList(_medien.get(0),
+                _medien.get(1), _medien.get(2)), _datum);
+        service.nimmZurueck(Arrays.asList(_medien.get(1)), _datum);
+        service.merkeVor(_vormerker, _medien.get(0));
+        journal.schliesse();
+
+        VerleihService neuerService = erzeugeService(
+                new VerleihJournal(_datei, _medien, BESTANDSKENNUNG));
+        assertSame(_kunde, neuerService.getEntleiherFuer(_medien.get(0)));
+        assertFalse(neuerService.istVerliehen(_medien.get(1)));
+        assertEquals(_datum, neuerService.getVerleihkarteFuer(_medien.get(2))
+            .getAusleihdatum());
+        assertEquals(Arrays.asList(_vormerker),
+                neuerService.getVormerkerFuer(_medien.get(0)));
+    }
+
+    @Test
+    public void testeVorgaengeImSpaltenbestandWerdenEingespielt()
+            throws Exception
+    {
+        SpaltenMedienbestandServiceImpl bestand = new SpaltenMedienbestandServiceImpl(
+                _medien);
+        VerleihJournal journal = new VerleihJournal(_datei,
+                bestand.erfasseVerzeichnis(), BESTANDSKENNUNG);
+        VerleihService service = erzeugeService(bestand, journal);
+        service.verleiheAn(_kunde, Arrays.asList(_medien.get(1)), _datum);
+        service.merkeVor(_vormerker, _medien.get(2));
+        journal.schliesse();
+
+        // Nach dem Neustart liegen die Medien nur noch in den Spalten
+        SpaltenMedienbestandServiceImpl neuerBestand = new SpaltenMedienbestandServiceImpl();
+        MedienEmpfaenger empfaenger = neuerBestand.getEinleseEmpfaenger();
+        empfaenger.nimmCDAuf("CD1", "baz", "foo", 123);
+        empfaenger.nimmDVDAuf("DVD1", "", "bar", 90);
+        empfaenger.nimmCDAuf("CD2", "", "qux", 40);
+        VerleihService neuerService = erzeugeService(neuerBestand,
+                new VerleihJournal(_datei, neuerBestand.erfasseVerzeichnis(),
+                        BESTANDSKENNUNG));
+        List<Medium> medien = neuerBestand.getMedien();
+        assertFalse(neuerService.istVerliehen(medien.get(0)));
+        assertSame(_kunde, neuerService.getEntleiherFuer(medien.get(1)));
+        assertEquals(Arrays.asList(_vormerker),
+                neuerService.getVormerkerFuer(medien.get(2)));
+    }
+
+    @Test
+    public void testeUnvollstaendigerEintragWirdAbgeschnitten()
+            throws Exception
+    {
+        VerleihJournal journal = new VerleihJournal(_datei, _medien,
+                BESTANDSKENNUNG);
+        journal.schreibeAusleihe(
+                new Verleihkarte(_kunde, _medien.get(0), _datum));
+        journal.schliesse();
+        try (FileOutputStream ausgabe = new FileOutputStream(_datei, true))
+        {
+            ausgabe.write(new byte[] {1, 0, 0, 0, 2, 0, 0});
+        }
+
+        journal = new VerleihJournal(_datei, _medien, BESTANDSKENNUNG);
+        assertEquals(VerleihJournal.KOPFGROESSE
+                + VerleihJournal.EINTRAGSGROESSE, _datei.length());
+        journal.schreibeAusleihe(
+                new Verleihkarte(_kunde, _medien.get(1), _datum));
+        journal.warteAufSicherung();
+        journal.schliesse();
+
+        VerleihService service = erzeugeService(
+                new VerleihJournal(_datei, _medien, BESTANDSKENNUNG));
+        assertEquals(2, service.getVerleihkartenFuer(_kunde)
+            .size());
+    }
+
+    @Test
+    public void testeJournalZuAnderemBestand() throws Exception
+    {
+        new VerleihJournal(_datei, _medien, BESTANDSKENNUNG).schliesse();
+        try
+        {
+            new VerleihJournal(_datei, _medien, BESTANDSKENNUNG + 1);
+            fail("Das Journal gehört zu einem anderen Bestand");
+        }
+        catch (ProtokollierException e)
+        {
+            // Fehler erwartet
+        }
+    }
+
+    @Test
+    public void testeBestandskennungHaengtNurVomInhaltAb() throws Exception
+    {
+        File medienDatei = File.createTempFile("medienbestand", ".txt");
+        File kopie = File.createTempFile("medienbestand", ".txt");
+        try
+        {
+            try (FileOutputStream ausgabe = new FileOutputStream(medienDatei))
+            {
+                ausgabe.write("CD;CD1;baz;foo;123\n".getBytes("US-ASCII"));
+            }
+            long kennung = VerleihJournal.berechneBestandskennung(medienDatei);
+            Files.copy(medienDatei.toPath(), kopie.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+            kopie.setLastModified(medienDatei.lastModified() - 60000);
+            medienDatei.setLastModified(medienDatei.lastModified() + 60000);
+
+            assertEquals(kennung,
+                    VerleihJournal.berechneBestandskennung(medienDatei));
+            assertEquals(kennung,
+                    VerleihJournal.berechneBestandskennung(kopie));
+
+            try (FileOutputStream ausgabe = new FileOutputStream(kopie))
+            {
+                ausgabe.write("CD;CD2;baz;foo;123\n".getBytes("US-ASCII"));
+            }
+            assertNotEquals(kennung,
+                    VerleihJournal.berechneBestandskennung(kopie));
+        }
+        finally
+        {
+            medienDatei.delete();
+            kopie.delete();
+        }
+    }
+
+    @Test
+    public void testeGleichzeitigeSchreiberTeilenSicherung() throws Exception
+    {
+        final VerleihJournal journal = new VerleihJournal(_datei, _medien,
+                BESTANDSKENNUNG);
+        List<Thread> threads = new ArrayList<Thread>();
+        final List<Exception> fehler = Collections
+            .synchronizedList(new ArrayList<Exception>());
+        for (int i = 0; i < 8; ++i)
+        {
+            Thread thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for (int j = 0; j < 100; ++j)
+                        {
+                            journal.schreibeVormerkung(_vormerker,
+                                    _medien.get(j % 3), _datum);
+                            journal.warteAufSicherung();
+                        }
+                    }
+                    catch (ProtokollierException e)
+                    {
+                        fehler.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        journal.schliesse();
+
+        assertEquals(Collections.emptyList(), fehler);
+        assertEquals(VerleihJournal.KOPFGROESSE
+                + 800 * VerleihJournal.EINTRAGSGROESSE, _datei.length());
+    }
+
+    private VerleihService erzeugeService(VerleihJournal journal)
+            throws ProtokollierException
+    {
+        return erzeugeService(new MedienbestandServiceImpl(_medien), journal);
+    }
+
+    private VerleihService erzeugeService(MedienbestandService medienbestand,
+            VerleihJournal journal) throws ProtokollierException
+    {
+        return new VerleihServiceImpl(new KundenstammServiceImpl(_kunden),
+                medienbestand, new ArrayList<Verleihkarte>(),
+                new VerleihProtokollierer(), journal);
+    }
+}
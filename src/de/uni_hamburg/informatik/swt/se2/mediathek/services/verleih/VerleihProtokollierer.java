@@ -2,17 +2,22 @@ package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
 
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
 
 /**
- * Ein Verleihprotokollierer schreibt alle Verleihvorgänge in eine Datei.
+ * Ein Verleihprotokollierer schreibt alle Verleihvorgänge in eine Datei. Jeder
+ * Eintrag wird direkt beim Protokollieren an die Datei angehängt.
+ * 
+ * Für ein gepuffertes Schreiben im Hintergrund siehe
+ * GepufferterVerleihProtokollierer.
  * 
  * @author SE2-Team
  * @version SoSe 2021
  */
-class VerleihProtokollierer
+public class VerleihProtokollierer
 {
     /**
      * Textrepräsentation für das Ereignis Ausleihe
@@ -27,7 +32,7 @@ class VerleihProtokollierer
     /**
      * Pfad der Datei, in die das Verleihprotokoll geschrieben wird
      */
-    private static final String DATEIPFAD = "./verleihProtokoll.txt";
+    protected static final String DATEIPFAD = "./verleihProtokoll.txt";
 
     /**
      * Schreibt eine übergebene Verleihkarte ins Protokoll.
@@ -50,10 +55,7 @@ class VerleihProtokollierer
                 ereignis) : "Precondition failed: EREIGNIS_AUSLEIHE.equals(ereignis) || EREIGNIS_RUECKGABE.equals(ereignis)";
         assert verleihkarte != null : "Precondition failed: verleihkarte != null";
 
-        String eintrag = Calendar.getInstance()
-            .getTime()
-            .toString() + ": " + ereignis + "\n"
-                + verleihkarte.getFormatiertenString();
+        String eintrag = formatiereEintrag(ereignis, verleihkarte);
 
         try (FileWriter writer = new FileWriter(DATEIPFAD, true))
         {
@@ -66,6 +68,96 @@ class VerleihProtokollierer
         }
     }
 
+    /**
+     * Schreibt die übergebenen Verleihkarten eines Vorgangs mit einem einzigen
+     * Schreibvorgang ins Protokoll. Die Einträge stehen zusammenhängend in der
+     * Datei.
+     * 
+     * @param ereignis Der Name des Verleihereignis: mögliche Namen sind durch
+     *            die Konstanten EREIGNIS_AUSLEIHE und EREIGNIS_RUECKGABE
+     *            definiert.
+     * @param verleihkarten Die Verleihkarten, die das Verleihereignis
+     *            betrifft.
+     * 
+     * @require EREIGNIS_AUSLEIHE.equals(ereignis) ||
+     *          EREIGNIS_RUECKGABE.equals(ereignis)
+     * @require verleihkarten != null
+     * 
+     * @throws ProtokollierException wenn das Protokollieren nicht geklappt hat.
+     */
+    public void protokolliere(String ereignis, List<Verleihkarte> verleihkarten)
+            throws ProtokollierException
+    {
+        assert EREIGNIS_AUSLEIHE.equals(ereignis) || EREIGNIS_RUECKGABE.equals(
+                ereignis) : "Precondition failed: EREIGNIS_AUSLEIHE.equals(ereignis) || EREIGNIS_RUECKGABE.equals(ereignis)";
+        assert verleihkarten != null : "Precondition failed: verleihkarten != null";
+
+        if (verleihkarten.isEmpty())
+        {
+            return;
+        }
+        try (FileWriter writer = new FileWriter(DATEIPFAD, true))
+        {
+            writer.write(formatiereEintraege(ereignis, verleihkarten));
+        }
+        catch (IOException e)
+        {
+            throw new ProtokollierException(
+                    "Beim Schreiben des Verleihprotokolls ist ein Fehler aufgetreten.");
+        }
+    }
+
+    /**
+     * Schließt den Protokollierer. Danach dürfen keine weiteren Ereignisse
+     * protokolliert werden. Diese Implementation hält keine Datei offen und
+     * tut deshalb nichts.
+     * 
+     * @throws ProtokollierException wenn ausstehende Einträge nicht
+     *             geschrieben werden konnten.
+     */
+    public void schliesse() throws ProtokollierException
+    {
+    }
+
+    /**
+     * Erzeugt den Protokolleintrag für ein Verleihereignis mit dem aktuellen
+     * Zeitpunkt.
+     * 
+     * @param ereignis Der Name des Verleihereignis.
+     * @param verleihkarte eine Verleihkarte, die das Verleihereignis betrifft.
+     * @return Den Protokolleintrag.
+     * 
+     * @ensure result != null
+     */
+    protected String formatiereEintrag(String ereignis,
+            Verleihkarte verleihkarte)
+    {
+        return new Date().toString() + ": " + ereignis + "\n"
+                + verleihkarte.getFormatiertenString();
+    }
+
+    /**
+     * Erzeugt die Protokolleinträge für die Verleihkarten eines Vorgangs als
+     * zusammenhängenden Text.
+     * 
+     * @param ereignis Der Name des Verleihereignis.
+     * @param verleihkarten Die Verleihkarten, die das Verleihereignis
+     *            betrifft.
+     * @return Die Protokolleinträge.
+     * 
+     * @ensure result != null
+     */
+    protected String formatiereEintraege(String ereignis,
+            List<Verleihkarte> verleihkarten)
+    {
+        StringBuilder eintraege = new StringBuilder();
+        for (Verleihkarte verleihkarte : verleihkarten)
+        {
+            eintraege.append(formatiereEintrag(ereignis, verleihkarte));
+        }
+        return eintraege.toString();
+    }
+
     /************************************************
      * Alternative entsprechend Zusatzaufgabe 5.1.7 *
      ************************************************/
@@ -23,6 +23,13 @@ import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
  */
 public interface VerleihService extends ObservableService
 {
+    /**
+     * Die Leihfrist in Tagen. Ein Medium ist überfällig, wenn seine
+     * Ausleihdauer, in der der Ausleihtag vollständig zählt, die Leihfrist
+     * überschreitet.
+     */
+    int LEIHFRIST = 14;
+
     /**
      * Verleiht Medien an einen Kunden. Dabei wird für jedes Medium eine neue
      * Verleihkarte angelegt.
@@ -112,6 +119,32 @@ public interface VerleihService extends ObservableService
     void nimmZurueck(List<Medium> medien, Datum rueckgabeDatum)
             throws ProtokollierException;
 
+    /**
+     * Nimmt einen Stapel zurückgegebener Medien zurück, etwa von einem
+     * Rückgabeautomaten. Anders als bei #nimmZurueck müssen die Medien nicht
+     * verliehen sein: Jedes Medium erhält ein eigenes Rueckgabeergebnis, und
+     * ein Medium, das nicht zurückgenommen werden kann, bricht den Stapel
+     * nicht ab.
+     * 
+     * Die Rücknahmen eines Stapels werden zusammen protokolliert, und die
+     * Beobachter werden einmal über alle Änderungen des Stapels informiert.
+     * 
+     * @param medien Die zurückgegebenen Medien in der Reihenfolge ihrer
+     *            Rückgabe.
+     * @param rueckgabeDatum Das Rückgabedatum.
+     * @return Für jedes Medium ein Ergebnis, in derselben Reihenfolge.
+     * 
+     * @throws ProtokollierException wenn beim Protokollieren ein Fehler
+     *             auftritt. Die Medien sind dann trotzdem zurückgenommen.
+     * 
+     * @require medien != null
+     * @require rueckgabeDatum != null
+     * 
+     * @ensure result.size() == medien.size()
+     */
+    List<Rueckgabeergebnis> nimmZurueckImStapel(List<Medium> medien,
+            Datum rueckgabeDatum) throws ProtokollierException;
+
     /**
      * Prüft ob das angegebene Medium verliehen ist.
      * 
@@ -229,6 +262,52 @@ public interface VerleihService extends ObservableService
      * @ensure (result != null)
      */
     Verleihkarte getVerleihkarteFuer(Medium medium);
+
+    /**
+     * Gibt die aktuelle Verleihkarte für das angegebene Medium zurück, oder
+     * null, wenn das Medium nicht verliehen ist. Anders als bei
+     * #istVerliehen(Medium) und anschließendem
+     * #getVerleihkarteFuer(Medium) kann eine nebenläufige Rückgabe zwischen
+     * Prüfung und Abfrage dabei nicht stören.
+     * 
+     * @param medium Ein Medium.
+     * @return Die Verleihkarte des Mediums oder null.
+     * 
+     * @require medium != null
+     */
+    Verleihkarte sucheVerleihkarte(Medium medium);
+
+    /**
+     * Gibt die Verleihkarten aller Medien zurück, die am angegebenen Tag
+     * überfällig sind, also länger als LEIHFRIST Tage ausgeliehen. Die am
+     * längsten überfälligen Karten stehen vorne.
+     * 
+     * Die Karten werden einem nach Ausleihdatum geordneten Index entnommen,
+     * ohne die übrigen Verleihkarten anzusehen.
+     * 
+     * @param stichtag Der Tag, für den geprüft wird.
+     * @return Die überfälligen Verleihkarten. Eine leere Liste, wenn kein
+     *         Medium überfällig ist.
+     * 
+     * @require stichtag != null
+     * 
+     * @ensure result != null
+     */
+    List<Verleihkarte> getUeberfaelligeVerleihkarten(Datum stichtag);
+
+    /**
+     * Gibt die Verleihkarten der Medien zurück, die als nächste fällig werden
+     * oder es schon sind, in der Reihenfolge ihrer Fälligkeit.
+     * 
+     * @param anzahl Die höchstens gelieferte Anzahl an Verleihkarten.
+     * @return Die Verleihkarten. Weniger als anzahl, wenn nicht so viele
+     *         Medien verliehen sind.
+     * 
+     * @require anzahl >= 0
+     * 
+     * @ensure result != null
+     */
+    List<Verleihkarte> getNaechsteFaelligeVerleihkarten(int anzahl);
     
     /**
      * Getter Funktion, welche die vorvermerketen Medien der Kundenliste zuordnen
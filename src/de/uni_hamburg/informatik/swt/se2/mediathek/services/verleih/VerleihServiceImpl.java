@@ -2,18 +2,22 @@ package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Vormerkkarte;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
-import de.uni_hamburg.informatik.swt.se2.mediathek.services.AbstractObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung.Art;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
+import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Kundennummer;
 
 /**
  * Diese Klasse implementiert das Interface VerleihService. Siehe dortiger
@@ -22,8 +26,7 @@ import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
  * @author SE2-Team
  * @version SoSe 2021
  */
-public class VerleihServiceImpl extends AbstractObservableService
-        implements VerleihService
+public class VerleihServiceImpl extends AbstractVerleihService
 {
     /**
      * Diese Map speichert für jedes eingefügte Medium die dazugehörige
@@ -31,6 +34,19 @@ public class VerleihServiceImpl extends AbstractObservableService
      * die Angabe des Mediums möglich. Beispiel: _verleihkarten.get(medium)
      */
     private Map<Medium, Verleihkarte> _verleihkarten;
+
+    /**
+     * Dieser Index speichert für jeden Kunden, der aktuell etwas ausgeliehen
+     * hat, die Menge seiner Verleihkarten. Er wird nur gemeinsam mit
+     * _verleihkarten verändert.
+     */
+    private Map<Kunde, Set<Verleihkarte>> _verleihkartenProKunde;
+
+    /**
+     * Dieser Index ordnet die Verleihkarten nach ihrem Ausleihdatum. Er wird
+     * nur gemeinsam mit _verleihkarten verändert.
+     */
+    private FaelligkeitsIndex _faelligkeitsIndex;
     
     private Map<Medium, Vormerkkarte> _vormerkkarten;
     
@@ -38,57 +54,263 @@ public class VerleihServiceImpl extends AbstractObservableService
     
 
     /**
-     * Der Medienbestand.
+     * Der Protokollierer für die Verleihvorgänge.
      */
-    private MedienbestandService _medienbestand;
+    private VerleihProtokollierer _protokollierer;
 
     /**
-     * Der Kundenstamm.
+     * Das Journal, in dem Ausleihen, Rückgaben und Vormerkungen gesichert
+     * werden, oder null.
      */
-    private KundenstammService _kundenstamm;
+    private VerleihJournal _journal;
 
     /**
-     * Der Protokollierer für die Verleihvorgänge.
+     * Konstruktor. Erzeugt einen neuen VerleihServiceImpl.
+     * 
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param initialBestand Der initiale Bestand.
+     * 
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require initialBestand != null
      */
-    private VerleihProtokollierer _protokollierer;
+    public VerleihServiceImpl(KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            List<Verleihkarte> initialBestand)
+    {
+        this(kundenstamm, medienbestand, initialBestand,
+                new VerleihProtokollierer());
+    }
 
     /**
-     * Konstruktor. Erzeugt einen neuen VerleihServiceImpl.
+     * Konstruktor. Erzeugt einen neuen VerleihServiceImpl, der seine
+     * Verleihvorgänge mit dem angegebenen Protokollierer protokolliert.
      * 
      * @param kundenstamm Der KundenstammService.
      * @param medienbestand Der MedienbestandService.
      * @param initialBestand Der initiale Bestand.
+     * @param protokollierer Der Protokollierer für die Verleihvorgänge.
      * 
      * @require kundenstamm != null
      * @require medienbestand != null
      * @require initialBestand != null
+     * @require protokollierer != null
      */
     public VerleihServiceImpl(KundenstammService kundenstamm,
             MedienbestandService medienbestand,
-            List<Verleihkarte> initialBestand)
+            List<Verleihkarte> initialBestand,
+            VerleihProtokollierer protokollierer)
     {
-        assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm  != null";
-        assert medienbestand != null : "Vorbedingung verletzt: medienbestand  != null";
+        super(kundenstamm, medienbestand);
         assert initialBestand != null : "Vorbedingung verletzt: initialBestand  != null";
-        _verleihkarten = erzeugeVerleihkartenBestand(initialBestand);
-        _kundenstamm = kundenstamm;
-        _medienbestand = medienbestand;
-        _protokollierer = new VerleihProtokollierer();
+        assert protokollierer != null : "Vorbedingung verletzt: protokollierer != null";
+        _verleihkarten = new HashMap<Medium, Verleihkarte>();
+        _verleihkartenProKunde = new HashMap<Kunde, Set<Verleihkarte>>();
+        _faelligkeitsIndex = new FaelligkeitsIndex();
+        for (Verleihkarte verleihkarte : initialBestand)
+        {
+            fuegeVerleihkarteEin(verleihkarte);
+        }
+        _protokollierer = protokollierer;
         _vormerkkarten = new HashMap<>();
     }
 
     /**
-     * Erzeugt eine neue HashMap aus dem Initialbestand.
+     * Konstruktor. Erzeugt einen neuen VerleihServiceImpl, wendet die Vorgänge
+     * aus dem Journal auf den initialen Bestand an und sichert alle weiteren
+     * Ausleihen, Rückgaben und Vormerkungen im Journal, bevor die Operation
+     * zurückkehrt.
+     * 
+     * @param kundenstamm Der KundenstammService.
+     * @param medienbestand Der MedienbestandService.
+     * @param initialBestand Der initiale Bestand.
+     * @param protokollierer Der Protokollierer für die Verleihvorgänge.
+     * @param journal Das Journal, das mit den Medien des Medienbestands
+     *            geöffnet wurde.
+     * 
+     * @throws ProtokollierException wenn das Journal nicht gelesen werden
+     *             konnte.
+     * 
+     * @require kundenstamm != null
+     * @require medienbestand != null
+     * @require initialBestand != null
+     * @require protokollierer != null
+     * @require journal != null
      */
-    private HashMap<Medium, Verleihkarte> erzeugeVerleihkartenBestand(
-            List<Verleihkarte> initialBestand)
+    public VerleihServiceImpl(final KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            List<Verleihkarte> initialBestand,
+            VerleihProtokollierer protokollierer, VerleihJournal journal)
+            throws ProtokollierException
     {
-        HashMap<Medium, Verleihkarte> result = new HashMap<Medium, Verleihkarte>();
-        for (Verleihkarte verleihkarte : initialBestand)
+        this(kundenstamm, medienbestand, initialBestand, protokollierer);
+        assert journal != null : "Vorbedingung verletzt: journal != null";
+        journal.spieleEin(new VerleihJournal.Empfaenger()
+        {
+            @Override
+            public void verleihe(Medium medium, Kundennummer kundennummer,
+                    Datum ausleihDatum)
+            {
+                Kunde kunde = kundenstamm.getKunden(kundennummer);
+                if (kunde != null)
+                {
+                    trageAusleiheEin(kunde, medium, ausleihDatum);
+                }
+            }
+
+            @Override
+            public void nimmZurueck(Medium medium)
+            {
+                entferneVerleihkarte(medium);
+            }
+
+            @Override
+            public void merkeVor(Medium medium, Kundennummer kundennummer)
+            {
+                Kunde kunde = kundenstamm.getKunden(kundennummer);
+                if (kunde != null)
+                {
+                    trageVormerkungEin(kunde, medium);
+                }
+            }
+        });
+        _journal = journal;
+    }
+
+    /**
+     * Trägt eine Verleihkarte in die Verleihkarten-Map, in den Index der
+     * Verleihkarten pro Kunde und in den Fälligkeitsindex ein. Eine eventuell
+     * vorhandene Karte für dasselbe Medium wird dabei ersetzt.
+     * 
+     * @param verleihkarte Die einzutragende Verleihkarte.
+     */
+    private void fuegeVerleihkarteEin(Verleihkarte verleihkarte)
+    {
+        Verleihkarte alteKarte = _verleihkarten.put(verleihkarte.getMedium(),
+                verleihkarte);
+        if (alteKarte != null)
+        {
+            entferneAusKundenIndex(alteKarte);
+            _faelligkeitsIndex.entferne(alteKarte);
+        }
+        _faelligkeitsIndex.fuegeEin(verleihkarte);
+        Set<Verleihkarte> karten = _verleihkartenProKunde
+            .get(verleihkarte.getEntleiher());
+        if (karten == null)
+        {
+            karten = new LinkedHashSet<Verleihkarte>();
+            _verleihkartenProKunde.put(verleihkarte.getEntleiher(), karten);
+        }
+        karten.add(verleihkarte);
+    }
+
+    /**
+     * Verleiht ein Medium an einen Kunden und streicht den Kunden aus den
+     * Vormerkern des Mediums.
+     * 
+     * @param kunde Der Entleiher.
+     * @param medium Das zu verleihende Medium.
+     * @param ausleihDatum Das Ausleihdatum.
+     * @return Die neue Verleihkarte.
+     */
+    private Verleihkarte trageAusleiheEin(Kunde kunde, Medium medium,
+            Datum ausleihDatum)
+    {
+        Vormerkkarte vormerkkarte = _vormerkkarten.get(medium);
+        if (vormerkkarte != null && vormerkkarte.getVormerker()
+            .contains(kunde))
+        {
+            vormerkkarte.entferneKunde(kunde);
+        }
+        Verleihkarte verleihkarte = new Verleihkarte(kunde, medium,
+                ausleihDatum);
+        fuegeVerleihkarteEin(verleihkarte);
+        return verleihkarte;
+    }
+
+    /**
+     * Merkt ein Medium für einen Kunden vor, sofern er es nicht selbst
+     * ausgeliehen hat und das Vormerken möglich ist.
+     * 
+     * @param kunde Der vormerkende Kunde.
+     * @param medium Das vorzumerkende Medium.
+     * @return true, wenn der Kunde als Vormerker eingetragen wurde, sonst
+     *         false.
+     */
+    private boolean trageVormerkungEin(Kunde kunde, Medium medium)
+    {
+        if (istVerliehenAn(kunde, medium))
+        {
+            return false;
+        }
+        Vormerkkarte vormerker = _vormerkkarten.get(medium);
+        if (vormerker == null)
+        {
+            _vormerkkarten.put(medium, new Vormerkkarte(medium, kunde));
+            return true;
+        }
+        if (!vormerker.istVormerkenMoeglich(kunde))
+        {
+            return false;
+        }
+        vormerker.fuegeKundeHinzu(kunde);
+        return true;
+    }
+
+    /**
+     * Wartet, bis die Einträge der laufenden Operation im Journal gesichert
+     * sind. Ohne Journal kehrt die Methode sofort zurück.
+     * 
+     * @throws ProtokollierException wenn das Journal nicht geschrieben werden
+     *             konnte.
+     */
+    private void sichereJournal() throws ProtokollierException
+    {
+        if (_journal != null)
+        {
+            _journal.warteAufSicherung();
+        }
+    }
+
+    /**
+     * Entfernt die Verleihkarte für ein Medium aus der Verleihkarten-Map, aus
+     * dem Index der Verleihkarten pro Kunde und aus dem Fälligkeitsindex.
+     * 
+     * @param medium Ein Medium.
+     * @return Die entfernte Verleihkarte oder null, wenn das Medium nicht
+     *         verliehen war.
+     */
+    private Verleihkarte entferneVerleihkarte(Medium medium)
+    {
+        Verleihkarte verleihkarte = _verleihkarten.remove(medium);
+        if (verleihkarte != null)
+        {
+            entferneAusKundenIndex(verleihkarte);
+            _faelligkeitsIndex.entferne(verleihkarte);
+        }
+        return verleihkarte;
+    }
+
+    /**
+     * Entfernt eine Verleihkarte aus dem Index der Verleihkarten pro Kunde.
+     * Hat der Kunde danach nichts mehr ausgeliehen, wird sein Eintrag
+     * gelöscht.
+     * 
+     * @param verleihkarte Eine Verleihkarte.
+     */
+    private void entferneAusKundenIndex(Verleihkarte verleihkarte)
+    {
+        Kunde entleiher = verleihkarte.getEntleiher();
+        Set<Verleihkarte> karten = _verleihkartenProKunde.get(entleiher);
+        if (karten != null)
         {
-            result.put(verleihkarte.getMedium(), verleihkarte);
+            karten.remove(verleihkarte);
+            if (karten.isEmpty())
+            {
+                _verleihkartenProKunde.remove(entleiher);
+            }
         }
-        return result;
     }
 
     @Override
@@ -98,22 +320,24 @@ public class VerleihServiceImpl extends AbstractObservableService
     }
 
     @Override
-    public boolean istVerliehen(Medium medium)
+    public Verleihkarte sucheVerleihkarte(Medium medium)
     {
-        assert mediumImBestand(
-                medium) : "Vorbedingung verletzt: mediumExistiert(medium)";
-        return _verleihkarten.get(medium) != null;
+        return _verleihkarten.get(medium);
     }
 
     @Override
-    public boolean istVerleihenMoeglich(Kunde kunde, List<Medium> medien)
+    public List<Verleihkarte> getUeberfaelligeVerleihkarten(Datum stichtag)
     {
-        assert kundeImBestand(
-                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
-        assert medienImBestand(
-                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
+        assert stichtag != null : "Vorbedingung verletzt: stichtag != null";
+        return _faelligkeitsIndex
+            .getAusgeliehenBis(letzterUeberfaelligerAusleihtag(stichtag));
+    }
 
-        return sindAlleNichtVerliehen(medien);
+    @Override
+    public List<Verleihkarte> getNaechsteFaelligeVerleihkarten(int anzahl)
+    {
+        assert anzahl >= 0 : "Vorbedingung verletzt: anzahl >= 0";
+        return _faelligkeitsIndex.getAelteste(anzahl);
     }
 
     @Override
@@ -124,78 +348,87 @@ public class VerleihServiceImpl extends AbstractObservableService
                 medien) : "Vorbedingung verletzt: sindAlleVerliehen(medien)";
         assert rueckgabeDatum != null : "Vorbedingung verletzt: rueckgabeDatum != null";
 
+        List<Verleihkarte> entfernteKarten = new ArrayList<Verleihkarte>();
         for (Medium medium : medien)
         {
-            Verleihkarte verleihkarte = _verleihkarten.get(medium);
-            _verleihkarten.remove(medium);
-            _protokollierer.protokolliere(
-                    VerleihProtokollierer.EREIGNIS_RUECKGABE, verleihkarte);
+            entfernteKarten.add(entferneVerleihkarte(medium));
         }
-
-        informiereUeberAenderung();
+        sichereRueckgaben(entfernteKarten, rueckgabeDatum);
     }
 
     @Override
-    public boolean sindAlleNichtVerliehen(List<Medium> medien)
+    public List<Rueckgabeergebnis> nimmZurueckImStapel(List<Medium> medien,
+            Datum rueckgabeDatum) throws ProtokollierException
     {
-        assert medienImBestand(
-                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
-        boolean result = true;
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert rueckgabeDatum != null : "Vorbedingung verletzt: rueckgabeDatum != null";
+
+        List<Rueckgabeergebnis> ergebnisse = new ArrayList<Rueckgabeergebnis>(
+                medien.size());
+        List<Verleihkarte> entfernteKarten = new ArrayList<Verleihkarte>();
         for (Medium medium : medien)
         {
-            if (istVerliehen(medium))
+            if (!mediumImBestand(medium))
             {
-                result = false;
+                ergebnisse.add(Rueckgabeergebnis.abgelehnt(medium,
+                        Rueckgabeergebnis.Status.NICHT_IM_BESTAND));
+                continue;
             }
-        }
-        return result;
-    }
-
-    @Override
-    public boolean sindAlleVerliehenAn(Kunde kunde, List<Medium> medien)
-    {
-        assert kundeImBestand(
-                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
-        assert medienImBestand(
-                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
-
-        boolean result = true;
-        for (Medium medium : medien)
-        {
-            if (!istVerliehenAn(kunde, medium))
+            Verleihkarte verleihkarte = entferneVerleihkarte(medium);
+            if (verleihkarte == null)
+            {
+                ergebnisse.add(Rueckgabeergebnis.abgelehnt(medium,
+                        Rueckgabeergebnis.Status.NICHT_VERLIEHEN));
+            }
+            else
             {
-                result = false;
+                entfernteKarten.add(verleihkarte);
+                ergebnisse
+                    .add(Rueckgabeergebnis.zurueckgenommen(verleihkarte));
             }
         }
-        return result;
+        sichereRueckgaben(entfernteKarten, rueckgabeDatum);
+        return ergebnisse;
     }
 
-    @Override
-    public boolean istVerliehenAn(Kunde kunde, Medium medium)
-    {
-        assert kundeImBestand(
-                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
-        assert mediumImBestand(
-                medium) : "Vorbedingung verletzt: mediumImBestand(medium)";
-
-        return istVerliehen(medium) && getEntleiherFuer(medium).equals(kunde);
-    }
-
-    @Override
-    public boolean sindAlleVerliehen(List<Medium> medien)
+    /**
+     * Protokolliert die bereits entfernten Verleihkarten mit einem
+     * Schreibvorgang, sichert sie im Journal und informiert die Beobachter
+     * einmal über alle Rücknahmen, auch wenn das Protokollieren fehlschlägt.
+     * 
+     * @param entfernteKarten Die entfernten Verleihkarten.
+     * @param rueckgabeDatum Das Rückgabedatum.
+     * 
+     * @throws ProtokollierException wenn das Protokoll oder das Journal nicht
+     *             geschrieben werden konnte.
+     */
+    private void sichereRueckgaben(List<Verleihkarte> entfernteKarten,
+            Datum rueckgabeDatum) throws ProtokollierException
     {
-        assert medienImBestand(
-                medien) : "Vorbedingung verletzt: medienImBestand(medien)";
-
-        boolean result = true;
-        for (Medium medium : medien)
+        List<ServiceAenderung> aenderungen = new ArrayList<ServiceAenderung>(
+                entfernteKarten.size());
+        for (Verleihkarte verleihkarte : entfernteKarten)
+        {
+            aenderungen.add(ServiceAenderung.fuerVerleihkarte(Art.ENTFERNT,
+                    verleihkarte));
+        }
+        try
         {
-            if (!istVerliehen(medium))
+            if (_journal != null)
             {
-                result = false;
+                for (Verleihkarte verleihkarte : entfernteKarten)
+                {
+                    _journal.schreibeRueckgabe(verleihkarte, rueckgabeDatum);
+                }
             }
+            _protokollierer.protokolliere(
+                    VerleihProtokollierer.EREIGNIS_RUECKGABE, entfernteKarten);
+            sichereJournal();
+        }
+        finally
+        {
+            informiereUeberAenderungen(aenderungen);
         }
-        return result;
     }
 
     @Override
@@ -212,105 +445,40 @@ public class VerleihServiceImpl extends AbstractObservableService
         assert istVerleihenMoeglich(kunde,
                 medien) : "Vorbedingung verletzt:  istVerleihenMoeglich(kunde, medien)";
         
-
-        
-        	for (Medium medium : medien)
+        List<Verleihkarte> neueKarten = new ArrayList<Verleihkarte>();
+        List<ServiceAenderung> aenderungen = new ArrayList<ServiceAenderung>();
+        try
+        {
+            for (Medium medium : medien)
             {
                 if (!istVerliehen(medium))
                 {
-                    if (_vormerkkarten.containsKey(medium))
+                    Vormerkkarte vormerker = _vormerkkarten.get(medium);
+                    if (vormerker != null && vormerker.istVorgemerkt()
+                            && !vormerker.istErsterVormerker(kunde))
                     {
-	                	Vormerkkarte vormerker = _vormerkkarten.get(medium);
-	                    if (!vormerker.istVorgemerkt() || (vormerker.istErsterVormerker(kunde)))
-	                    {
-	                    	Verleihkarte verleihkarte = new Verleihkarte(kunde, medium, ausleihDatum);
-	                    	_verleihkarten.put(medium, verleihkarte);
-	                    	_protokollierer.protokolliere(VerleihProtokollierer.EREIGNIS_AUSLEIHE, verleihkarte);
-	                    }                
-	                    else
-	                    {
-	                    	throw new IllegalStateException("Nur der erste Vormerker darf ausleihen!");
-	                    }                    
-	                    if (vormerker.istVorgemerkt())
-	                    {
-	                        vormerker.entferneKunde(kunde);
-	                    }  
+                        throw new IllegalStateException(
+                                "Nur der erste Vormerker darf ausleihen!");
                     }
-                    else
+                    Verleihkarte verleihkarte = trageAusleiheEin(kunde,
+                            medium, ausleihDatum);
+                    neueKarten.add(verleihkarte);
+                    aenderungen.add(ServiceAenderung
+                        .fuerVerleihkarte(Art.HINZUGEFUEGT, verleihkarte));
+                    if (_journal != null)
                     {
-                    	Verleihkarte verleihkarte = new Verleihkarte(kunde, medium, ausleihDatum);
-                    	_verleihkarten.put(medium, verleihkarte);
-                    	_protokollierer.protokolliere(VerleihProtokollierer.EREIGNIS_AUSLEIHE, verleihkarte);
+                        _journal.schreibeAusleihe(verleihkarte);
                     }
                 }
             }
-        // Was passiert wenn das Protokollieren mitten in der Schleife
-        // schief geht? informiereUeberAenderung in einen finally Block?
-        informiereUeberAenderung();
-    }
-
-    @Override
-    public boolean kundeImBestand(Kunde kunde)
-    {
-        return _kundenstamm.enthaeltKunden(kunde);
-    }
-
-    @Override
-    public boolean mediumImBestand(Medium medium)
-    {
-        return _medienbestand.enthaeltMedium(medium);
-    }
-
-    @Override
-    public boolean medienImBestand(List<Medium> medien)
-    {
-        assert medien != null : "Vorbedingung verletzt: medien != null";
-        assert !medien.isEmpty() : "Vorbedingung verletzt: !medien.isEmpty()";
-
-        boolean result = true;
-        for (Medium medium : medien)
-        {
-            if (!mediumImBestand(medium))
-            {
-                result = false;
-                break;
-            }
+            _protokollierer.protokolliere(
+                    VerleihProtokollierer.EREIGNIS_AUSLEIHE, neueKarten);
+            sichereJournal();
         }
-        return result;
-    }
-
-    @Override
-    public List<Medium> getAusgelieheneMedienFuer(Kunde kunde)
-    {
-        assert kundeImBestand(
-                kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
-        List<Medium> result = new ArrayList<Medium>();
-        for (Verleihkarte verleihkarte : _verleihkarten.values())
+        finally
         {
-            if (verleihkarte.getEntleiher()
-                .equals(kunde))
-            {
-                result.add(verleihkarte.getMedium());
-            }
+            informiereUeberAenderungen(aenderungen);
         }
-        return result;
-    }
-
-    @Override
-    public Kunde getEntleiherFuer(Medium medium)
-    {
-        assert istVerliehen(
-                medium) : "Vorbedingung verletzt: istVerliehen(medium)";
-        Verleihkarte verleihkarte = _verleihkarten.get(medium);
-        return verleihkarte.getEntleiher();
-    }
-
-    @Override
-    public Verleihkarte getVerleihkarteFuer(Medium medium)
-    {
-        assert istVerliehen(
-                medium) : "Vorbedingung verletzt: istVerliehen(medium)";
-        return _verleihkarten.get(medium);
     }
 
     @Override
@@ -318,16 +486,12 @@ public class VerleihServiceImpl extends AbstractObservableService
     {
         assert kundeImBestand(
                 kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
-        List<Verleihkarte> result = new ArrayList<Verleihkarte>();
-        for (Verleihkarte verleihkarte : _verleihkarten.values())
+        Set<Verleihkarte> karten = _verleihkartenProKunde.get(kunde);
+        if (karten == null)
         {
-            if (verleihkarte.getEntleiher()
-                .equals(kunde))
-            {
-                result.add(verleihkarte);
-            }
+            return new ArrayList<Verleihkarte>();
         }
-        return result;
+        return new ArrayList<Verleihkarte>(karten);
     }
     
     @Override
@@ -337,16 +501,23 @@ public class VerleihServiceImpl extends AbstractObservableService
     	assert medium != null : "Vorbedingung verletzt: medium != null";
     	assert kundeImBestand(kunde) : "Vorbedingung verletzt: kundeImBestand(kunde)";
     	assert mediumImBestand(medium) : "Vorbedingung verletzt: mediumImBestand(kunde)";
-    	if (!istVerliehenAn(kunde, medium))
-    	{   	
-	    	_vormerkkarten.putIfAbsent(medium, new Vormerkkarte(medium, kunde));
-	    	Vormerkkarte vormerker = _vormerkkarten.get(medium);
-	    	if (vormerker.istVormerkenMoeglich(kunde))
-	    	{
-	    		_vormerkkarten.get(medium).fuegeKundeHinzu(kunde);
-	    	}
-    	}
-    	informiereUeberAenderung();
+        if (!trageVormerkungEin(kunde, medium))
+        {
+            return;
+        }
+        if (_journal != null)
+        {
+            try
+            {
+                _journal.schreibeVormerkung(kunde, medium, Datum.heute());
+                _journal.warteAufSicherung();
+            }
+            catch (ProtokollierException e)
+            {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+    	informiereUeberAenderung(ServiceAenderung.fuerMedium(Art.GEAENDERT, medium));
     }
     
     @Override
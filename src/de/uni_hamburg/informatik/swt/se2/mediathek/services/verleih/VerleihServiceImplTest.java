@@ -2,9 +2,13 @@ package de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -14,6 +18,8 @@ import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.CD;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung.Art;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceObserver;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
@@ -116,6 +122,9 @@ public class VerleihServiceImplTest
         // Prüfe alle sonstigen sondierenden Methoden
         assertEquals(2, _service.getVerleihkarten()
             .size());
+        assertSame(_service.getVerleihkarteFuer(verlieheneMedien.get(0)),
+                _service.sucheVerleihkarte(verlieheneMedien.get(0)));
+        assertNull(_service.sucheVerleihkarte(nichtVerlieheneMedien.get(0)));
 
         _service.nimmZurueck(verlieheneMedien, _datum);
         // Prüfe, ob alle sondierenden Operationen für das Vertragsmodell
@@ -132,6 +141,7 @@ public class VerleihServiceImplTest
         assertTrue(_service.sindAlleNichtVerliehen(_medienListe));
         assertTrue(_service.getVerleihkarten()
             .isEmpty());
+        assertNull(_service.sucheVerleihkarte(verlieheneMedien.get(0)));
     }
 
     @Test
@@ -163,6 +173,64 @@ public class VerleihServiceImplTest
         assertFalse(ereignisse[0]);
     }
     
+    @Test
+    public void testVerleihEreignisseEnthaltenVerleihkarten()
+            throws ProtokollierException
+    {
+        final List<ServiceAenderung> aenderungen = new ArrayList<ServiceAenderung>();
+        _service.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+                fail("Der Service soll die Änderungen einzeln melden");
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> neueAenderungen)
+            {
+                aenderungen.addAll(neueAenderungen);
+            }
+        });
+        List<Medium> medien = _medienListe.subList(0, 2);
+        _service.verleiheAn(_kunde, medien, _datum);
+        assertEquals(2, aenderungen.size());
+        for (int i = 0; i < 2; ++i)
+        {
+            assertEquals(Art.HINZUGEFUEGT, aenderungen.get(i)
+                .getArt());
+            assertSame(medien.get(i), aenderungen.get(i)
+                .getMedium());
+            assertSame(_kunde, aenderungen.get(i)
+                .getKunde());
+        }
+
+        aenderungen.clear();
+        _service.nimmZurueck(medien.subList(0, 1), _datum);
+        assertEquals(1, aenderungen.size());
+        assertEquals(Art.ENTFERNT, aenderungen.get(0)
+            .getArt());
+        assertSame(medien.get(0), aenderungen.get(0)
+            .getVerleihkarte()
+            .getMedium());
+
+        aenderungen.clear();
+        _service.merkeVor(_kunde2, medien.get(1));
+        assertEquals(1, aenderungen.size());
+        assertEquals(Art.GEAENDERT, aenderungen.get(0)
+            .getArt());
+        assertSame(medien.get(1), aenderungen.get(0)
+            .getMedium());
+        assertNull(aenderungen.get(0)
+            .getVerleihkarte());
+
+        // Eine zweite Vormerkung desselben Kunden ändert nichts
+        aenderungen.clear();
+        _service.merkeVor(_kunde2, medien.get(1));
+        assertTrue(aenderungen.isEmpty());
+    }
+
     @Test
     public void testMerkeVorDoppelt()
     {
@@ -228,4 +296,177 @@ public class VerleihServiceImplTest
     	}
     }
 
+    @Test
+    public void testVerleihkartenFuerKunde() throws Exception
+    {
+        List<Medium> medienKunde = _medienListe.subList(0, 2);
+        List<Medium> medienKunde1 = _medienListe.subList(2, 3);
+        assertTrue(_service.getVerleihkartenFuer(_kunde)
+            .isEmpty());
+
+        _service.verleiheAn(_kunde, medienKunde, _datum);
+        _service.verleiheAn(_kunde1, medienKunde1, _datum);
+        assertEquals(2, _service.getVerleihkartenFuer(_kunde)
+            .size());
+        assertTrue(_service.getAusgelieheneMedienFuer(_kunde)
+            .containsAll(medienKunde));
+        assertEquals(medienKunde1, _service.getAusgelieheneMedienFuer(_kunde1));
+
+        _service.nimmZurueck(medienKunde.subList(0, 1), _datum);
+        assertEquals(medienKunde.subList(1, 2),
+                _service.getAusgelieheneMedienFuer(_kunde));
+
+        _service.nimmZurueck(medienKunde.subList(1, 2), _datum);
+        assertTrue(_service.getVerleihkartenFuer(_kunde)
+            .isEmpty());
+        assertEquals(1, _service.getVerleihkartenFuer(_kunde1)
+            .size());
+    }
+
+    @Test
+    public void testeUeberfaelligeUndNaechsteFaelligeVerleihkarten()
+            throws Exception
+    {
+        Medium cd1 = _medienListe.get(0);
+        Medium cd2 = _medienListe.get(1);
+        Medium cd3 = _medienListe.get(2);
+        _service.verleiheAn(_kunde, Arrays.asList(cd2), new Datum(10, 4, 2021));
+        _service.verleiheAn(_kunde, Arrays.asList(cd1), new Datum(1, 4, 2021));
+        _service.verleiheAn(_kunde1, Arrays.asList(cd3),
+                new Datum(5, 4, 2021));
+
+        assertTrue(_service.getUeberfaelligeVerleihkarten(new Datum(14, 4, 2021))
+            .isEmpty());
+        assertEquals(Arrays.asList(cd1), getMedien(
+                _service.getUeberfaelligeVerleihkarten(new Datum(15, 4, 2021))));
+        assertEquals(Arrays.asList(cd1, cd3), getMedien(
+                _service.getUeberfaelligeVerleihkarten(new Datum(19, 4, 2021))));
+
+        assertEquals(Arrays.asList(cd1, cd3),
+                getMedien(_service.getNaechsteFaelligeVerleihkarten(2)));
+        assertEquals(Arrays.asList(cd1, cd3, cd2),
+                getMedien(_service.getNaechsteFaelligeVerleihkarten(10)));
+
+        _service.nimmZurueck(Arrays.asList(cd1), _datum);
+        assertEquals(Arrays.asList(cd3),
+                getMedien(_service.getNaechsteFaelligeVerleihkarten(1)));
+        assertTrue(_service.getUeberfaelligeVerleihkarten(new Datum(15, 4, 2021))
+            .isEmpty());
+    }
+
+    @Test
+    public void testeAusleiheWirdTrotzFehlschlagendemProtokollGemeldet()
+    {
+        KundenstammService kundenstamm = new KundenstammServiceImpl(
+                Arrays.asList(_kunde));
+        MedienbestandService medienbestand = new MedienbestandServiceImpl(
+                _medienListe);
+        VerleihService service = new VerleihServiceImpl(kundenstamm,
+                medienbestand, new ArrayList<Verleihkarte>(),
+                new VerleihProtokollierer()
+                {
+                    @Override
+                    public void protokolliere(String ereignis,
+                            List<Verleihkarte> verleihkarten)
+                            throws ProtokollierException
+                    {
+                        throw new ProtokollierException("Platte voll");
+                    }
+                });
+        final List<ServiceAenderung> gemeldet = new ArrayList<ServiceAenderung>();
+        service.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                gemeldet.addAll(aenderungen);
+            }
+        });
+        List<Medium> medien = Arrays.asList(_medienListe.get(0),
+                _medienListe.get(1));
+
+        try
+        {
+            service.verleiheAn(_kunde, medien, _datum);
+            fail("ProtokollierException erwartet");
+        }
+        catch (ProtokollierException e)
+        {
+            assertTrue(service.sindAlleVerliehen(medien));
+            assertEquals(2, gemeldet.size());
+        }
+    }
+
+    @Test
+    public void testeRueckgabeImStapelMeldetJedesMedium() throws Exception
+    {
+        final List<List<ServiceAenderung>> meldungen = new ArrayList<List<ServiceAenderung>>();
+        _service.registriereBeobachter(new ServiceObserver()
+        {
+            @Override
+            public void reagiereAufAenderung()
+            {
+            }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                meldungen.add(aenderungen);
+            }
+        });
+        Medium cd1 = _medienListe.get(0);
+        Medium cd2 = _medienListe.get(1);
+        Medium cd3 = _medienListe.get(2);
+        Medium fremdeCD = new CD("CD5", "baz", "foo", 123);
+        _service.verleiheAn(_kunde, Arrays.asList(cd1, cd2), _datum);
+        meldungen.clear();
+
+        List<Rueckgabeergebnis> ergebnisse = _service.nimmZurueckImStapel(
+                Arrays.asList(cd1, cd3, fremdeCD, cd2, cd1), _datum);
+
+        assertEquals(5, ergebnisse.size());
+        assertEquals(Rueckgabeergebnis.Status.ZURUECKGENOMMEN,
+                ergebnisse.get(0)
+                    .getStatus());
+        assertEquals(Rueckgabeergebnis.Status.NICHT_VERLIEHEN,
+                ergebnisse.get(1)
+                    .getStatus());
+        assertEquals(Rueckgabeergebnis.Status.NICHT_IM_BESTAND,
+                ergebnisse.get(2)
+                    .getStatus());
+        assertEquals(Rueckgabeergebnis.Status.ZURUECKGENOMMEN,
+                ergebnisse.get(3)
+                    .getStatus());
+        assertEquals(Rueckgabeergebnis.Status.NICHT_VERLIEHEN,
+                ergebnisse.get(4)
+                    .getStatus());
+        assertSame(_kunde, ergebnisse.get(0)
+            .getVerleihkarte()
+            .getEntleiher());
+        assertNull(ergebnisse.get(1)
+            .getVerleihkarte());
+        assertTrue(_service.getVerleihkarten()
+            .isEmpty());
+        assertEquals(1, meldungen.size());
+        assertEquals(2, meldungen.get(0)
+            .size());
+    }
+
+    private static List<Medium> getMedien(List<Verleihkarte> verleihkarten)
+    {
+        List<Medium> medien = new ArrayList<Medium>();
+        for (Verleihkarte verleihkarte : verleihkarten)
+        {
+            medien.add(verleihkarte.getMedium());
+        }
+        return medien;
+    }
+
 }
@@ -0,0 +1,149 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.startup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.server.MediathekServer;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.AenderungsBus;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.BestandSchreiber;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DateiLeseException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DatenEinleser;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.SicherungspunktPlaner;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.suche.MedienSucheServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.GepufferterVerleihProtokollierer;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.PartitionierterVerleihServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihJournal;
+
+/**
+ * Startet die Mediathek ohne grafische Oberfläche als HTTP-Server für
+ * Selbstbedienungsterminals. Der Port kann als erstes Argument angegeben
+ * werden.
+ *
+ * Der Bestand wird aus den Textdateien eingelesen. Auf ihn werden die
+ * Verleihvorgänge aus dem Journal angewendet, in dem jeder Vorgang gesichert
+ * wird, bevor der Server ihn bestätigt. Ein SicherungspunktPlaner schreibt den
+ * Bestand regelmäßig in die Textdateien zurück und kürzt dabei das Journal.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class StartUpMediathekServer
+{
+    private static final File KUNDEN_DATEI = new File(
+            "./bestand/kundenstamm.txt");
+    private static final File MEDIEN_DATEI = new File(
+            "./bestand/medienbestand.txt");
+    private static final File JOURNAL_DATEI = new File(
+            "./bestand/verleih.journal");
+    private static final File KUNDEN_BACKUP = new File(
+            "./bestand/kundenstammBackup.txt");
+    private static final File MEDIEN_BACKUP = new File(
+            "./bestand/medienbestandBackup.txt");
+
+    private static final int STANDARD_PORT = 8080;
+
+    /**
+     * Main-Methode, mit der der Server gestartet wird.
+     */
+    public static void main(String[] args)
+    {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : STANDARD_PORT;
+        try
+        {
+            DatenEinleser datenEinleser = new DatenEinleser(MEDIEN_DATEI,
+                    KUNDEN_DATEI);
+            datenEinleser.leseDaten(ForkJoinPool.commonPool());
+            MedienbestandService medienbestand = new MedienbestandServiceImpl(
+                    datenEinleser.getMedien());
+            KundenstammService kundenstamm = new KundenstammServiceImpl(
+                    datenEinleser.getKunden());
+            GepufferterVerleihProtokollierer protokollierer = new GepufferterVerleihProtokollierer();
+            protokollierer.schliesseBeimBeenden();
+            VerleihJournal journal = oeffneJournal(datenEinleser.getMedien());
+            journal.schliesseBeimBeenden();
+            PartitionierterVerleihServiceImpl verleihService = new PartitionierterVerleihServiceImpl(
+                    kundenstamm, medienbestand,
+                    datenEinleser.getVerleihkarten(),
+                    PartitionierterVerleihServiceImpl.STANDARD_ANZAHL_PARTITIONEN,
+                    protokollierer, journal);
+            starteSicherungspunkte(kundenstamm, medienbestand, verleihService,
+                    journal);
+
+            // Der Suchindex wird im Thread des Busses nachgetragen, nicht in
+            // dem Thread, der den Medienbestand verändert
+            AenderungsBus aenderungsBus = new AenderungsBus();
+            aenderungsBus.beobachte(medienbestand);
+            MediathekServer server = new MediathekServer(kundenstamm,
+                    medienbestand, verleihService,
+                    new MedienSucheServiceImpl(medienbestand, aenderungsBus));
+            server.starte(new InetSocketAddress(port));
+        }
+        catch (DateiLeseException e)
+        {
+            e.printStackTrace();
+        }
+        catch (ProtokollierException e)
+        {
+            e.printStackTrace();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Öffnet das Journal zum eingelesenen Bestand. Gehört die vorhandene
+     * Journal-Datei zu einem anderen Bestand, etwa weil die Medien-Datei von
+     * Hand bearbeitet wurde, wird sie beiseite gelegt und ein neues Journal
+     * begonnen.
+     */
+    private static VerleihJournal oeffneJournal(List<Medium> medien)
+            throws ProtokollierException
+    {
+        long bestandskennung = VerleihJournal
+            .berechneBestandskennung(MEDIEN_DATEI);
+        try
+        {
+            return new VerleihJournal(JOURNAL_DATEI, medien, bestandskennung);
+        }
+        catch (ProtokollierException e)
+        {
+            e.printStackTrace();
+            File verworfen = new File(JOURNAL_DATEI.getPath() + ".verworfen");
+            verworfen.delete();
+            if (!JOURNAL_DATEI.renameTo(verworfen))
+            {
+                throw e;
+            }
+            return new VerleihJournal(JOURNAL_DATEI, medien, bestandskennung);
+        }
+    }
+
+    /**
+     * Startet das regelmäßige Schreiben von Sicherungspunkten. Der Bestand
+     * wird erfasst, während der VerleihService alle Partitionen angehalten
+     * hat.
+     */
+    private static void starteSicherungspunkte(KundenstammService kundenstamm,
+            MedienbestandService medienbestand,
+            PartitionierterVerleihServiceImpl verleihService,
+            VerleihJournal journal)
+    {
+        BestandSchreiber bestandSchreiber = new BestandSchreiber(MEDIEN_DATEI,
+                KUNDEN_DATEI, MEDIEN_BACKUP, KUNDEN_BACKUP);
+        SicherungspunktPlaner planer = new SicherungspunktPlaner(kundenstamm,
+                medienbestand, verleihService, journal, bestandSchreiber,
+                verleihService.getErfasser());
+        planer.starte(SicherungspunktPlaner.STANDARD_INTERVALL);
+    }
+}
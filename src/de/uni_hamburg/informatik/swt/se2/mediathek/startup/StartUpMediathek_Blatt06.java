@@ -1,15 +1,32 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.startup;
 
 import java.io.File;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.SwingUtilities;
 
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.AenderungsBus;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammServiceImpl;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.Medienverzeichnis;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.SpaltenMedienbestandServiceImpl;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.BestandSchreiber;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DateiLeseException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DateiSchreibException;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.DatenEinleser;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.SchnappschussEinleser;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.SchnappschussSchreiber;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.persistenz.SicherungspunktPlaner;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.GepufferterVerleihProtokollierer;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihJournal;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihServiceImpl;
 import de.uni_hamburg.informatik.swt.se2.mediathek.ui.hauptwerkzeug.MediathekWerkzeug;
@@ -27,10 +44,28 @@ public class StartUpMediathek_Blatt06
             "./bestand/kundenstamm.txt");
     private static final File MEDIEN_DATEI = new File(
             "./bestand/medienbestand.txt");
+    private static final File SCHNAPPSCHUSS_DATEI = new File(
+            "./bestand/mediathek.schnappschuss");
+    private static final File JOURNAL_DATEI = new File(
+            "./bestand/verleih.journal");
+    private static final File KUNDEN_BACKUP = new File(
+            "./bestand/kundenstammBackup.txt");
+    private static final File MEDIEN_BACKUP = new File(
+            "./bestand/medienbestandBackup.txt");
+
+    /**
+     * Ist diese System-Property gesetzt (-Dmediathek.spaltenbestand=true),
+     * werden die Medien direkt in einen SpaltenMedienbestandServiceImpl
+     * eingelesen, ohne Schnappschuss. Titel, Kommentare und die übrigen Texte
+     * liegen dann außerhalb des Heaps. Das Journal bezieht sich auf die
+     * Indizes der Einträge und hält keine Medien.
+     */
+    private static final String SPALTENBESTAND = "mediathek.spaltenbestand";
 
     private static KundenstammService _kundenstamm;
     private static MedienbestandService _medienbestand;
     private static VerleihService _verleihService;
+    private static AenderungsBus _aenderungsBus;
 
     /**
      * Main-Methode, mit der die Anwendung gestartet wird.
@@ -40,7 +75,7 @@ public class StartUpMediathek_Blatt06
         erstelleServices();
 
         final MediathekWerkzeug mediathekWerkzeug = new MediathekWerkzeug(
-                _medienbestand, _kundenstamm, _verleihService);
+                _medienbestand, _kundenstamm, _verleihService, _aenderungsBus);
 
         // Dies ist die korrekte Art eine Swing-Anwendnung zu starten.
         SwingUtilities.invokeLater(new Runnable()
@@ -54,26 +89,172 @@ public class StartUpMediathek_Blatt06
     }
 
     /**
-     * Erstellt die Services und lädt die Daten.
+     * Erstellt die Services und lädt die Daten. Ist die System-Property
+     * SPALTENBESTAND gesetzt, werden die Textdateien in einen
+     * SpaltenMedienbestandServiceImpl eingelesen. Sonst wird der
+     * Schnappschuss eingelesen, wenn er neuer als beide Textdateien ist.
+     * Andernfalls werden die Textdateien eingelesen und ein neuer Schnappschuss
+     * geschrieben. Auf den eingelesenen Bestand werden die Verleihvorgänge aus
+     * dem Journal angewendet. Danach schreibt ein SicherungspunktPlaner den
+     * Bestand regelmäßig neu und kürzt dabei das Journal. Die Tabellen der
+     * Werkzeuge erfahren die Änderungen über einen AenderungsBus, damit sie
+     * Ausleihe und Rückgabe nicht aufhalten.
      */
     private static void erstelleServices()
     {
         try
         {
-            DatenEinleser datenEinleser = new DatenEinleser(MEDIEN_DATEI,
-                    KUNDEN_DATEI);
-            datenEinleser.leseDaten();
-            _medienbestand = new MedienbestandServiceImpl(
-                    datenEinleser.getMedien());
-            _kundenstamm = new KundenstammServiceImpl(
-                    datenEinleser.getKunden());
+            List<Kunde> kunden = null;
+            List<Medium> medien = null;
+            List<Verleihkarte> verleihkarten = null;
+            SpaltenMedienbestandServiceImpl spaltenbestand = null;
+            if (Boolean.getBoolean(SPALTENBESTAND))
+            {
+                spaltenbestand = new SpaltenMedienbestandServiceImpl();
+                DatenEinleser datenEinleser = new DatenEinleser(MEDIEN_DATEI,
+                        KUNDEN_DATEI);
+                datenEinleser
+                    .leseDaten(spaltenbestand.getEinleseEmpfaenger());
+                kunden = datenEinleser.getKunden();
+                verleihkarten = datenEinleser.getVerleihkarten();
+            }
+            else if (istSchnappschussAktuell())
+            {
+                try
+                {
+                    SchnappschussEinleser schnappschussEinleser = new SchnappschussEinleser(
+                            SCHNAPPSCHUSS_DATEI);
+                    schnappschussEinleser.leseDaten();
+                    kunden = schnappschussEinleser.getKunden();
+                    medien = schnappschussEinleser.getMedien();
+                    verleihkarten = schnappschussEinleser.getVerleihkarten();
+                }
+                catch (DateiLeseException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+            if (kunden == null)
+            {
+                DatenEinleser datenEinleser = new DatenEinleser(MEDIEN_DATEI,
+                        KUNDEN_DATEI);
+                datenEinleser.leseDaten(ForkJoinPool.commonPool());
+                kunden = datenEinleser.getKunden();
+                medien = datenEinleser.getMedien();
+                verleihkarten = datenEinleser.getVerleihkarten();
+                schreibeSchnappschuss(kunden, medien, verleihkarten);
+            }
+            if (spaltenbestand != null)
+            {
+                _medienbestand = spaltenbestand;
+            }
+            else
+            {
+                _medienbestand = new MedienbestandServiceImpl(medien);
+            }
+            _kundenstamm = new KundenstammServiceImpl(kunden);
+            GepufferterVerleihProtokollierer protokollierer = new GepufferterVerleihProtokollierer();
+            protokollierer.schliesseBeimBeenden();
+            VerleihJournal journal = oeffneJournal(
+                    _medienbestand.erfasseVerzeichnis());
+            journal.schliesseBeimBeenden();
             _verleihService = new VerleihServiceImpl(_kundenstamm,
-                    _medienbestand, datenEinleser.getVerleihkarten());
+                    _medienbestand, verleihkarten, protokollierer, journal);
+            starteSicherungspunkte(journal);
+            _aenderungsBus = new AenderungsBus();
+            _aenderungsBus.beobachte(_medienbestand);
+            _aenderungsBus.beobachte(_verleihService);
         }
         catch (DateiLeseException e)
         {
             e.printStackTrace();
         }
+        catch (ProtokollierException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Öffnet das Journal zum eingelesenen Bestand. Gehört die vorhandene
+     * Journal-Datei zu einem anderen Bestand, etwa weil die Medien-Datei von
+     * Hand bearbeitet wurde, wird sie beiseite gelegt und ein neues Journal
+     * begonnen.
+     */
+    private static VerleihJournal oeffneJournal(
+            Medienverzeichnis verzeichnis) throws ProtokollierException
+    {
+        long bestandskennung = VerleihJournal
+            .berechneBestandskennung(MEDIEN_DATEI);
+        try
+        {
+            return new VerleihJournal(JOURNAL_DATEI, verzeichnis,
+                    bestandskennung);
+        }
+        catch (ProtokollierException e)
+        {
+            e.printStackTrace();
+            File verworfen = new File(JOURNAL_DATEI.getPath() + ".verworfen");
+            verworfen.delete();
+            if (!JOURNAL_DATEI.renameTo(verworfen))
+            {
+                throw e;
+            }
+            return new VerleihJournal(JOURNAL_DATEI, verzeichnis,
+                    bestandskennung);
+        }
+    }
+
+    /**
+     * Startet das regelmäßige Schreiben von Sicherungspunkten. Der Bestand
+     * wird dafür im Event-Dispatch-Thread erfasst, in dem die Werkzeuge die
+     * Services verändern.
+     */
+    private static void starteSicherungspunkte(VerleihJournal journal)
+    {
+        BestandSchreiber bestandSchreiber = new BestandSchreiber(MEDIEN_DATEI,
+                KUNDEN_DATEI, MEDIEN_BACKUP, KUNDEN_BACKUP);
+        SicherungspunktPlaner planer = new SicherungspunktPlaner(_kundenstamm,
+                _medienbestand, _verleihService, journal, bestandSchreiber,
+                new Executor()
+                {
+                    @Override
+                    public void execute(Runnable aufgabe)
+                    {
+                        SwingUtilities.invokeLater(aufgabe);
+                    }
+                });
+        planer.starte(SicherungspunktPlaner.STANDARD_INTERVALL);
+    }
+
+    /**
+     * Prüft, ob der Schnappschuss existiert und nach den Textdateien
+     * geschrieben wurde.
+     */
+    private static boolean istSchnappschussAktuell()
+    {
+        long schnappschussZeit = SCHNAPPSCHUSS_DATEI.lastModified();
+        return SCHNAPPSCHUSS_DATEI.isFile()
+                && schnappschussZeit >= KUNDEN_DATEI.lastModified()
+                && schnappschussZeit >= MEDIEN_DATEI.lastModified();
+    }
+
+    /**
+     * Schreibt einen Schnappschuss der eingelesenen Daten für den nächsten
+     * Start. Ein Fehler beim Schreiben verhindert den Start nicht.
+     */
+    private static void schreibeSchnappschuss(List<Kunde> kunden,
+            List<Medium> medien, List<Verleihkarte> verleihkarten)
+    {
+        try
+        {
+            new SchnappschussSchreiber(SCHNAPPSCHUSS_DATEI)
+                .schreibeDaten(kunden, medien, verleihkarten);
+        }
+        catch (DateiSchreibException e)
+        {
+            e.printStackTrace();
+        }
     }
 
 }
@@ -0,0 +1,63 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.ui;
+
+import java.util.List;
+
+import javax.swing.SwingUtilities;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceObserver;
+
+/**
+ * Ein EventDispatchBeobachter gibt Benachrichtigungen an einen anderen
+ * Beobachter weiter, und zwar immer im Event-Dispatch-Thread. Werkzeuge melden
+ * ihn an einem AenderungsBus an, dessen Beobachter in eigenen Threads
+ * benachrichtigt werden.
+ *
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public class EventDispatchBeobachter implements ServiceObserver
+{
+    private final ServiceObserver _beobachter;
+
+    /**
+     * Initialisiert einen neuen EventDispatchBeobachter.
+     *
+     * @param beobachter Der Beobachter, der im Event-Dispatch-Thread
+     *            benachrichtigt wird.
+     *
+     * @require beobachter != null
+     */
+    public EventDispatchBeobachter(ServiceObserver beobachter)
+    {
+        assert beobachter != null : "Vorbedingung verletzt: beobachter != null";
+        _beobachter = beobachter;
+    }
+
+    @Override
+    public void reagiereAufAenderung()
+    {
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                _beobachter.reagiereAufAenderung();
+            }
+        });
+    }
+
+    @Override
+    public void reagiereAufAenderungen(
+            final List<ServiceAenderung> aenderungen)
+    {
+        SwingUtilities.invokeLater(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                _beobachter.reagiereAufAenderungen(aenderungen);
+            }
+        });
+    }
+}
@@ -3,6 +3,7 @@ package de.uni_hamburg.informatik.swt.se2.mediathek.ui.hauptwerkzeug;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ObservableService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.kundenstamm.KundenstammService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
@@ -59,17 +60,22 @@ public class MediathekWerkzeug
      * @param medienbestand der Medienbestand
      * @param kundenstamm die Kunden
      * @param verleihService Service um Medien zu verleihen.
+     * @param aenderungen Meldet die Änderungen an Medienbestand und
+     *            Verleih-Service für die Tabellen, etwa ein AenderungsBus.
      * 
      * @require medienbestand != null
      * @require kundenstamm != null
      * @require verleihService != null
+     * @require aenderungen != null
      */
     public MediathekWerkzeug(MedienbestandService medienbestand,
-            KundenstammService kundenstamm, VerleihService verleihService)
+            KundenstammService kundenstamm, VerleihService verleihService,
+            ObservableService aenderungen)
     {
         assert medienbestand != null : "Vorbedingung verletzt: medienbestand != null";
         assert kundenstamm != null : "Vorbedingung verletzt: kundenstamm != null";
         assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+        assert aenderungen != null : "Vorbedingung verletzt: aenderungen != null";
 
         _medienbestand = medienbestand;
         _kundenstamm = kundenstamm;
@@ -77,10 +83,11 @@ public class MediathekWerkzeug
 
         // Erzeuge Subwerkzeuge
         _ausleihWerkzeug = new AusleihWerkzeug(_medienbestand, _kundenstamm,
-                _verleihService);
-        _rueckgabeWerkzeug = new RueckgabeWerkzeug(_verleihService);
+                _verleihService, aenderungen);
+        _rueckgabeWerkzeug = new RueckgabeWerkzeug(_verleihService,
+                aenderungen);
         _vormerkWerkzeug = new VormerkWerkzeug(_medienbestand, _kundenstamm,
-                _verleihService);
+                _verleihService, aenderungen);
         // Erzeuge UI für dieses Werkzeug
         _mediathekUI = new MediathekUI(_ausleihWerkzeug.getUIPanel(),
                 _rueckgabeWerkzeug.getUIPanel(), _vormerkWerkzeug.getUIPanel());
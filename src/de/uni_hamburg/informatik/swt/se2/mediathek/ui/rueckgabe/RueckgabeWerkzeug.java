@@ -13,9 +13,12 @@ import javax.swing.event.ListSelectionListener;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Verleihkarte;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceObserver;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.ProtokollierException;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.ui.EventDispatchBeobachter;
 import de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte.Datum;
 
 /**
@@ -37,19 +40,30 @@ public class RueckgabeWerkzeug
      */
     private final VerleihService _verleihService;
 
+    /**
+     * Meldet die Änderungen am Verleih-Service.
+     */
+    private final ObservableService _aenderungen;
+
     /**
      * Initialisiert ein neues RueckgabeWerkzeug. Es wird die
      * Benutzungsoberfläche mit den Rückgabeaktionen erzeugt, Beobachter an den
      * Services registriert und die anzuzeigenden Verleihkarten gesetzt.
      * 
      * @param verleihService Der zu benutzenden VerleihService.
+     * @param aenderungen Meldet die Änderungen am VerleihService, etwa ein
+     *            AenderungsBus, der ihn beobachtet.
      * 
      * @require verleihService != null
+     * @require aenderungen != null
      */
-    public RueckgabeWerkzeug(VerleihService verleihService)
+    public RueckgabeWerkzeug(VerleihService verleihService,
+            ObservableService aenderungen)
     {
         assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+        assert aenderungen != null : "Vorbedingung verletzt: aenderungen != null";
         _verleihService = verleihService;
+        _aenderungen = aenderungen;
 
         // UI wird erzeugt.
         _rueckgabeUI = new RueckgabeUI();
@@ -111,11 +125,12 @@ public class RueckgabeWerkzeug
     }
 
     /**
-     * Registriert die Beobachter an den Services.
+     * Registriert die Beobachter an den Services. Sie werden im
+     * Event-Dispatch-Thread benachrichtigt.
      */
     private void registriereServiceBeobachter()
     {
-        _verleihService.registriereBeobachter(new ServiceObserver()
+        ServiceObserver beobachter = new ServiceObserver()
         {
             @Override
             public void reagiereAufAenderung()
@@ -123,7 +138,15 @@ public class RueckgabeWerkzeug
                 setzeAnzuzeigendeVerleihkarten();
             }
 
-        });
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                aktualisiereAngezeigteVerleihkarten(aenderungen);
+            }
+        };
+        _aenderungen
+            .registriereBeobachter(new EventDispatchBeobachter(beobachter));
     }
 
     /**
@@ -136,6 +159,40 @@ public class RueckgabeWerkzeug
             .setVerleihkarten(verleihkarten);
     }
 
+    /**
+     * Übernimmt die gemeldeten Änderungen an Verleihkarten in die UI, ohne die
+     * übrigen Zeilen neu zu setzen. Änderungen ohne Verleihkarte, etwa
+     * Vormerkungen, betreffen die Rückgabe nicht.
+     * 
+     * @param aenderungen Die vom VerleihService gemeldeten Änderungen.
+     */
+    private void aktualisiereAngezeigteVerleihkarten(
+            List<ServiceAenderung> aenderungen)
+    {
+        VerleihkartenTableModel tableModel = _rueckgabeUI
+            .getVerleihkartenAuflisterTableModel();
+        for (ServiceAenderung aenderung : aenderungen)
+        {
+            Verleihkarte verleihkarte = aenderung.getVerleihkarte();
+            if (verleihkarte == null)
+            {
+                continue;
+            }
+            boolean angezeigt = tableModel.enthaeltVerleihkarte(verleihkarte);
+            if (aenderung.getArt() == ServiceAenderung.Art.ENTFERNT)
+            {
+                if (angezeigt)
+                {
+                    tableModel.entferneVerleihkarte(verleihkarte);
+                }
+            }
+            else if (!angezeigt)
+            {
+                tableModel.fuegeVerleihkarteEin(verleihkarte);
+            }
+        }
+    }
+
     /**
      * Gibt die vom Benutzer ausgewählten Medien zurück.
      */
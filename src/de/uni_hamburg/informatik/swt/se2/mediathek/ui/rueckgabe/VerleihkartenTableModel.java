@@ -33,12 +33,18 @@ public class VerleihkartenTableModel extends AbstractTableModel
      */
     private List<Verleihkarte> _verleihkartenListe;
 
+    /**
+     * Der Comparator, der die Sortierreihenfolge der Verleihkarten festlegt.
+     */
+    private final VerleihkartenComparator _comparator;
+
     /**
      * Konstruktor. Initialisiert ein neues VerleihkartenTableModel.
      */
     public VerleihkartenTableModel()
     {
         _verleihkartenListe = new ArrayList<Verleihkarte>();
+        _comparator = new VerleihkartenComparator();
     }
 
     @Override
@@ -114,21 +120,72 @@ public class VerleihkartenTableModel extends AbstractTableModel
     /**
      * Setzt die anzuzeigenden Verleihkarten.
      * 
-     * @param verleihkarten Eine Liste der zu setzenden Verleihkarten.
-     *            Nachträgliche Änderungen der Liste wirken sich auch auf das
-     *            Model aus.
+     * @param verleihkarten Eine Liste der zu setzenden Verleihkarten. Es wird
+     *            auf einer Kopie der Liste gearbeitet.
      * 
      * @require verleihkarten != null
      */
     public void setVerleihkarten(List<Verleihkarte> verleihkarten)
     {
         assert verleihkarten != null : "Vorbedingung verletzt: verleihkarten != null";
-        _verleihkartenListe = verleihkarten;
+        _verleihkartenListe = new ArrayList<Verleihkarte>(verleihkarten);
         sortiereVerleihkarten();
 
         fireTableDataChanged();
     }
 
+    /**
+     * Prüft, ob eine Verleihkarte in einer Zeile des TableModels dargestellt
+     * wird.
+     * 
+     * @param verleihkarte Eine Verleihkarte.
+     * 
+     * @require verleihkarte != null
+     */
+    public boolean enthaeltVerleihkarte(Verleihkarte verleihkarte)
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+        return sucheZeile(verleihkarte) >= 0;
+    }
+
+    /**
+     * Fügt eine Verleihkarte an der Stelle ein, die der Sortierreihenfolge
+     * entspricht. Die Tabelle wird nur über die neue Zeile informiert.
+     * 
+     * @param verleihkarte Die einzufügende Verleihkarte.
+     * 
+     * @require verleihkarte != null
+     * @require !enthaeltVerleihkarte(verleihkarte)
+     */
+    public void fuegeVerleihkarteEin(Verleihkarte verleihkarte)
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+        assert !enthaeltVerleihkarte(
+                verleihkarte) : "Vorbedingung verletzt: !enthaeltVerleihkarte(verleihkarte)";
+        int zeile = sucheEinfuegePosition(verleihkarte);
+        _verleihkartenListe.add(zeile, verleihkarte);
+        fireTableRowsInserted(zeile, zeile);
+    }
+
+    /**
+     * Entfernt die Zeile einer Verleihkarte. Die Tabelle wird nur über die
+     * entfernte Zeile informiert.
+     * 
+     * @param verleihkarte Die zu entfernende Verleihkarte.
+     * 
+     * @require verleihkarte != null
+     * @require enthaeltVerleihkarte(verleihkarte)
+     */
+    public void entferneVerleihkarte(Verleihkarte verleihkarte)
+    {
+        assert verleihkarte != null : "Vorbedingung verletzt: verleihkarte != null";
+        assert enthaeltVerleihkarte(
+                verleihkarte) : "Vorbedingung verletzt: enthaeltVerleihkarte(verleihkarte)";
+        int zeile = sucheZeile(verleihkarte);
+        _verleihkartenListe.remove(zeile);
+        fireTableRowsDeleted(zeile, zeile);
+    }
+
     /**
      * Prüft, ob für die gegebene Tabellen-Zeile eine Verleihkarte in dem
      * TableModel existiert.
@@ -151,6 +208,58 @@ public class VerleihkartenTableModel extends AbstractTableModel
      */
     private void sortiereVerleihkarten()
     {
-        Collections.sort(_verleihkartenListe, new VerleihkartenComparator());
+        Collections.sort(_verleihkartenListe, _comparator);
+    }
+
+    /**
+     * Sucht per binärer Suche die Stelle, an der eine Verleihkarte eingefügt
+     * werden muss. Bei gleichem Sortierschlüssel wird hinter den vorhandenen
+     * Einträgen eingefügt.
+     * 
+     * @param verleihkarte Die einzufügende Verleihkarte.
+     * @return Die Einfügestelle.
+     */
+    private int sucheEinfuegePosition(Verleihkarte verleihkarte)
+    {
+        int links = 0;
+        int rechts = _verleihkartenListe.size();
+        while (links < rechts)
+        {
+            int mitte = (links + rechts) >>> 1;
+            if (_comparator.compare(_verleihkartenListe.get(mitte),
+                    verleihkarte) <= 0)
+            {
+                links = mitte + 1;
+            }
+            else
+            {
+                rechts = mitte;
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Sucht die Zeile einer Verleihkarte. Per binärer Suche wird der Bereich
+     * mit gleichem Sortierschlüssel bestimmt und nur dieser durchlaufen.
+     * 
+     * @param verleihkarte Die gesuchte Verleihkarte.
+     * @return Die Zeile der Verleihkarte oder -1, wenn sie nicht angezeigt
+     *         wird.
+     */
+    private int sucheZeile(Verleihkarte verleihkarte)
+    {
+        int zeile = sucheEinfuegePosition(verleihkarte) - 1;
+        while ((zeile >= 0) && (_comparator
+            .compare(_verleihkartenListe.get(zeile), verleihkarte) == 0))
+        {
+            if (_verleihkartenListe.get(zeile)
+                .equals(verleihkarte))
+            {
+                return zeile;
+            }
+            --zeile;
+        }
+        return -1;
     }
 }
@@ -1,6 +1,8 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.ui.rueckgabe;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -111,4 +113,26 @@ public class VerleihkartenTableModelTest
     {
         assertEquals(2, _model.getRowCount());
     }
+
+    @Test
+    public void testeEinzelneZeilenAendern() throws Exception
+    {
+        Kunde kundeSchmied = new Kunde(new Kundennummer(234567), "Petra",
+                "Schmied");
+        Medium cd = new CD("CD-Titel", "CD-Kommentar", "CD-Interpret", 42);
+        Verleihkarte karte3 = new Verleihkarte(kundeSchmied, cd,
+                new Datum(15, 4, 2009));
+
+        // Schmied wird zwischen Schmidt und Schmitz einsortiert
+        _model.fuegeVerleihkarteEin(karte3);
+        assertEquals(3, _model.getRowCount());
+        assertEquals(_karte2, _model.getVerleihkartenFuerZeile(0));
+        assertEquals(karte3, _model.getVerleihkartenFuerZeile(1));
+        assertEquals(_karte1, _model.getVerleihkartenFuerZeile(2));
+
+        _model.entferneVerleihkarte(_karte2);
+        assertFalse(_model.enthaeltVerleihkarte(_karte2));
+        assertTrue(_model.enthaeltVerleihkarte(karte3));
+        assertEquals(karte3, _model.getVerleihkartenFuerZeile(0));
+    }
 }
@@ -0,0 +1,26 @@
+package de.uni_hamburg.informatik.swt.se2.mediathek.ui.subwerkzeuge.ausleihemedienauflister;
+
+import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+
+/**
+ * Eine AusleiheMedienFormatiererQuelle erzeugt die Formatierer eines
+ * AusleiheMedienTableModels erst dann, wenn eine Zeile tatsächlich angezeigt
+ * wird.
+ * 
+ * @author SE2-Team
+ * @version SoSe 2021
+ */
+public interface AusleiheMedienFormatiererQuelle
+{
+    /**
+     * Erzeugt den Formatierer für ein Medium mit seinen aktuellen
+     * Verleihinformationen.
+     * 
+     * @param medium Ein anzuzeigendes Medium.
+     * @return Der Formatierer des Mediums.
+     * 
+     * @require medium != null
+     * @ensure result != null
+     */
+    AusleiheMedienFormatierer erzeugeFormatierer(Medium medium);
+}
@@ -2,17 +2,25 @@ package de.uni_hamburg.informatik.swt.se2.mediathek.ui.subwerkzeuge.ausleihemedi
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.table.AbstractTableModel;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.ui.MedienComparator;
 
 /**
  * Ein AusleiheMedienTableModel hält Medien, und gibt für jede Spalte im
  * AusleihWerkzeug die dort benötigte Information über das Medium in einer Zeile
  * zurück.
  * 
+ * Das Model kann die Formatierer aller Medien vorab erhalten oder sie über eine
+ * AusleiheMedienFormatiererQuelle erst für die Zeilen erzeugen, die die Tabelle
+ * tatsächlich anzeigt. Im zweiten Fall wird nur eine begrenzte Anzahl
+ * Formatierer zwischengespeichert.
+ * 
  * @author SE2-Team
  * @version SoSe 2021
  */
@@ -24,18 +32,42 @@ public class AusleiheMedienTableModel extends AbstractTableModel
             "Titel", "ausleihbar"};
 
     /**
-     * Eine sortierte Map, die Medien zwischenspeichert/cached und auf boolsche
-     * Werte abbildet, die angeben, ob ein Medium entliehe ist (true) oder nicht
-     * (false).
+     * Die Anzahl der Formatierer, die höchstens zwischengespeichert werden,
+     * wenn sie über eine Quelle erzeugt werden. Das reicht für viele
+     * Bildschirmseiten, ohne mit dem Medienbestand zu wachsen.
+     */
+    static final int MAX_ZWISCHENGESPEICHERTE_FORMATIERER = 1024;
+
+    /**
+     * Die angezeigten Medien in Sortierreihenfolge.
+     */
+    private List<Medium> _medienListe;
+
+    /**
+     * Die bereits erzeugten Formatierer, in der Reihenfolge ihres letzten
+     * Zugriffs.
      */
-    private List<AusleiheMedienFormatierer> _medienListe;
+    private Map<Medium, AusleiheMedienFormatierer> _formatierer;
+
+    /**
+     * Die Quelle für noch nicht erzeugte Formatierer oder null, wenn alle
+     * Formatierer mit #setMedien(List) gesetzt wurden.
+     */
+    private AusleiheMedienFormatiererQuelle _quelle;
+
+    /**
+     * Der Comparator, der die Sortierreihenfolge der Medien-Liste festlegt.
+     */
+    private final MedienComparator _comparator;
 
     /**
      * Initialisiert ein AusleiheMedienTableModel.
      */
     public AusleiheMedienTableModel()
     {
-        _medienListe = new ArrayList<AusleiheMedienFormatierer>();
+        _medienListe = new ArrayList<Medium>();
+        _formatierer = erzeugeFormatiererSpeicher();
+        _comparator = new MedienComparator();
     }
 
     @Override
@@ -93,7 +125,7 @@ public class AusleiheMedienTableModel extends AbstractTableModel
     {
         assert zeileExistiert(
                 zeile) : "Vorbedingung verletzt: zeileExistiert(zeile)";
-        return getMedienFormatierer(zeile).getMedium();
+        return _medienListe.get(zeile);
     }
 
     /**
@@ -121,25 +153,281 @@ public class AusleiheMedienTableModel extends AbstractTableModel
     public void setMedien(List<AusleiheMedienFormatierer> medien)
     {
         assert medien != null : "Vorbedingung verletzt: medien != null";
-        _medienListe = new ArrayList<AusleiheMedienFormatierer>(medien);
+        _quelle = null;
+        _formatierer = erzeugeFormatiererSpeicher();
+        _medienListe = new ArrayList<Medium>(medien.size());
+        for (AusleiheMedienFormatierer formatierer : medien)
+        {
+            _medienListe.add(formatierer.getMedium());
+            _formatierer.put(formatierer.getMedium(), formatierer);
+        }
+
+        // sortiere Medien-Liste
+        Collections.sort(_medienListe, _comparator);
+
+        fireTableDataChanged();
+    }
+
+    /**
+     * Setze die anzuzeigenden Medien, ohne ihre Formatierer vorab zu erzeugen.
+     * Die Quelle wird erst gefragt, wenn die Tabelle den Inhalt einer Zeile
+     * benötigt, und nur die zuletzt benutzten Formatierer werden
+     * zwischengespeichert. Es wird auf einer Kopie der Liste gearbeitet.
+     * 
+     * @param medien Die anzuzeigenden Medien.
+     * @param quelle Die Quelle für die Formatierer.
+     * 
+     * @require medien != null
+     * @require quelle != null
+     */
+    public void setMedien(List<Medium> medien,
+            AusleiheMedienFormatiererQuelle quelle)
+    {
+        assert medien != null : "Vorbedingung verletzt: medien != null";
+        assert quelle != null : "Vorbedingung verletzt: quelle != null";
+        _quelle = quelle;
+        _formatierer = erzeugeFormatiererSpeicher();
+        _medienListe = new ArrayList<Medium>(medien);
 
         // sortiere Medien-Liste
-        Collections.sort(_medienListe,
-                new AusleiheMedienFormatiererComparator());
+        Collections.sort(_medienListe, _comparator);
 
         fireTableDataChanged();
     }
 
     /**
-     * Liefert den Medien-Formatierer für einen angegebenen Index. Die
-     * Gültigkeit des Index wird nicht überprüft.
+     * Prüft, ob die Formatierer über eine Quelle erzeugt werden.
+     */
+    public boolean hatFormatiererQuelle()
+    {
+        return _quelle != null;
+    }
+
+    /**
+     * Prüft, ob ein Medium in einer Zeile des TableModels dargestellt wird.
+     * 
+     * @param medium Ein Medium.
+     * 
+     * @require medium != null
+     */
+    public boolean enthaeltMedium(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        return sucheZeile(medium) >= 0;
+    }
+
+    /**
+     * Fügt ein Medium an der Stelle ein, die der Sortierreihenfolge entspricht.
+     * Die Tabelle wird nur über die neue Zeile informiert.
+     * 
+     * @param formatierer Der Formatierer des einzufügenden Mediums.
+     * 
+     * @require formatierer != null
+     * @require !enthaeltMedium(formatierer.getMedium())
+     */
+    public void fuegeMediumEin(AusleiheMedienFormatierer formatierer)
+    {
+        assert formatierer != null : "Vorbedingung verletzt: formatierer != null";
+        _formatierer.put(formatierer.getMedium(), formatierer);
+        fuegeZeileEin(formatierer.getMedium());
+    }
+
+    /**
+     * Fügt ein Medium an der Stelle ein, die der Sortierreihenfolge entspricht.
+     * Sein Formatierer wird erst erzeugt, wenn die Zeile angezeigt wird.
+     * 
+     * @param medium Das einzufügende Medium.
+     * 
+     * @require medium != null
+     * @require !enthaeltMedium(medium)
+     * @require hatFormatiererQuelle()
+     */
+    public void fuegeMediumEin(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert hatFormatiererQuelle() : "Vorbedingung verletzt: hatFormatiererQuelle()";
+        fuegeZeileEin(medium);
+    }
+
+    /**
+     * Ersetzt den Formatierer eines angezeigten Mediums. Rückt das Medium dabei
+     * in der Sortierreihenfolge an eine andere Stelle, werden alle Zeilen
+     * zwischen alter und neuer Stelle als geändert gemeldet, sonst nur die
+     * Zeile des Mediums.
+     * 
+     * @param formatierer Der neue Formatierer des Mediums.
+     * 
+     * @require formatierer != null
+     * @require enthaeltMedium(formatierer.getMedium())
+     */
+    public void aktualisiereMedium(AusleiheMedienFormatierer formatierer)
+    {
+        assert formatierer != null : "Vorbedingung verletzt: formatierer != null";
+        _formatierer.put(formatierer.getMedium(), formatierer);
+        aktualisiereZeile(formatierer.getMedium());
+    }
+
+    /**
+     * Verwirft den Formatierer eines angezeigten Mediums, so dass er beim
+     * nächsten Anzeigen der Zeile neu erzeugt wird, und meldet die Zeile als
+     * geändert.
+     * 
+     * @param medium Das geänderte Medium.
+     * 
+     * @require medium != null
+     * @require enthaeltMedium(medium)
+     * @require hatFormatiererQuelle()
+     */
+    public void aktualisiereMedium(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert hatFormatiererQuelle() : "Vorbedingung verletzt: hatFormatiererQuelle()";
+        _formatierer.remove(medium);
+        aktualisiereZeile(medium);
+    }
+
+    /**
+     * Entfernt die Zeile eines Mediums. Die Tabelle wird nur über die
+     * entfernte Zeile informiert.
+     * 
+     * @param medium Das zu entfernende Medium.
+     * 
+     * @require medium != null
+     * @require enthaeltMedium(medium)
+     */
+    public void entferneMedium(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert enthaeltMedium(
+                medium) : "Vorbedingung verletzt: enthaeltMedium(medium)";
+        int zeile = sucheZeile(medium);
+        _medienListe.remove(zeile);
+        _formatierer.remove(medium);
+        fireTableRowsDeleted(zeile, zeile);
+    }
+
+    /**
+     * Liefert den Medien-Formatierer für einen angegebenen Index. Fehlt er im
+     * Zwischenspeicher, wird er über die Quelle erzeugt. Die Gültigkeit des
+     * Index wird nicht überprüft.
      * 
-     * @param index Der Index eines Medien-Formatierers in der Medien-Liste.
+     * @param index Der Index eines Mediums in der Medien-Liste.
      * @return Der Medien-Formatierer auf dem angegebenen Index.
      */
     private AusleiheMedienFormatierer getMedienFormatierer(int index)
     {
-        return _medienListe.get(index);
+        Medium medium = _medienListe.get(index);
+        AusleiheMedienFormatierer formatierer = _formatierer.get(medium);
+        if (formatierer == null)
+        {
+            formatierer = _quelle.erzeugeFormatierer(medium);
+            _formatierer.put(medium, formatierer);
+        }
+        return formatierer;
+    }
+
+    /**
+     * Erzeugt einen leeren Zwischenspeicher für Formatierer. Solange eine
+     * Quelle gesetzt ist, verdrängt er die am längsten nicht benutzten
+     * Formatierer, sobald er mehr als MAX_ZWISCHENGESPEICHERTE_FORMATIERER
+     * enthält.
+     */
+    private Map<Medium, AusleiheMedienFormatierer> erzeugeFormatiererSpeicher()
+    {
+        return new LinkedHashMap<Medium, AusleiheMedienFormatierer>(16, 0.75f,
+                true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<Medium, AusleiheMedienFormatierer> eldest)
+            {
+                return (_quelle != null)
+                        && (size() > MAX_ZWISCHENGESPEICHERTE_FORMATIERER);
+            }
+        };
+    }
+
+    /**
+     * Fügt die Zeile eines Mediums an der Stelle der Sortierreihenfolge ein
+     * und meldet nur diese Zeile.
+     */
+    private void fuegeZeileEin(Medium medium)
+    {
+        assert !enthaeltMedium(
+                medium) : "Vorbedingung verletzt: !enthaeltMedium(medium)";
+        int zeile = sucheEinfuegePosition(medium);
+        _medienListe.add(zeile, medium);
+        fireTableRowsInserted(zeile, zeile);
+    }
+
+    /**
+     * Setzt ein Medium an die Stelle der Sortierreihenfolge und meldet die
+     * Zeilen zwischen alter und neuer Stelle als geändert.
+     */
+    private void aktualisiereZeile(Medium medium)
+    {
+        assert enthaeltMedium(
+                medium) : "Vorbedingung verletzt: enthaeltMedium(medium)";
+        int alteZeile = sucheZeile(medium);
+        _medienListe.remove(alteZeile);
+        int neueZeile = sucheEinfuegePosition(medium);
+        _medienListe.add(neueZeile, medium);
+        fireTableRowsUpdated(Math.min(alteZeile, neueZeile),
+                Math.max(alteZeile, neueZeile));
+    }
+
+    /**
+     * Sucht per binärer Suche die Stelle, an der ein Medium eingefügt werden
+     * muss. Bei gleichem Sortierschlüssel wird hinter den vorhandenen
+     * Einträgen eingefügt, wie es auch das Sortieren in #setMedien tut.
+     * 
+     * @param medium Das einzufügende Medium.
+     * @return Die Einfügestelle.
+     */
+    private int sucheEinfuegePosition(Medium medium)
+    {
+        int links = 0;
+        int rechts = _medienListe.size();
+        while (links < rechts)
+        {
+            int mitte = (links + rechts) >>> 1;
+            if (_comparator.compare(_medienListe.get(mitte), medium) <= 0)
+            {
+                links = mitte + 1;
+            }
+            else
+            {
+                rechts = mitte;
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Sucht die Zeile eines Mediums. Per binärer Suche wird der Bereich mit
+     * gleichem Sortierschlüssel bestimmt und nur dieser durchlaufen. Wurde der
+     * Titel eines angezeigten Mediums geändert, steht seine Zeile noch unter
+     * dem alten Titel; dann wird die ganze Liste durchsucht.
+     * 
+     * @param medium Das gesuchte Medium.
+     * @return Die Zeile des Mediums oder -1, wenn es nicht angezeigt wird.
+     */
+    private int sucheZeile(Medium medium)
+    {
+        int zeile = sucheEinfuegePosition(medium) - 1;
+        while ((zeile >= 0)
+                && (_comparator.compare(_medienListe.get(zeile), medium) == 0))
+        {
+            if (_medienListe.get(zeile)
+                .equals(medium))
+            {
+                return zeile;
+            }
+            --zeile;
+        }
+        return _medienListe.indexOf(medium);
     }
 
 }
@@ -1,11 +1,15 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.ui.subwerkzeuge.ausleihemedienauflister;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
 import org.junit.Test;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
@@ -84,4 +88,118 @@ public class AusleiheMedienTableModelTest
     {
         assertEquals(3, _model.getRowCount());
     }
+
+    @Test
+    public void testeEinzelneZeilenAendern() throws Exception
+    {
+        final List<TableModelEvent> ereignisse = new ArrayList<TableModelEvent>();
+        _model.addTableModelListener(new TableModelListener()
+        {
+            @Override
+            public void tableChanged(TableModelEvent e)
+            {
+                ereignisse.add(e);
+            }
+        });
+        Medium cd4 = new CD("CD1-Zusatz", "CD4-Kommentar", "CD4-Interpret", 42);
+
+        // "CD1-Zusatz" wird zwischen den CD1-Titeln und CD2-Titel einsortiert
+        _model.fuegeMediumEin(new AusleiheMedienFormatierer(cd4, false, null));
+        assertEquals(4, _model.getRowCount());
+        assertEquals(cd4, _model.getMediumFuerZeile(2));
+        assertEquals(_cd2, _model.getMediumFuerZeile(3));
+        assertEquals(TableModelEvent.INSERT, ereignisse.get(0)
+            .getType());
+        assertEquals(2, ereignisse.get(0)
+            .getFirstRow());
+        assertEquals(2, ereignisse.get(0)
+            .getLastRow());
+
+        _model.aktualisiereMedium(new AusleiheMedienFormatierer(_cd2, true,
+                null));
+        assertEquals(_cd2, _model.getMediumFuerZeile(3));
+        assertEquals(TableModelEvent.UPDATE, ereignisse.get(1)
+            .getType());
+        assertEquals(3, ereignisse.get(1)
+            .getFirstRow());
+        assertEquals(3, ereignisse.get(1)
+            .getLastRow());
+
+        _model.entferneMedium(_cd3);
+        assertFalse(_model.enthaeltMedium(_cd3));
+        assertEquals(_cd1, _model.getMediumFuerZeile(0));
+        assertEquals(cd4, _model.getMediumFuerZeile(1));
+        assertEquals(TableModelEvent.DELETE, ereignisse.get(2)
+            .getType());
+        assertEquals(1, ereignisse.get(2)
+            .getFirstRow());
+        assertEquals(3, ereignisse.size());
+    }
+
+    @Test
+    public void testeFormatiererWerdenErstBeimAnzeigenErzeugt()
+            throws Exception
+    {
+        final List<Medium> erzeugt = new ArrayList<Medium>();
+        int anzahl = 2
+                * AusleiheMedienTableModel.MAX_ZWISCHENGESPEICHERTE_FORMATIERER;
+        List<Medium> medien = new ArrayList<Medium>();
+        for (int i = 0; i < anzahl; ++i)
+        {
+            medien.add(new CD("Titel" + i, "Kommentar", "Interpret", 42));
+        }
+        AusleiheMedienTableModel model = new AusleiheMedienTableModel();
+        model.setMedien(medien, new AusleiheMedienFormatiererQuelle()
+        {
+            @Override
+            public AusleiheMedienFormatierer erzeugeFormatierer(Medium medium)
+            {
+                erzeugt.add(medium);
+                return new AusleiheMedienFormatierer(medium, false, null);
+            }
+        });
+        assertEquals(medien.size(), model.getRowCount());
+        assertTrue(erzeugt.isEmpty());
+
+        // Nur die angezeigte Zeile wird erzeugt und danach wiederverwendet
+        Medium erstesMedium = model.getMediumFuerZeile(0);
+        assertEquals("Titel0", model.getValueAt(0, 1));
+        model.getValueAt(0, 2);
+        assertEquals(1, erzeugt.size());
+        assertEquals(erstesMedium, erzeugt.get(0));
+
+        // Eine Aktualisierung verwirft den zwischengespeicherten Formatierer
+        model.aktualisiereMedium(erstesMedium);
+        model.getValueAt(0, 2);
+        assertEquals(2, erzeugt.size());
+
+        // Beim Durchblättern aller Zeilen wird die erste Zeile verdrängt
+        for (int zeile = 0; zeile < model.getRowCount(); ++zeile)
+        {
+            model.getValueAt(zeile, 2);
+        }
+        erzeugt.clear();
+        model.getValueAt(0, 2);
+        assertEquals(1, erzeugt.size());
+    }
+
+    @Test
+    public void testeUmbenanntesMediumWirdWiedergefunden() throws Exception
+    {
+        // Die Zeile steht noch unter dem alten Titel
+        _cd1.setTitel("CD3-Titel");
+        assertTrue(_model.enthaeltMedium(_cd1));
+
+        _model.aktualisiereMedium(new AusleiheMedienFormatierer(_cd1, true,
+                null));
+        assertEquals(3, _model.getRowCount());
+        assertEquals(_cd3, _model.getMediumFuerZeile(0));
+        assertEquals(_cd2, _model.getMediumFuerZeile(1));
+        assertEquals(_cd1, _model.getMediumFuerZeile(2));
+        assertEquals("CD3-Titel", _model.getValueAt(2, 1));
+
+        _model.entferneMedium(_cd1);
+        assertFalse(_model.enthaeltMedium(_cd1));
+        assertEquals(2, _model.getRowCount());
+    }
 }
@@ -9,9 +9,12 @@ import javax.swing.event.ListSelectionListener;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceObserver;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.ui.EventDispatchBeobachter;
 import de.uni_hamburg.informatik.swt.se2.mediathek.ui.ObservableSubWerkzeug;
 
 /**
@@ -29,6 +32,7 @@ public class AusleiheMedienauflisterWerkzeug extends ObservableSubWerkzeug
     private AusleiheMedienauflisterUI _ui;
     private MedienbestandService _medienbestand;
     private final VerleihService _verleihService;
+    private final ObservableService _aenderungen;
 
     /**
      * Initialisiert ein neues AusleiheMedienauflisterWerkzeug. Es wird die
@@ -36,18 +40,25 @@ public class AusleiheMedienauflisterWerkzeug extends ObservableSubWerkzeug
      * 
      * @param medienbestand Der Medienbestand.
      * @param verleihService Der Verleih-Service.
+     * @param aenderungen Meldet die Änderungen an Medienbestand und
+     *            Verleih-Service, etwa ein AenderungsBus, der beide
+     *            beobachtet. Die Beobachter der Tabelle werden im
+     *            Event-Dispatch-Thread benachrichtigt.
      * 
      * @require medienbestand != null
      * @require verleihService != null
+     * @require aenderungen != null
      */
     public AusleiheMedienauflisterWerkzeug(MedienbestandService medienbestand,
-            VerleihService verleihService)
+            VerleihService verleihService, ObservableService aenderungen)
     {
         assert medienbestand != null : "Vorbedingung verletzt: medienbestand != null";
         assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+        assert aenderungen != null : "Vorbedingung verletzt: aenderungen != null";
 
         _medienbestand = medienbestand;
         _verleihService = verleihService;
+        _aenderungen = aenderungen;
 
         // UI wird erzeugt.
         _ui = new AusleiheMedienauflisterUI();
@@ -71,28 +82,83 @@ public class AusleiheMedienauflisterWerkzeug extends ObservableSubWerkzeug
     }
 
     /**
-     * Holt und setzt die Medieninformationen.
+     * Holt und setzt die Medieninformationen. Die Verleihinformationen eines
+     * Mediums werden erst ermittelt, wenn die Tabelle seine Zeile anzeigt.
      */
     private void setzeAnzuzeigendeMedien()
     {
         List<Medium> medienListe = _medienbestand.getMedien();
-        List<AusleiheMedienFormatierer> medienFormatierer = new ArrayList<AusleiheMedienFormatierer>();
-        for (Medium medium : medienListe)
+        _ui.getMedienAuflisterTableModel()
+            .setMedien(medienListe, new AusleiheMedienFormatiererQuelle()
+            {
+                @Override
+                public AusleiheMedienFormatierer erzeugeFormatierer(
+                        Medium medium)
+                {
+                    return AusleiheMedienauflisterWerkzeug.this
+                        .erzeugeFormatierer(medium);
+                }
+            });
+    }
+
+    /**
+     * Übernimmt die gemeldeten Änderungen in die UI. Für jedes betroffene
+     * Medium wird nur dessen Zeile eingefügt, aktualisiert oder entfernt, je
+     * nachdem, ob es noch im Medienbestand ist und bereits angezeigt wird. Die
+     * Verleihinformationen werden erst beim Anzeigen der Zeile ermittelt.
+     * 
+     * @param aenderungen Die von einem Service gemeldeten Änderungen.
+     */
+    private void aktualisiereAngezeigteMedien(
+            List<ServiceAenderung> aenderungen)
+    {
+        AusleiheMedienTableModel tableModel = _ui.getMedienAuflisterTableModel();
+        for (ServiceAenderung aenderung : aenderungen)
         {
-            boolean istVerliehen = _verleihService.istVerliehen(medium);
-            // TODO für Aufgabenblatt 6 (nicht löschen): Falls ein Vormerker für
-            // ein Medium existiert, muss dieser hier ermittelt werden.
-            // Ist dies korrekt implementiert, erscheint in der Ausleiheansicht
-            // der Name des Vormerkers, an den ein Medium ausgeliehen werden
-            // darf, gemäß Anforderung c).
-            List<Kunde> vormerkerListe = _verleihService.getVormerkerFuer(medium);
-            Kunde ersterVormerker = (!vormerkerListe.isEmpty()) ? vormerkerListe.get(0) : null;
-
-            medienFormatierer.add(new AusleiheMedienFormatierer(medium,
-                    istVerliehen, ersterVormerker));
+            Medium medium = aenderung.getMedium();
+            if (medium == null)
+            {
+                continue;
+            }
+            boolean angezeigt = tableModel.enthaeltMedium(medium);
+            if (!_medienbestand.enthaeltMedium(medium))
+            {
+                if (angezeigt)
+                {
+                    tableModel.entferneMedium(medium);
+                }
+            }
+            else if (angezeigt)
+            {
+                tableModel.aktualisiereMedium(medium);
+            }
+            else
+            {
+                tableModel.fuegeMediumEin(medium);
+            }
         }
-        _ui.getMedienAuflisterTableModel()
-            .setMedien(medienFormatierer);
+    }
+
+    /**
+     * Erzeugt den Formatierer für ein Medium mit seinen aktuellen
+     * Verleihinformationen.
+     * 
+     * @param medium Ein Medium aus dem Medienbestand.
+     * @return Der Formatierer des Mediums.
+     */
+    private AusleiheMedienFormatierer erzeugeFormatierer(Medium medium)
+    {
+        boolean istVerliehen = _verleihService.istVerliehen(medium);
+        // TODO für Aufgabenblatt 6 (nicht löschen): Falls ein Vormerker für
+        // ein Medium existiert, muss dieser hier ermittelt werden.
+        // Ist dies korrekt implementiert, erscheint in der Ausleiheansicht
+        // der Name des Vormerkers, an den ein Medium ausgeliehen werden
+        // darf, gemäß Anforderung c).
+        List<Kunde> vormerkerListe = _verleihService.getVormerkerFuer(medium);
+        Kunde ersterVormerker = (!vormerkerListe.isEmpty()) ? vormerkerListe.get(0) : null;
+
+        return new AusleiheMedienFormatierer(medium, istVerliehen,
+                ersterVormerker);
     }
 
     /**
@@ -114,7 +180,8 @@ public class AusleiheMedienauflisterWerkzeug extends ObservableSubWerkzeug
     }
 
     /**
-     * Registriert die Beobacheter für die Services.
+     * Registriert die Beobachter für die Services. Sie werden im
+     * Event-Dispatch-Thread benachrichtigt.
      */
     private void registriereServiceBeobachter()
     {
@@ -127,9 +194,18 @@ public class AusleiheMedienauflisterWerkzeug extends ObservableSubWerkzeug
                 // die angezeigte Liste aller Medien aktualisiert:
                 setzeAnzuzeigendeMedien();
             }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                // Meldet ein Service, welche Medien betroffen sind, werden
+                // nur deren Zeilen aktualisiert:
+                aktualisiereAngezeigteMedien(aenderungen);
+            }
         };
-        _medienbestand.registriereBeobachter(beobachter);
-        _verleihService.registriereBeobachter(beobachter);
+        _aenderungen
+            .registriereBeobachter(new EventDispatchBeobachter(beobachter));
     }
 
     /**
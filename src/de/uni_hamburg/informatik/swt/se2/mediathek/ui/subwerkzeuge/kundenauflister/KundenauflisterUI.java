@@ -6,6 +6,7 @@ import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.JTableHeader;
@@ -24,6 +25,7 @@ public class KundenauflisterUI
     private KundenTableModel _kundenTableModel;
     private JPanel _hauptPanel;
     private JTable _kundenTable;
+    private JTextField _suchfeld;
 
     /**
      * Initialisiert eine neue KundenauflisterUI.
@@ -32,6 +34,7 @@ public class KundenauflisterUI
     {
         erzeugeHauptPanel();
         erzeugeKundenTable();
+        erzeugeSuchfeld();
     }
 
     /**
@@ -71,6 +74,32 @@ public class KundenauflisterUI
         _hauptPanel.add(kundenAuflisterScrollPane, BorderLayout.CENTER);
     }
 
+    /**
+     * Erzeugt das Suchfeld, mit dem die angezeigten Kunden nach dem Anfang
+     * ihres Namens gefiltert werden.
+     */
+    private void erzeugeSuchfeld()
+    {
+        _suchfeld = new JTextField();
+        _suchfeld.setBorder(BorderFactory.createTitledBorder(null,
+                "Namensanfang", TitledBorder.LEADING,
+                TitledBorder.DEFAULT_POSITION, UIConstants.HEADER_FONT));
+        _suchfeld.setBackground(UIConstants.BACKGROUND_COLOR);
+        _suchfeld.setFont(UIConstants.TEXT_FONT);
+
+        _hauptPanel.add(_suchfeld, BorderLayout.NORTH);
+    }
+
+    /**
+     * Gibt das Suchfeld für den Namensanfang zurück.
+     * 
+     * @ensure result != null
+     */
+    public JTextField getSuchfeld()
+    {
+        return _suchfeld;
+    }
+
     /**
      * Gibt die Kundentabelle (JTable) zurück.
      * 
@@ -3,6 +3,8 @@ package de.uni_hamburg.informatik.swt.se2.mediathek.ui.subwerkzeuge.kundenauflis
 import java.util.List;
 
 import javax.swing.JPanel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
@@ -21,6 +23,12 @@ import de.uni_hamburg.informatik.swt.se2.mediathek.ui.ObservableSubWerkzeug;
  */
 public class KundenauflisterWerkzeug extends ObservableSubWerkzeug
 {
+    /**
+     * Die Anzahl der Kunden, die bei einem eingegebenen Namensanfang höchstens
+     * angezeigt werden.
+     */
+    private static final int MAX_ANGEZEIGTE_TREFFER = 200;
+
     private KundenauflisterUI _ui;
     private KundenstammService _kundenstamm;
 
@@ -54,15 +62,22 @@ public class KundenauflisterWerkzeug extends ObservableSubWerkzeug
     private void registriereUIAktionen()
     {
         registriereKundenAnzeigenAktion();
+        registriereSuchAktion();
     }
 
     /**
      * Holt die anzuzeigenden Kunden aus den Services und setzt diese bei dem
-     * TableModel.
+     * TableModel. Ist ein Namensanfang eingegeben, werden nur die ersten dazu
+     * passenden Kunden angezeigt.
      */
     private void setzeAnzuzeigendeKunden()
     {
-        List<Kunde> kunden = _kundenstamm.getKunden();
+        String namensanfang = _ui.getSuchfeld()
+            .getText()
+            .trim();
+        List<Kunde> kunden = namensanfang.isEmpty() ? _kundenstamm.getKunden()
+                : _kundenstamm.sucheKunden(namensanfang,
+                        MAX_ANGEZEIGTE_TREFFER);
         _ui.getKundenAuflisterTableModel()
             .setKunden(kunden);
     }
@@ -85,6 +100,36 @@ public class KundenauflisterWerkzeug extends ObservableSubWerkzeug
             });
     }
 
+    /**
+     * Registriert die Aktion, die die angezeigten Kunden bei jeder Eingabe in
+     * das Suchfeld neu filtert.
+     */
+    private void registriereSuchAktion()
+    {
+        _ui.getSuchfeld()
+            .getDocument()
+            .addDocumentListener(new DocumentListener()
+            {
+                @Override
+                public void insertUpdate(DocumentEvent e)
+                {
+                    setzeAnzuzeigendeKunden();
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent e)
+                {
+                    setzeAnzuzeigendeKunden();
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent e)
+                {
+                    setzeAnzuzeigendeKunden();
+                }
+            });
+    }
+
     /**
      * Gibt den vom Benutzer selektierten Kunden zurück. Falls kein Kunde
      * selektiert ist, gebe null zurück.
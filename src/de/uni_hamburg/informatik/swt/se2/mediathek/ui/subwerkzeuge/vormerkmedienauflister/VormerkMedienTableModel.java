@@ -25,12 +25,18 @@ public class VormerkMedienTableModel extends AbstractTableModel
 
     private List<VormerkMedienFormatierer> _medienListe;
 
+    /**
+     * Der Comparator, der die Sortierreihenfolge der Medien-Liste festlegt.
+     */
+    private final VormerkMedienFormatiererComparator _comparator;
+
     /**
      * Initialisiert ein VormerkMedienTableModel.
      */
     public VormerkMedienTableModel()
     {
         _medienListe = new ArrayList<VormerkMedienFormatierer>();
+        _comparator = new VormerkMedienFormatiererComparator();
     }
 
     @Override
@@ -129,12 +135,86 @@ public class VormerkMedienTableModel extends AbstractTableModel
         _medienListe = new ArrayList<VormerkMedienFormatierer>(medien);
 
         // sortiere Medien-Liste
-        Collections.sort(_medienListe,
-                new VormerkMedienFormatiererComparator());
+        Collections.sort(_medienListe, _comparator);
 
         fireTableDataChanged();
     }
 
+    /**
+     * Prüft, ob ein Medium in einer Zeile des TableModels dargestellt wird.
+     * 
+     * @param medium Ein Medium.
+     * 
+     * @require medium != null
+     */
+    public boolean enthaeltMedium(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        return sucheZeile(medium) >= 0;
+    }
+
+    /**
+     * Fügt ein Medium an der Stelle ein, die der Sortierreihenfolge entspricht.
+     * Die Tabelle wird nur über die neue Zeile informiert.
+     * 
+     * @param formatierer Der Formatierer des einzufügenden Mediums.
+     * 
+     * @require formatierer != null
+     * @require !enthaeltMedium(formatierer.getMedium())
+     */
+    public void fuegeMediumEin(VormerkMedienFormatierer formatierer)
+    {
+        assert formatierer != null : "Vorbedingung verletzt: formatierer != null";
+        assert !enthaeltMedium(formatierer
+            .getMedium()) : "Vorbedingung verletzt: !enthaeltMedium(formatierer.getMedium())";
+        int zeile = sucheEinfuegePosition(formatierer);
+        _medienListe.add(zeile, formatierer);
+        fireTableRowsInserted(zeile, zeile);
+    }
+
+    /**
+     * Ersetzt den Formatierer eines angezeigten Mediums. Rückt das Medium dabei
+     * in der Sortierreihenfolge an eine andere Stelle, werden alle Zeilen
+     * zwischen alter und neuer Stelle als geändert gemeldet, sonst nur die
+     * Zeile des Mediums.
+     * 
+     * @param formatierer Der neue Formatierer des Mediums.
+     * 
+     * @require formatierer != null
+     * @require enthaeltMedium(formatierer.getMedium())
+     */
+    public void aktualisiereMedium(VormerkMedienFormatierer formatierer)
+    {
+        assert formatierer != null : "Vorbedingung verletzt: formatierer != null";
+        assert enthaeltMedium(formatierer
+            .getMedium()) : "Vorbedingung verletzt: enthaeltMedium(formatierer.getMedium())";
+        int alteZeile = sucheZeile(formatierer.getMedium());
+        _medienListe.remove(alteZeile);
+        int neueZeile = sucheEinfuegePosition(formatierer);
+        _medienListe.add(neueZeile, formatierer);
+        fireTableRowsUpdated(Math.min(alteZeile, neueZeile),
+                Math.max(alteZeile, neueZeile));
+    }
+
+    /**
+     * Entfernt die Zeile eines Mediums. Die Tabelle wird nur über die
+     * entfernte Zeile informiert.
+     * 
+     * @param medium Das zu entfernende Medium.
+     * 
+     * @require medium != null
+     * @require enthaeltMedium(medium)
+     */
+    public void entferneMedium(Medium medium)
+    {
+        assert medium != null : "Vorbedingung verletzt: medium != null";
+        assert enthaeltMedium(
+                medium) : "Vorbedingung verletzt: enthaeltMedium(medium)";
+        int zeile = sucheZeile(medium);
+        _medienListe.remove(zeile);
+        fireTableRowsDeleted(zeile, zeile);
+    }
+
     /**
      * Liefert den Medien-Formatierer für einen angegebenen Index. Die
      * Gültigkeit des Index wird nicht überprüft.
@@ -145,4 +225,68 @@ public class VormerkMedienTableModel extends AbstractTableModel
         return _medienListe.get(index);
     }
 
+    /**
+     * Sucht per binärer Suche die Stelle, an der ein Formatierer eingefügt
+     * werden muss. Bei gleichem Sortierschlüssel wird hinter den vorhandenen
+     * Einträgen eingefügt, wie es auch das Sortieren in #setMedien tut.
+     * 
+     * @param formatierer Der einzufügende Formatierer.
+     * @return Die Einfügestelle.
+     */
+    private int sucheEinfuegePosition(VormerkMedienFormatierer formatierer)
+    {
+        int links = 0;
+        int rechts = _medienListe.size();
+        while (links < rechts)
+        {
+            int mitte = (links + rechts) >>> 1;
+            if (_comparator.compare(_medienListe.get(mitte), formatierer) <= 0)
+            {
+                links = mitte + 1;
+            }
+            else
+            {
+                rechts = mitte;
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Sucht die Zeile eines Mediums. Per binärer Suche wird der Bereich mit
+     * gleichem Sortierschlüssel bestimmt und nur dieser durchlaufen. Wurde der
+     * Titel eines angezeigten Mediums geändert, steht seine Zeile noch unter
+     * dem alten Titel; dann wird die ganze Liste durchsucht.
+     * 
+     * @param medium Das gesuchte Medium.
+     * @return Die Zeile des Mediums oder -1, wenn es nicht angezeigt wird.
+     */
+    private int sucheZeile(Medium medium)
+    {
+        VormerkMedienFormatierer muster = new VormerkMedienFormatierer(medium,
+                null, null, null, null);
+        int zeile = sucheEinfuegePosition(muster) - 1;
+        while ((zeile >= 0) && (_comparator
+            .compare(_medienListe.get(zeile), muster) == 0))
+        {
+            if (_medienListe.get(zeile)
+                .getMedium()
+                .equals(medium))
+            {
+                return zeile;
+            }
+            --zeile;
+        }
+        for (zeile = 0; zeile < _medienListe.size(); ++zeile)
+        {
+            if (_medienListe.get(zeile)
+                .getMedium()
+                .equals(medium))
+            {
+                return zeile;
+            }
+        }
+        return -1;
+    }
+
 }
@@ -1,6 +1,7 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.ui.subwerkzeuge.vormerkmedienauflister;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -108,4 +109,46 @@ public class VormerkMedienTableModelTest
     {
         assertEquals(3, _model.getRowCount());
     }
+
+    @Test
+    public void testeEinzelneZeilenAendern() throws Exception
+    {
+        Medium cd0 = new CD("CD0-Titel", "CD0-Kommentar", "CD0-Interpret", 42);
+        _model.fuegeMediumEin(
+                new VormerkMedienFormatierer(cd0, null, null, null, null));
+        assertEquals(4, _model.getRowCount());
+        assertEquals(cd0, _model.getMediumFuerZeile(0));
+        assertEquals(_cd1, _model.getMediumFuerZeile(1));
+
+        _model.aktualisiereMedium(
+                new VormerkMedienFormatierer(_cd2, null, _kunde1, null, null));
+        assertEquals(_cd2, _model.getMediumFuerZeile(2));
+        assertEquals("", _model.getValueAt(2, 2));
+        assertEquals("Vorname1 Nachname1", _model.getValueAt(2, 3));
+
+        _model.entferneMedium(_cd1);
+        assertFalse(_model.enthaeltMedium(_cd1));
+        assertTrue(_model.enthaeltMedium(_cd3));
+        assertEquals(3, _model.getRowCount());
+        assertEquals(_cd2, _model.getMediumFuerZeile(1));
+    }
+
+    @Test
+    public void testeUmbenanntesMediumWirdWiedergefunden() throws Exception
+    {
+        // Die Zeile steht noch unter dem alten Titel
+        _cd1.setTitel("CD4-Titel");
+        assertTrue(_model.enthaeltMedium(_cd1));
+
+        _model.aktualisiereMedium(
+                new VormerkMedienFormatierer(_cd1, null, null, null, null));
+        assertEquals(3, _model.getRowCount());
+        assertEquals(_cd2, _model.getMediumFuerZeile(0));
+        assertEquals(_cd1, _model.getMediumFuerZeile(2));
+        assertEquals("CD4-Titel", _model.getValueAt(2, 1));
+
+        _model.entferneMedium(_cd1);
+        assertFalse(_model.enthaeltMedium(_cd1));
+        assertEquals(2, _model.getRowCount());
+    }
 }
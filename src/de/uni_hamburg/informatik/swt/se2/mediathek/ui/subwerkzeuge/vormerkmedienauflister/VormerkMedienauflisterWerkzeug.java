@@ -9,9 +9,12 @@ import javax.swing.event.ListSelectionListener;
 
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.Kunde;
 import de.uni_hamburg.informatik.swt.se2.mediathek.entitaeten.medien.Medium;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ObservableService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceAenderung;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.ServiceObserver;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.medienbestand.MedienbestandService;
 import de.uni_hamburg.informatik.swt.se2.mediathek.services.verleih.VerleihService;
+import de.uni_hamburg.informatik.swt.se2.mediathek.ui.EventDispatchBeobachter;
 import de.uni_hamburg.informatik.swt.se2.mediathek.ui.ObservableSubWerkzeug;
 
 /**
@@ -29,6 +32,7 @@ public class VormerkMedienauflisterWerkzeug extends ObservableSubWerkzeug
     private VormerkMedienauflisterUI _ui;
     private MedienbestandService _medienbestand;
     private final VerleihService _verleihService;
+    private final ObservableService _aenderungen;
 
     /**
      * Initialisiert ein neues VormerkMedienauflisterWerkzeug. Es wird die
@@ -36,18 +40,25 @@ public class VormerkMedienauflisterWerkzeug extends ObservableSubWerkzeug
      * 
      * @param medienbestand Der Medienbestand.
      * @param verleihService Der Verleih-Service.
+     * @param aenderungen Meldet die Änderungen an Medienbestand und
+     *            Verleih-Service, etwa ein AenderungsBus, der beide
+     *            beobachtet. Die Beobachter der Tabelle werden im
+     *            Event-Dispatch-Thread benachrichtigt.
      * 
      * @require medienbestand != null
      * @require verleihService != null
+     * @require aenderungen != null
      */
     public VormerkMedienauflisterWerkzeug(MedienbestandService medienbestand,
-            VerleihService verleihService)
+            VerleihService verleihService, ObservableService aenderungen)
     {
         assert medienbestand != null : "Vorbedingung verletzt: medienbestand != null";
         assert verleihService != null : "Vorbedingung verletzt: verleihService != null";
+        assert aenderungen != null : "Vorbedingung verletzt: aenderungen != null";
 
         _medienbestand = medienbestand;
         _verleihService = verleihService;
+        _aenderungen = aenderungen;
 
         // UI wird erzeugt.
         _ui = new VormerkMedienauflisterUI();
@@ -80,28 +91,76 @@ public class VormerkMedienauflisterWerkzeug extends ObservableSubWerkzeug
         
         for (Medium medium : medienListe)
         {
-            // TODO für Aufgabenblatt 6 (nicht löschen): Die
-            // VormerkMedienFormatierer müssen noch mit einem möglichen
-            // Entleiher und möglichen Vormerkern ausgestattet werden.
-            // Ist dies korrekt implementiert, erscheinen in der Vormerkansicht
-            // die Namen des Entleihers und der möglichen 3 Vormerker.
-        	
-        	
-        	Kunde entleiher = _verleihService.istVerliehen(medium) ? _verleihService.getEntleiherFuer(medium): null;
-        	List<Kunde> vormerkerListe = _verleihService.getVormerkerFuer(medium);
-        	
-        	 Kunde vormerker1 = vormerkerListe.size() > 0 ? vormerkerListe.get(0) : null;
-        	 Kunde vormerker2 = vormerkerListe.size() > 1 ? vormerkerListe.get(1) : null;
-        	 Kunde vormerker3 = vormerkerListe.size() > 2 ? vormerkerListe.get(2) : null;
-
-            medienFormatierer.add(new VormerkMedienFormatierer(medium,
-                    entleiher, vormerker1, vormerker2, vormerker3));
+            medienFormatierer.add(erzeugeFormatierer(medium));
         }
         _ui.getMedienAuflisterTableModel()
             .setMedien(medienFormatierer);
         informiereUeberAenderung();
     }
 
+    /**
+     * Übernimmt die gemeldeten Änderungen in die UI. Für jedes betroffene
+     * Medium wird nur dessen Zeile eingefügt, aktualisiert oder entfernt, je
+     * nachdem, ob es noch im Medienbestand ist und bereits angezeigt wird.
+     * 
+     * @param aenderungen Die von einem Service gemeldeten Änderungen.
+     */
+    private void aktualisiereAngezeigteMedien(
+            List<ServiceAenderung> aenderungen)
+    {
+        VormerkMedienTableModel tableModel = _ui.getMedienAuflisterTableModel();
+        for (ServiceAenderung aenderung : aenderungen)
+        {
+            Medium medium = aenderung.getMedium();
+            if (medium == null)
+            {
+                continue;
+            }
+            boolean angezeigt = tableModel.enthaeltMedium(medium);
+            if (!_medienbestand.enthaeltMedium(medium))
+            {
+                if (angezeigt)
+                {
+                    tableModel.entferneMedium(medium);
+                }
+            }
+            else if (angezeigt)
+            {
+                tableModel.aktualisiereMedium(erzeugeFormatierer(medium));
+            }
+            else
+            {
+                tableModel.fuegeMediumEin(erzeugeFormatierer(medium));
+            }
+        }
+        informiereUeberAenderung();
+    }
+
+    /**
+     * Erzeugt den Formatierer für ein Medium mit seinem aktuellen Entleiher
+     * und seinen Vormerkern.
+     * 
+     * @param medium Ein Medium aus dem Medienbestand.
+     * @return Der Formatierer des Mediums.
+     */
+    private VormerkMedienFormatierer erzeugeFormatierer(Medium medium)
+    {
+        // TODO für Aufgabenblatt 6 (nicht löschen): Die
+        // VormerkMedienFormatierer müssen noch mit einem möglichen
+        // Entleiher und möglichen Vormerkern ausgestattet werden.
+        // Ist dies korrekt implementiert, erscheinen in der Vormerkansicht
+        // die Namen des Entleihers und der möglichen 3 Vormerker.
+        Kunde entleiher = _verleihService.istVerliehen(medium) ? _verleihService.getEntleiherFuer(medium) : null;
+        List<Kunde> vormerkerListe = _verleihService.getVormerkerFuer(medium);
+
+        Kunde vormerker1 = vormerkerListe.size() > 0 ? vormerkerListe.get(0) : null;
+        Kunde vormerker2 = vormerkerListe.size() > 1 ? vormerkerListe.get(1) : null;
+        Kunde vormerker3 = vormerkerListe.size() > 2 ? vormerkerListe.get(2) : null;
+
+        return new VormerkMedienFormatierer(medium, entleiher, vormerker1,
+                vormerker2, vormerker3);
+    }
+
     /**
      * Registiert die Aktion, die ausgeführt wird, wenn ein Medium ausgewählt
      * wird.
@@ -121,7 +180,8 @@ public class VormerkMedienauflisterWerkzeug extends ObservableSubWerkzeug
     }
 
     /**
-     * Registriert die Beobacheter für die Services.
+     * Registriert die Beobachter für die Services. Sie werden im
+     * Event-Dispatch-Thread benachrichtigt.
      */
     private void registriereServiceBeobachter()
     {
@@ -134,9 +194,18 @@ public class VormerkMedienauflisterWerkzeug extends ObservableSubWerkzeug
                 // die angezeigte Liste aller Medien aktualisiert:
                 setzeAnzuzeigendeMedien();
             }
+
+            @Override
+            public void reagiereAufAenderungen(
+                    List<ServiceAenderung> aenderungen)
+            {
+                // Meldet ein Service, welche Medien betroffen sind, werden
+                // nur deren Zeilen aktualisiert:
+                aktualisiereAngezeigteMedien(aenderungen);
+            }
         };
-        _medienbestand.registriereBeobachter(beobachter);
-        _verleihService.registriereBeobachter(beobachter);
+        _aenderungen
+            .registriereBeobachter(new EventDispatchBeobachter(beobachter));
     }
 
     /**
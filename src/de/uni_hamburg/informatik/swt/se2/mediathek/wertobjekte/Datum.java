@@ -1,8 +1,5 @@
 package de.uni_hamburg.informatik.swt.se2.mediathek.wertobjekte;
 
-import java.util.Calendar;
-import java.util.TimeZone;
-
 /**
  * Ein Kalenderdatum, bestehend aus Tag, Monat und Jahr.
  * 
@@ -10,17 +7,25 @@ import java.util.TimeZone;
  * Datum zu ermitteln und zu überprüfen, ob drei Ganzzahlen ein gültiges Datum
  * bilden.
  * 
+ * Intern wird zusätzlich die Anzahl der Tage seit dem 1.1.1970 gespeichert,
+ * so dass Vergleiche und Tagesrechnungen ohne Calendar und ohne Sperren
+ * auskommen. Es wird der gregorianische Kalender auch für Daten vor seiner
+ * Einführung verwendet.
+ * 
  * @author SE2-Team
  * @version SoSe 2021
  */
 public final class Datum implements Comparable<Datum>
 {
-    // Dieses Calendar-Exemplar wird für die Gültigkeitsprüfung verwendet.
-    private static final Calendar CALENDAR = Calendar.getInstance();
-
     // Die Anzahl von Millesekunden an einem Tag
     private static final long MILLISECONDS_IN_ONE_DAY = 1000 * 60 * 60 * 24;
 
+    // Die Anzahl der Tage in einem Zyklus von 400 Jahren
+    private static final int TAGE_IN_400_JAHREN = 146097;
+
+    // Die Anzahl der Tage vom 1.3.0000 bis zum 1.1.1970
+    private static final int TAGE_BIS_1970 = 719468;
+
     // Dieses Feld ist das Jahr
     private final int _jahr;
 
@@ -30,13 +35,8 @@ public final class Datum implements Comparable<Datum>
     // Dieses Feld ist der Tag im Monat (1..31)
     private final int _tag;
 
-    // "Static initializer", initialisiert Klassenvariablen nach der Erzeugung
-    // des Klassenobjekts.
-    static
-    {
-        CALENDAR.setLenient(false);
-        CALENDAR.setTimeZone(TimeZone.getTimeZone("GMT"));
-    }
+    // Dieses Feld ist die Anzahl der Tage seit dem 1.1.1970
+    private final int _epochenTag;
 
     /**
      * Wählt ein Datum aus (tag, monat, jahr).
@@ -59,6 +59,76 @@ public final class Datum implements Comparable<Datum>
         _tag = tag;
         _monat = monat;
         _jahr = jahr;
+        _epochenTag = berechneEpochenTag(tag, monat, jahr);
+    }
+
+    /**
+     * Erzeugt das Datum zu einem Epochentag.
+     * 
+     * @param epochenTag Die Anzahl der Tage seit dem 1.1.1970.
+     */
+    private static Datum ausEpochenTag(int epochenTag)
+    {
+        // Die Jahre werden ab dem 1. März gezählt, damit der Schalttag am
+        // Ende des Jahres liegt.
+        int tage = epochenTag + TAGE_BIS_1970;
+        int zyklus = Math.floorDiv(tage, TAGE_IN_400_JAHREN);
+        int tagImZyklus = tage - zyklus * TAGE_IN_400_JAHREN;
+        int jahrImZyklus = (tagImZyklus - tagImZyklus / 1460
+                + tagImZyklus / 36524 - tagImZyklus / 146096) / 365;
+        int tagImJahr = tagImZyklus
+                - (365 * jahrImZyklus + jahrImZyklus / 4 - jahrImZyklus / 100);
+        int monatAbMaerz = (5 * tagImJahr + 2) / 153;
+        int tag = tagImJahr - (153 * monatAbMaerz + 2) / 5 + 1;
+        int monat = monatAbMaerz < 10 ? monatAbMaerz + 3 : monatAbMaerz - 9;
+        int jahr = jahrImZyklus + zyklus * 400 + (monat <= 2 ? 1 : 0);
+        return new Datum(tag, monat, jahr);
+    }
+
+    /**
+     * Berechnet die Anzahl der Tage vom 1.1.1970 bis zum angegebenen Datum.
+     */
+    private static int berechneEpochenTag(int tag, int monat, int jahr)
+    {
+        int jahrAbMaerz = monat <= 2 ? jahr - 1 : jahr;
+        int zyklus = Math.floorDiv(jahrAbMaerz, 400);
+        int jahrImZyklus = jahrAbMaerz - zyklus * 400;
+        int monatAbMaerz = monat > 2 ? monat - 3 : monat + 9;
+        int tagImJahr = (153 * monatAbMaerz + 2) / 5 + tag - 1;
+        int tagImZyklus = jahrImZyklus * 365 + jahrImZyklus / 4
+                - jahrImZyklus / 100 + tagImJahr;
+        return zyklus * TAGE_IN_400_JAHREN + tagImZyklus - TAGE_BIS_1970;
+    }
+
+    /**
+     * Prüft, ob das angegebene Jahr ein Schaltjahr ist.
+     */
+    private static boolean istSchaltjahr(int jahr)
+    {
+        return (jahr % 4 == 0) && ((jahr % 100 != 0) || (jahr % 400 == 0));
+    }
+
+    /**
+     * Liefert die Anzahl der Tage im angegebenen Monat.
+     */
+    private static int tageImMonat(int monat, int jahr)
+    {
+        int tage;
+        switch (monat)
+        {
+        case 2:
+            tage = istSchaltjahr(jahr) ? 29 : 28;
+            break;
+        case 4:
+        case 6:
+        case 9:
+        case 11:
+            tage = 30;
+            break;
+        default:
+            tage = 31;
+        }
+        return tage;
     }
 
     /**
@@ -68,16 +138,8 @@ public final class Datum implements Comparable<Datum>
      */
     public static Datum heute()
     {
-        Datum datum = null;
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.setTimeInMillis(System.currentTimeMillis());
-            datum = new Datum(CALENDAR.get(Calendar.DAY_OF_MONTH),
-                    CALENDAR.get(Calendar.MONTH) + 1,
-                    CALENDAR.get(Calendar.YEAR));
-        }
-        return datum;
+        return ausEpochenTag((int) Math.floorDiv(System.currentTimeMillis(),
+                MILLISECONDS_IN_ONE_DAY));
     }
 
     /**
@@ -91,19 +153,8 @@ public final class Datum implements Comparable<Datum>
      */
     public static boolean istGueltig(int tag, int monat, int jahr)
     {
-        boolean gueltig = ((monat >= 1) && (monat <= 12));
-        if (gueltig)
-        {
-            synchronized (CALENDAR)
-            {
-                CALENDAR.clear();
-                CALENDAR.set(Calendar.YEAR, jahr);
-                CALENDAR.set(Calendar.MONTH, monat - 1);
-                gueltig = ((tag >= 1) && (tag <= CALENDAR
-                    .getActualMaximum(Calendar.DAY_OF_MONTH)));
-            }
-        }
-        return gueltig;
+        return (monat >= 1) && (monat <= 12) && (tag >= 1)
+                && (tag <= tageImMonat(monat, jahr));
     }
 
     /**
@@ -143,8 +194,7 @@ public final class Datum implements Comparable<Datum>
     @Override
     public int hashCode()
     {
-        // Hash-Code ist ca. die Anzahl der Tage seit dem Jahr 0
-        return getJahr() * 365 + getMonat() * 31 + getTag();
+        return _epochenTag;
     }
 
     /**
@@ -184,17 +234,7 @@ public final class Datum implements Comparable<Datum>
     public Datum minus(int tage)
     {
         assert tage >= 0 : "Vorbedingung verletzt: tage >= 0";
-        Datum datum = null;
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.set(_jahr, _monat - 1, _tag);
-            CALENDAR.add(Calendar.DAY_OF_MONTH, -tage);
-            datum = new Datum(CALENDAR.get(Calendar.DAY_OF_MONTH),
-                    CALENDAR.get(Calendar.MONTH) + 1,
-                    CALENDAR.get(Calendar.YEAR));
-        }
-        return datum;
+        return ausEpochenTag(_epochenTag - tage);
     }
 
     /**
@@ -210,17 +250,7 @@ public final class Datum implements Comparable<Datum>
     public Datum plus(int tage)
     {
         assert tage >= 0 : "Vorbedingung verletzt: tage >= 0";
-        Datum datum = null;
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.set(_jahr, _monat - 1, _tag);
-            CALENDAR.add(Calendar.DAY_OF_MONTH, tage);
-            datum = new Datum(CALENDAR.get(Calendar.DAY_OF_MONTH),
-                    CALENDAR.get(Calendar.MONTH) + 1,
-                    CALENDAR.get(Calendar.YEAR));
-        }
-        return datum;
+        return ausEpochenTag(_epochenTag + tage);
     }
 
     /**
@@ -255,24 +285,7 @@ public final class Datum implements Comparable<Datum>
     {
         assert startDatum != null : "Vorbedingung verletzt: startDatum != null";
 
-        long startMillis = startDatum.inMillisekunden();
-        long endMillis = this.inMillisekunden();
-
-        return (int) ((endMillis - startMillis) / MILLISECONDS_IN_ONE_DAY);
-    }
-
-    /**
-     * Gibt dieses Datum in Millisekunden zurück.
-     */
-    private long inMillisekunden()
-    {
-        synchronized (CALENDAR)
-        {
-            CALENDAR.clear();
-            CALENDAR.set(_jahr, _monat - 1, _tag);
-            long endMillis = CALENDAR.getTimeInMillis();
-            return endMillis;
-        }
+        return _epochenTag - startDatum._epochenTag;
     }
 
     /**
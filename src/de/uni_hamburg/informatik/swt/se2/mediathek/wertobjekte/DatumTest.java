@@ -111,4 +111,21 @@ public class DatumTest
     {
         assertNotNull(Datum.heute());
     }
+
+    @Test
+    public void testSchaltjahre()
+    {
+        assertTrue(Datum.istGueltig(29, 2, 2020));
+        assertFalse(Datum.istGueltig(29, 2, 2021));
+        assertFalse(Datum.istGueltig(29, 2, 1900));
+        assertTrue(Datum.istGueltig(29, 2, 2000));
+        assertFalse(Datum.istGueltig(31, 4, 2021));
+
+        assertEquals(new Datum(29, 2, 2020), new Datum(28, 2, 2020).plus(1));
+        assertEquals(new Datum(1, 3, 2021), new Datum(28, 2, 2021).plus(1));
+        assertEquals(366, new Datum(1, 1, 2021).tageSeit(new Datum(1, 1, 2020)));
+        assertEquals(-146097,
+                new Datum(1, 1, 1600).tageSeit(new Datum(1, 1, 2000)));
+        assertEquals(new Datum(31, 12, 1969), new Datum(1, 1, 1970).minus(1));
+    }
 }